@@ -1,6 +1,8 @@
 package uk.ac.qub.eeecs.demos.app;
 
 import uk.ac.qub.eeecs.demos.R;
+import uk.ac.qub.eeecs.demos.engine.loop.FixedStepGameLoop;
+import uk.ac.qub.eeecs.demos.engine.loop.GameLoopListener;
 import android.app.Fragment;
 import android.os.Bundle;
 import android.util.Log;
@@ -14,7 +16,7 @@ public class GameLoopTestFragment extends Fragment {
 	/**
 	 * Game loop that will drive the update and draw behaviours
 	 */
-	private GameLoop mLoop;
+	private FixedStepGameLoop mLoop;
 
 	// ////////////////////////////////////////////////////////////////////////
 	// Create and Destroy
@@ -23,7 +25,17 @@ public class GameLoopTestFragment extends Fragment {
 	@Override
 	public void onCreate(Bundle savedInstanceState) {
 		// Create a new game loop running at an impressive 2 FPS!
-		mLoop = new GameLoop(2);
+		mLoop = new FixedStepGameLoop(new GameLoopListener() {
+			@Override
+			public void update(float stepTime) {
+				doUpdate();
+			}
+
+			@Override
+			public void render(float interpolation) {
+				doDraw();
+			}
+		}, 2, 2);
 
 		super.onCreate(savedInstanceState);
 	}
@@ -80,171 +92,5 @@ public class GameLoopTestFragment extends Fragment {
 	 */
 	protected void doDraw() {
 		Log.d("Loop", "Draw" + counter);
-	}	
-	
-	// ////////////////////////////////////////////////////////////////////////
-	// Game Loop
-	// ////////////////////////////////////////////////////////////////////////
-
-	/**
-	 * Core game loop thread
-	 * 
-	 * @version 1.0
-	 */
-	private class GameLoop implements Runnable {
-
-		// ////////////////////////////////////////////////////////////////////
-		// Properties
-		// ////////////////////////////////////////////////////////////////////
-
-		/**
-		 * Target number of FPS
-		 */
-		int targetFramesPerSecond;
-
-		/**
-		 * Thread on which the game loop will run
-		 */
-		Thread renderThread = null;
-
-		/**
-		 * Flag determining if the update/draw thread is running
-		 */
-		volatile boolean running = false;
-
-		/**
-		 * Variable holding the duration (in ns) of the target game step period.
-		 * Changes to the Game's mTargetUpdatesPerSecond will change this value.
-		 */
-		long targetStepPeriod;
-
-		// ////////////////////////////////////////////////////////////////////
-		// Constructor
-		// ////////////////////////////////////////////////////////////////////
-
-		/**
-		 * Create a new game loop (the update/draw process will not commence
-		 * until the run method is executed).
-		 */
-		public GameLoop(int targetFPS) {
-			targetFramesPerSecond = targetFPS;
-			// Setup the target step period
-			targetStepPeriod = 1000000000 / targetFramesPerSecond;
-		}
-
-		// ////////////////////////////////////////////////////////////////////
-		// Methods: Update/Draw Loop
-		// ////////////////////////////////////////////////////////////////////
-
-		/**
-		 * Start the update/draw process within a new thread.
-		 * 
-		 * A relatively simple approach is employed that can support basic
-		 * multi-threading. A more sophisticated threaded approache might adopt
-		 * a three-phase prep-update-draw approach where the prep of frame n+1
-		 * occurs concurrently (across one or more threads) whilst the draw of
-		 * frame n executes. A more sophisticated timing approach might decouple
-		 * the draw and render phases, skipping the render of a frame if needed
-		 * to maintain a target update rate.
-		 */
-		@Override
-		public void run() {
-
-			/**
-			 * Define variables which will be used to provide timing information
-			 * to enable precise control of the update/render cycle.
-			 * 
-			 * startRun records the time at which the first iteration commenced
-			 * and is used to track total run time.
-			 * 
-			 * The startStep and endStep variables record the time before and
-			 * time immediately after the update/render step.
-			 * 
-			 * sleepTime records how long the thread should sleep before it is
-			 * necessary to start on the next update/render cycle (this may be a
-			 * negative period - i.e. the update/render process took longer than
-			 * desired). overSleepTime records how much longer the thread sleep
-			 * than was originally requested (i.e. accounting for the
-			 * unpredictable delay in waking up the thread).
-			 */
-			long startRun;
-			long startStep, endStep;
-			long sleepTime, overSleepTime;
-
-			/**
-			 * Define default starting values. The startTime and postRender
-			 * times are set to one frame 'in the past' to avoid near zero
-			 * timings for the first iteration. overSleepTime is set to zero.
-			 */
-			startRun = System.nanoTime() - targetStepPeriod;
-			startStep = startRun;
-			overSleepTime = 0L;
-
-			try {
-				while (running) {
-
-					// Update the timing information
-					long currentTime = System.nanoTime();
-					startStep = currentTime;
-
-					doUpdate();
-					doDraw();
-
-					// Measure how long the update/draw took to complete and
-					// how long to sleep until the next cycle is due. This may
-					// be a negative number (we've exceeded the 'available'
-					// time).
-					endStep = System.nanoTime();
-					sleepTime = (targetStepPeriod - (endStep - startStep))
-							- overSleepTime;
-
-					// If needed put the thread to sleep
-					if (sleepTime > 0) {
-						Thread.sleep(sleepTime / 1000000L); // Covert ns into ms
-
-						// Determine how much longer we slept than was
-						// originally requested, we'll correct for this error
-						// next frame
-						overSleepTime = (System.nanoTime() - endStep)
-								- sleepTime;
-					} else {
-						overSleepTime = 0L;
-					}
-				}
-
-			} catch (InterruptedException e) {
-			}
-		}
-
-		// ////////////////////////////////////////////////////////////////////
-		// Methods: Pause/Resume
-		// ////////////////////////////////////////////////////////////////////
-
-		/**
-		 * Pause the game loop. This method will be called by the game whenever
-		 * it is paused.
-		 */
-		public void pause() {
-			running = false;
-			while (true) {
-				try {
-					renderThread.join();
-					return;
-				} catch (InterruptedException e) {
-				}
-			}
-		}
-
-		/**
-		 * Resume the game loop. This method will be called by the game whenever
-		 * it is resumed.
-		 */
-		public void resume() {
-			running = true;
-
-			renderThread = new Thread(this);
-			renderThread.start();
-		}
 	}
-
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+package uk.ac.qub.eeecs.demos.engine.assets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Process-wide asset loader, alongside decoders for the common asset types.
+ * Callbacks from the shared loader are run on the UI thread.
+ *
+ * @version 1.0
+ */
+public final class AssetLoaders {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Shared instance
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Number of I/O threads used by the shared loader. Decoding is largely
+	 * CPU bound, so a couple of threads overlap reading and decoding without
+	 * competing with the game loop for cores.
+	 */
+	public static final int IO_THREADS = 2;
+
+	/**
+	 * Loader instance shared across the process
+	 */
+	private static AssetLoader sInstance;
+
+	/**
+	 * Return the loader instance shared across the process
+	 *
+	 * @return Shared asset loader
+	 */
+	public static synchronized AssetLoader getInstance() {
+		if (sInstance == null) {
+			final Handler mainHandler = new Handler(Looper.getMainLooper());
+			sInstance = new AssetLoader(IO_THREADS, new Executor() {
+				@Override
+				public void execute(Runnable command) {
+					mainHandler.post(command);
+				}
+			});
+		}
+		return sInstance;
+	}
+
+	private AssetLoaders() {
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Decoders
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return a decoder loading text assets (as UTF-8)
+	 *
+	 * @param context Context whose assets hold the text
+	 * @return Text decoder
+	 */
+	public static AssetDecoder<String> text(Context context) {
+		return new TextDecoder(context.getApplicationContext().getAssets());
+	}
+
+	/**
+	 * Return a decoder loading bitmap assets
+	 *
+	 * @param context Context whose assets hold the bitmaps
+	 * @param config Preferred bitmap config (null for the decoder default)
+	 * @return Bitmap decoder
+	 */
+	public static AssetDecoder<Bitmap> bitmap(Context context, Bitmap.Config config) {
+		return new BitmapDecoder(context.getApplicationContext().getAssets(), config);
+	}
+
+	/**
+	 * Decoder loading text assets. Decoders using the same asset manager are
+	 * equal, so concurrent requests for the same text share a load.
+	 */
+	private static class TextDecoder implements AssetDecoder<String> {
+		private final AssetManager mAssets;
+
+		TextDecoder(AssetManager assets) {
+			mAssets = assets;
+		}
+
+		@Override
+		public String decode(String assetPath) throws IOException {
+			InputStream inputStream = mAssets.open(assetPath);
+			try {
+				// Load in the text in 4k chunks
+				ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+				byte[] chunk = new byte[4096];
+				int len;
+				while ((len = inputStream.read(chunk)) > 0)
+					byteStream.write(chunk, 0, len);
+				return new String(byteStream.toByteArray(), "UTF8");
+			} finally {
+				inputStream.close();
+			}
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof TextDecoder
+					&& ((TextDecoder) other).mAssets == mAssets;
+		}
+
+		@Override
+		public int hashCode() {
+			return mAssets.hashCode();
+		}
+	}
+
+	/**
+	 * Decoder loading bitmap assets. Decoders using the same asset manager
+	 * and config are equal, so concurrent requests for the same bitmap share
+	 * a load.
+	 */
+	private static class BitmapDecoder implements AssetDecoder<Bitmap> {
+		private final AssetManager mAssets;
+		private final Bitmap.Config mConfig;
+
+		BitmapDecoder(AssetManager assets, Bitmap.Config config) {
+			mAssets = assets;
+			mConfig = config;
+		}
+
+		@Override
+		public Bitmap decode(String assetPath) throws IOException {
+			InputStream inputStream = mAssets.open(assetPath);
+			try {
+				BitmapFactory.Options options = new BitmapFactory.Options();
+				if (mConfig != null)
+					options.inPreferredConfig = mConfig;
+				Bitmap bitmap = BitmapFactory.decodeStream(inputStream, null, options);
+				if (bitmap == null)
+					throw new IOException("Could not decode " + assetPath);
+				return bitmap;
+			} finally {
+				inputStream.close();
+			}
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof BitmapDecoder
+					&& ((BitmapDecoder) other).mAssets == mAssets
+					&& ((BitmapDecoder) other).mConfig == mConfig;
+		}
+
+		@Override
+		public int hashCode() {
+			return mAssets.hashCode() * 31 + (mConfig != null ? mConfig.hashCode() : 0);
+		}
+	}
+}
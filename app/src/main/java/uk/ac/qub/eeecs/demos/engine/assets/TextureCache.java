@@ -0,0 +1,328 @@
+package uk.ac.qub.eeecs.demos.engine.assets;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import uk.ac.qub.eeecs.demos.R;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+/**
+ * Process-wide cache of bitmaps decoded from the assets folder.
+ *
+ * Bitmaps are keyed by their asset path and decode options and are reference
+ * counted: each acquire should be matched by a release once the bitmap is no
+ * longer needed. Bitmaps that are still referenced are never evicted. Once
+ * released, a bitmap remains cached (so a later acquire does not need to
+ * decode it again) until the total size of the cache exceeds its byte budget,
+ * at which point the least recently used unreferenced bitmaps are evicted.
+ *
+ * @version 1.0
+ */
+public class TextureCache {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Shared instance
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Default byte budget for the cache
+	 */
+	public static final long DEFAULT_BUDGET_BYTES = 32L * 1024L * 1024L;
+
+	/**
+	 * Cache instance shared across the process
+	 */
+	private static TextureCache sInstance;
+
+	/**
+	 * Return the cache instance shared across the process
+	 *
+	 * @return Shared texture cache
+	 */
+	public static synchronized TextureCache getInstance() {
+		if (sInstance == null)
+			sInstance = new TextureCache(DEFAULT_BUDGET_BYTES);
+		return sInstance;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Cached bitmap alongside its key, size and reference count
+	 */
+	private static class Entry {
+		final String key;
+		final Bitmap bitmap;
+		final long sizeBytes;
+		int referenceCount;
+
+		Entry(String key, Bitmap bitmap) {
+			this.key = key;
+			this.bitmap = bitmap;
+			this.sizeBytes = bitmap.getAllocationByteCount();
+		}
+	}
+
+	/**
+	 * Cached entries, held in least to most recently used order
+	 */
+	private final LinkedHashMap<String, Entry> mEntries =
+			new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	/**
+	 * Lookup from a cached bitmap to its entry (used on release)
+	 */
+	private final IdentityHashMap<Bitmap, Entry> mEntriesByBitmap =
+			new IdentityHashMap<Bitmap, Entry>();
+
+	/**
+	 * Byte budget and current total size of all cached bitmaps
+	 */
+	private long mBudgetBytes;
+	private long mSizeBytes;
+
+	/**
+	 * Hit, miss and eviction counters
+	 */
+	private long mHitCount;
+	private long mMissCount;
+	private long mEvictionCount;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new texture cache
+	 *
+	 * @param budgetBytes Total size of cached bitmaps above which unreferenced
+	 *            bitmaps will be evicted
+	 */
+	public TextureCache(long budgetBytes) {
+		mBudgetBytes = budgetBytes;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Acquire and Release
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Acquire the bitmap held in the specified asset, decoded using the
+	 * default options
+	 *
+	 * @param context Context whose assets hold the bitmap
+	 * @param assetPath Location and name of the asset
+	 * @return Bitmap, or null if the asset could not be decoded
+	 */
+	public Bitmap acquire(Context context, String assetPath) {
+		return acquire(context, assetPath, null, 1);
+	}
+
+	/**
+	 * Acquire the bitmap held in the specified asset, decoded using the
+	 * specified options. If the bitmap is not already cached it will be
+	 * decoded on the calling thread.
+	 *
+	 * @param context Context whose assets hold the bitmap
+	 * @param assetPath Location and name of the asset
+	 * @param config Preferred bitmap config (null for the decoder default)
+	 * @param sampleSize Decode sample size (1 to decode at full size)
+	 * @return Bitmap, or null if the asset could not be decoded
+	 */
+	public Bitmap acquire(Context context, String assetPath,
+			Bitmap.Config config, int sampleSize) {
+
+		String key = createKey(assetPath, config, sampleSize);
+
+		synchronized (this) {
+			Entry entry = mEntries.get(key);
+			if (entry != null) {
+				mHitCount++;
+				entry.referenceCount++;
+				return entry.bitmap;
+			}
+			mMissCount++;
+		}
+
+		// Decode outside of the lock so other threads can use the cache
+		Bitmap bitmap = decode(context, assetPath, config, sampleSize);
+		if (bitmap == null)
+			return null;
+
+		synchronized (this) {
+			// Another thread may have decoded the same asset in the meantime
+			Entry entry = mEntries.get(key);
+			if (entry == null) {
+				entry = new Entry(key, bitmap);
+				mEntries.put(key, entry);
+				mEntriesByBitmap.put(bitmap, entry);
+				mSizeBytes += entry.sizeBytes;
+			}
+			entry.referenceCount++;
+
+			trimToBudget();
+			return entry.bitmap;
+		}
+	}
+
+	/**
+	 * Release a bitmap previously acquired from this cache
+	 *
+	 * @param bitmap Bitmap to release (ignored if null or not cached)
+	 */
+	public synchronized void release(Bitmap bitmap) {
+		if (bitmap == null)
+			return;
+
+		Entry entry = mEntriesByBitmap.get(bitmap);
+		if (entry != null && entry.referenceCount > 0) {
+			entry.referenceCount--;
+			trimToBudget();
+		}
+	}
+
+	/**
+	 * Evict all unreferenced bitmaps
+	 */
+	public synchronized void evictAll() {
+		evict(0);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Budget and Statistics
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Set the byte budget of the cache, evicting bitmaps if needed
+	 *
+	 * @param budgetBytes New byte budget
+	 */
+	public synchronized void setBudgetBytes(long budgetBytes) {
+		mBudgetBytes = budgetBytes;
+		trimToBudget();
+	}
+
+	/**
+	 * Return the byte budget of the cache
+	 */
+	public synchronized long getBudgetBytes() {
+		return mBudgetBytes;
+	}
+
+	/**
+	 * Return the total size of all cached bitmaps
+	 */
+	public synchronized long getSizeBytes() {
+		return mSizeBytes;
+	}
+
+	/**
+	 * Return the number of cached bitmaps
+	 */
+	public synchronized int getEntryCount() {
+		return mEntries.size();
+	}
+
+	/**
+	 * Return the number of acquires satisfied from the cache
+	 */
+	public synchronized long getHitCount() {
+		return mHitCount;
+	}
+
+	/**
+	 * Return the number of acquires that required a decode
+	 */
+	public synchronized long getMissCount() {
+		return mMissCount;
+	}
+
+	/**
+	 * Return the number of bitmaps evicted from the cache
+	 */
+	public synchronized long getEvictionCount() {
+		return mEvictionCount;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Internal
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create the cache key for the specified asset and decode options
+	 */
+	private static String createKey(String assetPath,
+			Bitmap.Config config, int sampleSize) {
+		return assetPath + '|' + (config != null ? config.name() : "default")
+				+ '|' + sampleSize;
+	}
+
+	/**
+	 * Evict unreferenced bitmaps until the cache is within budget
+	 */
+	private void trimToBudget() {
+		if (mSizeBytes > mBudgetBytes)
+			evict(mBudgetBytes);
+	}
+
+	/**
+	 * Evict the least recently used unreferenced bitmaps until the total
+	 * size of the cache is no larger than the specified target
+	 *
+	 * @param targetBytes Target size of the cache
+	 */
+	private void evict(long targetBytes) {
+		Iterator<Entry> iterator = mEntries.values().iterator();
+		while (mSizeBytes > targetBytes && iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry.referenceCount == 0) {
+				iterator.remove();
+				mEntriesByBitmap.remove(entry.bitmap);
+				mSizeBytes -= entry.sizeBytes;
+				mEvictionCount++;
+			}
+		}
+	}
+
+	/**
+	 * Decode the bitmap held in the specified asset
+	 *
+	 * @return Decoded bitmap, or null if the asset could not be decoded
+	 */
+	private static Bitmap decode(Context context, String assetPath,
+			Bitmap.Config config, int sampleSize) {
+
+		Bitmap bitmap = null;
+		InputStream inputStream = null;
+
+		try {
+			inputStream = context.getAssets().open(assetPath);
+
+			BitmapFactory.Options options = new BitmapFactory.Options();
+			if (config != null)
+				options.inPreferredConfig = config;
+			options.inSampleSize = sampleSize;
+
+			bitmap = BitmapFactory.decodeStream(inputStream, null, options);
+
+		} catch (IOException e) {
+			Log.d(context.getResources().getString(R.string.LOG_TAG),
+					"Load error: " + e.getMessage());
+		} finally {
+			if (inputStream != null)
+				try {
+					inputStream.close();
+				} catch (IOException e) { /* Let's just return what we have */ }
+		}
+
+		return bitmap;
+	}
+}
@@ -0,0 +1,62 @@
+package uk.ac.qub.eeecs.demos.engine.instrumentation;
+
+import java.io.File;
+import java.io.IOException;
+
+import uk.ac.qub.eeecs.demos.R;
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * Exports frame statistics to the app's external files folder so runs of
+ * different render loops can be retrieved (e.g. using adb pull) and compared.
+ *
+ * @version 1.0
+ */
+public final class FrameStatsExporter {
+
+	/**
+	 * Folder (within the app's files folder) holding exported statistics
+	 */
+	private static final String EXPORT_FOLDER = "framestats";
+
+	private FrameStatsExporter() {
+	}
+
+	/**
+	 * Export the percentiles of a run to a new time stamped file and then
+	 * reset the statistics ready for the next run. Nothing is written if no
+	 * frames have been recorded.
+	 *
+	 * @param context Context whose files folder will hold the export
+	 * @param stats Statistics to export
+	 * @return File written, or null if nothing was written
+	 */
+	public static File exportRun(Context context, FrameStats stats) {
+		if (stats.getFrameTime().getCount() == 0)
+			return null;
+
+		File folder = context.getExternalFilesDir(EXPORT_FOLDER);
+		if (folder == null)
+			folder = new File(context.getFilesDir(), EXPORT_FOLDER);
+
+		File file = null;
+		try {
+			if (!folder.isDirectory() && !folder.mkdirs())
+				throw new IOException("Unable to create " + folder);
+
+			file = new File(folder, stats.getName() + "-"
+					+ System.currentTimeMillis() + ".csv");
+			stats.exportPercentiles(file);
+			Log.d(context.getResources().getString(R.string.LOG_TAG),
+					"Frame stats exported to " + file);
+		} catch (IOException e) {
+			Log.d(context.getResources().getString(R.string.LOG_TAG),
+					"Frame stats export error: " + e.getMessage());
+			file = null;
+		}
+
+		stats.reset();
+		return file;
+	}
+}
@@ -0,0 +1,131 @@
+package uk.ac.qub.eeecs.demos.engine.instrumentation;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+/**
+ * Draws a summary of a set of frame statistics onto a canvas: the p50, p95
+ * and p99 of each non-empty histogram (in ms) and the number of frames that
+ * exceeded the frame budget.
+ *
+ * The text is built in a retained buffer so drawing the overlay does not
+ * allocate. An overlay should only be drawn from one thread at a time.
+ *
+ * @version 1.0
+ */
+public class FrameStatsOverlay {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Paints used for the text and its background
+	 */
+	private Paint mTextPaint;
+	private Paint mBackgroundPaint;
+
+	/**
+	 * Buffer used to build each line of text
+	 */
+	private StringBuilder mText = new StringBuilder(64);
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new overlay
+	 *
+	 * @param textSize Size of the overlay text
+	 */
+	public FrameStatsOverlay(float textSize) {
+		mTextPaint = new Paint();
+		mTextPaint.setAntiAlias(true);
+		mTextPaint.setTextSize(textSize);
+		mTextPaint.setTextAlign(Paint.Align.LEFT);
+		mTextPaint.setColor(Color.WHITE);
+
+		mBackgroundPaint = new Paint();
+		mBackgroundPaint.setColor(Color.argb(160, 0, 0, 0));
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Draw the overlay with its top left corner at the specified position
+	 *
+	 * @param canvas Canvas on which to draw
+	 * @param stats Statistics to summarise
+	 * @param left Left edge of the overlay
+	 * @param top Top edge of the overlay
+	 */
+	public void draw(Canvas canvas, FrameStats stats, float left, float top) {
+		float lineHeight = mTextPaint.getTextSize() * 1.2f;
+
+		int numLines = 1 + countLine(stats.getFrameTime())
+				+ countLine(stats.getUpdateTime()) + countLine(stats.getDrawTime())
+				+ countLine(stats.getLockWaitTime())
+				+ countLine(stats.getSleepOvershoot());
+		canvas.drawRect(left, top, left + lineHeight * 16.0f,
+				top + lineHeight * (numLines + 0.4f), mBackgroundPaint);
+
+		float y = top + lineHeight;
+		y = drawLine(canvas, "frame  ", stats.getFrameTime(), left, y, lineHeight);
+		y = drawLine(canvas, "update ", stats.getUpdateTime(), left, y, lineHeight);
+		y = drawLine(canvas, "draw   ", stats.getDrawTime(), left, y, lineHeight);
+		y = drawLine(canvas, "lock   ", stats.getLockWaitTime(), left, y, lineHeight);
+		y = drawLine(canvas, "sleep+ ", stats.getSleepOvershoot(), left, y, lineHeight);
+
+		mText.setLength(0);
+		mText.append("over budget ").append(stats.getFramesOverBudget())
+				.append('/').append(stats.getFrameTime().getCount());
+		canvas.drawText(mText, 0, mText.length(), left, y, mTextPaint);
+	}
+
+	/**
+	 * Return 1 if the histogram holds values (and so will be drawn), else 0
+	 */
+	private static int countLine(Histogram histogram) {
+		return histogram.getCount() > 0 ? 1 : 0;
+	}
+
+	/**
+	 * Draw the percentiles of a histogram, skipping empty histograms
+	 *
+	 * @return Position of the next line
+	 */
+	private float drawLine(Canvas canvas, String label, Histogram histogram,
+			float x, float y, float lineHeight) {
+		if (histogram.getCount() == 0)
+			return y;
+
+		mText.setLength(0);
+		mText.append(label);
+		appendMillis(histogram.getValueAtPercentile(50.0));
+		mText.append(" / ");
+		appendMillis(histogram.getValueAtPercentile(95.0));
+		mText.append(" / ");
+		appendMillis(histogram.getValueAtPercentile(99.0));
+		mText.append(" ms");
+		canvas.drawText(mText, 0, mText.length(), x, y, mTextPaint);
+
+		return y + lineHeight;
+	}
+
+	/**
+	 * Append a duration (in ns) to the text buffer in ms to two decimal
+	 * places
+	 */
+	private void appendMillis(long nanos) {
+		long hundredths = (nanos + 5000L) / 10000L;
+		mText.append(hundredths / 100L).append('.');
+		long fraction = hundredths % 100L;
+		if (fraction < 10L)
+			mText.append('0');
+		mText.append(fraction);
+	}
+}
@@ -0,0 +1,108 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+import java.util.IdentityHashMap;
+
+import uk.ac.qub.eeecs.demos.engine.assets.TextureCache;
+import android.content.Context;
+import android.graphics.Bitmap;
+
+/**
+ * Texture source decoding bitmaps from the assets folder, shared through the
+ * process-wide texture cache. Each bitmap is wrapped in a single texture
+ * whilst acquired, so draws of the same bitmap can be recognised (and
+ * batched) by comparing textures.
+ *
+ * @version 1.0
+ */
+public class AssetTextureSource implements TextureSource {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Context whose assets hold the bitmaps
+	 */
+	private final Context mContext;
+
+	/**
+	 * Cache from which bitmaps are acquired
+	 */
+	private final TextureCache mTextureCache;
+
+	/**
+	 * Texture wrapping each acquired bitmap, alongside the number of times
+	 * it has been acquired
+	 */
+	private final IdentityHashMap<Bitmap, BitmapTexture> mTextures =
+			new IdentityHashMap<Bitmap, BitmapTexture>();
+	private final IdentityHashMap<Bitmap, Integer> mReferenceCounts =
+			new IdentityHashMap<Bitmap, Integer>();
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new texture source using the shared texture cache
+	 *
+	 * @param context Context whose assets hold the bitmaps
+	 */
+	public AssetTextureSource(Context context) {
+		this(context, TextureCache.getInstance());
+	}
+
+	/**
+	 * Create a new texture source using the specified texture cache
+	 *
+	 * @param context Context whose assets hold the bitmaps
+	 * @param textureCache Cache from which bitmaps are acquired
+	 */
+	public AssetTextureSource(Context context, TextureCache textureCache) {
+		mContext = context;
+		mTextureCache = textureCache;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public Texture acquire(String assetPath) {
+		Bitmap bitmap = mTextureCache.acquire(mContext, assetPath);
+		if (bitmap == null)
+			return null;
+
+		synchronized (this) {
+			BitmapTexture texture = mTextures.get(bitmap);
+			if (texture == null) {
+				texture = new BitmapTexture(bitmap);
+				mTextures.put(bitmap, texture);
+				mReferenceCounts.put(bitmap, 1);
+			} else {
+				mReferenceCounts.put(bitmap, mReferenceCounts.get(bitmap) + 1);
+			}
+			return texture;
+		}
+	}
+
+	@Override
+	public void release(Texture texture) {
+		if (texture == null)
+			return;
+
+		Bitmap bitmap = ((BitmapTexture) texture).getBitmap();
+		synchronized (this) {
+			Integer referenceCount = mReferenceCounts.get(bitmap);
+			if (referenceCount == null)
+				return;
+			if (referenceCount > 1) {
+				mReferenceCounts.put(bitmap, referenceCount - 1);
+			} else {
+				mReferenceCounts.remove(bitmap);
+				mTextures.remove(bitmap);
+			}
+		}
+		mTextureCache.release(bitmap);
+	}
+}
@@ -0,0 +1,67 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+/**
+ * Texture source resolving assets to regions of a texture atlas, falling
+ * back to another source for assets not held in the atlas. Atlas regions
+ * are owned by the atlas, so acquiring and releasing them does nothing.
+ *
+ * @version 1.0
+ */
+public class AtlasTextureSource implements TextureSource {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Atlas holding the packed sprites
+	 */
+	private final TextureAtlas mAtlas;
+
+	/**
+	 * Source used for assets not held in the atlas
+	 */
+	private final TextureSource mFallback;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new atlas texture source
+	 *
+	 * @param atlas Atlas holding the packed sprites
+	 * @param fallback Source used for assets not held in the atlas
+	 */
+	public AtlasTextureSource(TextureAtlas atlas, TextureSource fallback) {
+		mAtlas = atlas;
+		mFallback = fallback;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public Texture acquire(String assetPath) {
+		Texture texture = mAtlas.getTexture(assetPath);
+		return texture != null ? texture : mFallback.acquire(assetPath);
+	}
+
+	@Override
+	public void release(Texture texture) {
+		if (texture != null && !isAtlasTexture(texture))
+			mFallback.release(texture);
+	}
+
+	/**
+	 * Determine if the specified texture is a region of the atlas
+	 */
+	private boolean isAtlasTexture(Texture texture) {
+		for (int page = 0; page < mAtlas.getPageCount(); page++)
+			if (texture instanceof BitmapTexture
+					&& ((BitmapTexture) texture).getBitmap() == mAtlas.getPage(page))
+				return true;
+		return false;
+	}
+}
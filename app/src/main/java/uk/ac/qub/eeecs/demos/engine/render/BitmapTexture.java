@@ -0,0 +1,95 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+/**
+ * Texture held in an Android bitmap, either covering the whole bitmap or a
+ * region of it (e.g. a sprite held within a texture atlas)
+ *
+ * @version 1.0
+ */
+public class BitmapTexture implements Texture {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Bitmap holding the texture
+	 */
+	private final Bitmap mBitmap;
+
+	/**
+	 * Region of the bitmap holding the texture
+	 */
+	private final Rect mRegion;
+
+	/**
+	 * True if the texture covers the whole bitmap
+	 */
+	private final boolean mWholeBitmap;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new texture covering the whole of the specified bitmap
+	 *
+	 * @param bitmap Bitmap holding the texture
+	 */
+	public BitmapTexture(Bitmap bitmap) {
+		this(bitmap, new Rect(0, 0, bitmap.getWidth(), bitmap.getHeight()));
+	}
+
+	/**
+	 * Create a new texture held in a region of the specified bitmap
+	 *
+	 * @param bitmap Bitmap holding the texture
+	 * @param region Region of the bitmap holding the texture
+	 */
+	public BitmapTexture(Bitmap bitmap, Rect region) {
+		mBitmap = bitmap;
+		mRegion = new Rect(region);
+		mWholeBitmap = region.left == 0 && region.top == 0
+				&& region.right == bitmap.getWidth()
+				&& region.bottom == bitmap.getHeight();
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the bitmap holding the texture
+	 */
+	public Bitmap getBitmap() {
+		return mBitmap;
+	}
+
+	/**
+	 * Return the region of the bitmap holding the texture (the rectangle
+	 * should not be modified)
+	 */
+	public Rect getRegion() {
+		return mRegion;
+	}
+
+	/**
+	 * Determine if the texture covers the whole bitmap
+	 */
+	public boolean isWholeBitmap() {
+		return mWholeBitmap;
+	}
+
+	@Override
+	public int getWidth() {
+		return mRegion.width();
+	}
+
+	@Override
+	public int getHeight() {
+		return mRegion.height();
+	}
+}
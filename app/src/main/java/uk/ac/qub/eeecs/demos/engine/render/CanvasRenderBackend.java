@@ -0,0 +1,79 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+import uk.ac.qub.eeecs.demos.particle.ParticleRenderer;
+import uk.ac.qub.eeecs.demos.particle.ParticleStore;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+/**
+ * Render backend drawing onto an Android canvas. Textures must have been
+ * acquired from an AssetTextureSource (or otherwise be BitmapTextures). The
+ * canvas is set before each frame, as the canvas passed to onDraw may change
+ * between frames.
+ *
+ * @version 1.0
+ */
+public class CanvasRenderBackend implements RenderBackend {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Canvas currently being drawn to
+	 */
+	private Canvas mCanvas;
+
+	/**
+	 * Renderer used to draw particles
+	 */
+	private final ParticleRenderer mParticleRenderer = new ParticleRenderer();
+
+	/**
+	 * Destination rectangle reused when drawing images
+	 */
+	private final Rect mImageRect = new Rect();
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Configuration
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Set the canvas to which the following commands are drawn
+	 *
+	 * @param canvas Canvas on which to draw to
+	 */
+	public void setCanvas(Canvas canvas) {
+		mCanvas = canvas;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Commands
+	// /////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public void setLayer(int layer) {
+		// Commands are drawn in the order issued
+	}
+
+	@Override
+	public void clear(int color) {
+		mCanvas.drawColor(color);
+	}
+
+	@Override
+	public void drawImage(Texture texture, int left, int top, int right, int bottom) {
+		BitmapTexture bitmapTexture = (BitmapTexture) texture;
+		mImageRect.set(left, top, right, bottom);
+		mCanvas.drawBitmap(bitmapTexture.getBitmap(),
+				bitmapTexture.isWholeBitmap() ? null : bitmapTexture.getRegion(),
+				mImageRect, null);
+	}
+
+	@Override
+	public void drawParticles(ParticleStore particles, Texture texture,
+			boolean additiveBlend, boolean batched, float interpolation) {
+		mParticleRenderer.draw(mCanvas, particles, (BitmapTexture) texture,
+				additiveBlend, batched, interpolation);
+	}
+}
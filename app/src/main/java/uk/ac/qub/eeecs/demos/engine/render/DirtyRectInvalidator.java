@@ -0,0 +1,176 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+import android.graphics.Rect;
+import android.view.View;
+
+/**
+ * Invalidates a view based on the regions reported as changed since it was
+ * last drawn, rather than redrawing the whole view every frame.
+ *
+ * Each frame the sprites mark the rects they change within the dirty region
+ * and invalidate() is called:
+ * - if nothing changed the view is not invalidated at all (the frame is
+ *   skipped, saving the draw and the fill entirely)
+ * - if the bounds of the changed region are small only they are invalidated
+ * - otherwise (or once markAll is called, e.g. on a size change) the whole
+ *   view is invalidated.
+ *
+ * When the view is drawn using a software canvas the framework clips the
+ * canvas to the invalidated bounds (and retains the rest of the view), so
+ * draws outside of them are rejected and only the changed pixels are filled.
+ * Since API 21 hardware accelerated views ignore the invalidated bounds and
+ * re-record the whole view, so there the saving comes from skipped frames.
+ * Views drawing their content into their own bitmap can use the invalidated
+ * rect (see getInvalidRect) to clip that drawing instead.
+ *
+ * @version 1.0
+ */
+public class DirtyRectInvalidator {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Default fraction of the view above which it is invalidated in full
+	 */
+	public static final float DEFAULT_FULL_REDRAW_THRESHOLD = 0.5f;
+
+	/**
+	 * View to be invalidated
+	 */
+	private View mView;
+
+	/**
+	 * Region changed since the view was last invalidated
+	 */
+	private DirtyRegion mRegion;
+
+	/**
+	 * Bounds of the changed region, and the rect last invalidated
+	 */
+	private IntRect mBounds = new IntRect();
+	private Rect mInvalidRect = new Rect();
+
+	/**
+	 * True if the changed region is invalidated, false if the whole view is
+	 * invalidated whenever anything changes (e.g. for comparison)
+	 */
+	private boolean mDirtyRectsEnabled = true;
+
+	/**
+	 * Number of frames skipped, partially invalidated and fully invalidated
+	 */
+	private long mSkippedFrames;
+	private long mPartialFrames;
+	private long mFullFrames;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new invalidator for the specified view
+	 *
+	 * @param view View to be invalidated
+	 * @param fullRedrawThreshold Fraction [0, 1] of the view above which it
+	 *        is invalidated in full
+	 */
+	public DirtyRectInvalidator(View view, float fullRedrawThreshold) {
+		mView = view;
+		mRegion = new DirtyRegion(fullRedrawThreshold);
+		mRegion.markAll();
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the region in which changed rects should be marked
+	 */
+	public DirtyRegion getRegion() {
+		return mRegion;
+	}
+
+	/**
+	 * Set whether only the changed region is invalidated. If disabled the
+	 * whole view is invalidated whenever anything has changed (frames in
+	 * which nothing changed are still skipped).
+	 *
+	 * @param enabled True to invalidate only the changed region
+	 */
+	public void setDirtyRectsEnabled(boolean enabled) {
+		mDirtyRectsEnabled = enabled;
+	}
+
+	/**
+	 * Determine if only the changed region is invalidated
+	 */
+	public boolean isDirtyRectsEnabled() {
+		return mDirtyRectsEnabled;
+	}
+
+	/**
+	 * Invalidate the view as needed for the rects marked since the last call
+	 * (must be called on the UI thread). As a single rect is invalidated, the
+	 * whole view is invalidated if the bounds of the changed region exceed
+	 * the full redraw threshold.
+	 *
+	 * @return True if the view was invalidated
+	 */
+	@SuppressWarnings("deprecation")
+	public boolean invalidate() {
+		if (mRegion.isEmpty()) {
+			mSkippedFrames++;
+			return false;
+		}
+
+		int width = mView.getWidth();
+		int height = mView.getHeight();
+		if (!mDirtyRectsEnabled || mRegion.boundsNeedFullRedraw(width, height)) {
+			mInvalidRect.set(0, 0, width, height);
+			mView.invalidate();
+			mFullFrames++;
+		} else {
+			mRegion.getBounds(mBounds);
+			mInvalidRect.set(mBounds.left, mBounds.top, mBounds.right, mBounds.bottom);
+			mView.invalidate(mInvalidRect);
+			mPartialFrames++;
+		}
+		mRegion.clear();
+		return true;
+	}
+
+	/**
+	 * Update the specified rect to hold the rect last invalidated (the whole
+	 * view if it was fully invalidated)
+	 *
+	 * @param rect Rect to be updated
+	 */
+	public void getInvalidRect(Rect rect) {
+		rect.set(mInvalidRect);
+	}
+
+	/**
+	 * Return the number of frames in which nothing changed
+	 */
+	public long getSkippedFrameCount() {
+		return mSkippedFrames;
+	}
+
+	/**
+	 * Return the number of frames in which part of the view was invalidated
+	 */
+	public long getPartialFrameCount() {
+		return mPartialFrames;
+	}
+
+	/**
+	 * Return the number of frames in which the whole view was invalidated
+	 */
+	public long getFullFrameCount() {
+		return mFullFrames;
+	}
+}
@@ -0,0 +1,233 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+import java.util.ArrayList;
+
+import uk.ac.qub.eeecs.demos.engine.parallax.ParallaxLayer;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * Background built from any number of horizontally scrolling parallax
+ * layers, drawn back to front.
+ *
+ * Each layer occupies a horizontal band of the screen viewport and is drawn
+ * from a cached strip: its tile scaled (preserving aspect) to the height of
+ * the band, repeated (or mirrored) until the strip is at least as wide as the
+ * viewport. Strips are only rebuilt when the viewport size changes, so each
+ * frame a layer costs at most two unscaled blits.
+ *
+ * Cached strips are at screen resolution, so a layer costs roughly (viewport
+ * width x band height) pixels of memory, up to twice that for narrow tiles.
+ *
+ * @version 1.0
+ */
+public class ParallaxBackground {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Layer definition alongside its cached strip
+	 */
+	private static class Layer {
+		final ParallaxLayer parallax;
+		final Bitmap tile;
+		final float bandTop;
+		final float bandBottom;
+
+		/**
+		 * Strip drawn each frame, and the band size it was built for
+		 */
+		Bitmap strip;
+		int stripViewportWidth;
+		int stripBandHeight;
+
+		Layer(ParallaxLayer parallax, Bitmap tile, float bandTop, float bandBottom) {
+			this.parallax = parallax;
+			this.tile = tile;
+			this.bandTop = bandTop;
+			this.bandBottom = bandBottom;
+		}
+	}
+
+	/**
+	 * Layers, held back to front
+	 */
+	private ArrayList<Layer> mLayers = new ArrayList<Layer>();
+
+	/**
+	 * Spans output by the layer being drawn and the rects used to blit them
+	 */
+	private int[] mSpans = new int[ParallaxLayer.MAX_SPANS * ParallaxLayer.SPAN_STRIDE];
+	private Rect mSourceRect = new Rect();
+	private Rect mScreenRect = new Rect();
+
+	/**
+	 * Paint used to scale tiles into strips
+	 */
+	private Paint mScalePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+	/**
+	 * Number of strips built and blits issued (since creation)
+	 */
+	private int mStripBuildCount;
+	private long mBlitCount;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Layers
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Add a layer covering the whole height of the viewport, in front of
+	 * the layers already added
+	 *
+	 * @param tile Bitmap tiled across the layer
+	 * @param scrollFactor Pixels the layer moves for each pixel scrolled
+	 * @param wrapMode How the layer is extended beyond its tile
+	 */
+	public void addLayer(Bitmap tile, float scrollFactor,
+			ParallaxLayer.WrapMode wrapMode) {
+		addLayer(tile, scrollFactor, wrapMode, 0.0f, 1.0f);
+	}
+
+	/**
+	 * Add a layer, in front of the layers already added
+	 *
+	 * @param tile Bitmap tiled across the layer
+	 * @param scrollFactor Pixels the layer moves for each pixel scrolled
+	 * @param wrapMode How the layer is extended beyond its tile
+	 * @param bandTop Top of the band occupied by the layer, as a fraction
+	 *        [0, 1] of the viewport height
+	 * @param bandBottom Bottom of the band occupied by the layer, as a
+	 *        fraction [0, 1] of the viewport height
+	 */
+	public void addLayer(Bitmap tile, float scrollFactor,
+			ParallaxLayer.WrapMode wrapMode, float bandTop, float bandBottom) {
+		mLayers.add(new Layer(new ParallaxLayer(scrollFactor, wrapMode),
+				tile, bandTop, bandBottom));
+	}
+
+	/**
+	 * Return the number of layers
+	 */
+	public int getLayerCount() {
+		return mLayers.size();
+	}
+
+	/**
+	 * Return the number of strips built (an increase outside of a viewport
+	 * size change indicates needless rebuilding)
+	 */
+	public int getStripBuildCount() {
+		return mStripBuildCount;
+	}
+
+	/**
+	 * Return the number of blits issued
+	 */
+	public long getBlitCount() {
+		return mBlitCount;
+	}
+
+	/**
+	 * Release the cached strips (they will be rebuilt if drawn again). The
+	 * layer tiles are owned by the caller and are not released.
+	 */
+	public void release() {
+		for (int idx = 0; idx < mLayers.size(); idx++) {
+			Layer layer = mLayers.get(idx);
+			if (layer.strip != null) {
+				layer.strip.recycle();
+				layer.strip = null;
+			}
+		}
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Draw
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Draw every layer to the specified viewport
+	 *
+	 * @param canvas Canvas on which to draw
+	 * @param screenViewport Viewport on the canvas to draw to
+	 * @param scrollX Horizontal scroll (in screen pixels) of the viewport
+	 */
+	public void draw(Canvas canvas, Rect screenViewport, float scrollX) {
+		int viewportWidth = screenViewport.width();
+		int viewportHeight = screenViewport.height();
+		if (viewportWidth <= 0 || viewportHeight <= 0)
+			return;
+
+		for (int idx = 0; idx < mLayers.size(); idx++) {
+			Layer layer = mLayers.get(idx);
+
+			int bandTop = screenViewport.top + Math.round(layer.bandTop * viewportHeight);
+			int bandBottom = screenViewport.top + Math.round(layer.bandBottom * viewportHeight);
+			if (bandBottom <= bandTop)
+				continue;
+
+			if (layer.strip == null || layer.stripViewportWidth != viewportWidth
+					|| layer.stripBandHeight != bandBottom - bandTop)
+				buildStrip(layer, viewportWidth, bandBottom - bandTop);
+
+			int spanCount = layer.parallax.computeSpans(scrollX, viewportWidth,
+					layer.strip.getWidth(), mSpans);
+			for (int span = 0; span < spanCount; span++) {
+				int offset = span * ParallaxLayer.SPAN_STRIDE;
+				int sourceLeft = mSpans[offset];
+				int screenLeft = screenViewport.left + mSpans[offset + 1];
+				int width = mSpans[offset + 2];
+
+				mSourceRect.set(sourceLeft, 0, sourceLeft + width, layer.stripBandHeight);
+				mScreenRect.set(screenLeft, bandTop, screenLeft + width, bandBottom);
+				canvas.drawBitmap(layer.strip, mSourceRect, mScreenRect, null);
+				mBlitCount++;
+			}
+		}
+	}
+
+	/**
+	 * Build the strip drawn for a layer
+	 *
+	 * @param layer Layer whose strip is to be built
+	 * @param viewportWidth Width of the viewport
+	 * @param bandHeight Height of the layer's band
+	 */
+	private void buildStrip(Layer layer, int viewportWidth, int bandHeight) {
+		if (layer.strip != null)
+			layer.strip.recycle();
+
+		// Scale the tile to the band height, preserving its aspect
+		int tileWidth = Math.max(1, Math.round(
+				layer.tile.getWidth() * bandHeight / (float) layer.tile.getHeight()));
+		int tileCount = layer.parallax.getStripTileCount(tileWidth, viewportWidth);
+		boolean mirror = layer.parallax.getWrapMode() == ParallaxLayer.WrapMode.Mirror;
+
+		Bitmap strip = Bitmap.createBitmap(tileWidth * tileCount, bandHeight,
+				layer.tile.hasAlpha() ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565);
+		Canvas stripCanvas = new Canvas(strip);
+		Rect tileRect = new Rect();
+		for (int tile = 0; tile < tileCount; tile++) {
+			tileRect.set(tile * tileWidth, 0, (tile + 1) * tileWidth, bandHeight);
+			if (mirror && (tile & 1) == 1) {
+				// Flip every second tile about its centre
+				stripCanvas.save();
+				stripCanvas.scale(-1.0f, 1.0f, tileRect.exactCenterX(), 0.0f);
+				stripCanvas.drawBitmap(layer.tile, null, tileRect, mScalePaint);
+				stripCanvas.restore();
+			} else {
+				stripCanvas.drawBitmap(layer.tile, null, tileRect, mScalePaint);
+			}
+		}
+
+		layer.strip = strip;
+		layer.stripViewportWidth = viewportWidth;
+		layer.stripBandHeight = bandHeight;
+		mStripBuildCount++;
+	}
+}
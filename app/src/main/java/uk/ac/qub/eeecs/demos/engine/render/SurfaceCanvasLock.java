@@ -0,0 +1,118 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+import android.graphics.Canvas;
+import android.view.SurfaceHolder;
+
+/**
+ * Locks the canvas of a surface using the selected backend, falling back to
+ * the software backend if a hardware canvas is not available.
+ *
+ * A software canvas (SurfaceHolder.lockCanvas) is rasterized by the CPU into
+ * the surface's buffer. A hardware canvas (SurfaceHolder.lockHardwareCanvas,
+ * API 26) records the draw calls and renders them on the GPU when the canvas
+ * is posted, so large batches of bitmap draws cost far less CPU time. Some
+ * operations are not supported by a hardware canvas (e.g. drawPicture), and
+ * no dirty rect can be passed, so the whole surface is redrawn each frame.
+ *
+ * Once a surface has been locked using one backend it cannot be locked using
+ * the other (the surface stays connected to the first), so the backend of a
+ * lock cannot be changed. A new surface must be used to switch backend.
+ *
+ * @version 1.0
+ */
+public class SurfaceCanvasLock {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Backend used to rasterize the canvas:
+	 * Software - the canvas is drawn by the CPU
+	 * Hardware - the canvas is drawn by the GPU
+	 */
+	public enum Backend {
+		Software, Hardware
+	}
+
+	/**
+	 * Holder of the surface to be locked
+	 */
+	private SurfaceHolder mHolder;
+
+	/**
+	 * Backend in use (software if a hardware canvas was unavailable)
+	 */
+	private volatile Backend mBackend;
+
+	/**
+	 * True once a hardware canvas has been successfully locked
+	 */
+	private boolean mHardwareLocked;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new lock for the specified surface
+	 *
+	 * @param holder Holder of the surface to be locked
+	 * @param requestedBackend Backend to be used if available
+	 */
+	public SurfaceCanvasLock(SurfaceHolder holder, Backend requestedBackend) {
+		mHolder = holder;
+		mBackend = requestedBackend;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the backend in use
+	 */
+	public Backend getBackend() {
+		return mBackend;
+	}
+
+	/**
+	 * Lock the surface's canvas ready for drawing (blocking until a buffer is
+	 * available).
+	 *
+	 * If the first hardware lock fails while the surface is valid the lock
+	 * falls back to the software backend. Later failures are assumed to be
+	 * caused by the surface being destroyed, as the surface can no longer be
+	 * locked in software.
+	 *
+	 * @return Locked canvas, or null if the surface could not be locked
+	 */
+	public Canvas lock() {
+		if (mBackend == Backend.Hardware) {
+			Canvas canvas = null;
+			try {
+				canvas = mHolder.lockHardwareCanvas();
+			} catch (UnsupportedOperationException e) {
+				// The holder does not provide hardware canvases
+			}
+
+			if (canvas != null) {
+				mHardwareLocked = true;
+				return canvas;
+			}
+			if (mHardwareLocked || !mHolder.getSurface().isValid())
+				return null;
+			mBackend = Backend.Software;
+		}
+		return mHolder.lockCanvas();
+	}
+
+	/**
+	 * Unlock the canvas and post its contents to the surface
+	 *
+	 * @param canvas Canvas returned by lock
+	 */
+	public void unlockAndPost(Canvas canvas) {
+		mHolder.unlockCanvasAndPost(canvas);
+	}
+}
@@ -0,0 +1,212 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import uk.ac.qub.eeecs.demos.R;
+import uk.ac.qub.eeecs.demos.engine.atlas.AtlasLayout;
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.util.Log;
+
+/**
+ * Set of sprites from the assets folder packed into one or a few atlas
+ * bitmaps, with each sprite available as a named region.
+ *
+ * The atlas is packed when it is built (typically on first use by a screen):
+ * the size of each sprite is read without decoding it, the sprites are laid
+ * out using an AtlasLayout and each sprite is then decoded and drawn into its
+ * page before being discarded. Drawing regions of a shared bitmap, rather
+ * than separate bitmaps, lets draws of different sprites share state and
+ * avoids the per-bitmap overhead of each sprite.
+ *
+ * @version 1.0
+ */
+public class TextureAtlas {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Default gap between sprites and maximum width and height of a page
+	 */
+	public static final int DEFAULT_PADDING = 2;
+	public static final int DEFAULT_MAX_PAGE_SIZE = 2048;
+
+	/**
+	 * Layout of the sprites within the pages
+	 */
+	private AtlasLayout mLayout;
+
+	/**
+	 * Atlas pages
+	 */
+	private Bitmap[] mPages;
+
+	/**
+	 * Texture for each region (null if the sprite could not be decoded)
+	 */
+	private BitmapTexture[] mTextures;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create an atlas from the built pages
+	 */
+	private TextureAtlas(AtlasLayout layout, Bitmap[] pages, BitmapTexture[] textures) {
+		mLayout = layout;
+		mPages = pages;
+		mTextures = textures;
+	}
+
+	/**
+	 * Build an atlas holding the specified sprites, using the default
+	 * padding and page size
+	 *
+	 * @param context Context whose assets hold the sprites
+	 * @param assetPaths Location and name of each sprite
+	 * @return Texture atlas
+	 */
+	public static TextureAtlas build(Context context, String[] assetPaths) {
+		return build(context, assetPaths, DEFAULT_PADDING, DEFAULT_MAX_PAGE_SIZE);
+	}
+
+	/**
+	 * Build an atlas holding the specified sprites. Sprites that cannot be
+	 * decoded are left out of the atlas.
+	 *
+	 * @param context Context whose assets hold the sprites
+	 * @param assetPaths Location and name of each sprite
+	 * @param padding Gap left between sprites
+	 * @param maxPageSize Maximum width and height of a page
+	 * @return Texture atlas
+	 */
+	public static TextureAtlas build(Context context, String[] assetPaths,
+			int padding, int maxPageSize) {
+
+		// Read the size of each sprite, without decoding it
+		int[] widths = new int[assetPaths.length];
+		int[] heights = new int[assetPaths.length];
+		BitmapFactory.Options bounds = new BitmapFactory.Options();
+		bounds.inJustDecodeBounds = true;
+		for (int idx = 0; idx < assetPaths.length; idx++) {
+			decode(context, assetPaths[idx], bounds);
+			widths[idx] = Math.max(1, bounds.outWidth);
+			heights[idx] = Math.max(1, bounds.outHeight);
+		}
+
+		AtlasLayout layout = AtlasLayout.pack(
+				assetPaths, widths, heights, padding, maxPageSize);
+
+		// Create the pages and draw each sprite into its region
+		Bitmap[] pages = new Bitmap[layout.getPageCount()];
+		Canvas[] canvases = new Canvas[pages.length];
+		for (int page = 0; page < pages.length; page++) {
+			pages[page] = Bitmap.createBitmap(layout.getPageWidth(page),
+					layout.getPageHeight(page), Bitmap.Config.ARGB_8888);
+			canvases[page] = new Canvas(pages[page]);
+		}
+
+		BitmapTexture[] textures = new BitmapTexture[assetPaths.length];
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inScaled = false;
+		Rect region = new Rect();
+		for (int idx = 0; idx < assetPaths.length; idx++) {
+			Bitmap sprite = decode(context, assetPaths[idx], options);
+			if (sprite == null)
+				continue;
+
+			int page = layout.getRegionPage(idx);
+			IntRect rect = layout.getRegionRect(idx);
+			region.set(rect.left, rect.top, rect.right, rect.bottom);
+			canvases[page].drawBitmap(sprite, null, region, null);
+			sprite.recycle();
+
+			textures[idx] = new BitmapTexture(pages[page], region);
+		}
+
+		return new TextureAtlas(layout, pages, textures);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the texture holding the specified sprite
+	 *
+	 * @param assetPath Location and name of the sprite
+	 * @return Texture, or null if the sprite is not held in the atlas
+	 */
+	public BitmapTexture getTexture(String assetPath) {
+		if (mTextures == null)
+			return null;
+		int region = mLayout.findRegion(assetPath);
+		return region >= 0 ? mTextures[region] : null;
+	}
+
+	/**
+	 * Return the number of atlas pages
+	 */
+	public int getPageCount() {
+		return mPages != null ? mPages.length : 0;
+	}
+
+	/**
+	 * Return the specified atlas page
+	 */
+	public Bitmap getPage(int page) {
+		return mPages[page];
+	}
+
+	/**
+	 * Return the layout of the sprites within the pages
+	 */
+	public AtlasLayout getLayout() {
+		return mLayout;
+	}
+
+	/**
+	 * Release the atlas pages. The atlas, and any of its textures, should
+	 * not be used after it has been released.
+	 */
+	public void release() {
+		if (mPages == null)
+			return;
+		for (int page = 0; page < mPages.length; page++)
+			mPages[page].recycle();
+		mPages = null;
+		mTextures = null;
+	}
+
+	/**
+	 * Decode the specified asset using the specified options
+	 *
+	 * @return Decoded bitmap, or null if the asset could not be decoded (or
+	 *         only its bounds were requested)
+	 */
+	private static Bitmap decode(Context context, String assetPath,
+			BitmapFactory.Options options) {
+		InputStream inputStream = null;
+		try {
+			inputStream = context.getAssets().open(assetPath);
+			return BitmapFactory.decodeStream(inputStream, null, options);
+		} catch (IOException e) {
+			Log.d(context.getResources().getString(R.string.LOG_TAG),
+					"Load error: " + e.getMessage());
+			return null;
+		} finally {
+			if (inputStream != null)
+				try {
+					inputStream.close();
+				} catch (IOException e) { /* Let's just return what we have */ }
+		}
+	}
+}
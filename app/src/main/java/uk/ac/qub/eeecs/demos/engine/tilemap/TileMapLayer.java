@@ -0,0 +1,637 @@
+package uk.ac.qub.eeecs.demos.engine.tilemap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import uk.ac.qub.eeecs.demos.engine.spatial.UniformGridIndex;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Layer of static tiles that is drawn using pre-baked chunk bitmaps.
+ *
+ * The layer is divided into square chunks (e.g. 512x512 layer units). The
+ * first time a chunk is needed its tiles are drawn ("baked") into an
+ * offscreen bitmap on a background thread; from then on the chunk is drawn
+ * using a single drawBitmap call, so the cost of a draw depends on the number
+ * of chunks intersecting the layer viewport rather than the number of tiles.
+ * Chunks ahead of the direction in which the viewport is scrolling are baked
+ * before they become visible. Until a visible chunk has been baked its tiles
+ * are drawn directly, so the layer never shows holes.
+ *
+ * Baked chunks are held in a bounded least recently used cache. The cache is
+ * only changed by the drawing thread, so an evicted chunk bitmap is never in
+ * use by the baking thread; evicted bitmaps are simply dropped. Chunks are
+ * found using a hash table keyed by the packed (primitive) chunk coordinate
+ * and ordered using a linked list threaded through the chunks, so drawing
+ * already baked chunks does not allocate.
+ *
+ * Layer coordinates follow the Rect convention (positive-y points down), with
+ * one layer unit mapping onto one chunk bitmap pixel. All tiles must be added
+ * before the layer is first drawn. A layer should only be drawn from one
+ * thread, and newly baked chunks are shown on the next draw, so the layer is
+ * intended for views that are redrawn continuously.
+ *
+ * @version 1.0
+ */
+public class TileMapLayer {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Default width and height of each chunk (in layer units)
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 512;
+
+	/**
+	 * Number of frames of scrolling, at the current scroll speed, that chunks
+	 * are baked ahead of the layer viewport
+	 */
+	private static final int PREFETCH_FRAMES = 30;
+
+	/**
+	 * Static tile, drawn using the specified bitmap scaled into its bound
+	 */
+	private static class Tile {
+		final Bitmap bitmap;
+		final Rect bound;
+
+		Tile(Bitmap bitmap, Rect bound) {
+			this.bitmap = bitmap;
+			this.bound = new Rect(bound);
+		}
+	}
+
+	/**
+	 * Ids of the tiles found by a query, grown as needed
+	 */
+	private static class TileQuery {
+		int[] ids = new int[16];
+		int count;
+	}
+
+	/**
+	 * Number of bytes held by each chunk bitmap pixel (ARGB_8888)
+	 */
+	private static final int BYTES_PER_PIXEL = 4;
+
+	/**
+	 * Chunk queued for baking or baked (once baked the bitmap is null if the
+	 * chunk holds no tiles). Baked chunks are linked in least to most
+	 * recently used order.
+	 */
+	private static class Chunk {
+		final long key;
+		Bitmap bitmap;
+		boolean baked;
+		Chunk previous, next;
+
+		Chunk(long key) {
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Width and height of each chunk (in layer units)
+	 */
+	private final int mChunkSize;
+
+	/**
+	 * Maximum number of baked chunks held within the cache
+	 */
+	private final int mMaxCachedChunks;
+
+	/**
+	 * Static tiles within the layer, alongside a spatial index over their
+	 * bounds using chunk-sized cells. The index is shared by the drawing and
+	 * baking threads, so is locked whilst queried.
+	 */
+	private final ArrayList<Tile> mTiles = new ArrayList<Tile>();
+	private final UniformGridIndex mTileIndex;
+
+	/**
+	 * Hash table of queued and baked chunks, keyed by the packed chunk
+	 * coordinate (only accessed by the drawing thread)
+	 */
+	private long[] mChunkKeys = new long[16];
+	private Chunk[] mChunks = new Chunk[16];
+	private int mChunkCount;
+
+	/**
+	 * Least and most recently used baked chunks, and the number of baked
+	 * chunks held (only accessed by the drawing thread)
+	 */
+	private Chunk mLeastRecent;
+	private Chunk mMostRecent;
+	private int mCachedChunkCount;
+
+	/**
+	 * Chunks that have been baked but not yet moved into the cache
+	 */
+	private final ConcurrentLinkedQueue<Chunk> mBakedChunks =
+			new ConcurrentLinkedQueue<Chunk>();
+
+	/**
+	 * Executor holding the background baking thread
+	 */
+	private final ExecutorService mBakeExecutor;
+
+	/**
+	 * Paints used to draw on the drawing and baking threads
+	 */
+	private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+	private final Paint mBakePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+	/**
+	 * Last recorded layer viewport position and the direction in which the
+	 * viewport was last seen to move (used to bake ahead of the scroll)
+	 */
+	private boolean mHasLastViewport;
+	private int mLastViewportLeft;
+	private int mLastViewportTop;
+	private int mScrollX;
+	private int mScrollY;
+
+	/**
+	 * Rects reused when drawing
+	 */
+	private final Rect mChunkBound = new Rect();
+	private final Rect mSourceRect = new Rect();
+	private final RectF mScreenRect = new RectF();
+	private final Rect mPrefetchRegion = new Rect();
+
+	/**
+	 * Tile queries used on the drawing and baking threads
+	 */
+	private final TileQuery mDrawQuery = new TileQuery();
+	private final TileQuery mBakeQuery = new TileQuery();
+
+	/**
+	 * Number of chunks baked, and the number of times tiles were drawn
+	 * directly as their chunk had not yet been baked
+	 */
+	private volatile long mBakeCount;
+	private long mFallbackCount;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new tile map layer
+	 *
+	 * @param chunkSize Width and height of each chunk (in layer units)
+	 * @param maxCachedChunks Maximum number of baked chunks to retain. This
+	 *            should comfortably exceed the number of chunks visible at
+	 *            once, as chunks are also baked ahead of the viewport (see
+	 *            getMaxCachedChunks to derive it from a byte budget).
+	 */
+	public TileMapLayer(int chunkSize, int maxCachedChunks) {
+		if (chunkSize <= 0 || maxCachedChunks <= 0)
+			throw new IllegalArgumentException(
+					"Chunk size and cache size must be positive");
+
+		mChunkSize = chunkSize;
+		mMaxCachedChunks = maxCachedChunks;
+		mTileIndex = new UniformGridIndex(chunkSize);
+
+		mBakeExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "TileMapLayer bake");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Return the number of chunks that can be cached within the specified
+	 * byte budget (at least one). Baked chunk bitmaps are not held by the
+	 * TextureCache, so this budget is in addition to that of the cache.
+	 *
+	 * @param chunkSize Width and height of each chunk (in layer units)
+	 * @param budgetBytes Total size of the baked chunk bitmaps
+	 * @return Maximum number of chunks to cache
+	 */
+	public static int getMaxCachedChunks(int chunkSize, long budgetBytes) {
+		long chunkBytes = (long) chunkSize * chunkSize * BYTES_PER_PIXEL;
+		return (int) Math.max(1L, Math.min(Integer.MAX_VALUE, budgetBytes / chunkBytes));
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Tiles
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Add a static tile to the layer. Tiles are drawn in the order in which
+	 * they are added.
+	 *
+	 * @param bitmap Bitmap drawn scaled into the tile bound
+	 * @param bound Bound of the tile within the layer
+	 */
+	public void addTile(Bitmap bitmap, Rect bound) {
+		synchronized (mTileIndex) {
+			mTileIndex.insert(mTiles.size(), bound.left, bound.top,
+					bound.right, bound.bottom);
+			mTiles.add(new Tile(bitmap, bound));
+		}
+	}
+
+	/**
+	 * Release the layer, stopping the baking thread and dropping all baked
+	 * chunks. The layer should not be used after it has been released.
+	 */
+	public void release() {
+		mBakeExecutor.shutdownNow();
+		Arrays.fill(mChunks, null);
+		mChunkCount = 0;
+		mLeastRecent = mMostRecent = null;
+		mCachedChunkCount = 0;
+		mBakedChunks.clear();
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Statistics
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the number of chunks baked since the layer was created
+	 */
+	public long getBakeCount() {
+		return mBakeCount;
+	}
+
+	/**
+	 * Return the number of times a visible chunk was drawn tile by tile as it
+	 * had not yet been baked
+	 */
+	public long getFallbackCount() {
+		return mFallbackCount;
+	}
+
+	/**
+	 * Return the number of baked chunks currently cached
+	 */
+	public int getCachedChunkCount() {
+		return mCachedChunkCount;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Draw
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Draw the portion of the layer within the layer viewport onto the
+	 * specified screen viewport
+	 *
+	 * @param canvas Canvas on which to draw
+	 * @param layerViewport Region of the layer to draw
+	 * @param screenViewport Region of the canvas to draw to
+	 */
+	public void draw(Canvas canvas, Rect layerViewport, Rect screenViewport) {
+		if (layerViewport.isEmpty() || screenViewport.isEmpty())
+			return;
+
+		collectBakedChunks();
+		recordScroll(layerViewport);
+
+		float screenXScale = (float) screenViewport.width() / layerViewport.width();
+		float screenYScale = (float) screenViewport.height() / layerViewport.height();
+
+		// Draw each chunk intersecting the layer viewport
+		int chunkMinX = floorDiv(layerViewport.left, mChunkSize);
+		int chunkMinY = floorDiv(layerViewport.top, mChunkSize);
+		int chunkMaxX = floorDiv(layerViewport.right - 1, mChunkSize);
+		int chunkMaxY = floorDiv(layerViewport.bottom - 1, mChunkSize);
+		for (int chunkY = chunkMinY; chunkY <= chunkMaxY; chunkY++) {
+			for (int chunkX = chunkMinX; chunkX <= chunkMaxX; chunkX++) {
+
+				// Determine the visible region of the chunk and where it
+				// lies on the screen
+				mChunkBound.set(chunkX * mChunkSize, chunkY * mChunkSize,
+						(chunkX + 1) * mChunkSize, (chunkY + 1) * mChunkSize);
+				mSourceRect.set(mChunkBound);
+				if (!mSourceRect.intersect(layerViewport))
+					continue;
+
+				mScreenRect.set(
+						screenViewport.left + (mSourceRect.left - layerViewport.left) * screenXScale,
+						screenViewport.top + (mSourceRect.top - layerViewport.top) * screenYScale,
+						screenViewport.left + (mSourceRect.right - layerViewport.left) * screenXScale,
+						screenViewport.top + (mSourceRect.bottom - layerViewport.top) * screenYScale);
+
+				Chunk chunk = findChunk(chunkKey(chunkX, chunkY));
+				if (chunk != null && chunk.baked) {
+					markUsed(chunk);
+					if (chunk.bitmap != null) {
+						mSourceRect.offset(-mChunkBound.left, -mChunkBound.top);
+						canvas.drawBitmap(chunk.bitmap, mSourceRect, mScreenRect, mPaint);
+					}
+				} else {
+					// Not baked yet, so request a bake and draw the tiles
+					requestBake(chunkX, chunkY);
+					drawTilesDirectly(canvas, layerViewport, screenXScale,
+							screenYScale, screenViewport);
+					mFallbackCount++;
+				}
+			}
+		}
+
+		prefetch(layerViewport);
+	}
+
+	/**
+	 * Draw the tiles overlapping the current chunk bound directly, clipped to
+	 * the region of the screen occupied by the chunk
+	 */
+	private void drawTilesDirectly(Canvas canvas, Rect layerViewport,
+			float screenXScale, float screenYScale, Rect screenViewport) {
+		queryTiles(mChunkBound, mDrawQuery);
+
+		canvas.save();
+		canvas.clipRect(mScreenRect);
+		for (int idx = 0; idx < mDrawQuery.count; idx++) {
+			Tile tile = mTiles.get(mDrawQuery.ids[idx]);
+			mScreenRect.set(
+					screenViewport.left + (tile.bound.left - layerViewport.left) * screenXScale,
+					screenViewport.top + (tile.bound.top - layerViewport.top) * screenYScale,
+					screenViewport.left + (tile.bound.right - layerViewport.left) * screenXScale,
+					screenViewport.top + (tile.bound.bottom - layerViewport.top) * screenYScale);
+			canvas.drawBitmap(tile.bitmap, null, mScreenRect, mPaint);
+		}
+		canvas.restore();
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Baking
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Move chunks baked by the background thread into the cache, evicting
+	 * the least recently used chunks if the cache is full
+	 */
+	private void collectBakedChunks() {
+		Chunk chunk;
+		while ((chunk = mBakedChunks.poll()) != null) {
+			chunk.baked = true;
+			mCachedChunkCount++;
+			markUsed(chunk);
+		}
+
+		while (mCachedChunkCount > mMaxCachedChunks) {
+			chunk = mLeastRecent;
+			unlink(chunk);
+			mCachedChunkCount--;
+			removeChunk(chunk.key);
+		}
+	}
+
+	/**
+	 * Record the direction in which the layer viewport is moving. Draws in
+	 * which the viewport has not moved (e.g. the same layer drawn to several
+	 * screen viewports) leave the direction unchanged.
+	 */
+	private void recordScroll(Rect layerViewport) {
+		if (mHasLastViewport && (layerViewport.left != mLastViewportLeft
+				|| layerViewport.top != mLastViewportTop)) {
+			mScrollX = layerViewport.left - mLastViewportLeft;
+			mScrollY = layerViewport.top - mLastViewportTop;
+		}
+		mHasLastViewport = true;
+		mLastViewportLeft = layerViewport.left;
+		mLastViewportTop = layerViewport.top;
+	}
+
+	/**
+	 * Request the baking of chunks that the layer viewport will reach within
+	 * the next few frames if it continues to scroll in the same direction
+	 */
+	private void prefetch(Rect layerViewport) {
+		if (mScrollX == 0 && mScrollY == 0)
+			return;
+
+		mPrefetchRegion.set(layerViewport);
+		mPrefetchRegion.offset(mScrollX * PREFETCH_FRAMES, mScrollY * PREFETCH_FRAMES);
+		mPrefetchRegion.union(layerViewport);
+
+		int chunkMinX = floorDiv(mPrefetchRegion.left, mChunkSize);
+		int chunkMinY = floorDiv(mPrefetchRegion.top, mChunkSize);
+		int chunkMaxX = floorDiv(mPrefetchRegion.right - 1, mChunkSize);
+		int chunkMaxY = floorDiv(mPrefetchRegion.bottom - 1, mChunkSize);
+
+		// Do not prefetch more than the cache can hold alongside the
+		// visible chunks, otherwise prefetched chunks would evict each other
+		int budget = mMaxCachedChunks / 2;
+		for (int chunkY = chunkMinY; chunkY <= chunkMaxY && budget > 0; chunkY++)
+			for (int chunkX = chunkMinX; chunkX <= chunkMaxX && budget > 0; chunkX++, budget--)
+				if (findChunk(chunkKey(chunkX, chunkY)) == null)
+					requestBake(chunkX, chunkY);
+	}
+
+	/**
+	 * Queue the specified chunk for baking (ignored if already queued)
+	 */
+	private void requestBake(final int chunkX, final int chunkY) {
+		long key = chunkKey(chunkX, chunkY);
+		if (findChunk(key) != null || mBakeExecutor.isShutdown())
+			return;
+
+		// The chunk is held (unbaked) from now on, so it is only queued once
+		final Chunk chunk = new Chunk(key);
+		putChunk(chunk);
+		mBakeExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				chunk.bitmap = bake(chunkX, chunkY);
+				mBakedChunks.add(chunk);
+				mBakeCount++;
+			}
+		});
+	}
+
+	/**
+	 * Draw the tiles overlapping the specified chunk into a new bitmap. This
+	 * is called on the baking thread.
+	 *
+	 * @return Baked bitmap, or null if no tiles overlap the chunk
+	 */
+	private Bitmap bake(int chunkX, int chunkY) {
+		Rect chunkBound = new Rect(chunkX * mChunkSize, chunkY * mChunkSize,
+				(chunkX + 1) * mChunkSize, (chunkY + 1) * mChunkSize);
+		queryTiles(chunkBound, mBakeQuery);
+		if (mBakeQuery.count == 0)
+			return null;
+
+		Bitmap bitmap = Bitmap.createBitmap(mChunkSize, mChunkSize,
+				Bitmap.Config.ARGB_8888);
+		Canvas canvas = new Canvas(bitmap);
+		canvas.translate(-chunkBound.left, -chunkBound.top);
+
+		for (int idx = 0; idx < mBakeQuery.count; idx++) {
+			Tile tile = mTiles.get(mBakeQuery.ids[idx]);
+			canvas.drawBitmap(tile.bitmap, null, tile.bound, mBakePaint);
+		}
+		return bitmap;
+	}
+
+	/**
+	 * Find the tiles overlapping the specified region, storing their ids in
+	 * the order in which the tiles were added
+	 *
+	 * @param region Region of the layer to query
+	 * @param query Query into which the ids are copied
+	 */
+	private void queryTiles(Rect region, TileQuery query) {
+		synchronized (mTileIndex) {
+			int count = mTileIndex.query(region.left, region.top,
+					region.right, region.bottom);
+			if (query.ids.length < count)
+				query.ids = new int[Math.max(count, query.ids.length * 2)];
+			System.arraycopy(mTileIndex.getResults(), 0, query.ids, 0, count);
+			query.count = count;
+		}
+		Arrays.sort(query.ids, 0, query.count);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Internal
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Pack a chunk coordinate into a cache key
+	 */
+	private static long chunkKey(int chunkX, int chunkY) {
+		return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Return the hash table slot at which to start searching for a key
+	 */
+	private static int slotOf(long key, int mask) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash >>> 32) & mask;
+	}
+
+	/**
+	 * Return the chunk with the specified key, or null if it is not held
+	 */
+	private Chunk findChunk(long key) {
+		int mask = mChunks.length - 1;
+		for (int slot = slotOf(key, mask); mChunks[slot] != null; slot = (slot + 1) & mask)
+			if (mChunkKeys[slot] == key)
+				return mChunks[slot];
+		return null;
+	}
+
+	/**
+	 * Place a chunk within the hash table (its key must not already be held)
+	 */
+	private void putChunk(Chunk chunk) {
+		// Keep the table at most half full
+		if ((mChunkCount + 1) * 2 > mChunks.length)
+			resizeChunks(mChunks.length * 2);
+
+		insertChunk(chunk);
+		mChunkCount++;
+	}
+
+	private void insertChunk(Chunk chunk) {
+		int mask = mChunks.length - 1;
+		int slot = slotOf(chunk.key, mask);
+		while (mChunks[slot] != null)
+			slot = (slot + 1) & mask;
+		mChunkKeys[slot] = chunk.key;
+		mChunks[slot] = chunk;
+	}
+
+	/**
+	 * Remove the chunk with the specified key from the hash table, shifting
+	 * back any following chunks in the probe sequence so they remain
+	 * reachable
+	 */
+	private void removeChunk(long key) {
+		int mask = mChunks.length - 1;
+		int slot = slotOf(key, mask);
+		while (mChunks[slot] != null && mChunkKeys[slot] != key)
+			slot = (slot + 1) & mask;
+		if (mChunks[slot] == null)
+			return;
+
+		int hole = slot;
+		for (slot = (slot + 1) & mask; mChunks[slot] != null; slot = (slot + 1) & mask) {
+			// Move the chunk into the hole unless its home slot lies
+			// cyclically within (hole, slot]
+			int home = slotOf(mChunkKeys[slot], mask);
+			if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+				mChunkKeys[hole] = mChunkKeys[slot];
+				mChunks[hole] = mChunks[slot];
+				hole = slot;
+			}
+		}
+		mChunks[hole] = null;
+		mChunkCount--;
+	}
+
+	/**
+	 * Grow the hash table, rehashing the existing chunks
+	 */
+	private void resizeChunks(int capacity) {
+		Chunk[] oldChunks = mChunks;
+		mChunkKeys = new long[capacity];
+		mChunks = new Chunk[capacity];
+		for (int idx = 0; idx < oldChunks.length; idx++)
+			if (oldChunks[idx] != null)
+				insertChunk(oldChunks[idx]);
+	}
+
+	/**
+	 * Move a baked chunk to the most recently used end of the list
+	 */
+	private void markUsed(Chunk chunk) {
+		if (chunk == mMostRecent)
+			return;
+		unlink(chunk);
+		chunk.previous = mMostRecent;
+		if (mMostRecent != null)
+			mMostRecent.next = chunk;
+		else
+			mLeastRecent = chunk;
+		mMostRecent = chunk;
+	}
+
+	/**
+	 * Remove a chunk from the least recently used list (if linked)
+	 */
+	private void unlink(Chunk chunk) {
+		if (chunk.previous != null)
+			chunk.previous.next = chunk.next;
+		else if (mLeastRecent == chunk)
+			mLeastRecent = chunk.next;
+		if (chunk.next != null)
+			chunk.next.previous = chunk.previous;
+		else if (mMostRecent == chunk)
+			mMostRecent = chunk.previous;
+		chunk.previous = chunk.next = null;
+	}
+
+	/**
+	 * Integer division rounding towards negative infinity
+	 */
+	private static int floorDiv(int value, int divisor) {
+		int quotient = value / divisor;
+		if ((value % divisor != 0) && ((value < 0) != (divisor < 0)))
+			quotient--;
+		return quotient;
+	}
+}
@@ -1,22 +1,27 @@
 package uk.ac.qub.eeecs.demos.graphics;
 
-import java.io.IOException;
-import java.io.InputStream;
-
-import uk.ac.qub.eeecs.demos.R;
+import java.util.Locale;
+
+import uk.ac.qub.eeecs.demos.engine.animation.AnimationClip;
+import uk.ac.qub.eeecs.demos.engine.animation.AnimationStore;
+import uk.ac.qub.eeecs.demos.engine.render.BitmapTexture;
+import uk.ac.qub.eeecs.demos.engine.render.DirtyRegion;
+import uk.ac.qub.eeecs.demos.engine.render.DirtyRectInvalidator;
+import uk.ac.qub.eeecs.demos.engine.render.TextureAtlas;
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
 import android.app.Fragment;
 import android.content.Context;
-import android.content.res.AssetManager;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Rect;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.TextView;
 
 public class AnimationTestFragment extends Fragment {
 
@@ -34,6 +39,19 @@ public class AnimationTestFragment extends Fragment {
 	 */
 	private RenderView mRenderView;
 
+	/**
+	 * Approach used by the render view to draw the world
+	 */
+	private enum RenderMode {
+		Hardware, SoftwareDirtyRects, SoftwareFullRedraw
+	}
+
+	/**
+	 * Text view displaying the draw statistics (a separate view, so updating
+	 * it does not dirty the render view)
+	 */
+	private TextView mStatsView;
+
 	// ////////////////////////////////////////////////////////////////////////
 	// Fragment setup
 	// ////////////////////////////////////////////////////////////////////////
@@ -46,6 +64,14 @@ public class AnimationTestFragment extends Fragment {
 		mGameWorld = new GameWorld();
 	}
 
+	@Override
+	public void onDestroy() {
+		// Release the world bitmaps back to the texture cache
+		mGameWorld.release();
+
+		super.onDestroy();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -55,149 +81,17 @@ public class AnimationTestFragment extends Fragment {
 	@Override
 	public View onCreateView(LayoutInflater inflater, ViewGroup container,
 			Bundle savedInstanceState) {
-		// Create a custom view that will provide bitmap drawing facilities
+		// Create a custom view that will provide bitmap drawing facilities,
+		// overlaid with the draw statistics
+		FrameLayout layout = new FrameLayout(getActivity());
 		mRenderView = new RenderView(getActivity());
+		mStatsView = new TextView(getActivity());
+		mStatsView.setTextColor(Color.WHITE);
+		mStatsView.setPadding(20, 20, 20, 20);
+		layout.addView(mRenderView);
+		layout.addView(mStatsView);
 
-		return mRenderView;
-	}
-
-	// ////////////////////////////////////////////////////////////////////////
-	// Animation class
-	// ////////////////////////////////////////////////////////////////////////
-
-	/**
-	 * Simple animation holder
-	 */
-	public class Animation {
-
-		// ////////////////////////////////////////////////////////////////////
-		// Animation Properties
-		// ////////////////////////////////////////////////////////////////////
-				
-		/**
-		 * Bitmap holding the frames of this animation
-		 */
-		private Bitmap animationFrames;
-
-		public Bitmap getBitmap() {
-			return animationFrames;
-		}
-				
-		/**
-		 * Width and height of each frame of the animation
-		 */
-		private int frameWidth;
-		private int frameHeight;
-
-		/**
-		 * Number of frames in the animation
-		 */
-		private int frameCount;
-		
-		/**
-		 * Index of the current frame of animation
-		 */
-		private int currentFrame;
-
-		/**
-		 * Display period for each frame alongside a frame timer
-		 */
-		private double frameTimer;
-		private double framePeriod;
-
-		/**
-		 * Boolean flag determining if the animation should loop
-		 */
-		private boolean isLooping = false;
-		
-		/**
-		 * Boolean flag determining if the animation is currently playing
-		 */
-		private boolean isPlaying = false;
-
-		// ////////////////////////////////////////////////////////////////////
-		// Animation Constructor and Methods
-		// ////////////////////////////////////////////////////////////////////
-				
-		/**
-		 * Create a new animation
-		 * 
-		 * @param animationFrames Bitmap holding the frames of the animation
-		 * @param frameCount Number of horizontal frames in the animation 
-		 *        (assumed to be of equal width)
-		 */
-		public Animation(Bitmap animationFrames, int frameCount) {
-			
-			this.animationFrames = animationFrames;
-			this.frameCount = frameCount;
-			
-			frameHeight = animationFrames.getHeight();
-			frameWidth = animationFrames.getWidth() / frameCount;
-		}
-
-		/**
-		 * Trigger playback of this animation 
-		 * 
-		 * @param animationPeriod Period over which the animation should play
-		 * @param loop True if the animation should play repeatedly
-		 */
-		public void play(double animationPeriod, boolean loop) {
-			framePeriod = animationPeriod / (double) frameCount;
-			currentFrame = -1;
-			isLooping = loop;
-			
-			isPlaying = true;			
-		}
-
-		/**
-		 * Update which frame of the animation should be displayed
-		 * 
-		 * @param elapsedTime Elapsed time since the last update
-		 */
-		public void update(double elapsedTime) {
-			if (!isPlaying)
-				return;
-
-			// If this is the first time update has been called since the 
-			// play method was called then reset the current frame and timer
-			if (currentFrame == -1) {
-				currentFrame = 0;
-				frameTimer = 0.0;
-			}
-
-			// Update the amount of time accumulated against this frame
-			frameTimer += elapsedTime;
-
-			// If the frame display duration has been exceeded then try to
-			// go on to the next frame, looping or stopping if the end of 
-			// the animation has been reached.
-			if (frameTimer >= framePeriod) {
-				currentFrame++;
-				if (currentFrame >= frameCount) {
-					if (isLooping) {
-						currentFrame = 0;
-					} else {
-						currentFrame = frameCount - 1;
-						isPlaying = false;
-					}
-				}
-
-				// 'Reset' the frame timer
-				frameTimer -= framePeriod;
-			}
-		}
-
-		/**
-		 * Update the specified rect object to contain the region of the bitmap 
-		 * holding the current frame of animation.
-		 * 
-		 * @param sourceRect Rect object to be updated
-		 */
-		public void getSourceRect(Rect sourceRect) {
-			if(currentFrame >= 0)
-				sourceRect.set(currentFrame * frameWidth, 0, currentFrame
-						* frameWidth + frameWidth, frameHeight);
-		}
+		return layout;
 	}
 
 	// ////////////////////////////////////////////////////////////////////////
@@ -214,10 +108,20 @@ public class AnimationTestFragment extends Fragment {
 		// ////////////////////////////////////////////////////////////////////
 
 		/**
-		 * Define a couple of animations
+		 * Define a couple of animated sprites, the bitmap holding the frames
+		 * of each and the screen region each is drawn to
 		 */
-		private Animation animation1;
-		private Animation animation2;
+		private AnimationStore animations = new AnimationStore(2);
+		private int animation1;
+		private int animation2;
+		private Bitmap[] spriteBitmaps = new Bitmap[2];
+		private Rect[] spriteScreenRects = { new Rect(100, 100, 400, 400),
+				new Rect(500, 200, 600, 340) };
+
+		/**
+		 * Atlas holding the frames of both animations
+		 */
+		private TextureAtlas atlas;
 
 		// ////////////////////////////////////////////////////////////////////
 		// World construction and update
@@ -235,41 +139,56 @@ public class AnimationTestFragment extends Fragment {
 		 */
 		private void setupWorld() {
 
-			Bitmap animation1Bitmap = null, animation2Bitmap = null;
-
-			// Attempt to load the bitmap used for the animation
-			try {
-				AssetManager assetManager = getActivity().getAssets();
-
-				InputStream inputStream = assetManager
-						.open("img/Animation1.png");
-				animation1Bitmap = BitmapFactory.decodeStream(inputStream);
-				inputStream.close();
+			// Pack the frames used for the animations into a single atlas
+			atlas = TextureAtlas.build(getActivity(), new String[] {
+					"img/Animation1.png", "img/Animation2.png" });
+
+			// Define the clips held in each strip and create a sprite
+			// playing each
+			BitmapTexture frames1 = atlas.getTexture("img/Animation1.png");
+			BitmapTexture frames2 = atlas.getTexture("img/Animation2.png");
+			animation1 = animations.add(
+					AnimationClip.fromStrip(toIntRect(frames1.getRegion()), 12, 1.2f));
+			animation2 = animations.add(
+					AnimationClip.fromStrip(toIntRect(frames2.getRegion()), 20, 2.2f));
+			spriteBitmaps[animation1] = frames1.getBitmap();
+			spriteBitmaps[animation2] = frames2.getBitmap();
 
-				inputStream = assetManager.open("img/Animation2.png");
-				animation2Bitmap = BitmapFactory.decodeStream(inputStream);
-				inputStream.close();
-
-			} catch (IOException e) {
-				Log.d(getActivity().getResources().getString(R.string.LOG_TAG),
-						"Load error: " + e.getMessage());
-			}
+			// Indicate that playback should commence
+			animations.play(animation1, true);
+			animations.play(animation2, true);
+		}
 
-			// Create the two animations
-			animation1 = new Animation(animation1Bitmap, 12);
-			animation2 = new Animation(animation2Bitmap, 20);
+		/**
+		 * Convert an Android rect into the engine's rect type
+		 */
+		private IntRect toIntRect(Rect rect) {
+			return new IntRect(rect.left, rect.top, rect.right, rect.bottom);
+		}
 
-			// Indicate that playback should commence
-			animation1.play(1.2, true);
-			animation2.play(2.2, true);
+		/**
+		 * Release the bitmaps used by this world
+		 */
+		public void release() {
+			atlas.release();
 		}
 
 		/**
-		 * Update the world
+		 * Update the world, marking the screen region of each sprite whose
+		 * frame has changed as dirty
+		 * 
+		 * @param elapsedTime Elapsed time since the last update
+		 * @param dirtyRegion Region in which changed rects are marked
 		 */
-		public void update(double elapsedTime) {
-			animation1.update(elapsedTime);
-			animation2.update(elapsedTime);
+		public void update(float elapsedTime, DirtyRegion dirtyRegion) {
+			animations.update(elapsedTime);
+			for (int idx = 0; idx < animations.size(); idx++) {
+				if (animations.hasFrameChanged(idx)) {
+					Rect screenRect = spriteScreenRects[idx];
+					dirtyRegion.mark(screenRect.left, screenRect.top,
+							screenRect.right, screenRect.bottom);
+				}
+			}
 		}
 
 		// ////////////////////////////////////////////////////////////////////
@@ -278,11 +197,10 @@ public class AnimationTestFragment extends Fragment {
 
 		/**
 		 * Define a source rectangle to hold the portion of the source bitmap
-		 * that is to be drawn and a screen rectangle to hold the region we will
-		 * draw to.
+		 * that is to be drawn.
 		 */
+		private IntRect frameRect = new IntRect();
 		private Rect sourceRect = new Rect();
-		private Rect screenRect = new Rect();
 
 		/**
 		 * Draw the world 
@@ -292,30 +210,99 @@ public class AnimationTestFragment extends Fragment {
 		 */
 		public void draw(Canvas canvas) {
 
-			// Draw the two animations
-			animation1.getSourceRect(sourceRect);
-			screenRect.set(100, 100, 400, 400);
-			canvas.drawBitmap(
-					animation1.getBitmap(), sourceRect, screenRect, null);
-
-			animation2.getSourceRect(sourceRect);
-			screenRect.set(500, 200, 600, 340);
-			canvas.drawBitmap(
-					animation2.getBitmap(), sourceRect, screenRect, null);
+			// Draw each animated sprite's current frame
+			for (int idx = 0; idx < animations.size(); idx++) {
+				animations.getSourceRect(idx, frameRect);
+				sourceRect.set(frameRect.left, frameRect.top,
+						frameRect.right, frameRect.bottom);
+				canvas.drawBitmap(spriteBitmaps[idx], sourceRect,
+						spriteScreenRects[idx], null);
+			}
 		}
 	}
 
 	/**
 	 * Custom view object that will repeatedly update and display the game
-	 * world.
+	 * world. Only the regions of the sprites whose frames have changed are
+	 * invalidated each frame.
+	 * 
+	 * Tapping the view cycles through the render modes:
+	 * Hardware - the world is drawn in onDraw. The view is hardware
+	 *     accelerated, so it is redrawn in full whenever it is invalidated and
+	 *     the saving comes from skipped frames.
+	 * SoftwareDirtyRects - the world is drawn in software into a bitmap,
+	 *     clipped to the invalidated rect, and the bitmap drawn in onDraw.
+	 * SoftwareFullRedraw - as above, but the whole bitmap is redrawn whenever
+	 *     anything changes, for comparison.
+	 * The average time spent drawing the world in each drawn frame is shown.
 	 */
 	private class RenderView extends View {
 
+		/**
+		 * Period (in ms) between world updates
+		 */
+		private static final long FRAME_PERIOD_MS = 30;
+
+		/**
+		 * Number of frames between updates of the displayed statistics
+		 */
+		private static final int STATS_FRAMES = 20;
+
 		/**
 		 * Elapsed time value
 		 */
 		long referenceTime;
 
+		/**
+		 * Render mode in use
+		 */
+		private RenderMode mRenderMode = RenderMode.Hardware;
+
+		/**
+		 * Invalidator redrawing only the regions changed each frame
+		 */
+		private DirtyRectInvalidator mInvalidator = new DirtyRectInvalidator(
+				this, DirtyRectInvalidator.DEFAULT_FULL_REDRAW_THRESHOLD);
+
+		/**
+		 * Bitmap the world is drawn into in the software modes, alongside the
+		 * canvas drawing to it and the rect to which drawing is clipped
+		 */
+		private Bitmap mBackBuffer;
+		private Canvas mBackCanvas;
+		private Rect mClipRect = new Rect();
+
+		/**
+		 * Time spent drawing the world and the number of frames drawn, and
+		 * the invalidator frame counts, since the statistics were last shown
+		 */
+		private long mDrawTime;
+		private int mDrawCount;
+		private int mStatsFrameCount;
+		private long mSkippedBase, mPartialBase, mFullBase;
+
+		/**
+		 * Task updating the world and invalidating the changed region
+		 */
+		private Runnable mFrameTask = new Runnable() {
+			@Override
+			public void run() {
+				// Work out how much time (in second) has elapsed since the last update
+				long timeNow = System.nanoTime();
+				long elapsedMs = (timeNow - referenceTime) / 1000000L;
+				float elapsedTime = elapsedMs / 1000.0f;
+				referenceTime = timeNow;
+
+				mGameWorld.update(elapsedTime, mInvalidator.getRegion());
+				if (mInvalidator.invalidate() && mRenderMode != RenderMode.Hardware)
+					drawBackBuffer();
+
+				if (++mStatsFrameCount == STATS_FRAMES)
+					showStats();
+				postDelayed(this, FRAME_PERIOD_MS);
+			}
+		};
+
 		/**
 		 * Create a new render view instance
 		 * 
@@ -331,32 +318,120 @@ public class AnimationTestFragment extends Fragment {
 		/*
 		 * (non-Javadoc)
 		 * 
-		 * @see android.view.View#onDraw(android.graphics.Canvas)
+		 * @see android.view.View#onAttachedToWindow()
 		 */
 		@Override
-		protected void onDraw(Canvas canvas) {
+		protected void onAttachedToWindow() {
+			super.onAttachedToWindow();
+			referenceTime = System.nanoTime();
+			postDelayed(mFrameTask, FRAME_PERIOD_MS);
+		}
 
-			canvas.drawColor(Color.BLACK);
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see android.view.View#onDetachedFromWindow()
+		 */
+		@Override
+		protected void onDetachedFromWindow() {
+			removeCallbacks(mFrameTask);
+			super.onDetachedFromWindow();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see android.view.View#onSizeChanged(int, int, int, int)
+		 */
+		@Override
+		protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+			super.onSizeChanged(w, h, oldw, oldh);
+			if (w > 0 && h > 0) {
+				mBackBuffer = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+				mBackCanvas = new Canvas(mBackBuffer);
+			}
+			mInvalidator.getRegion().markAll();
+		}
 
-			// Work out how much time (in second) has elapsed since the last update
-			long timeNow = System.nanoTime();
-			long elapsedMs = (timeNow - referenceTime) / 1000000L;
-			double elapsedTime = (double) elapsedMs / 1000.0;
-			referenceTime = timeNow;
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see android.view.View#onTouchEvent(android.view.MotionEvent)
+		 */
+		@Override
+		public boolean onTouchEvent(MotionEvent event) {
+			if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+				// Cycle the render mode, redrawing everything in the new mode
+				mRenderMode = RenderMode.values()[
+						(mRenderMode.ordinal() + 1) % RenderMode.values().length];
+				mInvalidator.setDirtyRectsEnabled(
+						mRenderMode != RenderMode.SoftwareFullRedraw);
+				mInvalidator.getRegion().markAll();
+				resetStats();
+			}
+			return true;
+		}
 
-			// Cheeky - we should not call these in a draw method....
-			mGameWorld.update(elapsedTime);
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see android.view.View#onDraw(android.graphics.Canvas)
+		 */
+		@Override
+		protected void onDraw(Canvas canvas) {
+			if (mRenderMode != RenderMode.Hardware) {
+				canvas.drawBitmap(mBackBuffer, 0.0f, 0.0f, null);
+				return;
+			}
 
-			// Draw
+			long drawStart = System.nanoTime();
+			canvas.drawColor(Color.BLACK);
 			mGameWorld.draw(canvas);
+			mDrawTime += System.nanoTime() - drawStart;
+			mDrawCount++;
+		}
 
-			try {
-				Thread.sleep(30);
-			} catch (InterruptedException e) {
-			}
+		/**
+		 * Draw the world into the back buffer, clipped to the rect that has
+		 * just been invalidated
+		 */
+		private void drawBackBuffer() {
+			long drawStart = System.nanoTime();
+			mInvalidator.getInvalidRect(mClipRect);
+			mBackCanvas.save();
+			mBackCanvas.clipRect(mClipRect);
+			mBackCanvas.drawColor(Color.BLACK);
+			mGameWorld.draw(mBackCanvas);
+			mBackCanvas.restore();
+			mDrawTime += System.nanoTime() - drawStart;
+			mDrawCount++;
+		}
+
+		/**
+		 * Show the average draw time and the invalidated frame counts since
+		 * the statistics were last shown
+		 */
+		private void showStats() {
+			float averageMs = mDrawCount == 0 ? 0.0f
+					: mDrawTime / (float) mDrawCount / 1000000.0f;
+			mStatsView.setText(mRenderMode + " (tap to change): "
+					+ String.format(Locale.US, "%.3f", averageMs) + " ms/draw\n"
+					+ "Skipped = " + (mInvalidator.getSkippedFrameCount() - mSkippedBase)
+					+ ", partial = " + (mInvalidator.getPartialFrameCount() - mPartialBase)
+					+ ", full = " + (mInvalidator.getFullFrameCount() - mFullBase));
+			resetStats();
+		}
 
-			// Invalid our canvas, so we'll be asked to redraw
-			invalidate();
+		/**
+		 * Restart the statistics shown next
+		 */
+		private void resetStats() {
+			mDrawTime = 0;
+			mDrawCount = 0;
+			mStatsFrameCount = 0;
+			mSkippedBase = mInvalidator.getSkippedFrameCount();
+			mPartialBase = mInvalidator.getPartialFrameCount();
+			mFullBase = mInvalidator.getFullFrameCount();
 		}
 	}
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import uk.ac.qub.eeecs.demos.R;
+import uk.ac.qub.eeecs.demos.engine.render.DirtyRectInvalidator;
 import android.app.Fragment;
 import android.content.Context;
 import android.content.res.AssetManager;
@@ -13,6 +14,7 @@ import android.graphics.Canvas;
 import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Rect;
+import android.graphics.RectF;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -37,11 +39,17 @@ public class BitmapTestFragment extends Fragment {
 
 	/**
 	 * Custom view object that will display a range of bitmap drawing options.
-	 * The view will automatically invalidate itself so that it is continuously
-	 * redrawn as a means of providing an animated display.
+	 * The final bitmap is animated: each frame its previous and new bounds
+	 * are reported as dirty and only that region of the view is invalidated
+	 * (the rest of the display is static).
 	 */
 	private class RenderView extends View {
 
+		/**
+		 * Period (in ms) between animation updates (i.e. target 50FPS)
+		 */
+		private static final long FRAME_PERIOD_MS = 20;
+
 		/**
 		 * Bitmap image that will be drawn
 		 */
@@ -71,6 +79,31 @@ public class BitmapTestFragment extends Fragment {
 		private float offset = 0.0f;
 		private float scaleDir = 1.0f, offsetDir = 1.0f;
 
+		/**
+		 * Matrix and bounds (on the view) of the animated bitmap
+		 */
+		private Matrix animatedMatrix = new Matrix();
+		private RectF animatedBounds = new RectF();
+		private Rect animatedDirtyRect = new Rect();
+
+		/**
+		 * Invalidator redrawing only the regions changed each frame
+		 */
+		private DirtyRectInvalidator mInvalidator = new DirtyRectInvalidator(
+				this, DirtyRectInvalidator.DEFAULT_FULL_REDRAW_THRESHOLD);
+
+		/**
+		 * Task updating the animation and invalidating the changed region
+		 */
+		private Runnable mFrameTask = new Runnable() {
+			@Override
+			public void run() {
+				updateAnimation();
+				mInvalidator.invalidate();
+				postDelayed(this, FRAME_PERIOD_MS);
+			}
+		};
+
 		/**
 		 * Create a new render view instance
 		 * 
@@ -94,6 +127,83 @@ public class BitmapTestFragment extends Fragment {
 				Log.d(getActivity().getResources().getString(R.string.LOG_TAG),
 						"Load error: " + e.getMessage());
 			}
+
+			updateAnimation();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see android.view.View#onAttachedToWindow()
+		 */
+		@Override
+		protected void onAttachedToWindow() {
+			super.onAttachedToWindow();
+			postDelayed(mFrameTask, FRAME_PERIOD_MS);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see android.view.View#onDetachedFromWindow()
+		 */
+		@Override
+		protected void onDetachedFromWindow() {
+			removeCallbacks(mFrameTask);
+			super.onDetachedFromWindow();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see android.view.View#onSizeChanged(int, int, int, int)
+		 */
+		@Override
+		protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+			super.onSizeChanged(w, h, oldw, oldh);
+			mInvalidator.getRegion().markAll();
+		}
+
+		/**
+		 * Update the scale, rotation and offset of the animated bitmap,
+		 * marking both its previous and new bounds as dirty
+		 */
+		private void updateAnimation() {
+			if (mImage == null)
+				return;
+
+			// The previous bounds need to be redrawn without the bitmap
+			mInvalidator.getRegion().mark(animatedDirtyRect.left,
+					animatedDirtyRect.top, animatedDirtyRect.right,
+					animatedDirtyRect.bottom);
+
+			// Update the scale, rotation and offset values
+			scale += scaleDir * 0.02f;
+			if (scale < 0.75f)
+				scaleDir = 1.0f;
+			else if (scale > 1.25f)
+				scaleDir = -1.0f;
+			offset += offsetDir * 5.0f;
+			if (offset < 0)
+				offsetDir = 1.0f;
+			else if (offset > 400)
+				offsetDir = -1.0f;
+			rotation += 2.0f;
+
+			animatedMatrix.reset();
+			animatedMatrix.setScale(scale, scale); // Scale the image
+			animatedMatrix.postRotate(rotation, 50.0f, 50.0f); // Centre point rotation
+			// animatedMatrix.postRotate(rotation, 200.0f, 200.0f); // We could rotate about an external point if desired
+			animatedMatrix.postTranslate(150.0f + offset, 700.0f); // Finally translate
+
+			// Mark the new bounds, grown slightly to cover any filtering
+			animatedBounds.set(0, 0, mImage.getWidth(), mImage.getHeight());
+			animatedMatrix.mapRect(animatedBounds);
+			animatedBounds.roundOut(animatedDirtyRect);
+			animatedDirtyRect.inset(-1, -1);
+			mInvalidator.getRegion().mark(animatedDirtyRect.left,
+					animatedDirtyRect.top, animatedDirtyRect.right,
+					animatedDirtyRect.bottom);
 		}
 
 		/*
@@ -227,34 +337,9 @@ public class BitmapTestFragment extends Fragment {
 			 * effect (postScale, etc.)
 			 */
 
-			// Update the scale, rotation and offset values
-			scale += scaleDir * 0.02f;
-			if (scale < 0.75f)
-				scaleDir = 1.0f;
-			else if (scale > 1.25f)
-				scaleDir = -1.0f;
-			offset += offsetDir * 5.0f;
-			if (offset < 0)
-				offsetDir = 1.0f;
-			else if (offset > 400)
-				offsetDir = -1.0f;
-			rotation += 2.0f;
-
-			matrix.reset();
-			matrix.setScale(scale, scale); // Scale the image
-			matrix.postRotate(rotation, 50.0f, 50.0f); // Centre point rotation
-			// matrix.postRotate(rotation, 200.0f, 200.0f); // We could rotate about an external point if desired
-			matrix.postTranslate(150.0f + offset, 700.0f); // Finally translate
-			canvas.drawBitmap(mImage, matrix, mPaint);
-
-			try {
-				// Go to sleep for 20ms (i.e. target 50FPS)
-				Thread.sleep(20);
-			} catch (InterruptedException e) {
-			}
-
-			// Invalid our canvas, so we'll be asked to redraw
-			invalidate();
+			// The scale, rotation and offset values are updated (and the
+			// changed region invalidated) by the frame task
+			canvas.drawBitmap(mImage, animatedMatrix, mPaint);
 		}
 	}
 }
@@ -5,6 +5,10 @@ import java.io.InputStream;
 import java.util.Random;
 
 import uk.ac.qub.eeecs.demos.R;
+import uk.ac.qub.eeecs.demos.engine.instrumentation.FrameStats;
+import uk.ac.qub.eeecs.demos.engine.instrumentation.FrameStatsExporter;
+import uk.ac.qub.eeecs.demos.engine.instrumentation.FrameStatsOverlay;
+import uk.ac.qub.eeecs.demos.engine.render.SurfaceCanvasLock;
 import android.app.Fragment;
 import android.content.Context;
 import android.content.res.AssetManager;
@@ -17,6 +21,7 @@ import android.graphics.Rect;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 
@@ -70,8 +75,11 @@ public class CanvasThreadTestFragment extends Fragment {
 	@Override
 	public void onPause() {
 
-		// When the fragment is paused also pause the renderer
+		// When the fragment is paused also pause the renderer and export the
+		// frame statistics for the run
 		mCanvasRenderer.pause();
+		FrameStatsExporter.exportRun(getActivity(), mCanvasRenderer.mHardwareFrameStats);
+		FrameStatsExporter.exportRun(getActivity(), mCanvasRenderer.mSoftwareFrameStats);
 
 		super.onPause();
 	}
@@ -83,7 +91,9 @@ public class CanvasThreadTestFragment extends Fragment {
 		
 	/**
 	 * Canvas render thread that will repeatedly request that the view is
-	 * redrawn as fast as possible.
+	 * redrawn as fast as possible. Tapping the view switches between the
+	 * hardware and software canvas backends (a view is drawn using a
+	 * hardware canvas unless its layer type is set to software).
 	 */
 	class CanvasRenderer extends View implements Runnable {
 
@@ -100,6 +110,28 @@ public class CanvasThreadTestFragment extends Fragment {
         private Random mRandom;
         private long mNumCalls;
 
+        /**
+         * Frame statistics for each canvas backend, the statistics of the
+         * backend in use and the optional overlay used to display them (null
+         * to hide the overlay)
+         */
+        FrameStats mHardwareFrameStats;
+        FrameStats mSoftwareFrameStats;
+        volatile FrameStats mFrameStats;
+        private FrameStatsOverlay mFrameStatsOverlay;
+
+        /**
+         * Statistics of the backend switched away from, to be exported by the
+         * render thread (which records into the current statistics, so must
+         * not be recording into them whilst they are exported and reset)
+         */
+        volatile FrameStats mPendingExport;
+
+        /**
+         * Canvas backend in use
+         */
+        private SurfaceCanvasLock.Backend mBackend;
+
         /**
          * Method that will be called by the render thread when setup is triggered
          */
@@ -108,6 +140,12 @@ public class CanvasThreadTestFragment extends Fragment {
             mRandom = new Random();
             mRect = new Rect();
             mPaint = new Paint();
+            mHardwareFrameStats = new FrameStats("canvas_thread_hardware",
+                    FrameStats.BUDGET_60FPS);
+            mSoftwareFrameStats = new FrameStats("canvas_thread_software",
+                    FrameStats.BUDGET_60FPS);
+            setBackend(SurfaceCanvasLock.Backend.Hardware);
+            mFrameStatsOverlay = new FrameStatsOverlay(30.0f);
 
             // Try to load in the image that we will draw
             try {
@@ -153,7 +191,39 @@ public class CanvasThreadTestFragment extends Fragment {
             mPaint.setTextSize(36.0f);
             mPaint.setTextAlign(Paint.Align.LEFT);
             mPaint.setColor(Color.WHITE);
-            canvas.drawText("Num=" + mNumCalls, 50.0f, 50.0f, mPaint);
+            canvas.drawText("Num=" + mNumCalls + " Backend="
+                    + (canvas.isHardwareAccelerated()
+                            ? SurfaceCanvasLock.Backend.Hardware
+                            : SurfaceCanvasLock.Backend.Software),
+                    50.0f, 50.0f, mPaint);
+        }
+
+        /**
+         * Set the canvas backend used to draw this view
+         *
+         * @param backend
+         *            Backend to be used
+         */
+        private void setBackend(SurfaceCanvasLock.Backend backend) {
+            mBackend = backend;
+            if (backend == SurfaceCanvasLock.Backend.Hardware) {
+                setLayerType(LAYER_TYPE_NONE, null);
+                mFrameStats = mHardwareFrameStats;
+            } else {
+                setLayerType(LAYER_TYPE_SOFTWARE, null);
+                mFrameStats = mSoftwareFrameStats;
+            }
+        }
+
+        /**
+         * Draw the frame statistics overlay (if shown)
+         *
+         * @param canvas
+         *            Canvas to be drawn on
+         */
+        private void drawFrameStats(Canvas canvas) {
+            if (mFrameStatsOverlay != null)
+                mFrameStatsOverlay.draw(canvas, mFrameStats, 50.0f, 80.0f);
         }
 
         // ////////////////////////////////////////////////////////////////////////
@@ -188,12 +258,42 @@ public class CanvasThreadTestFragment extends Fragment {
 			doSetup();
 		}
 
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see android.view.View#onTouchEvent(android.view.MotionEvent)
+		 */
+		@Override
+		public boolean onTouchEvent(MotionEvent event) {
+			// Switch backend, handing the statistics of the previous backend
+			// to the render thread to be exported (and so reset) so the
+			// backends can be compared. Taps are ignored until the previous
+			// export has been made.
+			if (event.getActionMasked() == MotionEvent.ACTION_DOWN
+					&& mPendingExport == null) {
+				FrameStats previousStats = mFrameStats;
+				setBackend(mBackend == SurfaceCanvasLock.Backend.Hardware
+						? SurfaceCanvasLock.Backend.Software
+						: SurfaceCanvasLock.Backend.Hardware);
+				mPendingExport = previousStats;
+			}
+			return true;
+		}
+
 		/**
 		 * Thread core run method
 		 */
 		@Override
 		public void run() {
 			while (running) {
+				// Export the statistics of the previous backend once the
+				// render thread has moved on to the current statistics
+				FrameStats pendingExport = mPendingExport;
+				if (pendingExport != null) {
+					FrameStatsExporter.exportRun(getContext(), pendingExport);
+					mPendingExport = null;
+				}
+
 				// If the last draw has been finished then request that the next
 				// starts by posting an invalidate message
 				if (drawNeeded) {
@@ -202,10 +302,13 @@ public class CanvasThreadTestFragment extends Fragment {
 				}
 
 				// Sleep for 10ms (maximum of 100fps)
+				long sleepStart = System.nanoTime();
 				try {
 					Thread.sleep(10);
 				} catch (InterruptedException e) {
 				}
+				mFrameStats.recordSleepOvershoot(
+						System.nanoTime() - sleepStart - 10000000L);
 			}
 		}
 
@@ -220,7 +323,11 @@ public class CanvasThreadTestFragment extends Fragment {
 		protected void onDraw(Canvas canvas) {
 			// Draw whatever needs to be drawn and flag that another draw can be
 			// triggered
+			long drawStart = System.nanoTime();
+			mFrameStats.markFrame(drawStart);
 			doDraw(canvas);
+			mFrameStats.recordDraw(System.nanoTime() - drawStart);
+			drawFrameStats(canvas);
 			drawNeeded = true;
 		}
 
@@ -248,6 +355,7 @@ public class CanvasThreadTestFragment extends Fragment {
 		public void resume() {
 			running = true;
 			drawNeeded = true;
+			mPendingExport = null;
 			renderThread = new Thread(this);
 			renderThread.start();
 		}		
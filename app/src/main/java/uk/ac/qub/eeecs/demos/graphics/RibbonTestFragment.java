@@ -1,20 +1,22 @@
 package uk.ac.qub.eeecs.demos.graphics;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Random;
 
-import uk.ac.qub.eeecs.demos.R;
+import uk.ac.qub.eeecs.demos.engine.assets.TextureCache;
+import uk.ac.qub.eeecs.demos.engine.parallax.ParallaxLayer;
+import uk.ac.qub.eeecs.demos.engine.render.ParallaxBackground;
+import uk.ac.qub.eeecs.demos.engine.spatial.UniformGridIndex;
+import uk.ac.qub.eeecs.demos.engine.viewport.Box;
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+import uk.ac.qub.eeecs.demos.engine.viewport.ViewportClipper;
 import android.app.Fragment;
 import android.content.Context;
-import android.content.res.AssetManager;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Rect;
 import android.os.Bundle;
 import android.util.DisplayMetrics;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -47,6 +49,14 @@ public class RibbonTestFragment extends Fragment {
 		mGameWorld = new GameWorld();
 	}
 
+	@Override
+	public void onDestroy() {
+		// Release the world bitmaps back to the texture cache
+		mGameWorld.release();
+
+		super.onDestroy();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -66,33 +76,6 @@ public class RibbonTestFragment extends Fragment {
 	// World in which positive-y points upwards
 	// ////////////////////////////////////////////////////////////////////////
 
-	/**
-	 * Define an equivalent to the Rect class, called Box, in which it is
-	 * assumed that positive-y points up.
-	 */
-	private class Box {
-		public float x; // Centre x location
-		public float y; // Centre y location
-
-		public float width; // Box width (we could(should) have used half width)
-		public float height; // Box height (we could(should) have used half
-								// height)
-
-		public Box() {
-			x = 0;
-			y = 0;
-			width = 1;
-			height = 1;
-		}
-
-		public Box(float x, float y, float width, float height) {
-			this.x = x;
-			this.y = y;
-			this.width = width;
-			this.height = height;
-		}
-	}
-
 	/**
 	 * Define a simple game world
 	 */
@@ -110,10 +93,17 @@ public class RibbonTestFragment extends Fragment {
 		private Bitmap mFishBitmap;
 
 		/**
-		 * Define the image and bound used to hold the background
+		 * Spatial index over the fish, used to find those fish that may be
+		 * visible without testing every fish
+		 */
+		private UniformGridIndex mFishIndex;
+
+		/**
+		 * Define the images and parallax layers used to draw the background
 		 */
-		private Box mBackgroundRibbon;
 		private Bitmap mRibbonBitmap;
+		private Bitmap mPlatformBitmap;
+		private ParallaxBackground mBackground;
 
 		/**
 		 * Define the layer viewport region.
@@ -139,27 +129,19 @@ public class RibbonTestFragment extends Fragment {
 			// Define the layer viewport
 			mLayerViewport = new Box(500, 500, 1000, 1000);
 
-			// Define the ribbon bound so it's a bit bigger than the viewport
-			float ribbonWidth = mLayerViewport.width * 1.2f;
-			mBackgroundRibbon = new Box(ribbonWidth / 2.0f, mLayerViewport.y,
-					ribbonWidth, mLayerViewport.height);
-
-			// Attempt to load the bitmap used for the fish and ribbon
-			try {
-				AssetManager assetManager = getActivity().getAssets();
-
-				InputStream inputStream = assetManager.open("img/Fish.png");
-				mFishBitmap = BitmapFactory.decodeStream(inputStream);
-				inputStream.close();
+			// Acquire the bitmaps used for the fish and background
+			TextureCache textureCache = TextureCache.getInstance();
+			mFishBitmap = textureCache.acquire(getActivity(), "img/Fish.png");
+			mRibbonBitmap = textureCache.acquire(getActivity(), "img/Ribbon.png");
+			mPlatformBitmap = textureCache.acquire(getActivity(), "img/Platform.png");
 
-				inputStream = assetManager.open("img/Ribbon.png");
-				mRibbonBitmap = BitmapFactory.decodeStream(inputStream);
-				inputStream.close();
-
-			} catch (IOException e) {
-				Log.d(getActivity().getResources().getString(R.string.LOG_TAG),
-						"Load error: " + e.getMessage());
-			}
+			// Define the background: the ribbon scrolls at half the speed of
+			// the fish, with a mirrored strip of platforms in front of it
+			mBackground = new ParallaxBackground();
+			mBackground.addLayer(mRibbonBitmap, 0.5f,
+					ParallaxLayer.WrapMode.Repeat);
+			mBackground.addLayer(mPlatformBitmap, 1.0f,
+					ParallaxLayer.WrapMode.Mirror, 0.9f, 1.0f);
 
 			// Define the location of each fish
 			Random random = new Random();
@@ -169,6 +151,25 @@ public class RibbonTestFragment extends Fragment {
 				mFish[idx] = new Box(x, y, mFishBitmap.getWidth(),
 						mFishBitmap.getHeight());
 			}
+
+			// Index the fish using cells the size of the layer viewport
+			mFishIndex = new UniformGridIndex(mLayerViewport.width);
+			for (int idx = 0; idx < mNumFish; idx++)
+				mFishIndex.insert(idx, mFish[idx]);
+		}
+
+		/**
+		 * Release the bitmaps used by this world
+		 */
+		public void release() {
+			mBackground.release();
+			TextureCache textureCache = TextureCache.getInstance();
+			textureCache.release(mFishBitmap);
+			textureCache.release(mRibbonBitmap);
+			textureCache.release(mPlatformBitmap);
+			mFishBitmap = null;
+			mRibbonBitmap = null;
+			mPlatformBitmap = null;
 		}
 
 		/**
@@ -202,11 +203,21 @@ public class RibbonTestFragment extends Fragment {
 		 */
 		public void draw(Canvas canvas, Rect screenViewport) {
 
-			// Draw the background ribbon
-			drawBackgroundRibbon(canvas, screenViewport);
+			// Draw the background layers, converting the left edge of the
+			// layer viewport into a scroll in screen pixels
+			float scrollX = (mLayerViewport.x - mLayerViewport.width / 2.0f)
+					* screenViewport.width() / mLayerViewport.width;
+			mBackground.draw(canvas, screenViewport, scrollX);
+
+			// Find the fish near the layer viewport, drawing them in the order
+			// in which they were defined
+			int numCandidates = mFishIndex.query(mLayerViewport);
+			int[] candidates = mFishIndex.getResults();
+			Arrays.sort(candidates, 0, numCandidates);
 
 			// Draw the fish as needed.
-			for (int idx = 0; idx < mNumFish; idx++) {
+			for (int candidateIdx = 0; candidateIdx < numCandidates; candidateIdx++) {
+				int idx = candidates[candidateIdx];
 				// If visible get source and destination rects
 				if (getSourceAndScreenRect(mFish[idx], mFishBitmap.getWidth(),
 						mFishBitmap.getHeight(), mLayerViewport,
@@ -218,43 +229,10 @@ public class RibbonTestFragment extends Fragment {
 		}
 
 		/**
-		 * Draw the background ribbon
-		 * 
-		 * @param canvas
-		 *            Canvas object on which to draw
-		 * @param screenViewport
-		 *            Viewport on the canvas object to draw to
+		 * Rectangles output by the viewport clipper
 		 */
-		private void drawBackgroundRibbon(Canvas canvas, Rect screenViewport) {
-
-			// Based on the layer viewport's location, set the x position of
-			// the first ribbon image that falls within the viewport.
-
-			int ribbonInset = (int) (mLayerViewport.x - mLayerViewport.width / 2)
-					/ (int) mBackgroundRibbon.width;
-			mBackgroundRibbon.x = ribbonInset * mBackgroundRibbon.width
-					+ mBackgroundRibbon.width / 2.0f;
-
-			// Draw this image
-			getSourceAndScreenRect(mBackgroundRibbon, mRibbonBitmap.getWidth(),
-					mRibbonBitmap.getHeight(), mLayerViewport, screenViewport,
-					sourceRect, screenRect);
-			canvas.drawBitmap(mRibbonBitmap, sourceRect, screenRect, null);
-
-			// Check if we need to draw a second ribbon to fill-in the whole
-			// viewport
-			if (mBackgroundRibbon.x + mBackgroundRibbon.width / 2 < mLayerViewport.x
-					+ mLayerViewport.width / 2) {
-
-				// If so, move the ribbon x's location on by one image worth and
-				// draw
-				mBackgroundRibbon.x += mBackgroundRibbon.width;
-				getSourceAndScreenRect(mBackgroundRibbon,
-						mRibbonBitmap.getWidth(), mRibbonBitmap.getHeight(),
-						mLayerViewport, screenViewport, sourceRect, screenRect);
-				canvas.drawBitmap(mRibbonBitmap, sourceRect, screenRect, null);
-			}
-		}
+		private IntRect clippedSourceRect = new IntRect();
+		private IntRect clippedScreenRect = new IntRect();
 
 		/**
 		 * Determine a source bitmap Rect and destintation screen Rect if the
@@ -286,73 +264,17 @@ public class RibbonTestFragment extends Fragment {
 				Box layerViewport, Rect screenViewport, Rect sourceRect,
 				Rect screenRect) {
 
-			// Determine if the entity falls within the layer viewport
-			if (entityBound.x - entityBound.width / 2 < layerViewport.x
-					+ layerViewport.width / 2
-					&& entityBound.x + entityBound.width / 2 > layerViewport.x
-							- layerViewport.width / 2
-					&& entityBound.y - entityBound.height / 2 < layerViewport.y
-							+ layerViewport.height / 2
-					&& entityBound.y + entityBound.height / 2 > layerViewport.y
-							- layerViewport.height / 2) {
-
-				// Work out what region of the entity is visible within the
-				// layer viewport,
-
-				float sourceX = Math.max(0.0f,
-						(layerViewport.x - layerViewport.width / 2)
-								- (entityBound.x - entityBound.width / 2));
-				float sourceY = Math.max(0.0f,
-						(entityBound.y + entityBound.height / 2)
-								- (layerViewport.y + layerViewport.height / 2));
-
-				float sourceWidth = ((entityBound.width - sourceX) - Math.max(
-						0.0f, (entityBound.x + entityBound.width / 2)
-								- (layerViewport.x + layerViewport.width / 2)));
-				float sourceHeight = ((entityBound.height - sourceY) - Math
-						.max(0.0f, (layerViewport.y - layerViewport.height / 2)
-								- (entityBound.y - entityBound.height / 2)));
-
-				// Determining the scale factor for mapping the bitmap onto this
-				// rect and set the sourceRect value.
-
-				float sourceScaleWidth = (float) entityBitmapWidth
-						/ (float) entityBound.width;
-				float sourceScaleHeight = (float) entityBitmapHeight
-						/ (float) entityBound.height;
-
-				sourceRect.set((int) (sourceX * sourceScaleWidth),
-						(int) (sourceY * sourceScaleHeight),
-						(int) ((sourceX + sourceWidth) * sourceScaleWidth),
-						(int) ((sourceY + sourceHeight) * sourceScaleHeight));
-
-				// Determine =which region of the screen viewport (relative to
-				// the canvas)
-				// we will be drawing to.
-
-				// Determine the x- and y-aspect rations between the layer and
-				// screen viewports
-				float screenXScale = (float) screenViewport.width()
-						/ (float) layerViewport.width;
-				float screenYScale = (float) screenViewport.height()
-						/ (float) layerViewport.height;
-
-				float screenX = screenViewport.left
-						+ screenXScale
-						* Math.max(
-								0.0f,
-								((entityBound.x - entityBound.width / 2) - (layerViewport.x - layerViewport.width / 2)));
-				float screenY = screenViewport.top
-						+ screenYScale
-						* Math.max(
-								0.0f,
-								((layerViewport.y + layerViewport.height / 2) - (entityBound.y + entityBound.height / 2)));
-
-				// Set the region to the canvas to which we will draw
-				screenRect.set((int) screenX, (int) screenY,
-						(int) (screenX + sourceWidth * screenXScale),
-						(int) (screenY + sourceHeight * screenYScale));
-
+			// The clipping maths is shared with the other viewport demos
+			if (ViewportClipper.getSourceAndScreenRect(entityBound,
+					entityBitmapWidth, entityBitmapHeight, layerViewport,
+					screenViewport.left, screenViewport.top,
+					screenViewport.width(), screenViewport.height(),
+					clippedSourceRect, clippedScreenRect)) {
+
+				sourceRect.set(clippedSourceRect.left, clippedSourceRect.top,
+						clippedSourceRect.right, clippedSourceRect.bottom);
+				screenRect.set(clippedScreenRect.left, clippedScreenRect.top,
+						clippedScreenRect.right, clippedScreenRect.bottom);
 				return true;
 			}
 
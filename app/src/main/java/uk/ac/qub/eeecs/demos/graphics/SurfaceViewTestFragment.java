@@ -2,9 +2,14 @@ package uk.ac.qub.eeecs.demos.graphics;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Locale;
 import java.util.Random;
 
 import uk.ac.qub.eeecs.demos.R;
+import uk.ac.qub.eeecs.demos.engine.instrumentation.FrameStats;
+import uk.ac.qub.eeecs.demos.engine.instrumentation.FrameStatsExporter;
+import uk.ac.qub.eeecs.demos.engine.instrumentation.FrameStatsOverlay;
+import uk.ac.qub.eeecs.demos.engine.render.SurfaceCanvasLock;
 import android.app.Fragment;
 import android.content.Context;
 import android.content.res.AssetManager;
@@ -17,10 +22,12 @@ import android.graphics.Rect;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.FrameLayout;
 
 public class SurfaceViewTestFragment extends Fragment {
 
@@ -34,6 +41,17 @@ public class SurfaceViewTestFragment extends Fragment {
 	 */
 	private SurfaceViewRenderer surfaceViewRenderer;
 
+	/**
+	 * Container holding the renderer (a new renderer, and so a new surface,
+	 * is needed to switch canvas backend)
+	 */
+	private FrameLayout mContainer;
+
+	/**
+	 * Canvas backend requested for the renderer
+	 */
+	private SurfaceCanvasLock.Backend mBackend = SurfaceCanvasLock.Backend.Hardware;
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -46,8 +64,10 @@ public class SurfaceViewTestFragment extends Fragment {
 
 		// Create a new render surface renderer that will be used to provide the
 		// render view for this fragment
-		surfaceViewRenderer = new SurfaceViewRenderer(getActivity());
-		return surfaceViewRenderer;
+		mContainer = new FrameLayout(getActivity());
+		surfaceViewRenderer = new SurfaceViewRenderer(getActivity(), mBackend);
+		mContainer.addView(surfaceViewRenderer);
+		return mContainer;
 	}
 
 	/*
@@ -71,12 +91,35 @@ public class SurfaceViewTestFragment extends Fragment {
 	@Override
 	public void onPause() {
 
-		// When the fragment is paused also pause the renderer
+		// When the fragment is paused also pause the renderer and export the
+		// frame statistics for the run
 		surfaceViewRenderer.pause();
+		FrameStatsExporter.exportRun(getActivity(), surfaceViewRenderer.mFrameStats);
 
 		super.onPause();
 	}
 
+	/**
+	 * Replace the renderer with one using the other canvas backend, exporting
+	 * the frame statistics of the replaced renderer so the backends can be
+	 * compared
+	 */
+	private void switchBackend() {
+		if (!isResumed())
+			return;
+
+		surfaceViewRenderer.pause();
+		FrameStatsExporter.exportRun(getActivity(), surfaceViewRenderer.mFrameStats);
+		mContainer.removeView(surfaceViewRenderer);
+
+		mBackend = mBackend == SurfaceCanvasLock.Backend.Hardware
+				? SurfaceCanvasLock.Backend.Software
+				: SurfaceCanvasLock.Backend.Hardware;
+		surfaceViewRenderer = new SurfaceViewRenderer(getActivity(), mBackend);
+		mContainer.addView(surfaceViewRenderer);
+		surfaceViewRenderer.resume();
+	}
+
 
 	// ////////////////////////////////////////////////////////////////////////
 	// Render Thread
@@ -84,7 +127,8 @@ public class SurfaceViewTestFragment extends Fragment {
 
 	/**
 	 * Surface view render thread that will repeatedly acquire the view and
-	 * render to it as fast as possible.
+	 * render to it as fast as possible. Tapping the view switches between the
+	 * hardware and software canvas backends.
 	 */
 	class SurfaceViewRenderer extends SurfaceView implements Runnable {
 
@@ -101,6 +145,16 @@ public class SurfaceViewTestFragment extends Fragment {
         private Random mRandom;
         private long mNumCalls;
 
+        /**
+         * Frame statistics for this renderer and the optional overlay used to
+         * display them (null to hide the overlay). The statistics are named
+         * after the backend they record, so they are replaced if the canvas
+         * lock falls back to software (only written by the render thread).
+         */
+        volatile FrameStats mFrameStats;
+        private SurfaceCanvasLock.Backend mFrameStatsBackend;
+        private FrameStatsOverlay mFrameStatsOverlay;
+
         /**
          * Method that will be called by the render thread when setup is triggered
          */
@@ -109,6 +163,8 @@ public class SurfaceViewTestFragment extends Fragment {
             mRandom = new Random();
             mRect = new Rect();
             mPaint = new Paint();
+            createFrameStats(canvasLock.getBackend());
+            mFrameStatsOverlay = new FrameStatsOverlay(30.0f);
 
             // Try to load in the image that we will draw
             try {
@@ -124,6 +180,19 @@ public class SurfaceViewTestFragment extends Fragment {
             }
         }
 
+        /**
+         * Create the frame statistics recording the specified backend
+         *
+         * @param backend
+         *            Canvas backend being recorded
+         */
+        private void createFrameStats(SurfaceCanvasLock.Backend backend) {
+            mFrameStatsBackend = backend;
+            mFrameStats = new FrameStats("surface_view_"
+                    + backend.name().toLowerCase(Locale.US),
+                    FrameStats.BUDGET_60FPS);
+        }
+
         /**
          * Method that will be called by the render thread when the canvas needs to
          * be redrawn
@@ -154,7 +223,19 @@ public class SurfaceViewTestFragment extends Fragment {
             mPaint.setTextSize(36.0f);
             mPaint.setTextAlign(Paint.Align.LEFT);
             mPaint.setColor(Color.WHITE);
-            canvas.drawText("Num=" + mNumCalls, 50.0f, 50.0f, mPaint);
+            canvas.drawText("Num=" + mNumCalls + " Backend="
+                    + canvasLock.getBackend(), 50.0f, 50.0f, mPaint);
+        }
+
+        /**
+         * Draw the frame statistics overlay (if shown)
+         *
+         * @param canvas
+         *            Canvas to be drawn on
+         */
+        private void drawFrameStats(Canvas canvas) {
+            if (mFrameStatsOverlay != null)
+                mFrameStatsOverlay.draw(canvas, mFrameStats, 50.0f, 80.0f);
         }
 
         // ////////////////////////////////////////////////////////////////////////
@@ -176,22 +257,50 @@ public class SurfaceViewTestFragment extends Fragment {
 		 */
 		SurfaceHolder holder;
 
+		/**
+		 * Lock used to acquire the surface's canvas
+		 */
+		SurfaceCanvasLock canvasLock;
+
 		/**
 		 * Create a new render thread
 		 * 
 		 * @param context
 		 *            Render context
+		 * @param backend
+		 *            Canvas backend to use if available
 		 */
-		public SurfaceViewRenderer(Context context) {
+		public SurfaceViewRenderer(Context context, SurfaceCanvasLock.Backend backend) {
 			super(context);
 
-			// Acquire a holder for this surface
+			// Acquire a holder and canvas lock for this surface
 			holder = getHolder();
+			canvasLock = new SurfaceCanvasLock(holder, backend);
 
 			// Do whatever setup is needed
 			doSetup();
 		}
 
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see android.view.View#onTouchEvent(android.view.MotionEvent)
+		 */
+		@Override
+		public boolean onTouchEvent(MotionEvent event) {
+			if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+				// Switch backend once the touch has been dispatched, as the
+				// switch removes this view
+				post(new Runnable() {
+					@Override
+					public void run() {
+						switchBackend();
+					}
+				});
+			}
+			return true;
+		}
+
 		/**
 		 * Thread core run method
 		 */
@@ -203,14 +312,30 @@ public class SurfaceViewTestFragment extends Fragment {
 				if (!holder.getSurface().isValid())
 					continue;
 
-				// Lock the surface as we wish to draw on it
-				Canvas canvas = holder.lockCanvas();
+				// Lock the surface as we wish to draw on it (this blocks until
+				// a buffer is available, so it is timed separately)
+				long lockStart = System.nanoTime();
+				Canvas canvas = canvasLock.lock();
+				if (canvas == null)
+					continue;
+
+				// Nothing is recorded before the first successful lock, so
+				// if the lock fell back to software the statistics can simply
+				// be replaced by ones named for the software backend
+				if (canvasLock.getBackend() != mFrameStatsBackend)
+					createFrameStats(canvasLock.getBackend());
+				mFrameStats.markFrame(lockStart);
+				long drawStart = System.nanoTime();
+				mFrameStats.recordLockWait(drawStart - lockStart);
 
 				// Draw whatever needs to be drawn
 				doDraw(canvas);
+				mFrameStats.recordDraw(System.nanoTime() - drawStart);
+				drawFrameStats(canvas);
 
 				// Unlock the surface and post its contents to make it visible
-				holder.unlockCanvasAndPost(canvas);
+				// (a hardware canvas is rendered at this point)
+				canvasLock.unlockAndPost(canvas);
 			}
 		}
 
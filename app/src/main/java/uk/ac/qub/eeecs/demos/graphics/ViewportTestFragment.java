@@ -1,21 +1,25 @@
 package uk.ac.qub.eeecs.demos.graphics;
 
-import java.io.IOException;
-import java.io.InputStream;
-
-import uk.ac.qub.eeecs.demos.R;
+import java.util.Arrays;
+
+import uk.ac.qub.eeecs.demos.engine.assets.TextureCache;
+import uk.ac.qub.eeecs.demos.engine.spatial.UniformGridIndex;
+import uk.ac.qub.eeecs.demos.engine.tilemap.TileMapLayer;
+import uk.ac.qub.eeecs.demos.engine.viewport.Box;
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+import uk.ac.qub.eeecs.demos.engine.viewport.ScreenTransform;
+import uk.ac.qub.eeecs.demos.engine.viewport.ViewportLayout;
+import uk.ac.qub.eeecs.demos.engine.viewport.VisibleSet;
 import android.app.Fragment;
 import android.content.Context;
-import android.content.res.AssetManager;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
-import android.graphics.Matrix;
+import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 
@@ -55,6 +59,15 @@ public class ViewportTestFragment extends Fragment {
 		mGameWorldYDown = new GameWorldPositiveYDown();
 	}
 
+	@Override
+	public void onDestroy() {
+		// Release the world bitmaps back to the texture cache
+		mGameWorldYUp.release();
+		mGameWorldYDown.release();
+
+		super.onDestroy();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -74,36 +87,6 @@ public class ViewportTestFragment extends Fragment {
 	// World in which positive-y points upwards
 	// ////////////////////////////////////////////////////////////////////////
 
-	/**
-	 * Define an equivalent to the Rect class, called Box, in which it is
-	 * assumed that positive-y points up.
-	 * 
-	 * This might seem an odd box to create, however, consider the following
-	 * fragment from the Android Rect class description:
-	 * 
-	 * "Rect holds four integer coordinates for a rectangle. Note: most methods
-	 * do not check to see that the coordinates are sorted correctly (i.e. left
-	 * <= right and top <= bottom)."
-	 * 
-	 * In particular, Rect assumes that top <= bottom, i.e. that positive y 
-	 * points downwards. In box, positive y will point upwards, i.e. top >= bottom
-	 */
-	private class Box {
-		public float x; 		// Centre x location 
-		public float y; 		// Centre y location
-		
-		public float width;		// Box width (we could(should) have used half width)
-		public float height;	// Box height (we could(should) have used half height)
-		
-		public Box() {
-			x = 0; y = 0; width = 1; height = 1;
-		}
-
-		public Box(float x, float y, float width, float height) {
-			this.x = x; this.y = y; this.width = width; this.height = height;
-		}
-	}
-
 	/**
 	 * Define a game world in which positive y points up
 	 */
@@ -120,6 +103,12 @@ public class ViewportTestFragment extends Fragment {
 		private Box mPlatforms[] = new Box[mNumPlatforms];
 		private Bitmap mPlatformBitmap;
 
+		/**
+		 * Spatial index over the platforms, used to find those platforms
+		 * that may be visible without testing every platform
+		 */
+		private UniformGridIndex mPlatformIndex;
+
 		/**
 		 * Define the layer viewport region. A more fancy layerport class
 		 * could have been defined that would offer move/focus methods.
@@ -150,16 +139,9 @@ public class ViewportTestFragment extends Fragment {
 		 */
 		private void loadAndPositionPlatforms() {
 
-			// Attempt to load the bitmap used for the platforms
-			try {
-				AssetManager assetManager = getActivity().getAssets();
-				InputStream inputStream = assetManager.open("img/Platform.png");
-				mPlatformBitmap = BitmapFactory.decodeStream(inputStream);
-				inputStream.close();
-			} catch (IOException e) {
-				Log.d(getActivity().getResources().getString(R.string.LOG_TAG),
-						"Load error: " + e.getMessage());
-			}
+			// Acquire the bitmap used for the platforms (shared by both worlds)
+			mPlatformBitmap = TextureCache.getInstance()
+					.acquire(getActivity(), "img/Platform.png");
 
 			// Define the location of each platform
 			for (int idx = 0; idx < mNumPlatforms; idx++) {
@@ -168,6 +150,19 @@ public class ViewportTestFragment extends Fragment {
 				mPlatforms[idx] = new Box(x, y, 
 						mPlatformBitmap.getWidth(), mPlatformBitmap.getHeight());
 			}
+
+			// Index the platforms using cells the size of the layer viewport
+			mPlatformIndex = new UniformGridIndex(mLayerViewport.width);
+			for (int idx = 0; idx < mNumPlatforms; idx++)
+				mPlatformIndex.insert(idx, mPlatforms[idx]);
+		}
+
+		/**
+		 * Release the bitmap used by this world
+		 */
+		public void release() {
+			TextureCache.getInstance().release(mPlatformBitmap);
+			mPlatformBitmap = null;
 		}
 
 		/**
@@ -198,93 +193,51 @@ public class ViewportTestFragment extends Fragment {
 		 */
 		private Rect sourceRect = new Rect();
 		private Rect screenRect = new Rect();
-		
+
 		/**
-		 * Draw the world to the specified viewport defined on the specified canvas
-		 * 
-		 * @param canvas Canvas object on which to draw
-		 * @param screenViewport Viewport on the canvas object to draw to
+		 * Platforms visible within the layer viewport this frame, and the
+		 * rectangles output when mapping them onto a screen viewport (copied
+		 * into the Rects above before drawing)
 		 */
-		public void draw(Canvas canvas, Rect screenViewport) {
-
-			// Determine the x- and y-aspect rations between the layer and screen viewports			
-			float screenXScale = 
-					(float) screenViewport.width() / (float) mLayerViewport.width; 
-			float screenYScale = 
-					(float) screenViewport.height() / (float) mLayerViewport.height;
-
-			// Test each platfrom to see if it needs to be drawn
-			for (int idx = 0; idx < mNumPlatforms; idx++) {
-
-				// Check if some portion of the platform is visible within the layer viewport
-
-				if (mPlatforms[idx].x - mPlatforms[idx].width / 2 
-						< mLayerViewport.x + mLayerViewport.width / 2 && 
-					mPlatforms[idx].x + mPlatforms[idx].width / 2 
-						> mLayerViewport.x - mLayerViewport.width / 2 && 
-					mPlatforms[idx].y - mPlatforms[idx].height / 2 
-						< mLayerViewport.y + mLayerViewport.height / 2 && 
-					mPlatforms[idx].y + mPlatforms[idx].height / 2 
-						> mLayerViewport.y - mLayerViewport.height / 2) {
-
-					// At this point we know some portion of the platform is visible
-					
-					// Determining the scale factor for mapping the bitmap onto this 
-					// platform. This should really be wrapped up inside a platform 
-					// object and not recalculated ever single draw request. Note
-					// the use of float casting to avoid integer maths.
-
-					float sourceScaleWidth = 
-							(float) mPlatformBitmap.getWidth()/(float) mPlatforms[idx].width;
-					float sourceScaleHeight = 
-							(float) mPlatformBitmap.getHeight()/(float) mPlatforms[idx].height;
-
-					// Work out what region of the platform is visible within the viewport,
-					// The y-axis is inverted (i.e. 0 is the top of the bitmap image and 
-					// positive y moves down) - as is the convention for images.
-					
-					float sourceX = Math.max(0.0f,
-							(mLayerViewport.x - mLayerViewport.width / 2) 
-								- (mPlatforms[idx].x - mPlatforms[idx].width / 2));
-					float sourceY = Math.max(0.0f,
-							(mPlatforms[idx].y + mPlatforms[idx].height / 2) 
-								- (mLayerViewport.y + mLayerViewport.height / 2));
-
-					float sourceWidth = ((mPlatforms[idx].width - sourceX) - Math.max(0.0f,
-							(mPlatforms[idx].x + mPlatforms[idx].width / 2)
-								- (mLayerViewport.x + mLayerViewport.width / 2)));
-					float sourceHeight = ((mPlatforms[idx].height - sourceY) - Math.max(0.0f,
-							(mLayerViewport.y - mLayerViewport.height / 2) 
-								- (mPlatforms[idx].y - mPlatforms[idx].height / 2)));
-
-					// Set the region of the source bitmap we will draw (scaling as needed)					
-					sourceRect.set(
-							(int)(sourceX * sourceScaleWidth), (int)(sourceY * sourceScaleHeight),
-							(int)((sourceX + sourceWidth) * sourceScaleWidth),
-							(int)((sourceY + sourceHeight) * sourceScaleHeight));
-
-					// Work out which region of the screen viewport (relative to the canvas) 
-					// we will be drawing to. Assuming here that (0,0) is the top-left position
-					// and positive y moves down the way.
-										
-					float screenX = screenViewport.left + Math.max(0.0f,
-							((mPlatforms[idx].x - mPlatforms[idx].width / 2) 
-									- (mLayerViewport.x - mLayerViewport.width / 2))) * screenXScale;
-					float screenY = screenViewport.top + Math.max(0.0f,
-							((mLayerViewport.y + mLayerViewport.height / 2) 
-									- (mPlatforms[idx].y + mPlatforms[idx].height / 2))) * screenYScale;
+		private VisibleSet mVisiblePlatforms = new VisibleSet();
+		private IntRect visibleSourceRect = new IntRect();
+		private IntRect visibleScreenRect = new IntRect();
 
-					float screenWidth = sourceWidth * screenXScale;
-					float screenHeight = sourceHeight * screenYScale;
+		/**
+		 * Return the layer viewport
+		 */
+		public Box getLayerViewport() {
+			return mLayerViewport;
+		}
 
-					// Set the region to the canvas to which we will draw					
-					screenRect.set((int)screenX, (int)screenY,
-							(int)(screenX + screenWidth), (int)(screenY + screenHeight));
+		/**
+		 * Find and clip the platforms visible within the layer viewport. This
+		 * is done once per frame, however many screen viewports the world is
+		 * then drawn to.
+		 */
+		public void gatherVisible() {
+			mVisiblePlatforms.gather(mLayerViewport, mPlatformIndex, mPlatforms,
+					mPlatformBitmap.getWidth(), mPlatformBitmap.getHeight());
+		}
 
-					// Draw the platform
-					canvas.drawBitmap(mPlatformBitmap, sourceRect, screenRect,
-							null);
-				}
+		/**
+		 * Draw the platforms found by the last gather to a screen viewport
+		 * 
+		 * @param canvas Canvas object on which to draw
+		 * @param transform Transform from the layer viewport onto the screen
+		 *        viewport to draw to
+		 */
+		public void draw(Canvas canvas, ScreenTransform transform) {
+			for (int idx = 0; idx < mVisiblePlatforms.size(); idx++) {
+				mVisiblePlatforms.getSourceRect(idx, visibleSourceRect);
+				mVisiblePlatforms.getScreenRect(idx, transform, visibleScreenRect);
+				sourceRect.set(visibleSourceRect.left, visibleSourceRect.top,
+						visibleSourceRect.right, visibleSourceRect.bottom);
+				screenRect.set(visibleScreenRect.left, visibleScreenRect.top,
+						visibleScreenRect.right, visibleScreenRect.bottom);
+
+				// Draw the platform
+				canvas.drawBitmap(mPlatformBitmap, sourceRect, screenRect, null);
 			}
 		}
 	}
@@ -309,6 +262,28 @@ public class ViewportTestFragment extends Fragment {
 		private final int mNumPlatforms = 100;
 		private Rect mPlatforms[] = new Rect[mNumPlatforms];
 		private Bitmap mPlatformBitmap;
+
+		/**
+		 * Spatial index over the platforms, used to find those platforms
+		 * that may be visible without testing every platform
+		 */
+		private UniformGridIndex mPlatformIndex;
+
+		/**
+		 * Tile map layer holding the platforms, drawn using pre-baked chunk
+		 * bitmaps. If disabled, the platforms are drawn one at a time (useful
+		 * for comparing the two approaches).
+		 */
+		private boolean mUseTileMap = true;
+		private TileMapLayer mPlatformLayer;
+
+		/**
+		 * Byte budget of the baked chunk bitmaps. The chunks are not held by
+		 * the TextureCache, so this is in addition to its budget. 8MB holds
+		 * eight 512x512 ARGB_8888 chunks: the (up to) four chunks visible
+		 * within the 300x300 layer viewport and four baked ahead of it.
+		 */
+		private static final long CHUNK_CACHE_BUDGET_BYTES = 8L * 1024L * 1024L;
 		
 		/**
 		 * Define the layer viewport region. A more fancy layerport class
@@ -340,16 +315,9 @@ public class ViewportTestFragment extends Fragment {
 		 */		
 		private void loadAndPositionPlatforms() {
 
-			// Attempt to load the bitmap used for the platforms
-			try {
-				AssetManager assetManager = getActivity().getAssets();
-				InputStream inputStream = assetManager.open("img/Platform.png");
-				mPlatformBitmap = BitmapFactory.decodeStream(inputStream);
-				inputStream.close();
-			} catch (IOException e) {
-				Log.d(getActivity().getResources().getString(R.string.LOG_TAG),
-						"Load error: " + e.getMessage());
-			}
+			// Acquire the bitmap used for the platforms (shared by both worlds)
+			mPlatformBitmap = TextureCache.getInstance()
+					.acquire(getActivity(), "img/Platform.png");
 
 			// Define the location of each platform
 			for (int idx = 0; idx < mNumPlatforms; idx++) {
@@ -359,6 +327,29 @@ public class ViewportTestFragment extends Fragment {
 					x + mPlatformBitmap.getWidth(), 
 					y + mPlatformBitmap.getHeight());
 			}
+
+			// Index the platforms using cells the size of the layer viewport
+			mPlatformIndex = new UniformGridIndex(mLayerViewport.width());
+			for (int idx = 0; idx < mNumPlatforms; idx++)
+				mPlatformIndex.insert(idx, mPlatforms[idx].left, mPlatforms[idx].top,
+						mPlatforms[idx].right, mPlatforms[idx].bottom);
+
+			// Add the platforms to the tile map layer, caching as many chunks
+			// as fit within the chunk budget
+			mPlatformLayer = new TileMapLayer(TileMapLayer.DEFAULT_CHUNK_SIZE,
+					TileMapLayer.getMaxCachedChunks(TileMapLayer.DEFAULT_CHUNK_SIZE,
+							CHUNK_CACHE_BUDGET_BYTES));
+			for (int idx = 0; idx < mNumPlatforms; idx++)
+				mPlatformLayer.addTile(mPlatformBitmap, mPlatforms[idx]);
+		}
+
+		/**
+		 * Release the bitmap and tile map layer used by this world
+		 */
+		public void release() {
+			mPlatformLayer.release();
+			TextureCache.getInstance().release(mPlatformBitmap);
+			mPlatformBitmap = null;
 		}
 
 		/**
@@ -397,14 +388,27 @@ public class ViewportTestFragment extends Fragment {
 		 */		
 		public void draw(Canvas canvas, Rect screenViewport) {
 
+			if (mUseTileMap) {
+				mPlatformLayer.draw(canvas, mLayerViewport, screenViewport);
+				return;
+			}
+
 			// Determine the x- and y-aspect rations between the layer and screen viewports				
 			float screenXScale = 
 					(float) screenViewport.width() / (float) mLayerViewport.width(); 			
 			float screenYScale = 
 					(float) screenViewport.height() / (float) mLayerViewport.height();
 
-			// Test each platfrom to see if it needs to be drawn
-			for (int idx = 0; idx < mNumPlatforms; idx++) {
+			// Find the platforms near the layer viewport, drawing them in the
+			// order in which they were defined
+			int numCandidates = mPlatformIndex.query(mLayerViewport.left,
+					mLayerViewport.top, mLayerViewport.right, mLayerViewport.bottom);
+			int[] candidates = mPlatformIndex.getResults();
+			Arrays.sort(candidates, 0, numCandidates);
+
+			// Test each candidate platfrom to see if it needs to be drawn
+			for (int candidateIdx = 0; candidateIdx < numCandidates; candidateIdx++) {
+				int idx = candidates[candidateIdx];
 
 				// Check if some portion of the platform is visible within the layer viewport
 
@@ -469,16 +473,60 @@ public class ViewportTestFragment extends Fragment {
 
 	/**
 	 * Custom view object that will repeatedly update and display the game world.
+	 * The up world is drawn to a split-screen layout in the top half of the
+	 * view (tap the view to change the number of viewports) and the down
+	 * world to two viewports in the bottom half.
 	 */
 	private class RenderView extends View {
 
 		/**
-		 * Define a total of four screen viewports 
+		 * Maximum number of screen viewports showing the up world
 		 */
-		private Rect mScreenViewportTopLeft;
-		private Rect mScreenViewportTopRight;
-		private Rect mScreenViewportBottomLeft;
-		private Rect mScreenViewportBottomRight;
+		private static final int MAX_UP_VIEWPORTS = 4;
+
+		/**
+		 * Gap (in pixels) between and around the screen viewports
+		 */
+		private static final int VIEWPORT_GAP = 50;
+
+		/**
+		 * Number of frames over which the draw timings are averaged
+		 */
+		private static final int STATS_FRAMES = 30;
+
+		/**
+		 * Screen viewports (and transforms onto them from the layer viewport)
+		 * showing the up world, and the number in use
+		 */
+		private IntRect[] mUpViewports = new IntRect[MAX_UP_VIEWPORTS];
+		private ScreenTransform[] mUpTransforms = new ScreenTransform[MAX_UP_VIEWPORTS];
+		private int mUpViewportCount = 2;
+
+		/**
+		 * Screen viewports showing the down world
+		 */
+		private IntRect[] mDownLayout = { new IntRect(), new IntRect() };
+		private Rect[] mDownViewports = { new Rect(), new Rect() };
+
+		/**
+		 * Time (in ns) spent gathering the visible platforms, drawing them to
+		 * the first viewport and drawing them to the extra viewports, since
+		 * the averages were last calculated
+		 */
+		private long mGatherTime;
+		private long mFirstViewportTime;
+		private long mExtraViewportTime;
+		private int mExtraViewportDraws;
+		private int mStatsFrames;
+
+		/**
+		 * Average gather and per viewport draw times (in microseconds) and
+		 * the paint used to display them
+		 */
+		private float mAverageGather;
+		private float mAverageFirstViewport;
+		private float mAverageExtraViewport;
+		private Paint mStatsPaint;
 
 		/**
 		 * Create a new render view instance
@@ -489,13 +537,62 @@ public class ViewportTestFragment extends Fragment {
 		public RenderView(Context context) {
 			super(context);
 
-			// Define the two viewports for the up world
-			mScreenViewportTopLeft = new Rect(50, 50, 500, 100);
-			mScreenViewportTopRight = new Rect(550, 50, 700, 200);
+			for (int idx = 0; idx < MAX_UP_VIEWPORTS; idx++) {
+				mUpViewports[idx] = new IntRect();
+				mUpTransforms[idx] = new ScreenTransform();
+			}
 
-			// Define the two viewports for the down world
-			mScreenViewportBottomLeft = new Rect(50, 550, 500, 1000);
-			mScreenViewportBottomRight = new Rect(550, 550, 700, 700);
+			mStatsPaint = new Paint();
+			mStatsPaint.setTextSize(32.0f);
+			mStatsPaint.setColor(Color.WHITE);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see android.view.View#onSizeChanged(int, int, int, int)
+		 */
+		@Override
+		protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+			super.onSizeChanged(w, h, oldw, oldh);
+			layoutViewports();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see android.view.View#onTouchEvent(android.view.MotionEvent)
+		 */
+		@Override
+		public boolean onTouchEvent(MotionEvent event) {
+			if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+				// Cycle the number of viewports showing the up world
+				mUpViewportCount = mUpViewportCount % MAX_UP_VIEWPORTS + 1;
+				layoutViewports();
+			}
+			return true;
+		}
+
+		/**
+		 * Lay out the screen viewports for the current view size and
+		 * viewport count, recomputing the up world's transforms
+		 */
+		private void layoutViewports() {
+			int halfHeight = getHeight() / 2;
+			ViewportLayout.split(mUpViewportCount, new IntRect(VIEWPORT_GAP,
+					VIEWPORT_GAP, getWidth() - VIEWPORT_GAP,
+					halfHeight - VIEWPORT_GAP / 2), VIEWPORT_GAP, mUpViewports);
+			Box layerViewport = mGameWorldYUp.getLayerViewport();
+			for (int idx = 0; idx < mUpViewportCount; idx++)
+				mUpTransforms[idx].set(mUpViewports[idx],
+						layerViewport.width, layerViewport.height);
+
+			ViewportLayout.split(mDownLayout.length, new IntRect(VIEWPORT_GAP,
+					halfHeight + VIEWPORT_GAP / 2, getWidth() - VIEWPORT_GAP,
+					getHeight() - 2 * VIEWPORT_GAP), VIEWPORT_GAP, mDownLayout);
+			for (int idx = 0; idx < mDownLayout.length; idx++)
+				mDownViewports[idx].set(mDownLayout[idx].left, mDownLayout[idx].top,
+						mDownLayout[idx].right, mDownLayout[idx].bottom);
 		}
 
 		/*
@@ -510,13 +607,29 @@ public class ViewportTestFragment extends Fragment {
 			mGameWorldYUp.update();
 			mGameWorldYDown.update();
 
-			// Draw the two up world viewports
-			mGameWorldYUp.draw(canvas, mScreenViewportTopLeft);
-			mGameWorldYUp.draw(canvas, mScreenViewportTopRight);
+			// Gather the visible up world platforms once, then draw them to
+			// each of the up world viewports, timing the gather, the first
+			// viewport and any extra viewports
+			long startTime = System.nanoTime();
+			mGameWorldYUp.gatherVisible();
+			long gatherTime = System.nanoTime();
+			mGameWorldYUp.draw(canvas, mUpTransforms[0]);
+			long firstViewportTime = System.nanoTime();
+			for (int idx = 1; idx < mUpViewportCount; idx++)
+				mGameWorldYUp.draw(canvas, mUpTransforms[idx]);
+			long endTime = System.nanoTime();
+			recordTimings(gatherTime - startTime, firstViewportTime - gatherTime,
+					endTime - firstViewportTime, mUpViewportCount - 1);
 
 			// Draw the two down world viewports
-			mGameWorldYDown.draw(canvas, mScreenViewportBottomLeft);
-			mGameWorldYDown.draw(canvas, mScreenViewportBottomRight);
+			for (int idx = 0; idx < mDownViewports.length; idx++)
+				mGameWorldYDown.draw(canvas, mDownViewports[idx]);
+
+			canvas.drawText("Viewports = " + mUpViewportCount
+					+ ", gather = " + mAverageGather
+					+ " us, first viewport = " + mAverageFirstViewport
+					+ " us, each extra viewport = " + mAverageExtraViewport + " us",
+					VIEWPORT_GAP, getHeight() - VIEWPORT_GAP / 2, mStatsPaint);
 
 			try {
 				Thread.sleep(30);
@@ -526,5 +639,29 @@ public class ViewportTestFragment extends Fragment {
 			// Invalid our canvas, so we'll be asked to redraw
 			invalidate();
 		}
+
+		/**
+		 * Record the timings of a frame, updating the averages once enough
+		 * frames have been recorded
+		 */
+		private void recordTimings(long gatherTime, long firstViewportTime,
+				long extraViewportTime, int extraViewports) {
+			mGatherTime += gatherTime;
+			mFirstViewportTime += firstViewportTime;
+			mExtraViewportTime += extraViewportTime;
+			mExtraViewportDraws += extraViewports;
+			if (++mStatsFrames < STATS_FRAMES)
+				return;
+
+			mAverageGather = mGatherTime / (mStatsFrames * 1000.0f);
+			mAverageFirstViewport = mFirstViewportTime / (mStatsFrames * 1000.0f);
+			mAverageExtraViewport = mExtraViewportDraws == 0 ? 0.0f
+					: mExtraViewportTime / (mExtraViewportDraws * 1000.0f);
+			mGatherTime = 0;
+			mFirstViewportTime = 0;
+			mExtraViewportTime = 0;
+			mExtraViewportDraws = 0;
+			mStatsFrames = 0;
+		}
 	}
 }
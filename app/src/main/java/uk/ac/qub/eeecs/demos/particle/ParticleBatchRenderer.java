@@ -0,0 +1,252 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import uk.ac.qub.eeecs.demos.engine.math.FastMath;
+import uk.ac.qub.eeecs.demos.engine.render.BitmapTexture;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff.Mode;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Shader;
+import android.os.Build;
+
+/**
+ * Batched particle renderer. Rather than issuing one drawBitmap call per
+ * particle, a textured quad is built for each particle within a shared
+ * vertex, texture coordinate and colour buffer and the whole emitter is
+ * submitted using a single drawVertices call.
+ *
+ * The buffers are retained between frames and only grow when the number of
+ * particles exceeds their current capacity.
+ *
+ * @version 1.0
+ */
+public class ParticleBatchRenderer {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * API level from which drawVertices is supported on hardware accelerated
+	 * canvases (it is silently ignored on earlier hardware canvases)
+	 */
+	private static final int HARDWARE_DRAW_VERTICES_API = 29;
+
+	/**
+	 * Maximum number of particles that can be submitted in a single call
+	 * (limited by the use of 16-bit vertex indices)
+	 */
+	private static final int MAX_PARTICLES_PER_BATCH = 65536 / 4;
+
+	/**
+	 * Per-particle buffer sizes (four vertices, two triangles)
+	 */
+	private static final int FLOATS_PER_PARTICLE = 8;
+	private static final int COLORS_PER_PARTICLE = 4;
+	private static final int INDICES_PER_PARTICLE = 6;
+
+	/**
+	 * Texture used by the particles, its width and height and the offset of
+	 * its region within the bitmap holding it
+	 */
+	private BitmapTexture texture;
+	private float textureWidth;
+	private float textureHeight;
+	private float textureLeft;
+	private float textureTop;
+
+	/**
+	 * Paint instance holding the texture shader and blend mode
+	 */
+	private Paint paint = new Paint();
+
+	/**
+	 * Vertex, texture coordinate, colour and index buffers
+	 */
+	private float[] vertices = new float[0];
+	private float[] texCoords = new float[0];
+	private int[] colors = new int[0];
+	private short[] indices = new short[0];
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Configuration
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Set the texture and blending used when drawing particles
+	 *
+	 * @param texture Texture drawn centred on each particle
+	 * @param additiveBlend True if particles should be additively blended
+	 */
+	public void setTexture(BitmapTexture texture, boolean additiveBlend) {
+		this.texture = texture;
+		textureWidth = texture.getWidth();
+		textureHeight = texture.getHeight();
+		textureLeft = texture.getRegion().left;
+		textureTop = texture.getRegion().top;
+
+		paint.reset();
+		paint.setAntiAlias(true);
+		paint.setFilterBitmap(true);
+		paint.setShader(new BitmapShader(texture.getBitmap(),
+				Shader.TileMode.CLAMP, Shader.TileMode.CLAMP));
+		if (additiveBlend)
+			paint.setXfermode(new PorterDuffXfermode(Mode.ADD));
+
+		// The texture coordinates are the same for every particle, so
+		// rebuild them for the new texture size
+		fillTexCoords(0, texCoords.length / FLOATS_PER_PARTICLE);
+	}
+
+	/**
+	 * Determine if batched drawing is supported by the specified canvas
+	 *
+	 * @param canvas Canvas to test
+	 * @return True if drawVertices can be used on the canvas
+	 */
+	public static boolean isSupported(Canvas canvas) {
+		return !canvas.isHardwareAccelerated()
+				|| Build.VERSION.SDK_INT >= HARDWARE_DRAW_VERTICES_API;
+	}
+
+	/**
+	 * Ensure the buffers can hold the specified number of particles
+	 *
+	 * @param numParticles Number of particles to be held
+	 */
+	private void ensureCapacity(int numParticles) {
+		int capacity = texCoords.length / FLOATS_PER_PARTICLE;
+		if (numParticles <= capacity)
+			return;
+
+		int newCapacity = Math.max(numParticles, capacity * 2);
+		vertices = new float[newCapacity * FLOATS_PER_PARTICLE];
+		texCoords = new float[newCapacity * FLOATS_PER_PARTICLE];
+		colors = new int[newCapacity * COLORS_PER_PARTICLE];
+		fillTexCoords(0, newCapacity);
+
+		// Indices are relative to the start of each batch, so they only need
+		// to cover the largest batch that will be submitted
+		int batchCapacity = Math.min(newCapacity, MAX_PARTICLES_PER_BATCH);
+		if (indices.length < batchCapacity * INDICES_PER_PARTICLE) {
+			indices = new short[batchCapacity * INDICES_PER_PARTICLE];
+			for (int idx = 0; idx < batchCapacity; idx++) {
+				int index = idx * INDICES_PER_PARTICLE;
+				int vertex = idx * 4;
+				indices[index] = (short) vertex;
+				indices[index + 1] = (short) (vertex + 1);
+				indices[index + 2] = (short) (vertex + 2);
+				indices[index + 3] = (short) vertex;
+				indices[index + 4] = (short) (vertex + 2);
+				indices[index + 5] = (short) (vertex + 3);
+			}
+		}
+	}
+
+	/**
+	 * Define the texture coordinates (in bitmap pixels, covering the
+	 * texture's region) for the specified range of particles
+	 *
+	 * @param from Index of the first particle
+	 * @param to Index one past the last particle
+	 */
+	private void fillTexCoords(int from, int to) {
+		for (int idx = from; idx < to; idx++) {
+			int offset = idx * FLOATS_PER_PARTICLE;
+			texCoords[offset] = textureLeft;
+			texCoords[offset + 1] = textureTop;
+			texCoords[offset + 2] = textureLeft + textureWidth;
+			texCoords[offset + 3] = textureTop;
+			texCoords[offset + 4] = textureLeft + textureWidth;
+			texCoords[offset + 5] = textureTop + textureHeight;
+			texCoords[offset + 6] = textureLeft;
+			texCoords[offset + 7] = textureTop + textureHeight;
+		}
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Draw
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Draw all particles within the store. Each particle is placed using the
+	 * same transform as the per-particle path, i.e. scaled, rotated about the
+	 * texture centre and then translated so the texture centre sits on the
+	 * particle position.
+	 *
+	 * @param canvas Canvas on which to draw to
+	 * @param particles Particles to draw
+	 * @param interpolation Fraction [0, 1] between each particle's previous
+	 *        and current state at which to draw it
+	 */
+	public void draw(Canvas canvas, ParticleStore particles, float interpolation) {
+		int count = particles.size();
+		if (count == 0 || texture == null)
+			return;
+
+		ensureCapacity(count);
+
+		float centerX = textureWidth / 2.0f;
+		float centerY = textureHeight / 2.0f;
+
+		for (int idx = 0; idx < count; idx++) {
+
+			float scale = particles.scale[idx];
+			float orientation = particles.previousOrientation[idx]
+					+ (particles.orientation[idx] - particles.previousOrientation[idx])
+					* interpolation;
+			float cos = FastMath.cosDegrees(orientation);
+			float sin = FastMath.sinDegrees(orientation);
+
+			// Texture corners relative to the rotation point, after scaling
+			float left = -centerX;
+			float top = -centerY;
+			float right = scale * textureWidth - centerX;
+			float bottom = scale * textureHeight - centerY;
+
+			float x = particles.previousPositionX[idx]
+					+ (particles.positionX[idx] - particles.previousPositionX[idx])
+					* interpolation;
+			float y = particles.previousPositionY[idx]
+					+ (particles.positionY[idx] - particles.previousPositionY[idx])
+					* interpolation;
+
+			int offset = idx * FLOATS_PER_PARTICLE;
+			vertices[offset] = x + left * cos - top * sin;
+			vertices[offset + 1] = y + left * sin + top * cos;
+			vertices[offset + 2] = x + right * cos - top * sin;
+			vertices[offset + 3] = y + right * sin + top * cos;
+			vertices[offset + 4] = x + right * cos - bottom * sin;
+			vertices[offset + 5] = y + right * sin + bottom * cos;
+			vertices[offset + 6] = x + left * cos - bottom * sin;
+			vertices[offset + 7] = y + left * sin + bottom * cos;
+
+			// Fade in at the start of the life span and out at the end. The
+			// vertex colour modulates the texture, so white retains the
+			// texture colour and only the alpha changes.
+			float normalizedLifetime =
+					particles.timeSinceBirth[idx] / particles.lifeSpan[idx];
+			float alpha = 4.0f * normalizedLifetime * (1 - normalizedLifetime);
+			int color = ((int) (alpha * 255) << 24) | 0x00FFFFFF;
+
+			int colorOffset = idx * COLORS_PER_PARTICLE;
+			colors[colorOffset] = color;
+			colors[colorOffset + 1] = color;
+			colors[colorOffset + 2] = color;
+			colors[colorOffset + 3] = color;
+		}
+
+		// Submit the particles, splitting into batches if there are more
+		// than can be addressed using 16-bit indices
+		for (int start = 0; start < count; start += MAX_PARTICLES_PER_BATCH) {
+			int batchSize = Math.min(MAX_PARTICLES_PER_BATCH, count - start);
+			canvas.drawVertices(Canvas.VertexMode.TRIANGLES,
+					batchSize * FLOATS_PER_PARTICLE,
+					vertices, start * FLOATS_PER_PARTICLE,
+					texCoords, start * FLOATS_PER_PARTICLE,
+					colors, start * COLORS_PER_PARTICLE,
+					indices, 0, batchSize * INDICES_PER_PARTICLE, paint);
+		}
+	}
+}
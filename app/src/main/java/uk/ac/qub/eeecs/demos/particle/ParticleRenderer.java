@@ -0,0 +1,160 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import uk.ac.qub.eeecs.demos.engine.render.BitmapTexture;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.PorterDuff.Mode;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+
+/**
+ * Draws a store of particles using either one drawBitmap call per particle or
+ * a single batched call. A renderer holds the paints and buffers used when
+ * drawing, so it should only be used from one thread at a time.
+ *
+ * @version 1.0
+ */
+public class ParticleRenderer {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Paint instances used when drawing particles individually with normal
+	 * alpha blending and additive blending
+	 */
+	private Paint paint;
+	private Paint additivePaint;
+
+	/**
+	 * Matrix used to draw individual particles
+	 */
+	private Matrix matrix = new Matrix();
+
+	/**
+	 * Destination used when drawing particles whose texture is a region of
+	 * a larger bitmap (e.g. an atlas)
+	 */
+	private Rect regionDestination = new Rect();
+
+	/**
+	 * Renderer used when the particles are drawn as a single batch, alongside
+	 * the texture and blending it is currently configured to use
+	 */
+	private ParticleBatchRenderer batchRenderer = new ParticleBatchRenderer();
+	private BitmapTexture batchTexture;
+	private boolean batchAdditiveBlend;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new particle renderer
+	 */
+	public ParticleRenderer() {
+		paint = new Paint();
+		paint.setAntiAlias(true);
+
+		additivePaint = new Paint();
+		additivePaint.setAntiAlias(true);
+		additivePaint.setXfermode(new PorterDuffXfermode(Mode.ADD));
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Draw all particles within the store, interpolating between the state
+	 * before and after the last update. If batched drawing is requested but
+	 * not supported by the canvas then the particles are drawn individually.
+	 *
+	 * @param canvas Canvas on which to draw to
+	 * @param particles Particles to draw
+	 * @param texture Texture drawn centred on each particle
+	 * @param additiveBlend True if particles should be additively blended
+	 * @param batched True if the particles should be drawn as a single batch
+	 * @param interpolation Fraction [0, 1] between the previous and current
+	 *        particle state at which to draw
+	 */
+	public void draw(Canvas canvas, ParticleStore particles, BitmapTexture texture,
+			boolean additiveBlend, boolean batched, float interpolation) {
+
+		if (texture == null)
+			return;
+
+		if (batched && ParticleBatchRenderer.isSupported(canvas)) {
+			// Only reconfigure the batch renderer if the texture has changed
+			if (texture != batchTexture || additiveBlend != batchAdditiveBlend) {
+				batchRenderer.setTexture(texture, additiveBlend);
+				batchTexture = texture;
+				batchAdditiveBlend = additiveBlend;
+			}
+			batchRenderer.draw(canvas, particles, interpolation);
+		} else {
+			drawPerParticle(canvas, particles, texture,
+					additiveBlend ? additivePaint : paint, interpolation);
+		}
+	}
+
+	/**
+	 * Draw all particles using one drawBitmap call per particle
+	 *
+	 * @param canvas Canvas on which to draw to
+	 * @param p Particles to draw
+	 * @param texture Texture drawn centred on each particle
+	 * @param paint Paint used to draw each particle
+	 * @param interpolation Fraction [0, 1] between the previous and current
+	 *        particle state at which to draw
+	 */
+	private void drawPerParticle(Canvas canvas, ParticleStore p,
+			BitmapTexture texture, Paint paint, float interpolation) {
+
+		// Center point of the bitmap (used as a reference point when rotating
+		// the bitmap or when drawing the bitmap centered on the particle)
+		float textureCenterX = texture.getWidth() / 2.0f;
+		float textureCenterY = texture.getHeight() / 2.0f;
+
+		// A texture held in a region of a larger bitmap cannot be drawn
+		// using drawBitmap with a matrix, so the canvas is transformed and
+		// the region drawn with a source rectangle instead
+		boolean wholeBitmap = texture.isWholeBitmap();
+		regionDestination.set(0, 0, texture.getWidth(), texture.getHeight());
+
+		for (int idx = 0; idx < p.size(); idx++) {
+
+			// Avoid having particles pop in and out by using a fade in at
+			// the start of the life span and a fade out at the end.
+			// An alpha of 100% occurs mid-span and then fades out
+
+			float normalizedLifetime = p.timeSinceBirth[idx] / p.lifeSpan[idx];
+			float alpha = 4.0f * normalizedLifetime * (1 - normalizedLifetime);
+			paint.setAlpha((int) (alpha * 255));
+
+			float x = p.previousPositionX[idx]
+					+ (p.positionX[idx] - p.previousPositionX[idx]) * interpolation;
+			float y = p.previousPositionY[idx]
+					+ (p.positionY[idx] - p.previousPositionY[idx]) * interpolation;
+			float orientation = p.previousOrientation[idx]
+					+ (p.orientation[idx] - p.previousOrientation[idx]) * interpolation;
+
+			matrix.reset();
+			matrix.setScale(p.scale[idx], p.scale[idx]);
+			matrix.postRotate(orientation, textureCenterX, textureCenterY);
+			matrix.postTranslate(x - textureCenterX, y - textureCenterY);
+
+			if (wholeBitmap) {
+				canvas.drawBitmap(texture.getBitmap(), matrix, paint);
+			} else {
+				canvas.save();
+				canvas.concat(matrix);
+				canvas.drawBitmap(texture.getBitmap(), texture.getRegion(),
+						regionDestination, paint);
+				canvas.restore();
+			}
+		}
+	}
+}
@@ -0,0 +1,236 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import uk.ac.qub.eeecs.demos.R;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.util.Log;
+import android.util.Xml;
+
+/**
+ * Loads particle settings held in XNA ParticleSystemSettings XML files (see
+ * XnaParticleSettingsBuilder for how the XML elements are mapped).
+ *
+ * The first time a file is loaded it is parsed using a streaming pull parser
+ * and the resulting settings are written in a compact binary form to the
+ * cache directory. Later loads read the binary form, unless the source file
+ * has changed since it was written.
+ *
+ * Settings files are normally read from the assets folder. A file of the same
+ * name placed in the "particles" external files directory (e.g. using adb
+ * push) is used instead, which allows effects to be edited without rebuilding
+ * the app.
+ *
+ * @version 1.0
+ */
+public class ParticleSettingsLoader {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Directories holding the overriding settings files and the binary cache
+	 */
+	private static final String OVERRIDE_DIRECTORY = "particles";
+	private static final String CACHE_DIRECTORY = "particles";
+
+	private ParticleSettingsLoader() {
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Load the particle settings held in the specified asset
+	 *
+	 * @param context Context whose assets hold the settings
+	 * @param assetPath Location and name of the asset, e.g.
+	 *            "txt/SmokeSettings.xml"
+	 * @return Loaded settings
+	 * @throws IOException If the settings could not be read or are not valid
+	 */
+	public static ParticleSettings load(Context context, String assetPath)
+			throws IOException {
+
+		String fileName = new File(assetPath).getName();
+
+		// Determine where the settings will be read from and a stamp that
+		// changes whenever the source changes
+		File overrideFile = null;
+		File overrideDirectory = context.getExternalFilesDir(OVERRIDE_DIRECTORY);
+		if (overrideDirectory != null)
+			overrideFile = new File(overrideDirectory, fileName);
+
+		long sourceStamp;
+		if (overrideFile != null && overrideFile.isFile())
+			sourceStamp = overrideFile.lastModified() * 31 + overrideFile.length();
+		else {
+			overrideFile = null;
+			sourceStamp = getInstallStamp(context);
+		}
+
+		// Use the binary form if it was written from the current source
+		File cacheFile = new File(
+				new File(context.getCacheDir(), CACHE_DIRECTORY), fileName + ".bin");
+		ParticleSettings settings = readCache(context, cacheFile, sourceStamp);
+		if (settings != null)
+			return settings;
+
+		// Otherwise parse the XML and write the binary form for next time
+		InputStream inputStream = overrideFile != null
+				? new FileInputStream(overrideFile)
+				: context.getAssets().open(assetPath);
+		try {
+			settings = parse(context, new BufferedInputStream(inputStream));
+		} finally {
+			inputStream.close();
+		}
+
+		writeCache(context, cacheFile, sourceStamp, settings);
+		return settings;
+	}
+
+	/**
+	 * Parse the settings held in an XNA ParticleSystemSettings XML stream
+	 *
+	 * @param context Context (used for logging)
+	 * @param inputStream Stream holding the XML
+	 * @return Parsed settings
+	 * @throws IOException If the XML could not be read or is not valid
+	 */
+	public static ParticleSettings parse(Context context, InputStream inputStream)
+			throws IOException {
+
+		XnaParticleSettingsBuilder builder = new XnaParticleSettingsBuilder();
+		try {
+			XmlPullParser parser = Xml.newPullParser();
+			parser.setInput(inputStream, null);
+
+			// Each setting is held in a child of the Asset element
+			int assetDepth = -1;
+			int eventType = parser.next();
+			while (eventType != XmlPullParser.END_DOCUMENT) {
+				if (eventType == XmlPullParser.START_TAG) {
+					if (parser.getName().equals("Asset"))
+						assetDepth = parser.getDepth();
+					else if (assetDepth >= 0
+							&& parser.getDepth() == assetDepth + 1) {
+						String name = parser.getName();
+						if (!builder.setElement(name, parser.nextText()))
+							Log.d(context.getResources().getString(R.string.LOG_TAG),
+									"Ignoring particle setting: " + name);
+					}
+				} else if (eventType == XmlPullParser.END_TAG
+						&& parser.getDepth() == assetDepth) {
+					break;
+				}
+				eventType = parser.next();
+			}
+
+			if (assetDepth < 0)
+				throw new IOException("No Asset element found");
+			return builder.build();
+
+		} catch (XmlPullParserException e) {
+			throw new IOException("Invalid particle settings: " + e.getMessage());
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid particle settings: " + e.getMessage());
+		}
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Internal
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return a stamp that changes whenever the app (and so its assets) is
+	 * updated
+	 */
+	private static long getInstallStamp(Context context) {
+		try {
+			return context.getPackageManager().getPackageInfo(
+					context.getPackageName(), 0).lastUpdateTime;
+		} catch (PackageManager.NameNotFoundException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Read the binary form of the settings from the cache
+	 *
+	 * @return Cached settings, or null if they are missing or out of date
+	 */
+	private static ParticleSettings readCache(Context context,
+			File cacheFile, long sourceStamp) {
+		if (!cacheFile.isFile())
+			return null;
+
+		DataInputStream input = null;
+		try {
+			input = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(cacheFile)));
+			if (input.readLong() != sourceStamp)
+				return null;
+			return ParticleSettingsCodec.read(input);
+		} catch (IOException e) {
+			Log.d(context.getResources().getString(R.string.LOG_TAG),
+					"Discarding particle settings cache: " + e.getMessage());
+			return null;
+		} finally {
+			if (input != null)
+				try {
+					input.close();
+				} catch (IOException e) { /* Nothing more to read */ }
+		}
+	}
+
+	/**
+	 * Write the binary form of the settings to the cache. The form is written
+	 * to a temporary file which is then renamed, so a partly written file is
+	 * never read. Failures are logged, as the settings can always be parsed
+	 * again.
+	 */
+	private static void writeCache(Context context, File cacheFile,
+			long sourceStamp, ParticleSettings settings) {
+		File directory = cacheFile.getParentFile();
+		if (!directory.isDirectory() && !directory.mkdirs())
+			return;
+
+		File tempFile = new File(directory, cacheFile.getName() + ".tmp");
+		DataOutputStream output = null;
+		try {
+			output = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tempFile)));
+			output.writeLong(sourceStamp);
+			ParticleSettingsCodec.write(settings, output);
+			output.close();
+			output = null;
+
+			if (!tempFile.renameTo(cacheFile))
+				tempFile.delete();
+		} catch (IOException e) {
+			Log.d(context.getResources().getString(R.string.LOG_TAG),
+					"Unable to cache particle settings: " + e.getMessage());
+			tempFile.delete();
+		} finally {
+			if (output != null)
+				try {
+					output.close();
+				} catch (IOException e) { /* Already reported */ }
+		}
+	}
+}
@@ -1,9 +1,45 @@
 package uk.ac.qub.eeecs.demos.particle;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import uk.ac.qub.eeecs.demos.R;
+import uk.ac.qub.eeecs.demos.engine.assets.AssetCallback;
+import uk.ac.qub.eeecs.demos.engine.assets.AssetDecoder;
+import uk.ac.qub.eeecs.demos.engine.assets.AssetLoader;
+import uk.ac.qub.eeecs.demos.engine.assets.AssetLoaders;
+import uk.ac.qub.eeecs.demos.engine.input.InputEvent;
+import uk.ac.qub.eeecs.demos.engine.input.InputEventQueue;
+import uk.ac.qub.eeecs.demos.engine.input.InputListener;
+import uk.ac.qub.eeecs.demos.engine.input.InputRecorder;
+import uk.ac.qub.eeecs.demos.engine.input.InputReplayer;
+import uk.ac.qub.eeecs.demos.engine.instrumentation.FrameStats;
+import uk.ac.qub.eeecs.demos.engine.instrumentation.FrameStatsExporter;
+import uk.ac.qub.eeecs.demos.engine.instrumentation.FrameStatsOverlay;
+import uk.ac.qub.eeecs.demos.engine.loop.FixedStepGameLoop;
+import uk.ac.qub.eeecs.demos.engine.loop.GameLoopListener;
+import uk.ac.qub.eeecs.demos.engine.loop.TripleBuffer;
+import uk.ac.qub.eeecs.demos.engine.quality.QualityController;
+import uk.ac.qub.eeecs.demos.engine.random.FastRandom;
+import uk.ac.qub.eeecs.demos.engine.render.AssetTextureSource;
+import uk.ac.qub.eeecs.demos.engine.render.AtlasTextureSource;
+import uk.ac.qub.eeecs.demos.engine.render.CanvasRenderBackend;
+import uk.ac.qub.eeecs.demos.engine.render.RenderBackend;
+import uk.ac.qub.eeecs.demos.engine.render.RenderQueue;
+import uk.ac.qub.eeecs.demos.engine.render.TextureAtlas;
+import uk.ac.qub.eeecs.demos.engine.render.TextureSource;
+import android.app.Activity;
 import android.app.Fragment;
 import android.content.Context;
+import android.content.Intent;
 import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
@@ -12,6 +48,13 @@ import android.view.ViewGroup;
 /**
  * Particle system demo
  * 
+ * The input recording/replay and draw approach used by a run are set by the
+ * boolean EXTRA_* extras of the launching intent. Whilst running, a two finger
+ * tap relaunches the demo using the next draw approach and a three finger
+ * tap relaunches it using the next input mode (off, record, replay), so runs
+ * can be compared on a built app. The frame statistics of each run are
+ * exported under a name recording its settings.
+ * 
  * @version 1.0
  */
 public class ParticleSystemDemoFragment extends Fragment {
@@ -26,15 +69,92 @@ public class ParticleSystemDemoFragment extends Fragment {
 	private RenderSurface mRenderSurface;
 
 	/**
-	 * Particle world 
+	 * Particle world, or null whilst its assets are being loaded (created
+	 * on the UI thread and read by the loop thread)
+	 */
+	private volatile ParticleWorld mParticleWorld;
+
+	/**
+	 * Atlas holding the sprites used by the world (so every particle draw
+	 * uses the same bitmap), or null if each sprite is loaded separately.
+	 * The atlas is built by the asset loader, requested under the given
+	 * name.
 	 */
-	private ParticleWorld mParticleWorld;
+	private static final String[] ATLAS_SPRITES = { "img/Particle.png",
+			"img/Smoke.png", "img/Explosion.png", "img/NextArrow.png" };
+	private static final String ATLAS_NAME = "atlas/particles";
+	private boolean mUseAtlas = true;
+	private TextureAtlas mTextureAtlas;
 
 	/**
-	 * Location at which the screen was last touched
+	 * Settings used by the explosion smoke effect, and the number of assets
+	 * still to be loaded before the world can be created (only used by the
+	 * UI thread)
+	 */
+	private ParticleSettings mExplosionSmokeSettings;
+	private int mPendingLoads;
+
+	/**
+	 * Location at which the screen was last touched (only used by the loop
+	 * thread)
 	 */
 	private Vector2 lastTouchLocation = new Vector2(300,300);
 
+	/**
+	 * Queue handing touch events from the UI thread to the loop thread,
+	 * which applies them at the start of each update
+	 */
+	private InputEventQueue mInputQueue = new InputEventQueue(64);
+
+	/**
+	 * Input recording and replay, used for repeatable performance runs. If
+	 * recording, the input applied at each update is written to the input
+	 * log. If replaying (and a log has been recorded), touches are ignored
+	 * and the logged input is applied instead. In both cases the world is
+	 * created using a fixed seed and the adaptive quality is disabled, so a
+	 * replay performs the same work as the recorded run. The log can also
+	 * be replayed headless against the core module (see the benchmarks).
+	 */
+	private boolean mRecordInput;
+	private boolean mReplayInput;
+	private static final long INPUT_RUN_SEED = 42L;
+	private static final String INPUT_LOG_DIRECTORY = "input";
+	private static final String INPUT_LOG_NAME = "particles.input";
+	private InputRecorder mInputRecorder;
+	private InputReplayer mInputReplayer;
+
+	/**
+	 * If true the world is drawn from a snapshot, so updates continue whilst
+	 * the previous frame is drawn. If false the loop thread waits for each
+	 * frame to be drawn before updating again (retained for comparison).
+	 */
+	private boolean mPipelinedDraw;
+
+	/**
+	 * If true each frame is collected in a render queue, which sorts and
+	 * batches the draws before submitting them to the canvas. If false the
+	 * world draws straight to the canvas (retained for comparison).
+	 */
+	private boolean mUseRenderQueue;
+
+	/**
+	 * Intent extras selecting the input mode and draw approach of a run
+	 * (the draw extras default to true, the input extras to false)
+	 */
+	public static final String EXTRA_RECORD_INPUT =
+			"uk.ac.qub.eeecs.demos.particle.RECORD_INPUT";
+	public static final String EXTRA_REPLAY_INPUT =
+			"uk.ac.qub.eeecs.demos.particle.REPLAY_INPUT";
+	public static final String EXTRA_PIPELINED_DRAW =
+			"uk.ac.qub.eeecs.demos.particle.PIPELINED_DRAW";
+	public static final String EXTRA_RENDER_QUEUE =
+			"uk.ac.qub.eeecs.demos.particle.RENDER_QUEUE";
+
+	/**
+	 * Number of fixed world updates per second
+	 */
+	private static final int UPDATES_PER_SECOND = 60;
+
 	// /////////////////////////////////////////////////////////////////////////
 	// Methods: State Management
 	// /////////////////////////////////////////////////////////////////////////
@@ -49,21 +169,51 @@ public class ParticleSystemDemoFragment extends Fragment {
 	public View onCreateView(LayoutInflater inflater, ViewGroup container,
 			Bundle savedInstanceState) {
 
-		// Create a new particle world
-		mParticleWorld = new ParticleWorld(getActivity());
-				
+		// Determine the settings of this run, then open the input log if
+		// recording or replaying
+		readRunSettings(getActivity().getIntent());
+		openInputLog();
+
 		// Create the output view and associated renderer
-		mRenderSurface = new RenderSurface(getActivity(), 30);
+		mRenderSurface = new RenderSurface(getActivity(), UPDATES_PER_SECOND, 30);
 		mRenderSurface.setOnTouchListener(new View.OnTouchListener() {
 			@Override
 			public boolean onTouch(View v, MotionEvent event) {
-				// Simply store the location of the last touch event
-				lastTouchLocation.x = event.getX();
-				lastTouchLocation.y = event.getY();
+				// Further fingers relaunch the demo with other settings
+				if (event.getActionMasked() == MotionEvent.ACTION_POINTER_DOWN) {
+					if (event.getPointerCount() == 2)
+						relaunch(mRecordInput, mReplayInput,
+								mUseRenderQueue ? mPipelinedDraw : !mPipelinedDraw,
+								!mUseRenderQueue);
+					else if (event.getPointerCount() == 3)
+						relaunch(!mRecordInput && !mReplayInput, mRecordInput,
+								mPipelinedDraw, mUseRenderQueue);
+					return true;
+				}
+
+				// Queue the touch, to be applied by the next update
+				int type;
+				switch (event.getActionMasked()) {
+				case MotionEvent.ACTION_DOWN:
+					type = InputEvent.TOUCH_DOWN;
+					break;
+				case MotionEvent.ACTION_UP:
+				case MotionEvent.ACTION_CANCEL:
+					type = InputEvent.TOUCH_UP;
+					break;
+				default:
+					type = InputEvent.TOUCH_MOVE;
+					break;
+				}
+				mInputQueue.postTouch(type, event.getX(), event.getY());
 				return true;
 			}
 		});
 
+		// Load the world's assets off the UI thread (the surface shows the
+		// loading progress until the world has been created)
+		loadAssets(mRenderSurface);
+
 		return mRenderSurface;
 	}
 
@@ -87,27 +237,252 @@ public class ParticleSystemDemoFragment extends Fragment {
 	 */
 	@Override
 	public void onPause() {
-		// Pause the game loop
+		// Pause the game loop and export the frame statistics for the run
 		mRenderSurface.pause();
+		FrameStatsExporter.exportRun(getActivity(), mRenderSurface.frameStats);
 
 		super.onPause();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see android.app.Fragment#onDestroyView()
+	 */
+	@Override
+	public void onDestroyView() {
+		// Release the world's bitmaps back to the texture cache (any assets
+		// still loading are released once they arrive)
+		if (mParticleWorld != null) {
+			mParticleWorld.release();
+			mParticleWorld = null;
+		}
+		if (mTextureAtlas != null) {
+			mTextureAtlas.release();
+			mTextureAtlas = null;
+		}
+		mExplosionSmokeSettings = null;
+		mRenderSurface = null;
+		closeInputLog();
+
+		super.onDestroyView();
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Run Settings
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Read the input mode and draw approach of this run from the intent
+	 * 
+	 * @param intent Intent that launched the demo
+	 */
+	private void readRunSettings(Intent intent) {
+		mRecordInput = intent.getBooleanExtra(EXTRA_RECORD_INPUT, false);
+		mReplayInput = intent.getBooleanExtra(EXTRA_REPLAY_INPUT, false);
+		mPipelinedDraw = intent.getBooleanExtra(EXTRA_PIPELINED_DRAW, true);
+		mUseRenderQueue = intent.getBooleanExtra(EXTRA_RENDER_QUEUE, true);
+	}
+
+	/**
+	 * Return the name under which the frame statistics of this run are
+	 * exported, e.g. particles_pipelined_queued_replay
+	 */
+	private String getRunName() {
+		return "particles" + (mPipelinedDraw ? "_pipelined" : "_lockstep")
+				+ (mUseRenderQueue ? "_queued" : "_direct")
+				+ (mReplayInput ? "_replay" : mRecordInput ? "_record" : "");
+	}
+
+	/**
+	 * Relaunch the demo using the specified settings. The game loop is
+	 * stopped and the input log closed first, so a recording is complete
+	 * before the relaunched demo can replay it.
+	 */
+	private void relaunch(boolean recordInput, boolean replayInput,
+			boolean pipelinedDraw, boolean useRenderQueue) {
+		Activity activity = getActivity();
+		mRenderSurface.pause();
+		closeInputLog();
+
+		Intent intent = new Intent(activity.getIntent());
+		intent.putExtra(EXTRA_RECORD_INPUT, recordInput);
+		intent.putExtra(EXTRA_REPLAY_INPUT, replayInput);
+		intent.putExtra(EXTRA_PIPELINED_DRAW, pipelinedDraw);
+		intent.putExtra(EXTRA_RENDER_QUEUE, useRenderQueue);
+
+		activity.finish();
+		activity.startActivity(intent);
+		activity.overridePendingTransition(0, 0);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Asset Loading
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Request the world's settings and (if used) sprite atlas from the asset
+	 * loader. Both are needed before anything can be shown, so are requested
+	 * at the highest priority and loaded in parallel. Once both have arrived
+	 * the world is created.
+	 * 
+	 * @param surface Surface the assets are being loaded for. If the view
+	 *            has since been destroyed the loaded assets are released.
+	 */
+	private void loadAssets(final RenderSurface surface) {
+		final Context context = getActivity().getApplicationContext();
+		final String logTag = getResources().getString(R.string.LOG_TAG);
+		AssetLoader loader = AssetLoaders.getInstance();
+
+		mPendingLoads = mUseAtlas ? 2 : 1;
+		loader.load("txt/ExplosionSmokeSettings.xml",
+				new AssetDecoder<ParticleSettings>() {
+					@Override
+					public ParticleSettings decode(String assetPath) throws IOException {
+						return ParticleSettingsLoader.load(context, assetPath);
+					}
+				},
+				new AssetCallback<ParticleSettings>() {
+					@Override
+					public void onLoaded(String assetPath, ParticleSettings settings) {
+						if (surface != mRenderSurface)
+							return;
+						mExplosionSmokeSettings = settings;
+						onAssetLoaded();
+					}
+
+					@Override
+					public void onFailed(String assetPath, Exception error) {
+						// The world falls back to its default settings
+						Log.d(logTag, "Load error: " + error.getMessage());
+						if (surface == mRenderSurface)
+							onAssetLoaded();
+					}
+				});
+
+		if (mUseAtlas)
+			loader.load(ATLAS_NAME, new AssetDecoder<TextureAtlas>() {
+				@Override
+				public TextureAtlas decode(String assetPath) {
+					return TextureAtlas.build(context, ATLAS_SPRITES);
+				}
+			}, new AssetCallback<TextureAtlas>() {
+				@Override
+				public void onLoaded(String assetPath, TextureAtlas atlas) {
+					if (surface != mRenderSurface) {
+						atlas.release();
+						return;
+					}
+					mTextureAtlas = atlas;
+					onAssetLoaded();
+				}
+
+				@Override
+				public void onFailed(String assetPath, Exception error) {
+					// The sprites are loaded separately instead
+					Log.d(logTag, "Load error: " + error.getMessage());
+					if (surface == mRenderSurface)
+						onAssetLoaded();
+				}
+			});
+	}
+
+	/**
+	 * Record that one of the world's assets has arrived, creating the world
+	 * (seeded so recorded runs can be repeated) once all have
+	 */
+	private void onAssetLoaded() {
+		if (--mPendingLoads > 0)
+			return;
+
+		long seed = (mInputRecorder != null || mInputReplayer != null)
+				? INPUT_RUN_SEED : FastRandom.newSeed();
+		TextureSource textures = new AssetTextureSource(getActivity());
+		if (mTextureAtlas != null)
+			textures = new AtlasTextureSource(mTextureAtlas, textures);
+		mParticleWorld = new ParticleWorld(textures, mExplosionSmokeSettings, seed);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Input Recording
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Open the input log for replay or recording, if requested
+	 */
+	private void openInputLog() {
+		if (!mReplayInput && !mRecordInput)
+			return;
+		File directory = getActivity().getExternalFilesDir(INPUT_LOG_DIRECTORY);
+		if (directory == null)
+			return;
+
+		File logFile = new File(directory, INPUT_LOG_NAME);
+		try {
+			if (mReplayInput && logFile.isFile()) {
+				InputStream inputStream = new FileInputStream(logFile);
+				try {
+					mInputReplayer = new InputReplayer(inputStream);
+				} finally {
+					inputStream.close();
+				}
+			} else if (mRecordInput) {
+				mInputRecorder = new InputRecorder(
+						new FileOutputStream(logFile), UPDATES_PER_SECOND);
+			}
+		} catch (IOException e) {
+			Log.e(getResources().getString(R.string.LOG_TAG),
+					"Input log error: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Close the input log, finishing any recording
+	 */
+	private void closeInputLog() {
+		mInputReplayer = null;
+		if (mInputRecorder != null) {
+			try {
+				mInputRecorder.close();
+			} catch (IOException e) {
+				Log.e(getResources().getString(R.string.LOG_TAG),
+						"Input log error: " + e.getMessage());
+			}
+			mInputRecorder = null;
+		}
+	}
+
 	// /////////////////////////////////////////////////////////////////////////
 	// Game Loop
 	// /////////////////////////////////////////////////////////////////////////
 
 	/**
-	 * Core game loop thread
+	 * Render surface driven by a fixed-step game loop. Updates are performed
+	 * on the loop thread, with each frame drawn on the UI thread in response
+	 * to an invalidate request.
+	 * 
+	 * When pipelined, each frame the loop thread copies the world state into
+	 * the back buffer of a triple buffer and publishes it, then carries on
+	 * without waiting. The UI thread draws whichever snapshot was most
+	 * recently published. In lockstep mode the loop thread instead blocks
+	 * until the UI thread has drawn the live world.
+	 * 
+	 * The time the loop thread spends in each render call (waiting for the
+	 * draw, or copying the snapshot) is measured and displayed.
 	 * 
 	 * @version 1.0
 	 */
-	private class RenderSurface extends View implements Runnable {
+	private class RenderSurface extends View implements GameLoopListener {
 
 		// ////////////////////////////////////////////////////////////////////
 		// Properties
 		// ////////////////////////////////////////////////////////////////////
 
+		/**
+		 * Number of render calls over which the stall is averaged
+		 */
+		static final int STATS_FRAMES = 30;
+
 		/**
 		 * Concurrent boolean lock that can be used to control update and draw
 		 * inter-thread sequencing.
@@ -126,141 +501,251 @@ public class ParticleSystemDemoFragment extends Fragment {
 		volatile BooleanLock draw;
 
 		/**
-		 * Thread on which the game loop will run
+		 * Game loop driving the update/draw process
+		 */
+		FixedStepGameLoop gameLoop;
+
+		/**
+		 * Interpolation between the previous and current world state to be
+		 * used for the frame being drawn
+		 */
+		volatile float interpolation;
+
+		/**
+		 * World snapshots exchanged between the loop and UI threads when
+		 * drawing is pipelined
 		 */
-		Thread renderThread = null;
+		TripleBuffer<ParticleWorldSnapshot> snapshots =
+				new TripleBuffer<ParticleWorldSnapshot>(new ParticleWorldSnapshot(),
+						new ParticleWorldSnapshot(), new ParticleWorldSnapshot());
 
 		/**
-		 * Flag determining if the update/draw thread is running
+		 * Total time (in ns) the loop thread has spent in render calls, and
+		 * the number of calls, since the average was last calculated (only
+		 * accessed by the loop thread)
 		 */
-		volatile boolean running = false;
+		long stallTime;
+		int stallCount;
 
-		float elapsedTime;
+		/**
+		 * Average stall (in ms) over the last second of render calls and the
+		 * paint used to display it
+		 */
+		volatile float averageStall;
+		Paint statsPaint;
 
 		/**
-		 * Variable holding the duration (in ns) of the target game step period.
-		 * Changes to the Game's mTargetUpdatesPerSecond will change this value.
+		 * Backend used to draw the world onto the view's canvas (only used
+		 * by the UI thread)
 		 */
-		long targetStepPeriod;
+		CanvasRenderBackend renderBackend = new CanvasRenderBackend();
+
+		/**
+		 * Queue used to sort and batch each frame before it is drawn (only
+		 * used by the UI thread)
+		 */
+		RenderQueue renderQueue = new RenderQueue();
+
+		/**
+		 * Frame statistics (updates and frame intervals are recorded by the
+		 * game loop, draws by the UI thread) and the optional overlay used to
+		 * display them
+		 */
+		FrameStats frameStats;
+		FrameStatsOverlay frameStatsOverlay;
+
+		/**
+		 * Controller adjusting the quality of the particle effects to hold
+		 * the target frame rate (only used by the loop thread). Each frame it
+		 * is given the time spent updating since the last frame plus the time
+		 * the UI thread spent on the most recent draw.
+		 */
+		QualityController qualityController;
+		long frameUpdateTime;
+		volatile long lastDrawTime;
+
+		/**
+		 * Number of updates performed (used to timestamp recorded input),
+		 * the listener applying input to the world (recording it if needed)
+		 * and a listener discarding touches made during a replay (only used
+		 * by the loop thread)
+		 */
+		long updateStep;
+		InputListener inputHandler = new InputListener() {
+			@Override
+			public void onInput(InputEvent event) {
+				if (event.isTouch())
+					lastTouchLocation.set(event.x, event.y);
+				if (mInputRecorder != null)
+					mInputRecorder.onInput(event);
+			}
+		};
+		InputListener ignoredInput = new InputListener() {
+			@Override
+			public void onInput(InputEvent event) {
+			}
+		};
 
 		// ////////////////////////////////////////////////////////////////////
 		// Constructor
 		// ////////////////////////////////////////////////////////////////////
 
 		/**
-		 * Create a new game loop (the update/draw process will not commence
-		 * until the run method is executed).
+		 * Create a new render surface (the update/draw process will not
+		 * commence until the surface is resumed).
+		 * 
+		 * @param context Context to which the surface belongs
+		 * @param updatesPerSecond Number of fixed world updates per second
+		 * @param targetFramesPerSecond Target number of frames per second
 		 */
-		public RenderSurface(Context context, int targetFramesPerSecond) {
+		public RenderSurface(Context context, int updatesPerSecond,
+				int targetFramesPerSecond) {
 			super(context);
 
-			// Setup the target step period
-			targetStepPeriod = 1000000000 / targetFramesPerSecond;
+			gameLoop = new FixedStepGameLoop(
+					this, updatesPerSecond, targetFramesPerSecond);
+			frameStats = new FrameStats(getRunName(),
+					1000000000L / targetFramesPerSecond);
+			gameLoop.setFrameStats(frameStats);
+			qualityController = new QualityController(
+					1000000000L / targetFramesPerSecond);
+			frameStatsOverlay = new FrameStatsOverlay(32.0f);
 			// Create update and draw locks
 			draw = new BooleanLock(false);
+
+			statsPaint = new Paint();
+			statsPaint.setTextSize(40.0f);
+			statsPaint.setColor(Color.WHITE);
 		}
 
 		// ////////////////////////////////////////////////////////////////////
-		// Methods: Update/Draw Loop
+		// Methods: Update/Draw
 		// ////////////////////////////////////////////////////////////////////
 
-		/**
-		 * Start the update/draw process within a new thread.
+		/*
+		 * (non-Javadoc)
 		 * 
-		 * A relatively simple approach is employed that can support basic
-		 * multi-threading. A more sophisticated threaded approache might adopt
-		 * a three-phase prep-update-draw approach where the prep of frame n+1
-		 * occurs concurrently (across one or more threads) whilst the draw of
-		 * frame n executes. A more sophisticated timing approach might decouple
-		 * the draw and render phases, skipping the render of a frame if needed
-		 * to maintain a target update rate.
+		 * @see uk.ac.qub.eeecs.demos.engine.loop.GameLoopListener#update(float)
 		 */
 		@Override
-		public void run() {
-
-			/**
-			 * Define variables which will be used to provide timing information
-			 * to enable precise control of the update/render cycle.
-			 * 
-			 * startRun records the time at which the first iteration commenced
-			 * and is used to track total run time.
-			 * 
-			 * The startStep and endStep variables record the time before and
-			 * time immediately after the update/render step.
-			 * 
-			 * sleepTime records how long the thread should sleep before it is
-			 * necessary to start on the next update/render cycle (this may be a
-			 * negative period - i.e. the update/render process took longer than
-			 * desired). overSleepTime records how much longer the thread sleep
-			 * than was originally requested (i.e. accounting for the
-			 * unpredictable delay in waking up the thread).
-			 */
-			long startRun;
-			long startStep, endStep;
-			long sleepTime, overSleepTime;
-
-			/**
-			 * Define default starting values. The startTime and postRender
-			 * times are set to one frame 'in the past' to avoid near zero
-			 * timings for the first iteration. overSleepTime is set to zero.
-			 */
-			startRun = System.nanoTime() - targetStepPeriod;
-			startStep = startRun;
-			overSleepTime = 0L;
+		public void update(float stepTime) {
+			// Nothing is updated (and no step counted) until the world has
+			// been loaded, so recorded steps do not include the load time,
+			// which varies between runs. Touches made whilst loading stay
+			// queued (until the queue fills) and are applied by the first step.
+			ParticleWorld world = mParticleWorld;
+			if (world == null)
+				return;
+
+			long updateStart = System.nanoTime();
+
+			// Apply the input for this step, either replayed or queued
+			if (mInputReplayer != null) {
+				mInputReplayer.replayStep(updateStep, inputHandler);
+				mInputQueue.drain(ignoredInput);
+			} else {
+				if (mInputRecorder != null)
+					mInputRecorder.setStep(updateStep);
+				mInputQueue.drain(inputHandler);
+			}
+			updateStep++;
 
-			try {
-				while (running) {
+			world.update(stepTime, lastTouchLocation);
+			frameUpdateTime += System.nanoTime() - updateStart;
+		}
 
-					// Update the timing information
-					long currentTime = System.nanoTime();
-					elapsedTime = (float) ((currentTime - startStep) / 1000000000.0);
-					startStep = currentTime;
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see uk.ac.qub.eeecs.demos.engine.loop.GameLoopListener#render(float)
+		 */
+		@Override
+		public void render(float interpolation) {
+			// Until the world has been loaded just show the loading progress
+			ParticleWorld world = mParticleWorld;
+			if (world == null) {
+				postInvalidate();
+				return;
+			}
 
-					mParticleWorld.update(elapsedTime, lastTouchLocation);
+			long startTime = System.nanoTime();
+
+			// Adjust the quality of the effects to the work done on the
+			// last frame before the next snapshot is taken (not when
+			// recording or replaying input, so the work done is repeatable)
+			if (mInputRecorder == null && mInputReplayer == null
+					&& qualityController.recordFrame(frameUpdateTime + lastDrawTime))
+				world.applyQuality(qualityController);
+			frameUpdateTime = 0;
+
+			if (mPipelinedDraw) {
+				// Publish a snapshot of the world and trigger a draw request
+				// without waiting for it to be serviced
+				ParticleWorldSnapshot snapshot = snapshots.getBack();
+				world.snapshot(snapshot);
+				snapshot.interpolation = interpolation;
+				snapshots.publish();
+				postInvalidate();
+			} else {
+				renderLockstep(interpolation);
+			}
 
-					// Trigger a draw request
-					synchronized (draw) {
-						draw.isLocked = true;
-					}
-					postInvalidate();
-					// Wait for the draw to complete before progressing
-					// If a plan-update-draw approach was employed the
-					// wait for the draw would be tested post plan completion.
-					synchronized (draw) {
-						if (draw.isLocked) {
-							draw.wait();
-						}
-					}
+			stallTime += System.nanoTime() - startTime;
+			if (++stallCount == STATS_FRAMES) {
+				averageStall = (stallTime / (float) stallCount) / 1000000.0f;
+				stallTime = 0;
+				stallCount = 0;
+			}
+		}
+
+		/**
+		 * Request a draw of the live world and wait for it to complete
+		 * 
+		 * @param interpolation Interpolation to be used by the draw
+		 */
+		private void renderLockstep(float interpolation) {
+			this.interpolation = interpolation;
+
+			// Trigger a draw request
+			synchronized (draw) {
+				draw.isLocked = true;
+			}
+			postInvalidate();
 
-					// Measure how long the update/draw took to complete and
-					// how long to sleep until the next cycle is due. This may
-					// be a negative number (we've exceeded the 'available'
-					// time).
-					endStep = System.nanoTime();
-					sleepTime = (targetStepPeriod - (endStep - startStep))
-							- overSleepTime;
-
-					// If needed put the thread to sleep
-					if (sleepTime > 0) {
-						Thread.sleep(sleepTime / 1000000L); // Covert ns into ms
-
-						// Determine how much longer we slept than was
-						// originally requested, we'll correct for this error
-						// next frame
-						overSleepTime = (System.nanoTime() - endStep)
-								- sleepTime;
-					} else {
-						overSleepTime = 0L;
+			// Wait for the draw to complete before progressing
+			try {
+				synchronized (draw) {
+					if (draw.isLocked) {
+						draw.wait();
 					}
 				}
-
 			} catch (InterruptedException e) {
+				// The loop is being paused, let it see the interrupt
+				Thread.currentThread().interrupt();
 			}
 		}
 
 		@Override
 		protected void onDraw(Canvas canvas) {
-			mParticleWorld.draw(canvas, elapsedTime);
+			ParticleWorld world = mParticleWorld;
+			if (world == null) {
+				drawLoading(canvas);
+				return;
+			}
+
+			long drawStart = System.nanoTime();
+			renderBackend.setCanvas(canvas);
+			RenderBackend backend = mUseRenderQueue ? renderQueue : renderBackend;
+			if (mPipelinedDraw) {
+				world.draw(backend, snapshots.acquire());
+			} else {
+				world.draw(backend, gameLoop.getStepTime(), interpolation);
+			}
+			if (mUseRenderQueue)
+				renderQueue.flush(renderBackend);
+			lastDrawTime = System.nanoTime() - drawStart;
+			frameStats.recordDraw(lastDrawTime);
+			drawStats(canvas);
 
 			synchronized (draw) {
 				draw.isLocked = false;
@@ -268,6 +753,44 @@ public class ParticleSystemDemoFragment extends Fragment {
 			}
 		}
 
+		/**
+		 * Display the progress of the asset loads under way
+		 * 
+		 * @param canvas Canvas on which to draw
+		 */
+		private void drawLoading(Canvas canvas) {
+			canvas.drawColor(Color.BLACK);
+			canvas.drawText("Loading... "
+					+ (int) (AssetLoaders.getInstance().getProgress() * 100.0f) + "%",
+					50.0f, getHeight() / 2.0f, statsPaint);
+		}
+
+		/**
+		 * Display the average time the loop thread spends in each render call
+		 * and the render queue statistics, alongside the frame statistics
+		 * overlay (if shown)
+		 * 
+		 * @param canvas Canvas on which to draw
+		 */
+		private void drawStats(Canvas canvas) {
+			canvas.drawText((mPipelinedDraw ? "Pipelined" : "Lockstep")
+					+ (mInputReplayer != null ? " (replay)"
+							: mInputRecorder != null ? " (recording)" : "")
+					+ " stall/frame = " + averageStall + " ms, quality level = "
+					+ qualityController.getLevel(),
+					50.0f, getHeight() - 50.0f, statsPaint);
+			if (mUseRenderQueue)
+				canvas.drawText("Queued = " + renderQueue.getCommandCount()
+						+ ", submitted = " + renderQueue.getSubmissionCount()
+						+ ", draw calls = " + renderQueue.getDrawCallCount()
+						+ ", state changes = " + renderQueue.getStateChangeCount()
+						+ " (unsorted " + renderQueue.getUnsortedStateChangeCount() + ")",
+						50.0f, getHeight() - 100.0f, statsPaint);
+
+			if (frameStatsOverlay != null)
+				frameStatsOverlay.draw(canvas, frameStats, 50.0f, 200.0f);
+		}
+
 		// ////////////////////////////////////////////////////////////////////
 		// Methods: Pause/Resume
 		// ////////////////////////////////////////////////////////////////////
@@ -277,16 +800,7 @@ public class ParticleSystemDemoFragment extends Fragment {
 		 * it is paused.
 		 */
 		public void pause() {
-			running = false;
-			while (true) {
-				try {
-					renderThread.join();
-					return;
-				} catch (InterruptedException e) {
-					// Log something here
-					// retry
-				}
-			}
+			gameLoop.pause();
 		}
 
 		/**
@@ -294,12 +808,9 @@ public class ParticleSystemDemoFragment extends Fragment {
 		 * it is resumed.
 		 */
 		public void resume() {
-			running = true;
-
 			draw.isLocked = false;
 
-			renderThread = new Thread(this);
-			renderThread.start();
+			gameLoop.resume();
 		}
 	}
 }
\ No newline at end of file
@@ -1,14 +1,12 @@
 package uk.ac.qub.eeecs.demos.storage;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-
 import uk.ac.qub.eeecs.demos.R;
+import uk.ac.qub.eeecs.demos.engine.assets.AssetCallback;
+import uk.ac.qub.eeecs.demos.engine.assets.AssetFuture;
+import uk.ac.qub.eeecs.demos.engine.assets.AssetLoader;
+import uk.ac.qub.eeecs.demos.engine.assets.AssetLoaders;
 import android.app.Fragment;
-import android.content.res.AssetManager;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -19,6 +17,13 @@ import android.widget.TextView;
 
 public class AssetsTestFragment extends Fragment {
 
+	/**
+	 * Outstanding asset requests, cancelled if the view is destroyed before
+	 * they complete
+	 */
+	private AssetFuture<String> mTextFuture;
+	private AssetFuture<Bitmap> mBitmapFuture;
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -32,113 +37,64 @@ public class AssetsTestFragment extends Fragment {
 		View view = inflater.inflate(R.layout.assets_test_fragment, container,
 				false);
 
-		// Get the asset manager for the current activity and load in a
-		// text and bitmap asset
-		AssetManager assetManager = getActivity().getAssets();
-		String text = loadText(assetManager, "txt/welcome.txt");
-		Bitmap bitmap = loadBitmap(assetManager, "img/ARGB_8888.png");
-
-		// Display the loaded text
-		TextView outputTextView = (TextView) view
+		final TextView outputTextView = (TextView) view
 				.findViewById(R.id.assets_test_textview);
-		outputTextView.setText(text != null ? text
-				: "ERROR: Could not open text file.");
-
-		// Display the loaded bitmap
-		ImageView imageView = (ImageView) view
+		final ImageView imageView = (ImageView) view
 				.findViewById(R.id.assets_test_imageview);
-		if (bitmap != null) {
-			imageView.setImageBitmap(bitmap);
-		}
-		
-		return view;
-	}
-
-	// ////////////////////////////////////////////////////////////////////////
-	// Load text asset
-	// ////////////////////////////////////////////////////////////////////////
-
-	/**
-	 * Load in the named text file from the specified asset manager
-	 * 
-	 * @param assetManager
-	 *            Asset manager holding the text file
-	 * @param asset
-	 *            Location and name of the asset
-	 * @return Loaded text file formatted as a string
-	 */
-	private String loadText(AssetManager assetManager, String asset) {
-
-		String text = null;
-		InputStream inputStream = null;
-
-		try {
-			// Try to open the text file
-			inputStream = assetManager.open(asset);
+		outputTextView.setText("Loading...");
+
+		// Load in a text and bitmap asset off the UI thread. The text is
+		// needed to populate the view, whilst the bitmap is requested at
+		// prefetch priority. The callbacks are run on the UI thread.
+		final String logTag = getActivity().getResources().getString(
+				R.string.LOG_TAG);
+		AssetLoader loader = AssetLoaders.getInstance();
+
+		mTextFuture = loader.load("txt/welcome.txt",
+				AssetLoaders.text(getActivity()),
+				new AssetCallback<String>() {
+					@Override
+					public void onLoaded(String assetPath, String text) {
+						outputTextView.setText(text);
+					}
+
+					@Override
+					public void onFailed(String assetPath, Exception error) {
+						Log.e(logTag, "Error loading text asset: "
+								+ error.getMessage());
+						outputTextView.setText("ERROR: Could not open text file.");
+					}
+				});
+
+		mBitmapFuture = loader.load("img/ARGB_8888.png",
+				AssetLoaders.bitmap(getActivity(), Bitmap.Config.ARGB_8888),
+				AssetLoader.Priority.Prefetch,
+				new AssetCallback<Bitmap>() {
+					@Override
+					public void onLoaded(String assetPath, Bitmap bitmap) {
+						imageView.setImageBitmap(bitmap);
+					}
+
+					@Override
+					public void onFailed(String assetPath, Exception error) {
+						Log.e(logTag, "Error loading bitmap: "
+								+ error.getMessage());
+					}
+				});
 
-			// Load in the text in 4k chunks
-			ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-			byte[] chunk = new byte[4096];
-			int len = 0;
-			while ((len = inputStream.read(chunk)) > 0)
-				byteStream.write(chunk, 0, len);
-
-			// Convert and return as a UFT8 string
-			text = new String(byteStream.toByteArray(), "UTF8");
-
-		} catch (IOException e) {
-			Log.e(getActivity().getResources().getString(R.string.LOG_TAG),
-					"Error loading text asset: " + e.getMessage());
-		} finally {
-			if (inputStream != null)
-				try {
-					inputStream.close();
-				} catch (IOException e) { /* Let's just return with a null */ }
-		}
-
-		return text;
+		return view;
 	}
 
-	// ////////////////////////////////////////////////////////////////////////
-	// Load bitmap
-	// ////////////////////////////////////////////////////////////////////////
-
-	/**
-	 * Load in the named bitmap from the specified asset manager
+	/*
+	 * (non-Javadoc)
 	 * 
-	 * @param assetManager
-	 *            Asset manager holding the bitmap
-	 * @param asset
-	 *            Location and name of the asset
-	 * @return Loaded bitmap
+	 * @see android.app.Fragment#onDestroyView()
 	 */
-	private Bitmap loadBitmap(AssetManager assetManager, String asset) {
-
-		Bitmap bitmap = null;
-		InputStream inputStream = null;
-
-		try {
-			// Try to open the bitmap
-			inputStream = assetManager.open(asset);
-
-			// Setup what load preferences we might have (this could be an
-			// argument)
-			BitmapFactory.Options options = new BitmapFactory.Options();
-			options.inPreferredConfig = Bitmap.Config.ARGB_8888;
-
-			// Load the bitmap
-			bitmap = BitmapFactory.decodeStream(inputStream, null, options);
-
-		} catch (IOException e) {
-			Log.e(getActivity().getResources().getString(R.string.LOG_TAG),
-					"Error loading bitmap: " + e.getMessage());
-		} finally {
-			if (inputStream != null)
-				try {
-					inputStream.close();
-				} catch (IOException e) { /* Let's just return with a null */ }
-		}
-
-		return bitmap;
+	@Override
+	public void onDestroyView() {
+		// Cancel any requests that have not yet been loaded
+		mTextFuture.cancel(false);
+		mBitmapFuture.cancel(false);
+		super.onDestroyView();
 	}
-}
\ No newline at end of file
+}
@@ -5,6 +5,9 @@ import java.io.InputStream;
 import java.util.Random;
 
 import uk.ac.qub.eeecs.demos.R;
+import uk.ac.qub.eeecs.demos.engine.instrumentation.FrameStats;
+import uk.ac.qub.eeecs.demos.engine.instrumentation.FrameStatsExporter;
+import uk.ac.qub.eeecs.demos.engine.instrumentation.FrameStatsOverlay;
 import android.app.Fragment;
 import android.content.res.AssetManager;
 import android.graphics.Bitmap;
@@ -58,6 +61,10 @@ public class TextureViewTestFragment extends Fragment {
 		private long mNumCalls;		
 		private Paint mPaint;
 		
+		// Instrumentation
+		private FrameStats mFrameStats;
+		private FrameStatsOverlay mFrameStatsOverlay;
+		
 		
 			
 		public TextureViewRenderer(TextureView textureView) {
@@ -95,9 +102,16 @@ public class TextureViewTestFragment extends Fragment {
 		public void run() {
 			while(running && !Thread.interrupted()) {
 								
+				long lockStart = System.nanoTime();
+				mFrameStats.markFrame(lockStart);
 				final Canvas canvas = mTextureView.lockCanvas(null);
+				long drawStart = System.nanoTime();
+				mFrameStats.recordLockWait(drawStart - lockStart);
 				try {
 					doDraw(canvas);					
+					mFrameStats.recordDraw(System.nanoTime() - drawStart);
+					if (mFrameStatsOverlay != null)
+						mFrameStatsOverlay.draw(canvas, mFrameStats, 50.0f, 80.0f);
 				} finally {
 					mTextureView.unlockCanvasAndPost(canvas);
 				}
@@ -118,6 +132,17 @@ public class TextureViewTestFragment extends Fragment {
 		public void stop() {
 			running = false;
 			renderThread.interrupt();						
+			
+			// Wait for the render thread to stop before exporting its stats
+			while (true) {
+				try {
+					renderThread.join();
+					break;
+				} catch (InterruptedException e) {
+				}
+			}
+			renderThread = null;
+			FrameStatsExporter.exportRun(getActivity(), mFrameStats);
 		}
 				
 		private void doSetup() {
@@ -126,6 +151,8 @@ public class TextureViewTestFragment extends Fragment {
 
 			mRect = new Rect();
 			mPaint = new Paint();
+			mFrameStats = new FrameStats("texture_view", FrameStats.BUDGET_60FPS);
+			mFrameStatsOverlay = new FrameStatsOverlay(30.0f);
 			
 			try {
 				AssetManager assetManager = getActivity().getAssets();
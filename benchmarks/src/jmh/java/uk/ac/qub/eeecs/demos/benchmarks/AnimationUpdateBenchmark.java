@@ -0,0 +1,65 @@
+package uk.ac.qub.eeecs.demos.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import uk.ac.qub.eeecs.demos.engine.animation.AnimationClip;
+import uk.ac.qub.eeecs.demos.engine.animation.AnimationStore;
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+
+/**
+ * Benchmarks a single update of N animated sprites sharing a handful of
+ * clips, followed by a source rect lookup for each sprite (as a draw would
+ * perform). Sprites loop, so the number updated remains fixed.
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnimationUpdateBenchmark {
+
+	private static final float STEP_TIME = 1.0f / 60.0f;
+
+	@Param({ "1000", "10000", "100000" })
+	public int numSprites;
+
+	private AnimationStore store;
+	private IntRect sourceRect = new IntRect();
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42L);
+		AnimationClip[] clips = {
+				AnimationClip.fromGrid(0, 0, 64, 64, 4, 12, 1.2f),
+				AnimationClip.fromGrid(0, 256, 32, 48, 10, 20, 2.2f),
+				AnimationClip.fromGrid(0, 400, 16, 16, 8, 8, 0.5f) };
+
+		store = new AnimationStore(numSprites);
+		for (int idx = 0; idx < numSprites; idx++) {
+			int sprite = store.add(clips[random.nextInt(clips.length)]);
+			store.setSpeed(sprite, 0.5f + random.nextFloat());
+			store.play(sprite, true);
+		}
+	}
+
+	@Benchmark
+	public int update() {
+		store.update(STEP_TIME);
+		int checksum = 0;
+		for (int idx = 0; idx < store.size(); idx++) {
+			store.getSourceRect(idx, sourceRect);
+			checksum += sourceRect.left;
+		}
+		return checksum;
+	}
+}
@@ -0,0 +1,93 @@
+package uk.ac.qub.eeecs.demos.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import uk.ac.qub.eeecs.demos.engine.input.InputEvent;
+import uk.ac.qub.eeecs.demos.engine.input.InputListener;
+import uk.ac.qub.eeecs.demos.engine.input.InputRecorder;
+import uk.ac.qub.eeecs.demos.engine.input.InputReplayer;
+import uk.ac.qub.eeecs.demos.engine.render.HeadlessTextureSource;
+import uk.ac.qub.eeecs.demos.engine.render.RecordingRenderBackend;
+import uk.ac.qub.eeecs.demos.particle.ParticleWorld;
+import uk.ac.qub.eeecs.demos.particle.Vector2;
+
+/**
+ * Replays a recorded input scenario through the particle world at fixed
+ * update steps, headless: textures are stand-ins and each frame is drawn to
+ * a recording backend. As the input and the random seed are fixed, every
+ * invocation performs exactly the same work, so the scenario can be used as
+ * a repeatable performance regression run.
+ *
+ * The scenario is a touch that drags across the screen for ten seconds of
+ * 60Hz updates, with the world's emitter following the touch and pooled
+ * effects fired around it (as in the particle demo). A log recorded on a
+ * device can be used in the same way.
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InputReplayBenchmark {
+
+	private static final int UPDATES_PER_SECOND = 60;
+	private static final int SCENARIO_STEPS = 10 * UPDATES_PER_SECOND;
+	private static final float STEP_TIME = 1.0f / UPDATES_PER_SECOND;
+
+	private InputReplayer replayer;
+	private HeadlessTextureSource textures = new HeadlessTextureSource(64, 64);
+	private RecordingRenderBackend backend = new RecordingRenderBackend();
+
+	@Setup
+	public void setup() throws IOException {
+		// Record the scenario into an in-memory log
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		InputRecorder recorder = new InputRecorder(log, UPDATES_PER_SECOND);
+		InputEvent event = new InputEvent();
+		for (int step = 0; step < SCENARIO_STEPS; step += 2) {
+			recorder.setStep(step);
+			event.type = step == 0 ? InputEvent.TOUCH_DOWN : InputEvent.TOUCH_MOVE;
+			event.x = 100.0f + step;
+			event.y = 300.0f + 200.0f * (float) Math.sin(step * 0.05);
+			recorder.onInput(event);
+		}
+		recorder.close();
+
+		replayer = new InputReplayer(new ByteArrayInputStream(log.toByteArray()));
+	}
+
+	@Benchmark
+	public long replayScenario() {
+		final Vector2 location = new Vector2(300.0f, 300.0f);
+		InputListener listener = new InputListener() {
+			@Override
+			public void onInput(InputEvent event) {
+				if (event.isTouch())
+					location.set(event.x, event.y);
+			}
+		};
+
+		ParticleWorld world = new ParticleWorld(textures, null, 42L);
+		backend.reset();
+
+		replayer.rewind();
+		for (long step = 0; step < SCENARIO_STEPS; step++) {
+			replayer.replayStep(step, listener);
+			world.update(STEP_TIME, location);
+			world.draw(backend, STEP_TIME);
+		}
+		world.release();
+		return backend.getParticleCount();
+	}
+}
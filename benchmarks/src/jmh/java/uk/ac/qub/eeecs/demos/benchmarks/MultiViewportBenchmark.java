@@ -0,0 +1,121 @@
+package uk.ac.qub.eeecs.demos.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import uk.ac.qub.eeecs.demos.engine.spatial.UniformGridIndex;
+import uk.ac.qub.eeecs.demos.engine.viewport.Box;
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+import uk.ac.qub.eeecs.demos.engine.viewport.ScreenTransform;
+import uk.ac.qub.eeecs.demos.engine.viewport.ViewportClipper;
+import uk.ac.qub.eeecs.demos.engine.viewport.ViewportLayout;
+import uk.ac.qub.eeecs.demos.engine.viewport.VisibleSet;
+
+/**
+ * Benchmarks producing the draw rects for one frame of the viewport demo's
+ * 100 platforms shown in N split-screen viewports. The per viewport path
+ * queries and clips the platforms again for every viewport (as the demo
+ * originally did); the shared path gathers the visible platforms once and
+ * maps them into each viewport. The difference in score between viewport
+ * counts gives the cost of each extra viewport.
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MultiViewportBenchmark {
+
+	private static final int NUM_PLATFORMS = 100;
+	private static final int BITMAP_WIDTH = 218;
+	private static final int BITMAP_HEIGHT = 150;
+
+	@Param({ "1", "2", "4", "8" })
+	public int numViewports;
+
+	private Box[] platforms = new Box[NUM_PLATFORMS];
+	private UniformGridIndex index;
+	private Box layerViewport = new Box(150, 150, 300, 300);
+
+	private IntRect[] screenViewports;
+	private ScreenTransform[] transforms;
+	private VisibleSet visible = new VisibleSet();
+
+	private IntRect sourceRect = new IntRect();
+	private IntRect screenRect = new IntRect();
+
+	@Setup
+	public void setup() {
+		index = new UniformGridIndex(layerViewport.width);
+		for (int idx = 0; idx < NUM_PLATFORMS; idx++) {
+			platforms[idx] = new Box(BITMAP_WIDTH / 2 + idx * BITMAP_WIDTH,
+					BITMAP_HEIGHT / 2 + idx * BITMAP_HEIGHT, BITMAP_WIDTH, BITMAP_HEIGHT);
+			index.insert(idx, platforms[idx]);
+		}
+
+		screenViewports = new IntRect[numViewports];
+		transforms = new ScreenTransform[numViewports];
+		for (int idx = 0; idx < numViewports; idx++)
+			screenViewports[idx] = new IntRect();
+		ViewportLayout.split(numViewports, new IntRect(0, 0, 2560, 1440), 16,
+				screenViewports);
+		for (int idx = 0; idx < numViewports; idx++) {
+			transforms[idx] = new ScreenTransform();
+			transforms[idx].set(screenViewports[idx], layerViewport.width,
+					layerViewport.height);
+		}
+	}
+
+	private void scroll() {
+		layerViewport.x += 10.0f;
+		layerViewport.y += 10.0f * BITMAP_HEIGHT / BITMAP_WIDTH;
+		if (layerViewport.x > NUM_PLATFORMS * BITMAP_WIDTH) {
+			layerViewport.x = BITMAP_WIDTH / 2;
+			layerViewport.y = BITMAP_HEIGHT / 2;
+		}
+	}
+
+	@Benchmark
+	public int clipPerViewport() {
+		scroll();
+		int checksum = 0;
+		for (int view = 0; view < numViewports; view++) {
+			IntRect viewport = screenViewports[view];
+			int numCandidates = index.query(layerViewport);
+			int[] candidates = index.getResults();
+			Arrays.sort(candidates, 0, numCandidates);
+			for (int idx = 0; idx < numCandidates; idx++) {
+				if (ViewportClipper.getSourceAndScreenRect(platforms[candidates[idx]],
+						BITMAP_WIDTH, BITMAP_HEIGHT, layerViewport,
+						viewport.left, viewport.top, viewport.width(), viewport.height(),
+						sourceRect, screenRect))
+					checksum += screenRect.left + sourceRect.right;
+			}
+		}
+		return checksum;
+	}
+
+	@Benchmark
+	public int gatherOnce() {
+		scroll();
+		visible.gather(layerViewport, index, platforms, BITMAP_WIDTH, BITMAP_HEIGHT);
+		int checksum = 0;
+		for (int view = 0; view < numViewports; view++) {
+			for (int idx = 0; idx < visible.size(); idx++) {
+				visible.getSourceRect(idx, sourceRect);
+				visible.getScreenRect(idx, transforms[view], screenRect);
+				checksum += screenRect.left + sourceRect.right;
+			}
+		}
+		return checksum;
+	}
+}
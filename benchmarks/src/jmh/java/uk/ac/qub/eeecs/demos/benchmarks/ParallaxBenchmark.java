@@ -0,0 +1,117 @@
+package uk.ac.qub.eeecs.demos.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import uk.ac.qub.eeecs.demos.engine.parallax.ParallaxLayer;
+
+/**
+ * Benchmarks one frame of an 8 layer parallax background on a 2560x1440
+ * canvas, held as a software framebuffer. The cached path blits each layer's
+ * screen resolution strip using the spans computed by ParallaxLayer; the
+ * rescaling path samples each layer's tile for every screen pixel, as a
+ * scaled bitmap draw must. Layers towards the front occupy shorter bands at
+ * the bottom of the screen.
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParallaxBenchmark {
+
+	private static final int SCREEN_WIDTH = 2560;
+	private static final int SCREEN_HEIGHT = 1440;
+	private static final int NUM_LAYERS = 8;
+	private static final int TILE_WIDTH = 1000;
+	private static final int TILE_HEIGHT = 720;
+	private static final float SCROLL_PER_FRAME = 7.0f;
+
+	private int[] framebuffer = new int[SCREEN_WIDTH * SCREEN_HEIGHT];
+
+	private ParallaxLayer[] layers = new ParallaxLayer[NUM_LAYERS];
+	private int[] bandTops = new int[NUM_LAYERS];
+	private int[][] tiles = new int[NUM_LAYERS][];
+	private int[][] strips = new int[NUM_LAYERS][];
+	private int[] stripWidths = new int[NUM_LAYERS];
+	private int[] spans = new int[ParallaxLayer.MAX_SPANS * ParallaxLayer.SPAN_STRIDE];
+
+	private float scrollX;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42L);
+		for (int layer = 0; layer < NUM_LAYERS; layer++) {
+			layers[layer] = new ParallaxLayer(0.25f + 0.25f * layer,
+					layer % 2 == 0 ? ParallaxLayer.WrapMode.Repeat
+							: ParallaxLayer.WrapMode.Mirror);
+			bandTops[layer] = SCREEN_HEIGHT * layer / (NUM_LAYERS + 2);
+
+			tiles[layer] = new int[TILE_WIDTH * TILE_HEIGHT];
+			for (int idx = 0; idx < tiles[layer].length; idx++)
+				tiles[layer][idx] = random.nextInt();
+
+			// Build the screen resolution strip, as ParallaxBackground does
+			int bandHeight = SCREEN_HEIGHT - bandTops[layer];
+			int tileWidth = TILE_WIDTH * bandHeight / TILE_HEIGHT;
+			int tileCount = layers[layer].getStripTileCount(tileWidth, SCREEN_WIDTH);
+			stripWidths[layer] = tileWidth * tileCount;
+			strips[layer] = new int[stripWidths[layer] * bandHeight];
+			for (int y = 0; y < bandHeight; y++)
+				for (int x = 0; x < stripWidths[layer]; x++)
+					strips[layer][y * stripWidths[layer] + x] = tiles[layer][
+							(y * TILE_HEIGHT / bandHeight) * TILE_WIDTH
+							+ (x % tileWidth) * TILE_WIDTH / tileWidth];
+		}
+	}
+
+	@Benchmark
+	public int cachedStrips() {
+		scrollX += SCROLL_PER_FRAME;
+		for (int layer = 0; layer < NUM_LAYERS; layer++) {
+			int[] strip = strips[layer];
+			int stripWidth = stripWidths[layer];
+			int spanCount = layers[layer].computeSpans(
+					scrollX, SCREEN_WIDTH, stripWidth, spans);
+			for (int span = 0; span < spanCount; span++) {
+				int offset = span * ParallaxLayer.SPAN_STRIDE;
+				for (int y = bandTops[layer]; y < SCREEN_HEIGHT; y++)
+					System.arraycopy(strip,
+							(y - bandTops[layer]) * stripWidth + spans[offset],
+							framebuffer, y * SCREEN_WIDTH + spans[offset + 1],
+							spans[offset + 2]);
+			}
+		}
+		return framebuffer[framebuffer.length / 2];
+	}
+
+	@Benchmark
+	public int rescalePerFrame() {
+		scrollX += SCROLL_PER_FRAME;
+		for (int layer = 0; layer < NUM_LAYERS; layer++) {
+			int[] tile = tiles[layer];
+			int bandHeight = SCREEN_HEIGHT - bandTops[layer];
+			int tileWidth = TILE_WIDTH * bandHeight / TILE_HEIGHT;
+			int offset = (int) Math.floor(scrollX * layers[layer].getScrollFactor());
+			for (int y = bandTops[layer]; y < SCREEN_HEIGHT; y++) {
+				int tileRow = ((y - bandTops[layer]) * TILE_HEIGHT / bandHeight) * TILE_WIDTH;
+				int row = y * SCREEN_WIDTH;
+				for (int x = 0; x < SCREEN_WIDTH; x++) {
+					int tileX = (offset + x) % tileWidth;
+					if (tileX < 0)
+						tileX += tileWidth;
+					framebuffer[row + x] = tile[tileRow + tileX * TILE_WIDTH / tileWidth];
+				}
+			}
+		}
+		return framebuffer[framebuffer.length / 2];
+	}
+}
@@ -0,0 +1,46 @@
+package uk.ac.qub.eeecs.demos.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import uk.ac.qub.eeecs.demos.particle.ParticleSettings;
+import uk.ac.qub.eeecs.demos.particle.ParticleSettingsCodec;
+
+/**
+ * Benchmarks reading particle settings from their cached binary form (the
+ * path taken by ParticleSettingsLoader once an XML file has been parsed).
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParticleSettingsCodecBenchmark {
+
+	private byte[] encoded;
+
+	@Setup
+	public void setup() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ParticleSettingsCodec.write(ParticleSettings.Smoke, new DataOutputStream(bytes));
+		encoded = bytes.toByteArray();
+	}
+
+	@Benchmark
+	public ParticleSettings read() throws IOException {
+		return ParticleSettingsCodec.read(
+				new DataInputStream(new ByteArrayInputStream(encoded)));
+	}
+}
@@ -0,0 +1,78 @@
+package uk.ac.qub.eeecs.demos.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import uk.ac.qub.eeecs.demos.engine.random.FastRandom;
+import uk.ac.qub.eeecs.demos.particle.ParticleSettings;
+import uk.ac.qub.eeecs.demos.particle.ParticleSpawner;
+import uk.ac.qub.eeecs.demos.particle.ParticleStore;
+import uk.ac.qub.eeecs.demos.particle.Vector2;
+
+/**
+ * Benchmarks the creation of new particles (ParticleEmitter.addParticles and
+ * initialiseParticle) for each of the predefined particle systems.
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParticleSpawnerBenchmark {
+
+	/**
+	 * Number of particles held before the store is cleared
+	 */
+	private static final int MAX_PARTICLES = 10000;
+
+	@Param({ "Smoke", "Explosion", "Particle" })
+	public String system;
+
+	private ParticleStore particles;
+	private ParticleSpawner spawner;
+	private Vector2 location = new Vector2(400.0f, 300.0f);
+	private Vector2 lastLocation = new Vector2(350.0f, 250.0f);
+
+	@Setup
+	public void setup() {
+		ParticleSettings settings;
+		switch (ParticleSettings.Systems.valueOf(system)) {
+		case Smoke:
+			settings = ParticleSettings.Smoke;
+			break;
+		case Explosion:
+			settings = ParticleSettings.Explosion;
+			break;
+		default:
+			settings = ParticleSettings.Particle;
+			break;
+		}
+
+		particles = new ParticleStore(MAX_PARTICLES + 100);
+		spawner = new ParticleSpawner(settings, new FastRandom(42L));
+	}
+
+	@Benchmark
+	public int addParticles() {
+		if (particles.size() >= MAX_PARTICLES)
+			particles.clear();
+		spawner.addParticles(particles, location, lastLocation);
+		return particles.size();
+	}
+
+	@Benchmark
+	public int initialiseParticle() {
+		if (particles.size() >= MAX_PARTICLES)
+			particles.clear();
+		spawner.initialiseParticle(particles, location);
+		return particles.size();
+	}
+}
@@ -0,0 +1,87 @@
+package uk.ac.qub.eeecs.demos.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import uk.ac.qub.eeecs.demos.particle.Particle;
+import uk.ac.qub.eeecs.demos.particle.ParticleStore;
+import uk.ac.qub.eeecs.demos.particle.Vector2;
+
+/**
+ * Benchmarks a single update of N particles, comparing the original
+ * object-per-particle layout (Particle.update) against the structure-of-arrays
+ * ParticleStore. Particles are given an unbounded life span so the number
+ * updated remains fixed.
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParticleUpdateBenchmark {
+
+	private static final float STEP_TIME = 1.0f / 60.0f;
+
+	@Param({ "1000", "10000", "100000" })
+	public int numParticles;
+
+	private Particle[] particleObjects;
+	private ParticleStore particleStore;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42L);
+		Vector2 position = new Vector2();
+		Vector2 velocity = new Vector2();
+		Vector2 acceleration = new Vector2();
+
+		particleObjects = new Particle[numParticles];
+		particleStore = new ParticleStore(numParticles);
+		for (int idx = 0; idx < numParticles; idx++) {
+			position.set(random.nextFloat() * 1000.0f, random.nextFloat() * 1000.0f);
+			velocity.set(random.nextFloat() * 200.0f - 100.0f,
+					random.nextFloat() * 200.0f - 100.0f);
+			acceleration.set(random.nextFloat() * 20.0f - 10.0f,
+					random.nextFloat() * 20.0f - 10.0f);
+			float orientation = random.nextFloat() * 360.0f;
+			float angularVelocity = random.nextFloat() * 90.0f - 45.0f;
+			float scale = random.nextFloat() + 0.5f;
+			float scaleGrowth = random.nextFloat() * 0.2f;
+
+			particleObjects[idx] = new Particle();
+			particleObjects[idx].initialize(position, velocity, acceleration,
+					orientation, angularVelocity, scale, scaleGrowth,
+					Float.MAX_VALUE);
+			particleStore.add(position.x, position.y, velocity.x, velocity.y,
+					acceleration.x, acceleration.y, orientation,
+					angularVelocity, scale, scaleGrowth, Float.MAX_VALUE);
+		}
+	}
+
+	@Benchmark
+	public int particleObjects() {
+		int alive = 0;
+		for (int idx = 0; idx < particleObjects.length; idx++) {
+			Particle particle = particleObjects[idx];
+			particle.update(STEP_TIME);
+			if (particle.isAlive())
+				alive++;
+		}
+		return alive;
+	}
+
+	@Benchmark
+	public int particleStore() {
+		particleStore.update(STEP_TIME, 0.0f, 0.0f);
+		return particleStore.size();
+	}
+}
@@ -0,0 +1,38 @@
+package uk.ac.qub.eeecs.demos.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import uk.ac.qub.eeecs.demos.engine.random.FastRandom;
+
+/**
+ * Compares the cost of generating random floats using java.util.Random (as
+ * previously shared by all emitters) against FastRandom.
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RandomBenchmark {
+
+	private Random random = new Random(42L);
+	private FastRandom fastRandom = new FastRandom(42L);
+
+	@Benchmark
+	public float javaUtilRandom() {
+		return random.nextFloat();
+	}
+
+	@Benchmark
+	public float fastRandom() {
+		return fastRandom.nextFloat();
+	}
+}
@@ -0,0 +1,92 @@
+package uk.ac.qub.eeecs.demos.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import uk.ac.qub.eeecs.demos.engine.spatial.UniformGridIndex;
+import uk.ac.qub.eeecs.demos.engine.viewport.Box;
+
+/**
+ * Compares finding the tiles visible within a scrolling layer viewport using
+ * a linear scan of every tile (as the viewport demos originally did) against
+ * a uniform grid index, as the number of tiles in the level grows. Tiles are
+ * laid out in a square level of 64x64 unit tiles, with a 1024x1024 viewport.
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpatialIndexBenchmark {
+
+	private static final float TILE_SIZE = 64.0f;
+	private static final float VIEWPORT_SIZE = 1024.0f;
+
+	@Param({ "100", "10000", "100000" })
+	public int numTiles;
+
+	private Box[] tiles;
+	private UniformGridIndex index;
+	private Box layerViewport = new Box(0, 0, VIEWPORT_SIZE, VIEWPORT_SIZE);
+	private float levelSize;
+
+	@Setup
+	public void setup() {
+		int tilesPerRow = (int) Math.ceil(Math.sqrt(numTiles));
+		levelSize = tilesPerRow * TILE_SIZE;
+
+		tiles = new Box[numTiles];
+		index = new UniformGridIndex(VIEWPORT_SIZE / 2.0f);
+		for (int idx = 0; idx < numTiles; idx++) {
+			float x = (idx % tilesPerRow + 0.5f) * TILE_SIZE;
+			float y = (idx / tilesPerRow + 0.5f) * TILE_SIZE;
+			tiles[idx] = new Box(x, y, TILE_SIZE, TILE_SIZE);
+			index.insert(idx, tiles[idx]);
+		}
+	}
+
+	/**
+	 * Scroll the viewport diagonally across the level, wrapping at the end
+	 */
+	private void scrollViewport() {
+		layerViewport.x += 37.0f;
+		layerViewport.y += 23.0f;
+		if (layerViewport.x > levelSize)
+			layerViewport.x = 0.0f;
+		if (layerViewport.y > levelSize)
+			layerViewport.y = 0.0f;
+	}
+
+	@Benchmark
+	public int linearScan() {
+		scrollViewport();
+
+		float left = layerViewport.x - layerViewport.width / 2;
+		float right = layerViewport.x + layerViewport.width / 2;
+		float bottom = layerViewport.y - layerViewport.height / 2;
+		float top = layerViewport.y + layerViewport.height / 2;
+
+		int visible = 0;
+		for (int idx = 0; idx < tiles.length; idx++) {
+			Box tile = tiles[idx];
+			if (tile.x - tile.width / 2 < right && tile.x + tile.width / 2 > left
+					&& tile.y - tile.height / 2 < top && tile.y + tile.height / 2 > bottom)
+				visible++;
+		}
+		return visible;
+	}
+
+	@Benchmark
+	public int gridIndex() {
+		scrollViewport();
+		return index.query(layerViewport);
+	}
+}
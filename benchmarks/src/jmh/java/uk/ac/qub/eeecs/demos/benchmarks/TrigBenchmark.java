@@ -0,0 +1,63 @@
+package uk.ac.qub.eeecs.demos.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import uk.ac.qub.eeecs.demos.engine.math.FastMath;
+
+/**
+ * Compares computing a direction vector from an angle in degrees using
+ * Math.toRadians, Math.cos and Math.sin (the previous spawning and batch
+ * rendering path) against the FastMath lookup table.
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TrigBenchmark {
+
+	/**
+	 * Number of angles converted per invocation
+	 */
+	private static final int NUM_ANGLES = 1024;
+
+	private float[] angles = new float[NUM_ANGLES];
+	private float[] directionX = new float[NUM_ANGLES];
+	private float[] directionY = new float[NUM_ANGLES];
+
+	@Setup
+	public void setup() {
+		// Angles spanning the ranges used by the particle settings
+		Random random = new Random(42L);
+		for (int idx = 0; idx < NUM_ANGLES; idx++)
+			angles[idx] = -180.0f + random.nextFloat() * 540.0f;
+	}
+
+	@Benchmark
+	public float[] javaMath() {
+		for (int idx = 0; idx < NUM_ANGLES; idx++) {
+			double angle = Math.toRadians(angles[idx]);
+			directionX[idx] = (float) Math.cos(angle);
+			directionY[idx] = (float) Math.sin(angle);
+		}
+		return directionX;
+	}
+
+	@Benchmark
+	public float[] lookupTable() {
+		for (int idx = 0; idx < NUM_ANGLES; idx++) {
+			directionX[idx] = FastMath.cosDegrees(angles[idx]);
+			directionY[idx] = FastMath.sinDegrees(angles[idx]);
+		}
+		return directionX;
+	}
+}
@@ -0,0 +1,79 @@
+package uk.ac.qub.eeecs.demos.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import uk.ac.qub.eeecs.demos.particle.Vector2;
+
+/**
+ * Benchmarks the Vector2 operations. Each benchmark resets its target vector
+ * so the operands do not drift between invocations.
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class Vector2Benchmark {
+
+	private Vector2 vector = new Vector2();
+	private Vector2 other = new Vector2();
+
+	@Setup
+	public void setup() {
+		vector.set(3.0f, 4.0f);
+		other.set(1.5f, -2.5f);
+	}
+
+	@Benchmark
+	public Vector2 add() {
+		vector.set(3.0f, 4.0f);
+		vector.add(other);
+		return vector;
+	}
+
+	@Benchmark
+	public Vector2 subtract() {
+		vector.set(3.0f, 4.0f);
+		vector.subtract(other);
+		return vector;
+	}
+
+	@Benchmark
+	public Vector2 multiply() {
+		vector.set(3.0f, 4.0f);
+		vector.multiply(other.x);
+		return vector;
+	}
+
+	@Benchmark
+	public Vector2 divide() {
+		vector.set(3.0f, 4.0f);
+		vector.divide(other.x);
+		return vector;
+	}
+
+	@Benchmark
+	public float length() {
+		return other.length();
+	}
+
+	@Benchmark
+	public float lengthSquared() {
+		return other.lengthSquared();
+	}
+
+	@Benchmark
+	public Vector2 normalise() {
+		vector.set(other);
+		vector.normalise();
+		return vector;
+	}
+}
@@ -0,0 +1,69 @@
+package uk.ac.qub.eeecs.demos.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import uk.ac.qub.eeecs.demos.engine.viewport.Box;
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+import uk.ac.qub.eeecs.demos.engine.viewport.ViewportClipper;
+
+/**
+ * Benchmarks the viewport clipping used when drawing the viewport and ribbon
+ * demos, clipping the same diagonal run of 100 platforms used by
+ * ViewportTestFragment against a scrolling layer viewport.
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ViewportClipperBenchmark {
+
+	private static final int NUM_PLATFORMS = 100;
+	private static final int BITMAP_WIDTH = 300;
+	private static final int BITMAP_HEIGHT = 70;
+
+	private Box[] platforms = new Box[NUM_PLATFORMS];
+	private Box layerViewport = new Box(150, 150, 300, 300);
+	private IntRect sourceRect = new IntRect();
+	private IntRect screenRect = new IntRect();
+
+	@Setup
+	public void setup() {
+		for (int idx = 0; idx < NUM_PLATFORMS; idx++) {
+			int x = BITMAP_WIDTH / 2 + idx * BITMAP_WIDTH;
+			int y = BITMAP_HEIGHT / 2 + idx * BITMAP_HEIGHT;
+			platforms[idx] = new Box(x, y, BITMAP_WIDTH, BITMAP_HEIGHT);
+		}
+	}
+
+	/**
+	 * Clip every platform against the viewport (as a single draw does),
+	 * scrolling the viewport along the platforms between invocations
+	 */
+	@Benchmark
+	public int clipAllPlatforms() {
+		layerViewport.x += 10.0f;
+		layerViewport.y += 10.0f * BITMAP_HEIGHT / BITMAP_WIDTH;
+		if (layerViewport.x > NUM_PLATFORMS * BITMAP_WIDTH) {
+			layerViewport.x = BITMAP_WIDTH / 2;
+			layerViewport.y = BITMAP_HEIGHT / 2;
+		}
+
+		int visible = 0;
+		for (int idx = 0; idx < NUM_PLATFORMS; idx++) {
+			if (ViewportClipper.getSourceAndScreenRect(platforms[idx],
+					BITMAP_WIDTH, BITMAP_HEIGHT, layerViewport,
+					0, 0, 1080, 1080, sourceRect, screenRect))
+				visible += screenRect.width();
+		}
+		return visible;
+	}
+}
@@ -0,0 +1,177 @@
+package uk.ac.qub.eeecs.demos.engine.animation;
+
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+
+/**
+ * Immutable definition of a sprite-sheet animation: the region of the sheet
+ * holding each frame and how long each frame is displayed for.
+ *
+ * A clip holds no playback state, so a single clip can be shared by any
+ * number of animated sprites (see AnimationStore). The source rectangle of
+ * each frame is computed once, when the clip is created, and held within a
+ * table so drawing a frame only requires a lookup.
+ *
+ * @version 1.0
+ */
+public final class AnimationClip {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Number of frames in the clip
+	 */
+	private final int mFrameCount;
+
+	/**
+	 * Source rectangle of each frame, held as (left, top, right, bottom)
+	 * for frame 0, then frame 1 and so on
+	 */
+	final int[] mFrameRects;
+
+	/**
+	 * Display duration (in seconds) of each frame and of the whole clip
+	 */
+	final float[] mFrameDurations;
+	private final float mDuration;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new clip
+	 *
+	 * @param frameRects Source rectangle of each frame, held as (left, top,
+	 *        right, bottom) for each frame in turn
+	 * @param frameDurations Display duration (in seconds) of each frame
+	 */
+	public AnimationClip(int[] frameRects, float[] frameDurations) {
+		if (frameDurations.length == 0)
+			throw new IllegalArgumentException("A clip needs at least one frame");
+		if (frameRects.length != frameDurations.length * 4)
+			throw new IllegalArgumentException(
+					"Expected four rect coordinates per frame");
+
+		float duration = 0.0f;
+		for (int frame = 0; frame < frameDurations.length; frame++) {
+			if (!(frameDurations[frame] > 0.0f))
+				throw new IllegalArgumentException(
+						"Frame durations must be positive");
+			duration += frameDurations[frame];
+		}
+
+		mFrameCount = frameDurations.length;
+		mFrameRects = frameRects.clone();
+		mFrameDurations = frameDurations.clone();
+		mDuration = duration;
+	}
+
+	/**
+	 * Create a clip whose frames are laid out in a grid of equally sized
+	 * cells, read left to right and then top to bottom
+	 *
+	 * @param left Left edge of the grid within the sheet
+	 * @param top Top edge of the grid within the sheet
+	 * @param frameWidth Width of each frame
+	 * @param frameHeight Height of each frame
+	 * @param columns Number of frames in each row of the grid
+	 * @param frameDurations Display duration (in seconds) of each frame (the
+	 *        length of which gives the number of frames in the clip)
+	 * @return New clip
+	 */
+	public static AnimationClip fromGrid(int left, int top, int frameWidth,
+			int frameHeight, int columns, float[] frameDurations) {
+
+		int[] frameRects = new int[frameDurations.length * 4];
+		for (int frame = 0; frame < frameDurations.length; frame++) {
+			int frameLeft = left + (frame % columns) * frameWidth;
+			int frameTop = top + (frame / columns) * frameHeight;
+			frameRects[frame * 4] = frameLeft;
+			frameRects[frame * 4 + 1] = frameTop;
+			frameRects[frame * 4 + 2] = frameLeft + frameWidth;
+			frameRects[frame * 4 + 3] = frameTop + frameHeight;
+		}
+		return new AnimationClip(frameRects, frameDurations);
+	}
+
+	/**
+	 * Create a clip whose frames are laid out in a grid of equally sized
+	 * cells and displayed for equal durations
+	 *
+	 * @param left Left edge of the grid within the sheet
+	 * @param top Top edge of the grid within the sheet
+	 * @param frameWidth Width of each frame
+	 * @param frameHeight Height of each frame
+	 * @param columns Number of frames in each row of the grid
+	 * @param frameCount Number of frames in the clip
+	 * @param duration Display duration (in seconds) of the whole clip
+	 * @return New clip
+	 */
+	public static AnimationClip fromGrid(int left, int top, int frameWidth,
+			int frameHeight, int columns, int frameCount, float duration) {
+
+		float[] frameDurations = new float[frameCount];
+		for (int frame = 0; frame < frameCount; frame++)
+			frameDurations[frame] = duration / frameCount;
+		return fromGrid(left, top, frameWidth, frameHeight, columns,
+				frameDurations);
+	}
+
+	/**
+	 * Create a clip whose frames are laid out in a single horizontal strip
+	 * and displayed for equal durations
+	 *
+	 * @param region Region of the sheet holding the strip
+	 * @param frameCount Number of frames in the strip (assumed to be of
+	 *        equal width)
+	 * @param duration Display duration (in seconds) of the whole clip
+	 * @return New clip
+	 */
+	public static AnimationClip fromStrip(IntRect region, int frameCount,
+			float duration) {
+		return fromGrid(region.left, region.top, region.width() / frameCount,
+				region.height(), frameCount, frameCount, duration);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the number of frames in the clip
+	 */
+	public int getFrameCount() {
+		return mFrameCount;
+	}
+
+	/**
+	 * Return the display duration (in seconds) of the whole clip
+	 */
+	public float getDuration() {
+		return mDuration;
+	}
+
+	/**
+	 * Return the display duration (in seconds) of the specified frame
+	 *
+	 * @param frame Index of the frame
+	 * @return Frame duration
+	 */
+	public float getFrameDuration(int frame) {
+		return mFrameDurations[frame];
+	}
+
+	/**
+	 * Update the specified rect to hold the source rectangle of a frame
+	 *
+	 * @param frame Index of the frame
+	 * @param sourceRect Rect to be updated
+	 */
+	public void getFrameRect(int frame, IntRect sourceRect) {
+		int offset = frame * 4;
+		sourceRect.set(mFrameRects[offset], mFrameRects[offset + 1],
+				mFrameRects[offset + 2], mFrameRects[offset + 3]);
+	}
+}
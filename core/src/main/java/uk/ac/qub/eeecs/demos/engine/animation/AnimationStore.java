@@ -0,0 +1,331 @@
+package uk.ac.qub.eeecs.demos.engine.animation;
+
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+
+/**
+ * Structure-of-arrays store holding the playback state of a set of animated
+ * sprites. Each sprite refers to a shared AnimationClip and holds its own
+ * current frame, frame timer, playback speed and flags within primitive
+ * arrays, so every sprite can be advanced in a single tight loop without
+ * per-sprite objects.
+ *
+ * Sprites are removed by moving the last sprite into their slot, so the
+ * arrays stay dense (and the index of the last sprite changes).
+ *
+ * @version 1.0
+ */
+public class AnimationStore {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties: [[Declared public for speed of access]]
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Flag bits held for each sprite. The frame changed flag is set if the
+	 * sprite's displayed frame changed during the last update, e.g. so only
+	 * changed sprites need be redrawn. The restarted flag is set when the
+	 * sprite is played and is turned into a frame change by the next update.
+	 */
+	public static final byte FLAG_PLAYING = 1;
+	public static final byte FLAG_LOOPING = 2;
+	public static final byte FLAG_FRAME_CHANGED = 4;
+	public static final byte FLAG_RESTARTED = 8;
+
+	/**
+	 * Clip played by each sprite
+	 */
+	public AnimationClip[] clip;
+
+	/**
+	 * Index of the frame currently displayed by each sprite
+	 */
+	public int[] frame;
+
+	/**
+	 * Time (in seconds) each sprite has displayed its current frame for
+	 */
+	public float[] frameTime;
+
+	/**
+	 * Playback speed of each sprite (1 plays at the clip's own rate)
+	 */
+	public float[] speed;
+
+	/**
+	 * Playing, looping and frame changed flags of each sprite
+	 */
+	public byte[] flags;
+
+	/**
+	 * Number of sprites held
+	 */
+	private int count;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new store
+	 *
+	 * @param initialCapacity Number of sprites that can be held before the
+	 *        store needs to grow
+	 */
+	public AnimationStore(int initialCapacity) {
+		allocate(Math.max(1, initialCapacity));
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Capacity
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the number of sprites held
+	 *
+	 * @return Number of sprites
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Return the number of sprites that can be held without growing
+	 *
+	 * @return Current capacity of the store
+	 */
+	public int capacity() {
+		return frame.length;
+	}
+
+	/**
+	 * Ensure the store can hold at least the specified number of sprites
+	 * without growing.
+	 *
+	 * @param minCapacity Minimum number of sprites to be held
+	 */
+	public void ensureCapacity(int minCapacity) {
+		if (minCapacity > frame.length)
+			allocate(Math.max(minCapacity, frame.length * 2));
+	}
+
+	/**
+	 * Remove all sprites (the capacity is retained)
+	 */
+	public void clear() {
+		for (int idx = 0; idx < count; idx++)
+			clip[idx] = null;
+		count = 0;
+	}
+
+	/**
+	 * Reallocate the arrays to the specified capacity, retaining the sprites
+	 *
+	 * @param capacity New capacity
+	 */
+	private void allocate(int capacity) {
+		clip = copyOf(clip, capacity);
+		frame = copyOf(frame, capacity);
+		frameTime = copyOf(frameTime, capacity);
+		speed = copyOf(speed, capacity);
+		flags = copyOf(flags, capacity);
+	}
+
+	private AnimationClip[] copyOf(AnimationClip[] source, int capacity) {
+		AnimationClip[] array = new AnimationClip[capacity];
+		if (source != null)
+			System.arraycopy(source, 0, array, 0, count);
+		return array;
+	}
+
+	private int[] copyOf(int[] source, int capacity) {
+		int[] array = new int[capacity];
+		if (source != null)
+			System.arraycopy(source, 0, array, 0, count);
+		return array;
+	}
+
+	private float[] copyOf(float[] source, int capacity) {
+		float[] array = new float[capacity];
+		if (source != null)
+			System.arraycopy(source, 0, array, 0, count);
+		return array;
+	}
+
+	private byte[] copyOf(byte[] source, int capacity) {
+		byte[] array = new byte[capacity];
+		if (source != null)
+			System.arraycopy(source, 0, array, 0, count);
+		return array;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Sprites
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Add a sprite showing the first frame of the specified clip (playback
+	 * will not commence until the sprite is played)
+	 *
+	 * @param animationClip Clip shown by the sprite
+	 * @return Index of the added sprite
+	 */
+	public int add(AnimationClip animationClip) {
+		ensureCapacity(count + 1);
+
+		int idx = count++;
+		clip[idx] = animationClip;
+		frame[idx] = 0;
+		frameTime[idx] = 0.0f;
+		speed[idx] = 1.0f;
+		flags[idx] = 0;
+		return idx;
+	}
+
+	/**
+	 * Remove the sprite at the specified index by moving the last sprite
+	 * into its slot.
+	 *
+	 * @param idx Index of the sprite to remove
+	 */
+	public void remove(int idx) {
+		int last = --count;
+		if (idx != last) {
+			clip[idx] = clip[last];
+			frame[idx] = frame[last];
+			frameTime[idx] = frameTime[last];
+			speed[idx] = speed[last];
+			flags[idx] = flags[last];
+		}
+		clip[last] = null;
+	}
+
+	/**
+	 * Play the sprite's clip from its first frame
+	 *
+	 * @param idx Index of the sprite
+	 * @param loop True if the clip should play repeatedly
+	 */
+	public void play(int idx, boolean loop) {
+		frame[idx] = 0;
+		frameTime[idx] = 0.0f;
+		flags[idx] = (byte) (FLAG_PLAYING | FLAG_RESTARTED
+				| (loop ? FLAG_LOOPING : 0));
+	}
+
+	/**
+	 * Switch the sprite to the specified clip and play it from its first
+	 * frame
+	 *
+	 * @param idx Index of the sprite
+	 * @param animationClip Clip to play
+	 * @param loop True if the clip should play repeatedly
+	 */
+	public void play(int idx, AnimationClip animationClip, boolean loop) {
+		clip[idx] = animationClip;
+		play(idx, loop);
+	}
+
+	/**
+	 * Stop the sprite on its current frame
+	 *
+	 * @param idx Index of the sprite
+	 */
+	public void stop(int idx) {
+		flags[idx] &= ~FLAG_PLAYING;
+	}
+
+	/**
+	 * Determine if the sprite is playing
+	 *
+	 * @param idx Index of the sprite
+	 * @return Boolean true if playing, otherwise false
+	 */
+	public boolean isPlaying(int idx) {
+		return (flags[idx] & FLAG_PLAYING) != 0;
+	}
+
+	/**
+	 * Determine if the sprite's displayed frame changed during the last
+	 * update (or the sprite has been played since)
+	 *
+	 * @param idx Index of the sprite
+	 * @return Boolean true if the frame changed, otherwise false
+	 */
+	public boolean hasFrameChanged(int idx) {
+		return (flags[idx] & (FLAG_FRAME_CHANGED | FLAG_RESTARTED)) != 0;
+	}
+
+	/**
+	 * Set the sprite's playback speed
+	 *
+	 * @param idx Index of the sprite
+	 * @param playbackSpeed Speed relative to the clip's own rate
+	 */
+	public void setSpeed(int idx, float playbackSpeed) {
+		speed[idx] = playbackSpeed;
+	}
+
+	/**
+	 * Update the specified rect to hold the source rectangle of the frame
+	 * the sprite currently displays
+	 *
+	 * @param idx Index of the sprite
+	 * @param sourceRect Rect to be updated
+	 */
+	public void getSourceRect(int idx, IntRect sourceRect) {
+		int[] frameRects = clip[idx].mFrameRects;
+		int offset = frame[idx] * 4;
+		sourceRect.set(frameRects[offset], frameRects[offset + 1],
+				frameRects[offset + 2], frameRects[offset + 3]);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Update
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Advance every playing sprite. A sprite may step over several frames if
+	 * the elapsed time exceeds the duration of its current frame; a sprite
+	 * that is not looping stops on the last frame of its clip.
+	 *
+	 * @param dt Amount of time elapsed (in seconds) from the last update call
+	 */
+	public void update(float dt) {
+		for (int idx = 0; idx < count; idx++) {
+			int spriteFlags = flags[idx];
+			boolean restarted = (spriteFlags & FLAG_RESTARTED) != 0;
+			spriteFlags &= ~(FLAG_FRAME_CHANGED | FLAG_RESTARTED);
+			if (restarted)
+				spriteFlags |= FLAG_FRAME_CHANGED;
+			if ((spriteFlags & FLAG_PLAYING) == 0) {
+				flags[idx] = (byte) spriteFlags;
+				continue;
+			}
+
+			float[] frameDurations = clip[idx].mFrameDurations;
+			int frameCount = frameDurations.length;
+			int currentFrame = frame[idx];
+			float time = frameTime[idx] + dt * speed[idx];
+
+			while (time >= frameDurations[currentFrame]) {
+				time -= frameDurations[currentFrame];
+				if (++currentFrame == frameCount) {
+					if ((spriteFlags & FLAG_LOOPING) != 0) {
+						currentFrame = 0;
+					} else {
+						currentFrame = frameCount - 1;
+						time = 0.0f;
+						spriteFlags &= ~FLAG_PLAYING;
+						break;
+					}
+				}
+			}
+
+			if (currentFrame != frame[idx])
+				spriteFlags |= FLAG_FRAME_CHANGED;
+			flags[idx] = (byte) spriteFlags;
+			frame[idx] = currentFrame;
+			frameTime[idx] = time;
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package uk.ac.qub.eeecs.demos.engine.assets;
+
+/**
+ * Notified once an asset requested from an AssetLoader has been loaded (or
+ * has failed to load). Callbacks are run using the loader's callback
+ * executor, e.g. on the UI thread.
+ *
+ * @param <T> Type of the decoded asset
+ *
+ * @version 1.0
+ */
+public interface AssetCallback<T> {
+
+	/**
+	 * Called once the asset has been loaded
+	 *
+	 * @param assetPath Location and name of the asset
+	 * @param asset Decoded asset
+	 */
+	void onLoaded(String assetPath, T asset);
+
+	/**
+	 * Called if the asset could not be loaded
+	 *
+	 * @param assetPath Location and name of the asset
+	 * @param error Reason the asset could not be loaded
+	 */
+	void onFailed(String assetPath, Exception error);
+}
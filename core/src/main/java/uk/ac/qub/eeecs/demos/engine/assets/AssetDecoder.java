@@ -0,0 +1,21 @@
+package uk.ac.qub.eeecs.demos.engine.assets;
+
+/**
+ * Loads and decodes a single asset. Decoders are run on the loader's I/O
+ * threads, so must be safe to call from any thread.
+ *
+ * @param <T> Type of the decoded asset
+ *
+ * @version 1.0
+ */
+public interface AssetDecoder<T> {
+
+	/**
+	 * Load and decode the specified asset
+	 *
+	 * @param assetPath Location and name of the asset
+	 * @return Decoded asset
+	 * @throws Exception if the asset could not be loaded
+	 */
+	T decode(String assetPath) throws Exception;
+}
@@ -0,0 +1,205 @@
+package uk.ac.qub.eeecs.demos.engine.assets;
+
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pending result of an asset requested from an AssetLoader. Every request
+ * for the same asset made whilst it is loading shares the same future.
+ *
+ * @param <T> Type of the decoded asset
+ *
+ * @version 1.0
+ */
+public class AssetFuture<T> implements Future<T> {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Loader handling the request, the asset requested and its decoder
+	 */
+	private final AssetLoader mLoader;
+	private final String mAssetPath;
+	final AssetDecoder<T> mDecoder;
+
+	/**
+	 * Priority of the request (guarded by the loader)
+	 */
+	AssetLoader.Priority mPriority;
+
+	/**
+	 * Executor used to run the callbacks
+	 */
+	private final Executor mCallbackExecutor;
+
+	/**
+	 * Callbacks waiting for the result, the result itself and its state
+	 * (guarded by this future)
+	 */
+	private ArrayList<AssetCallback<T>> mCallbacks = new ArrayList<AssetCallback<T>>(1);
+	private T mAsset;
+	private Exception mError;
+	private boolean mDone;
+	private boolean mCancelled;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new pending request
+	 */
+	AssetFuture(AssetLoader loader, String assetPath, AssetDecoder<T> decoder,
+			AssetLoader.Priority priority, Executor callbackExecutor) {
+		mLoader = loader;
+		mAssetPath = assetPath;
+		mDecoder = decoder;
+		mPriority = priority;
+		mCallbackExecutor = callbackExecutor;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Callbacks
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Add a callback to be notified of the result. If the request has
+	 * already completed the callback is notified straight away.
+	 *
+	 * @param callback Callback to notify (ignored if null)
+	 */
+	public void addCallback(AssetCallback<T> callback) {
+		if (callback == null)
+			return;
+
+		synchronized (this) {
+			if (!mDone) {
+				mCallbacks.add(callback);
+				return;
+			}
+		}
+		dispatch(callback);
+	}
+
+	/**
+	 * Return the location and name of the requested asset
+	 */
+	public String getAssetPath() {
+		return mAssetPath;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Future
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Cancel the request, if it has not yet started loading
+	 *
+	 * @param mayInterruptIfRunning Ignored, as loading assets are never
+	 *            interrupted
+	 * @return True if the request was cancelled
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		if (!mLoader.dequeue(this))
+			return false;
+		complete(null, new CancellationException(mAssetPath), true);
+		return true;
+	}
+
+	@Override
+	public synchronized boolean isCancelled() {
+		return mCancelled;
+	}
+
+	@Override
+	public synchronized boolean isDone() {
+		return mDone;
+	}
+
+	@Override
+	public synchronized T get() throws InterruptedException, ExecutionException {
+		while (!mDone)
+			wait();
+		return result();
+	}
+
+	@Override
+	public synchronized T get(long timeout, TimeUnit unit)
+			throws InterruptedException, ExecutionException, TimeoutException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (!mDone) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0)
+				throw new TimeoutException(mAssetPath);
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+		return result();
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Internal
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Record the result of the request and notify the waiting callbacks
+	 */
+	void complete(T asset, Exception error, boolean cancelled) {
+		ArrayList<AssetCallback<T>> callbacks;
+		synchronized (this) {
+			mAsset = asset;
+			mError = error;
+			mCancelled = cancelled;
+			mDone = true;
+			callbacks = mCallbacks;
+			mCallbacks = null;
+			notifyAll();
+		}
+		for (int idx = 0; idx < callbacks.size(); idx++)
+			dispatch(callbacks.get(idx));
+	}
+
+	/**
+	 * Notify a callback of the (completed) result using the callback
+	 * executor
+	 */
+	private void dispatch(final AssetCallback<T> callback) {
+		Runnable notify = new Runnable() {
+			@Override
+			public void run() {
+				T asset;
+				Exception error;
+				synchronized (AssetFuture.this) {
+					asset = mAsset;
+					error = mError;
+				}
+				if (error == null)
+					callback.onLoaded(mAssetPath, asset);
+				else
+					callback.onFailed(mAssetPath, error);
+			}
+		};
+		if (mCallbackExecutor != null)
+			mCallbackExecutor.execute(notify);
+		else
+			notify.run();
+	}
+
+	/**
+	 * Return the result of the completed request
+	 */
+	private T result() throws ExecutionException {
+		if (mCancelled)
+			throw new CancellationException(mAssetPath);
+		if (mError != null)
+			throw new ExecutionException(mError);
+		return mAsset;
+	}
+}
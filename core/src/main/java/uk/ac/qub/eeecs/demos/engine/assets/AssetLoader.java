@@ -0,0 +1,322 @@
+package uk.ac.qub.eeecs.demos.engine.assets;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads assets in the background using a bounded pool of I/O threads, so
+ * that screens can start without waiting for their assets.
+ *
+ * Requests are queued by priority: assets needed now are always loaded
+ * before assets being prefetched, and a prefetch is promoted if the same
+ * asset is then requested as needed now. Requests for the same asset (using
+ * an equal decoder) made whilst it is queued or loading share a single load
+ * and future. The result is handed back through the future and to any
+ * callbacks, which are run using the callback executor (e.g. posted to the
+ * UI thread).
+ *
+ * Progress is reported as the fraction of the requests made since the last
+ * reset that have completed, e.g. to drive a loading bar.
+ *
+ * @version 1.0
+ */
+public class AssetLoader {
+
+	/**
+	 * Priority of a request
+	 */
+	public enum Priority {
+		NeededNow, Prefetch
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Key identifying the requests that can share a load
+	 */
+	private static class RequestKey {
+		final String assetPath;
+		final AssetDecoder<?> decoder;
+
+		RequestKey(String assetPath, AssetDecoder<?> decoder) {
+			this.assetPath = assetPath;
+			this.decoder = decoder;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof RequestKey))
+				return false;
+			RequestKey key = (RequestKey) other;
+			return assetPath.equals(key.assetPath) && decoder.equals(key.decoder);
+		}
+
+		@Override
+		public int hashCode() {
+			return assetPath.hashCode() * 31 + decoder.hashCode();
+		}
+	}
+
+	/**
+	 * Executor used to run callbacks (null to run them on the I/O threads)
+	 */
+	private final Executor mCallbackExecutor;
+
+	/**
+	 * I/O threads
+	 */
+	private final Thread[] mThreads;
+
+	/**
+	 * Queued requests, by priority, and requests that are queued or loading
+	 * (all guarded by this loader)
+	 */
+	private final ArrayDeque<AssetFuture<?>> mNeededNow = new ArrayDeque<AssetFuture<?>>();
+	private final ArrayDeque<AssetFuture<?>> mPrefetch = new ArrayDeque<AssetFuture<?>>();
+	private final HashMap<RequestKey, AssetFuture<?>> mInFlight =
+			new HashMap<RequestKey, AssetFuture<?>>();
+	private boolean mShutdown;
+
+	/**
+	 * Number of requests made and completed since progress was last reset,
+	 * and the total number of requests that shared an existing load
+	 */
+	private int mRequestedCount;
+	private int mCompletedCount;
+	private long mSharedCount;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new loader and start its I/O threads
+	 *
+	 * @param threadCount Number of assets that can be loaded at once
+	 * @param callbackExecutor Executor used to run callbacks (null to run
+	 *            them on the I/O threads)
+	 */
+	public AssetLoader(int threadCount, Executor callbackExecutor) {
+		mCallbackExecutor = callbackExecutor;
+		mThreads = new Thread[threadCount];
+		for (int idx = 0; idx < threadCount; idx++) {
+			mThreads[idx] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					runLoads();
+				}
+			}, "AssetLoader-" + idx);
+			mThreads[idx].setDaemon(true);
+			// Load below the priority of the game loop and UI threads
+			mThreads[idx].setPriority(Thread.NORM_PRIORITY - 1);
+			mThreads[idx].start();
+		}
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Requests
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Request an asset, needed now
+	 *
+	 * @param assetPath Location and name of the asset
+	 * @param decoder Decoder used to load the asset
+	 * @param callback Callback notified of the result (may be null)
+	 * @return Future holding the result
+	 */
+	public <T> AssetFuture<T> load(String assetPath, AssetDecoder<T> decoder,
+			AssetCallback<T> callback) {
+		return load(assetPath, decoder, Priority.NeededNow, callback);
+	}
+
+	/**
+	 * Request an asset
+	 *
+	 * @param assetPath Location and name of the asset
+	 * @param decoder Decoder used to load the asset
+	 * @param priority Priority of the request
+	 * @param callback Callback notified of the result (may be null)
+	 * @return Future holding the result
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> AssetFuture<T> load(String assetPath, AssetDecoder<T> decoder,
+			Priority priority, AssetCallback<T> callback) {
+
+		AssetFuture<T> future;
+		synchronized (this) {
+			if (mShutdown)
+				throw new IllegalStateException("Asset loader shut down");
+
+			RequestKey key = new RequestKey(assetPath, decoder);
+			future = (AssetFuture<T>) mInFlight.get(key);
+			if (future != null) {
+				mSharedCount++;
+				// Promote a queued prefetch that is now needed
+				if (priority == Priority.NeededNow
+						&& future.mPriority == Priority.Prefetch
+						&& mPrefetch.remove(future)) {
+					future.mPriority = Priority.NeededNow;
+					mNeededNow.addLast(future);
+				}
+			} else {
+				future = new AssetFuture<T>(
+						this, assetPath, decoder, priority, mCallbackExecutor);
+				mInFlight.put(key, future);
+				mRequestedCount++;
+				if (priority == Priority.NeededNow)
+					mNeededNow.addLast(future);
+				else
+					mPrefetch.addLast(future);
+				notify();
+			}
+		}
+
+		future.addCallback(callback);
+		return future;
+	}
+
+	/**
+	 * Stop the I/O threads once any loads under way have finished. Queued
+	 * requests are cancelled.
+	 */
+	public void shutdown() {
+		synchronized (this) {
+			mShutdown = true;
+			notifyAll();
+		}
+		AssetFuture<?> future;
+		while ((future = peekQueued()) != null)
+			future.cancel(false);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Progress
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the fraction [0, 1] of the requests made since progress was
+	 * last reset that have completed (1 if none have been made)
+	 */
+	public synchronized float getProgress() {
+		return mRequestedCount == 0 ? 1.0f : mCompletedCount / (float) mRequestedCount;
+	}
+
+	/**
+	 * Return the number of requests made since progress was last reset
+	 */
+	public synchronized int getRequestedCount() {
+		return mRequestedCount;
+	}
+
+	/**
+	 * Return the number of requests completed since progress was last reset
+	 */
+	public synchronized int getCompletedCount() {
+		return mCompletedCount;
+	}
+
+	/**
+	 * Return the number of requests queued or loading
+	 */
+	public synchronized int getPendingCount() {
+		return mInFlight.size();
+	}
+
+	/**
+	 * Return the number of requests that shared an existing load
+	 */
+	public synchronized long getSharedCount() {
+		return mSharedCount;
+	}
+
+	/**
+	 * Reset progress so that it only covers requests still pending and those
+	 * made from now on
+	 */
+	public synchronized void resetProgress() {
+		mRequestedCount -= mCompletedCount;
+		mCompletedCount = 0;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Internal
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Remove a request from the queue, if it has not yet started loading
+	 *
+	 * @return True if the request was removed
+	 */
+	synchronized boolean dequeue(AssetFuture<?> future) {
+		if (!mNeededNow.remove(future) && !mPrefetch.remove(future))
+			return false;
+		finished(future);
+		return true;
+	}
+
+	/**
+	 * Return the next queued request, or null if none
+	 */
+	private synchronized AssetFuture<?> peekQueued() {
+		AssetFuture<?> future = mNeededNow.peekFirst();
+		if (future == null)
+			future = mPrefetch.peekFirst();
+		return future;
+	}
+
+	/**
+	 * Record that a request has completed (called whilst holding the lock)
+	 */
+	private void finished(AssetFuture<?> future) {
+		mInFlight.remove(new RequestKey(future.getAssetPath(), future.mDecoder));
+		mCompletedCount++;
+	}
+
+	/**
+	 * Load queued requests until the loader is shut down
+	 */
+	private void runLoads() {
+		while (true) {
+			AssetFuture<?> future;
+			synchronized (this) {
+				while (!mShutdown && mNeededNow.isEmpty() && mPrefetch.isEmpty()) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				if (mShutdown)
+					return;
+				future = mNeededNow.pollFirst();
+				if (future == null)
+					future = mPrefetch.pollFirst();
+			}
+			runLoad(future);
+		}
+	}
+
+	/**
+	 * Load and decode a single request, completing its future
+	 */
+	private <T> void runLoad(AssetFuture<T> future) {
+		T asset = null;
+		Exception error = null;
+		try {
+			asset = future.mDecoder.decode(future.getAssetPath());
+		} catch (Exception e) {
+			error = e;
+		}
+
+		// Stop sharing the request before completing it, so a request made
+		// from a callback starts a new load rather than joining this one
+		synchronized (this) {
+			finished(future);
+		}
+		future.complete(asset, error, false);
+	}
+}
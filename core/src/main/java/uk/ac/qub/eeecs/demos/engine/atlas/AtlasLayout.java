@@ -0,0 +1,277 @@
+package uk.ac.qub.eeecs.demos.engine.atlas;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+
+/**
+ * Layout of a set of named images packed into one or more atlas pages.
+ *
+ * Images are packed, largest first, using a MaxRectsPacker. Each page is
+ * given the smallest area (trying sizes in steps of PAGE_SIZE_STEP, up to the
+ * maximum page size) that holds all of the remaining images and is then
+ * cropped to the extent actually used, so the atlas holds few pixels beyond
+ * those of the images. If the
+ * remaining images do not fit within a page of the maximum size then the
+ * page is filled and the rest are placed on further pages.
+ *
+ * A gap of the specified padding is left between images, so that filtering
+ * at the edge of one image does not sample its neighbours.
+ *
+ * @version 1.0
+ */
+public class AtlasLayout {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Granularity of the page sizes considered
+	 */
+	private static final int PAGE_SIZE_STEP = 64;
+
+	/**
+	 * Size of each page
+	 */
+	private int[] mPageWidths;
+	private int[] mPageHeights;
+
+	/**
+	 * Name, page and placement of each region (held in the order in which
+	 * the images were given)
+	 */
+	private String[] mRegionNames;
+	private int[] mRegionPages;
+	private IntRect[] mRegionRects;
+
+	/**
+	 * Lookup from region name to index
+	 */
+	private HashMap<String, Integer> mRegionIndices = new HashMap<String, Integer>();
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create an empty layout, sized for the specified number of regions
+	 */
+	private AtlasLayout(int regionCount) {
+		mRegionNames = new String[regionCount];
+		mRegionPages = new int[regionCount];
+		mRegionRects = new IntRect[regionCount];
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Packing
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Pack the specified images into atlas pages
+	 *
+	 * @param names Name of each image (must be unique)
+	 * @param widths Width of each image
+	 * @param heights Height of each image
+	 * @param padding Gap left between images
+	 * @param maxPageSize Maximum width and height of a page
+	 * @return Layout of the images
+	 * @throws IllegalArgumentException if an image is larger than a page
+	 */
+	public static AtlasLayout pack(String[] names, final int[] widths,
+			final int[] heights, int padding, int maxPageSize) {
+
+		int count = names.length;
+		AtlasLayout layout = new AtlasLayout(count);
+
+		// Order the images by their longest side, largest first
+		Integer[] order = new Integer[count];
+		for (int idx = 0; idx < count; idx++) {
+			if (widths[idx] + padding > maxPageSize
+					|| heights[idx] + padding > maxPageSize)
+				throw new IllegalArgumentException(
+						"Image larger than atlas page: " + names[idx]);
+			if (layout.mRegionIndices.put(names[idx], idx) != null)
+				throw new IllegalArgumentException(
+						"Duplicate image name: " + names[idx]);
+			layout.mRegionNames[idx] = names[idx];
+			order[idx] = idx;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				int sideA = Math.max(widths[a], heights[a]);
+				int sideB = Math.max(widths[b], heights[b]);
+				if (sideA != sideB)
+					return sideA > sideB ? -1 : 1;
+				return a.compareTo(b);
+			}
+		});
+
+		// Fill pages until every image has been placed
+		ArrayList<Integer> remaining = new ArrayList<Integer>(Arrays.asList(order));
+		ArrayList<int[]> pageSizes = new ArrayList<int[]>();
+		IntRect placement = new IntRect();
+		while (!remaining.isEmpty()) {
+			int page = pageSizes.size();
+			MaxRectsPacker packer = choosePage(
+					remaining, widths, heights, padding, maxPageSize);
+
+			for (int idx = 0; idx < remaining.size();) {
+				int image = remaining.get(idx);
+				if (packer.insert(widths[image] + padding,
+						heights[image] + padding, placement)) {
+					layout.mRegionPages[image] = page;
+					layout.mRegionRects[image] = new IntRect(placement.left,
+							placement.top, placement.left + widths[image],
+							placement.top + heights[image]);
+					remaining.remove(idx);
+				} else {
+					idx++;
+				}
+			}
+			pageSizes.add(new int[] { packer.getUsedWidth(), packer.getUsedHeight() });
+		}
+
+		layout.mPageWidths = new int[pageSizes.size()];
+		layout.mPageHeights = new int[pageSizes.size()];
+		for (int page = 0; page < pageSizes.size(); page++) {
+			layout.mPageWidths[page] = pageSizes.get(page)[0];
+			layout.mPageHeights[page] = pageSizes.get(page)[1];
+		}
+		return layout;
+	}
+
+	/**
+	 * Return a packer for the smallest page holding all of the remaining
+	 * images, or for a page of the maximum size if none does
+	 */
+	private static MaxRectsPacker choosePage(ArrayList<Integer> remaining,
+			int[] widths, int[] heights, int padding, int maxPageSize) {
+
+		// Candidate sizes, smallest area first (preferring square pages)
+		ArrayList<int[]> sizes = new ArrayList<int[]>();
+		for (int width = PAGE_SIZE_STEP; width <= maxPageSize; width += PAGE_SIZE_STEP)
+			for (int height = PAGE_SIZE_STEP; height <= maxPageSize; height += PAGE_SIZE_STEP)
+				sizes.add(new int[] { width, height });
+		Collections.sort(sizes, new Comparator<int[]>() {
+			@Override
+			public int compare(int[] a, int[] b) {
+				long areaA = (long) a[0] * a[1];
+				long areaB = (long) b[0] * b[1];
+				if (areaA != areaB)
+					return areaA < areaB ? -1 : 1;
+				return Math.max(a[0], a[1]) - Math.max(b[0], b[1]);
+			}
+		});
+
+		long totalArea = 0;
+		int maxWidth = 0;
+		int maxHeight = 0;
+		for (int idx = 0; idx < remaining.size(); idx++) {
+			int image = remaining.get(idx);
+			totalArea += (long) (widths[image] + padding) * (heights[image] + padding);
+			maxWidth = Math.max(maxWidth, widths[image] + padding);
+			maxHeight = Math.max(maxHeight, heights[image] + padding);
+		}
+
+		IntRect placement = new IntRect();
+		for (int idx = 0; idx < sizes.size(); idx++) {
+			int[] size = sizes.get(idx);
+			if ((long) size[0] * size[1] < totalArea
+					|| size[0] < maxWidth || size[1] < maxHeight)
+				continue;
+
+			MaxRectsPacker trial = new MaxRectsPacker(size[0], size[1]);
+			boolean fits = true;
+			for (int image = 0; fits && image < remaining.size(); image++)
+				fits = trial.insert(widths[remaining.get(image)] + padding,
+						heights[remaining.get(image)] + padding, placement);
+			if (fits)
+				return new MaxRectsPacker(size[0], size[1]);
+		}
+		return new MaxRectsPacker(maxPageSize, maxPageSize);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Pages and Regions
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the number of atlas pages
+	 */
+	public int getPageCount() {
+		return mPageWidths.length;
+	}
+
+	/**
+	 * Return the width of the specified page
+	 */
+	public int getPageWidth(int page) {
+		return mPageWidths[page];
+	}
+
+	/**
+	 * Return the height of the specified page
+	 */
+	public int getPageHeight(int page) {
+		return mPageHeights[page];
+	}
+
+	/**
+	 * Return the number of regions (one per packed image)
+	 */
+	public int getRegionCount() {
+		return mRegionNames.length;
+	}
+
+	/**
+	 * Return the index of the region holding the named image
+	 *
+	 * @param name Name of the image
+	 * @return Region index, or -1 if the image is not held in the atlas
+	 */
+	public int findRegion(String name) {
+		Integer index = mRegionIndices.get(name);
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * Return the name of the image held in the specified region
+	 */
+	public String getRegionName(int region) {
+		return mRegionNames[region];
+	}
+
+	/**
+	 * Return the page holding the specified region
+	 */
+	public int getRegionPage(int region) {
+		return mRegionPages[region];
+	}
+
+	/**
+	 * Return the placement of the specified region within its page (the
+	 * rectangle should not be modified)
+	 */
+	public IntRect getRegionRect(int region) {
+		return mRegionRects[region];
+	}
+
+	/**
+	 * Return the fraction of the pages' area covered by images
+	 */
+	public float getOccupancy() {
+		long imageArea = 0;
+		for (int idx = 0; idx < mRegionRects.length; idx++)
+			imageArea += (long) mRegionRects[idx].width() * mRegionRects[idx].height();
+		long pageArea = 0;
+		for (int page = 0; page < mPageWidths.length; page++)
+			pageArea += (long) mPageWidths[page] * mPageHeights[page];
+		return pageArea > 0 ? imageArea / (float) pageArea : 0.0f;
+	}
+}
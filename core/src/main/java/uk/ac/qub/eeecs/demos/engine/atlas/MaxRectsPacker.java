@@ -0,0 +1,222 @@
+package uk.ac.qub.eeecs.demos.engine.atlas;
+
+import java.util.ArrayList;
+
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+
+/**
+ * Packs rectangles into a fixed size page using the max-rects algorithm.
+ *
+ * The packer keeps the list of maximal free rectangles, i.e. the largest
+ * empty rectangles that fit within the page, which may overlap one another.
+ * Each rectangle is placed in the free rectangle that leaves the shortest
+ * leftover side (best short side fit), after which every free rectangle
+ * overlapping the placement is split into up to four smaller rectangles and
+ * any free rectangle contained within another is pruned.
+ *
+ * Rectangles are not rotated, as sprites are drawn using their source
+ * orientation. Positive-y points down.
+ *
+ * @version 1.0
+ */
+public class MaxRectsPacker {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Size of the page
+	 */
+	private final int mWidth;
+	private final int mHeight;
+
+	/**
+	 * Maximal free rectangles
+	 */
+	private ArrayList<IntRect> mFreeRects = new ArrayList<IntRect>();
+
+	/**
+	 * Total area of the rectangles placed so far and the extent of the page
+	 * that they cover
+	 */
+	private long mUsedArea;
+	private int mUsedWidth;
+	private int mUsedHeight;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new, empty packer
+	 *
+	 * @param width Width of the page
+	 * @param height Height of the page
+	 */
+	public MaxRectsPacker(int width, int height) {
+		mWidth = width;
+		mHeight = height;
+		mFreeRects.add(new IntRect(0, 0, width, height));
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Packing
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Place a rectangle of the specified size within the page
+	 *
+	 * @param width Width of the rectangle
+	 * @param height Height of the rectangle
+	 * @param result Rectangle updated to hold the placement (unchanged if
+	 *            the rectangle did not fit)
+	 * @return True if the rectangle was placed, false if there was no room
+	 */
+	public boolean insert(int width, int height, IntRect result) {
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("Empty rectangle");
+
+		// Find the free rectangle leaving the shortest leftover side, using
+		// the longest leftover side to break ties
+		IntRect best = null;
+		int bestShortSide = Integer.MAX_VALUE;
+		int bestLongSide = Integer.MAX_VALUE;
+		for (int idx = 0; idx < mFreeRects.size(); idx++) {
+			IntRect free = mFreeRects.get(idx);
+			int leftoverX = free.width() - width;
+			int leftoverY = free.height() - height;
+			if (leftoverX < 0 || leftoverY < 0)
+				continue;
+
+			int shortSide = Math.min(leftoverX, leftoverY);
+			int longSide = Math.max(leftoverX, leftoverY);
+			if (shortSide < bestShortSide
+					|| (shortSide == bestShortSide && longSide < bestLongSide)) {
+				best = free;
+				bestShortSide = shortSide;
+				bestLongSide = longSide;
+			}
+		}
+		if (best == null)
+			return false;
+
+		int left = best.left;
+		int top = best.top;
+		result.set(left, top, left + width, top + height);
+
+		splitFreeRects(result);
+		pruneFreeRects();
+
+		mUsedArea += (long) width * height;
+		mUsedWidth = Math.max(mUsedWidth, result.right);
+		mUsedHeight = Math.max(mUsedHeight, result.bottom);
+		return true;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Statistics
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the width of the page
+	 */
+	public int getWidth() {
+		return mWidth;
+	}
+
+	/**
+	 * Return the height of the page
+	 */
+	public int getHeight() {
+		return mHeight;
+	}
+
+	/**
+	 * Return the right-most edge of the rectangles placed so far
+	 */
+	public int getUsedWidth() {
+		return mUsedWidth;
+	}
+
+	/**
+	 * Return the bottom-most edge of the rectangles placed so far
+	 */
+	public int getUsedHeight() {
+		return mUsedHeight;
+	}
+
+	/**
+	 * Return the fraction of the used extent of the page covered by the
+	 * rectangles placed so far
+	 */
+	public float getOccupancy() {
+		long extent = (long) mUsedWidth * mUsedHeight;
+		return extent > 0 ? mUsedArea / (float) extent : 0.0f;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Internal
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Split every free rectangle overlapping the placed rectangle into the
+	 * (up to four) maximal rectangles surrounding it
+	 *
+	 * @param used Placed rectangle
+	 */
+	private void splitFreeRects(IntRect used) {
+		// New rectangles are appended, so only the original ones are checked
+		int count = mFreeRects.size();
+		for (int idx = 0; idx < count; idx++) {
+			IntRect free = mFreeRects.get(idx);
+			if (used.left >= free.right || used.right <= free.left
+					|| used.top >= free.bottom || used.bottom <= free.top)
+				continue;
+
+			if (used.left > free.left)
+				mFreeRects.add(new IntRect(free.left, free.top, used.left, free.bottom));
+			if (used.right < free.right)
+				mFreeRects.add(new IntRect(used.right, free.top, free.right, free.bottom));
+			if (used.top > free.top)
+				mFreeRects.add(new IntRect(free.left, free.top, free.right, used.top));
+			if (used.bottom < free.bottom)
+				mFreeRects.add(new IntRect(free.left, used.bottom, free.right, free.bottom));
+			mFreeRects.set(idx, null);
+		}
+
+		// Remove the rectangles that were split
+		int kept = 0;
+		for (int idx = 0; idx < mFreeRects.size(); idx++)
+			if (mFreeRects.get(idx) != null)
+				mFreeRects.set(kept++, mFreeRects.get(idx));
+		while (mFreeRects.size() > kept)
+			mFreeRects.remove(mFreeRects.size() - 1);
+	}
+
+	/**
+	 * Remove every free rectangle contained within another
+	 */
+	private void pruneFreeRects() {
+		for (int i = 0; i < mFreeRects.size(); i++) {
+			IntRect a = mFreeRects.get(i);
+			for (int j = i + 1; j < mFreeRects.size(); j++) {
+				IntRect b = mFreeRects.get(j);
+				if (contains(b, a)) {
+					mFreeRects.remove(i--);
+					break;
+				}
+				if (contains(a, b))
+					mFreeRects.remove(j--);
+			}
+		}
+	}
+
+	/**
+	 * Determine if the outer rectangle contains the inner rectangle
+	 */
+	private static boolean contains(IntRect outer, IntRect inner) {
+		return inner.left >= outer.left && inner.top >= outer.top
+				&& inner.right <= outer.right && inner.bottom <= outer.bottom;
+	}
+}
@@ -0,0 +1,83 @@
+package uk.ac.qub.eeecs.demos.engine.input;
+
+/**
+ * Touch, key or sensor input event. Events are reused by the queue,
+ * recorder and replayer, so a listener should copy any values it needs to
+ * keep rather than holding on to the event.
+ *
+ * @version 1.0
+ */
+public class InputEvent {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Event types
+	// /////////////////////////////////////////////////////////////////////////
+
+	public static final int TOUCH_DOWN = 1;
+	public static final int TOUCH_MOVE = 2;
+	public static final int TOUCH_UP = 3;
+	public static final int KEY_DOWN = 4;
+	public static final int KEY_UP = 5;
+	public static final int SENSOR = 6;
+
+	/**
+	 * Number of values held by a sensor event
+	 */
+	public static final int SENSOR_VALUES = 3;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties: [[Declared public for speed of access]]
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Type of the event
+	 */
+	public int type;
+
+	/**
+	 * Touch location (touch events)
+	 */
+	public float x;
+	public float y;
+
+	/**
+	 * Key code (key events) or sensor type (sensor events)
+	 */
+	public int code;
+
+	/**
+	 * Sensor values (sensor events)
+	 */
+	public final float[] values = new float[SENSOR_VALUES];
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Determine if this is a touch event
+	 */
+	public boolean isTouch() {
+		return type == TOUCH_DOWN || type == TOUCH_MOVE || type == TOUCH_UP;
+	}
+
+	/**
+	 * Determine if this is a key event
+	 */
+	public boolean isKey() {
+		return type == KEY_DOWN || type == KEY_UP;
+	}
+
+	/**
+	 * Copy the specified event into this event
+	 *
+	 * @param other Event to copy
+	 */
+	public void set(InputEvent other) {
+		type = other.type;
+		x = other.x;
+		y = other.y;
+		code = other.code;
+		System.arraycopy(other.values, 0, values, 0, SENSOR_VALUES);
+	}
+}
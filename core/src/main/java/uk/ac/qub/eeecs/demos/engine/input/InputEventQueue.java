@@ -0,0 +1,146 @@
+package uk.ac.qub.eeecs.demos.engine.input;
+
+/**
+ * Queue handing input events from the thread on which they arrive (e.g. the
+ * UI thread) to the thread updating the game, which drains the queue at the
+ * start of each update. Handing events over in this way means every event is
+ * applied at a known update step, so it can be recorded and replayed.
+ *
+ * The queue holds a fixed number of preallocated events and never allocates.
+ * Events posted whilst the queue is full are dropped (and counted).
+ *
+ * @version 1.0
+ */
+public class InputEventQueue {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Events posted since the last drain (guarded by this queue) and the
+	 * events being dispatched by the draining thread. The two are swapped
+	 * when draining, so listeners are called without holding the lock.
+	 */
+	private InputEvent[] mPending;
+	private int mPendingCount;
+	private InputEvent[] mDraining;
+
+	/**
+	 * Number of events dropped as the queue was full
+	 */
+	private long mDroppedEvents;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new input queue
+	 *
+	 * @param capacity Number of events that can be held between drains
+	 */
+	public InputEventQueue(int capacity) {
+		mPending = new InputEvent[capacity];
+		mDraining = new InputEvent[capacity];
+		for (int idx = 0; idx < capacity; idx++) {
+			mPending[idx] = new InputEvent();
+			mDraining[idx] = new InputEvent();
+		}
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Post a touch event
+	 *
+	 * @param type TOUCH_DOWN, TOUCH_MOVE or TOUCH_UP
+	 * @param x Touch location x
+	 * @param y Touch location y
+	 */
+	public synchronized void postTouch(int type, float x, float y) {
+		InputEvent event = next();
+		if (event != null) {
+			event.type = type;
+			event.x = x;
+			event.y = y;
+		}
+	}
+
+	/**
+	 * Post a key event
+	 *
+	 * @param type KEY_DOWN or KEY_UP
+	 * @param keyCode Key code
+	 */
+	public synchronized void postKey(int type, int keyCode) {
+		InputEvent event = next();
+		if (event != null) {
+			event.type = type;
+			event.code = keyCode;
+		}
+	}
+
+	/**
+	 * Post a sensor event
+	 *
+	 * @param sensorType Sensor type
+	 * @param value0 First sensor value
+	 * @param value1 Second sensor value
+	 * @param value2 Third sensor value
+	 */
+	public synchronized void postSensor(int sensorType,
+			float value0, float value1, float value2) {
+		InputEvent event = next();
+		if (event != null) {
+			event.type = InputEvent.SENSOR;
+			event.code = sensorType;
+			event.values[0] = value0;
+			event.values[1] = value1;
+			event.values[2] = value2;
+		}
+	}
+
+	/**
+	 * Pass every event posted since the last drain, in the order posted, to
+	 * the specified listener. Only one thread should drain the queue.
+	 *
+	 * @param listener Listener to receive the events
+	 * @return Number of events drained
+	 */
+	public int drain(InputListener listener) {
+		InputEvent[] events;
+		int count;
+		synchronized (this) {
+			events = mPending;
+			count = mPendingCount;
+			mPending = mDraining;
+			mPendingCount = 0;
+			mDraining = events;
+		}
+
+		for (int idx = 0; idx < count; idx++)
+			listener.onInput(events[idx]);
+		return count;
+	}
+
+	/**
+	 * Return the number of events dropped as the queue was full
+	 */
+	public synchronized long getDroppedEvents() {
+		return mDroppedEvents;
+	}
+
+	/**
+	 * Return the next free pending event, or null if the queue is full
+	 */
+	private InputEvent next() {
+		if (mPendingCount == mPending.length) {
+			mDroppedEvents++;
+			return null;
+		}
+		return mPending[mPendingCount++];
+	}
+}
@@ -0,0 +1,17 @@
+package uk.ac.qub.eeecs.demos.engine.input;
+
+/**
+ * Receives input events, either as they are drained from an input queue or
+ * as they are replayed from a recorded log
+ *
+ * @version 1.0
+ */
+public interface InputListener {
+
+	/**
+	 * Handle an input event
+	 *
+	 * @param event Event (reused once this call returns)
+	 */
+	void onInput(InputEvent event);
+}
@@ -0,0 +1,97 @@
+package uk.ac.qub.eeecs.demos.engine.input;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Layout of the binary input log written by InputRecorder and read by
+ * InputReplayer.
+ *
+ * The log starts with a header holding MAGIC, VERSION and the number of
+ * updates per second at which it was recorded. Each event then follows as:
+ * the number of update steps since the previous event (variable length), the
+ * event type (one byte) and the event values: the x and y location of a touch
+ * event (floats), the code of a key event (variable length), or the sensor
+ * type (variable length) and values (floats) of a sensor event.
+ *
+ * @version 1.0
+ */
+final class InputLog {
+
+	/**
+	 * Marker and version written at the start of the log. The version must
+	 * be changed whenever the layout changes.
+	 */
+	static final int MAGIC = 0x494E5054; // "INPT"
+	static final int VERSION = 1;
+
+	private InputLog() {
+	}
+
+	/**
+	 * Write a non-negative value using seven bits per byte
+	 */
+	static void writeVarLong(DataOutput out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	/**
+	 * Read a value written using writeVarLong
+	 */
+	static long readVarLong(DataInput in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("Invalid variable length value");
+	}
+
+	/**
+	 * Write the values of an event (excluding its step and type)
+	 */
+	static void writeValues(DataOutput out, InputEvent event) throws IOException {
+		if (event.isTouch()) {
+			out.writeFloat(event.x);
+			out.writeFloat(event.y);
+		} else if (event.isKey()) {
+			writeVarLong(out, event.code & 0xFFFFFFFFL);
+		} else if (event.type == InputEvent.SENSOR) {
+			writeVarLong(out, event.code & 0xFFFFFFFFL);
+			for (int idx = 0; idx < InputEvent.SENSOR_VALUES; idx++)
+				out.writeFloat(event.values[idx]);
+		} else {
+			throw new IOException("Unknown input event type: " + event.type);
+		}
+	}
+
+	/**
+	 * Read the values of an event whose type has already been read
+	 */
+	static void readValues(DataInput in, InputEvent event) throws IOException {
+		try {
+			if (event.isTouch()) {
+				event.x = in.readFloat();
+				event.y = in.readFloat();
+			} else if (event.isKey()) {
+				event.code = (int) readVarLong(in);
+			} else if (event.type == InputEvent.SENSOR) {
+				event.code = (int) readVarLong(in);
+				for (int idx = 0; idx < InputEvent.SENSOR_VALUES; idx++)
+					event.values[idx] = in.readFloat();
+			} else {
+				throw new IOException("Unknown input event type: " + event.type);
+			}
+		} catch (EOFException e) {
+			throw new IOException("Input log is truncated");
+		}
+	}
+}
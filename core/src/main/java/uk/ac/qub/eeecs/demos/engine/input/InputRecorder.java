@@ -0,0 +1,134 @@
+package uk.ac.qub.eeecs.demos.engine.input;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records input events, alongside the update step at which each was applied,
+ * into a compact binary log (see InputLog) that can be replayed using
+ * InputReplayer.
+ *
+ * The recorder is an input listener, so it can be passed the events drained
+ * from an input queue. The game loop should call setStep before each update
+ * step. As listeners cannot throw checked exceptions, a write failure stops
+ * the recording and is reported by getError and close.
+ *
+ * @version 1.0
+ */
+public class InputRecorder implements InputListener, Closeable {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Output to which the log is written
+	 */
+	private DataOutputStream mOutput;
+
+	/**
+	 * Current update step and the step of the last recorded event
+	 */
+	private long mStep;
+	private long mLastEventStep;
+
+	/**
+	 * Number of events recorded
+	 */
+	private int mEventCount;
+
+	/**
+	 * Error that stopped the recording (null if none)
+	 */
+	private IOException mError;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new recorder, writing the log header to the specified stream
+	 *
+	 * @param outputStream Stream to which the log is written (closed when
+	 *            the recorder is closed)
+	 * @param updatesPerSecond Number of update steps per second
+	 * @throws IOException If the header could not be written
+	 */
+	public InputRecorder(OutputStream outputStream, int updatesPerSecond)
+			throws IOException {
+		mOutput = new DataOutputStream(new BufferedOutputStream(outputStream));
+		mOutput.writeInt(InputLog.MAGIC);
+		mOutput.writeShort(InputLog.VERSION);
+		mOutput.writeInt(updatesPerSecond);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Set the update step at which subsequent events are applied
+	 *
+	 * @param step Update step (never decreasing)
+	 */
+	public void setStep(long step) {
+		mStep = step;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uk.ac.qub.eeecs.demos.engine.input.InputListener#onInput(uk.ac.qub.eeecs.demos.engine.input.InputEvent)
+	 */
+	@Override
+	public void onInput(InputEvent event) {
+		if (mError != null || mOutput == null)
+			return;
+
+		try {
+			InputLog.writeVarLong(mOutput, mStep - mLastEventStep);
+			mOutput.writeByte(event.type);
+			InputLog.writeValues(mOutput, event);
+			mLastEventStep = mStep;
+			mEventCount++;
+		} catch (IOException e) {
+			mError = e;
+		}
+	}
+
+	/**
+	 * Return the number of events recorded
+	 */
+	public int getEventCount() {
+		return mEventCount;
+	}
+
+	/**
+	 * Return the error that stopped the recording, or null if none
+	 */
+	public IOException getError() {
+		return mError;
+	}
+
+	/**
+	 * Flush and close the log
+	 *
+	 * @throws IOException If the log could not be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (mOutput == null)
+			return;
+
+		try {
+			mOutput.close();
+		} finally {
+			mOutput = null;
+		}
+		if (mError != null)
+			throw mError;
+	}
+}
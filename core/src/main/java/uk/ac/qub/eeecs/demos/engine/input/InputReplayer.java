@@ -0,0 +1,155 @@
+package uk.ac.qub.eeecs.demos.engine.input;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Replays an input log written by InputRecorder. The whole log is read up
+ * front, so replaying does no I/O and allocates nothing.
+ *
+ * The game loop should call replayStep for each update step (in place of
+ * draining its input queue). Each recorded event is then delivered at the
+ * same update step as it was originally applied, so a fixed-step simulation
+ * driven by the replay (and seeded identically) repeats exactly, whether it
+ * runs on a device or headless on the JVM.
+ *
+ * @version 1.0
+ */
+public class InputReplayer {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Number of update steps per second at which the log was recorded
+	 */
+	private int mUpdatesPerSecond;
+
+	/**
+	 * Recorded events and the step at which each was applied
+	 */
+	private InputEvent[] mEvents = new InputEvent[64];
+	private long[] mSteps = new long[64];
+	private int mEventCount;
+
+	/**
+	 * Index of the next event to be replayed
+	 */
+	private int mNextEvent;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new replayer, reading the whole log from the specified stream
+	 *
+	 * @param inputStream Stream holding the log (not closed by this call)
+	 * @throws IOException If the log could not be read or is not valid
+	 */
+	public InputReplayer(InputStream inputStream) throws IOException {
+		DataInputStream input = new DataInputStream(
+				new BufferedInputStream(inputStream));
+
+		if (input.readInt() != InputLog.MAGIC)
+			throw new IOException("Not an input log");
+		int version = input.readShort();
+		if (version != InputLog.VERSION)
+			throw new IOException("Unsupported input log version: " + version);
+		mUpdatesPerSecond = input.readInt();
+
+		long step = 0;
+		int first;
+		while ((first = input.read()) != -1) {
+			// The first byte of the step delta has already been read
+			long delta = first & 0x7F;
+			if ((first & 0x80) != 0)
+				delta |= InputLog.readVarLong(input) << 7;
+			step += delta;
+
+			InputEvent event = add(step);
+			event.type = input.read();
+			if (event.type == -1)
+				throw new IOException("Input log is truncated");
+			InputLog.readValues(input, event);
+		}
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Deliver the events applied at the specified update step (and any
+	 * earlier events not yet delivered) to the listener
+	 *
+	 * @param step Update step
+	 * @param listener Listener to receive the events
+	 * @return Number of events delivered
+	 */
+	public int replayStep(long step, InputListener listener) {
+		int delivered = 0;
+		while (mNextEvent < mEventCount && mSteps[mNextEvent] <= step) {
+			listener.onInput(mEvents[mNextEvent++]);
+			delivered++;
+		}
+		return delivered;
+	}
+
+	/**
+	 * Restart the replay from the first event
+	 */
+	public void rewind() {
+		mNextEvent = 0;
+	}
+
+	/**
+	 * Determine if every event has been replayed
+	 */
+	public boolean isFinished() {
+		return mNextEvent == mEventCount;
+	}
+
+	/**
+	 * Return the number of update steps per second at which the log was
+	 * recorded (the replay should use the same step)
+	 */
+	public int getUpdatesPerSecond() {
+		return mUpdatesPerSecond;
+	}
+
+	/**
+	 * Return the number of recorded events
+	 */
+	public int getEventCount() {
+		return mEventCount;
+	}
+
+	/**
+	 * Return the update step of the last recorded event
+	 */
+	public long getLastStep() {
+		return mEventCount > 0 ? mSteps[mEventCount - 1] : 0;
+	}
+
+	/**
+	 * Add a new event at the specified step, growing the storage if needed
+	 */
+	private InputEvent add(long step) {
+		if (mEventCount == mEvents.length) {
+			InputEvent[] events = new InputEvent[mEvents.length * 2];
+			System.arraycopy(mEvents, 0, events, 0, mEventCount);
+			mEvents = events;
+			long[] steps = new long[mSteps.length * 2];
+			System.arraycopy(mSteps, 0, steps, 0, mEventCount);
+			mSteps = steps;
+		}
+		InputEvent event = new InputEvent();
+		mEvents[mEventCount] = event;
+		mSteps[mEventCount++] = step;
+		return event;
+	}
+}
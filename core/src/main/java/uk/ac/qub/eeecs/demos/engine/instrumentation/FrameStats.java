@@ -0,0 +1,264 @@
+package uk.ac.qub.eeecs.demos.engine.instrumentation;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Frame-time instrumentation shared by the render loops.
+ *
+ * Separate histograms are kept for the interval between frames, the time
+ * spent updating, the time spent drawing, the time spent waiting to lock a
+ * canvas and the amount by which a sleep overshot its deadline. Each
+ * histogram should only be written by a single thread (e.g. updates on the
+ * loop thread and draws on the UI thread), although any thread can read
+ * them. Frames whose interval exceeds the frame budget are counted.
+ *
+ * Recording never allocates, so the statistics can be collected without
+ * disturbing the timings being measured.
+ *
+ * @version 1.0
+ */
+public class FrameStats {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Frame budget (in ns) of a 60fps display
+	 */
+	public static final long BUDGET_60FPS = 1000000000L / 60L;
+
+	/**
+	 * Largest duration (in ns) that can be recorded
+	 */
+	private static final long HIGHEST_TRACKABLE_NANOS = 10L * 1000000000L;
+
+	/**
+	 * Percentiles included when the statistics are exported
+	 */
+	private static final double[] EXPORTED_PERCENTILES = { 50.0, 95.0, 99.0 };
+
+	/**
+	 * Name of the measured loop (used when exporting)
+	 */
+	private final String mName;
+
+	/**
+	 * Frame budget (in ns) against which each frame interval is compared
+	 */
+	private final long mFrameBudget;
+
+	/**
+	 * Histograms of the frame interval, update, draw, canvas lock wait and
+	 * sleep overshoot durations (in ns)
+	 */
+	private final Histogram mFrameTime = new Histogram(HIGHEST_TRACKABLE_NANOS);
+	private final Histogram mUpdateTime = new Histogram(HIGHEST_TRACKABLE_NANOS);
+	private final Histogram mDrawTime = new Histogram(HIGHEST_TRACKABLE_NANOS);
+	private final Histogram mLockWaitTime = new Histogram(HIGHEST_TRACKABLE_NANOS);
+	private final Histogram mSleepOvershoot = new Histogram(HIGHEST_TRACKABLE_NANOS);
+
+	/**
+	 * Time (from System.nanoTime) at which the last frame was marked, or a
+	 * negative value if no frame has been marked
+	 */
+	private long mLastFrameTime = -1L;
+
+	/**
+	 * Number of frame intervals that exceeded the frame budget
+	 */
+	private volatile long mFramesOverBudget;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new set of frame statistics
+	 *
+	 * @param name Name of the measured loop
+	 * @param frameBudget Frame budget (in ns)
+	 */
+	public FrameStats(String name, long frameBudget) {
+		mName = name;
+		mFrameBudget = frameBudget;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Recording
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Mark the start of a new frame, recording the interval since the
+	 * previously marked frame
+	 *
+	 * @param now Current time (from System.nanoTime)
+	 */
+	public void markFrame(long now) {
+		if (mLastFrameTime >= 0L) {
+			long interval = now - mLastFrameTime;
+			mFrameTime.record(interval);
+			if (interval > mFrameBudget)
+				mFramesOverBudget++;
+		}
+		mLastFrameTime = now;
+	}
+
+	/**
+	 * Record the duration (in ns) of an update
+	 */
+	public void recordUpdate(long duration) {
+		mUpdateTime.record(duration);
+	}
+
+	/**
+	 * Record the duration (in ns) of a draw
+	 */
+	public void recordDraw(long duration) {
+		mDrawTime.record(duration);
+	}
+
+	/**
+	 * Record the duration (in ns) spent waiting to lock a canvas
+	 */
+	public void recordLockWait(long duration) {
+		mLockWaitTime.record(duration);
+	}
+
+	/**
+	 * Record the amount (in ns) by which a sleep overshot its deadline
+	 */
+	public void recordSleepOvershoot(long overshoot) {
+		mSleepOvershoot.record(overshoot);
+	}
+
+	/**
+	 * Remove all recorded statistics. The next frame marked after a reset
+	 * does not record an interval.
+	 */
+	public void reset() {
+		mFrameTime.reset();
+		mUpdateTime.reset();
+		mDrawTime.reset();
+		mLockWaitTime.reset();
+		mSleepOvershoot.reset();
+		mLastFrameTime = -1L;
+		mFramesOverBudget = 0;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Statistics
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the name of the measured loop
+	 */
+	public String getName() {
+		return mName;
+	}
+
+	/**
+	 * Return the frame budget (in ns)
+	 */
+	public long getFrameBudget() {
+		return mFrameBudget;
+	}
+
+	/**
+	 * Return the number of frame intervals that exceeded the frame budget
+	 */
+	public long getFramesOverBudget() {
+		return mFramesOverBudget;
+	}
+
+	/**
+	 * Return the histogram of frame intervals
+	 */
+	public Histogram getFrameTime() {
+		return mFrameTime;
+	}
+
+	/**
+	 * Return the histogram of update durations
+	 */
+	public Histogram getUpdateTime() {
+		return mUpdateTime;
+	}
+
+	/**
+	 * Return the histogram of draw durations
+	 */
+	public Histogram getDrawTime() {
+		return mDrawTime;
+	}
+
+	/**
+	 * Return the histogram of canvas lock wait durations
+	 */
+	public Histogram getLockWaitTime() {
+		return mLockWaitTime;
+	}
+
+	/**
+	 * Return the histogram of sleep overshoots
+	 */
+	public Histogram getSleepOvershoot() {
+		return mSleepOvershoot;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Export
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Write the percentiles of each non-empty histogram to the specified file
+	 * as comma separated values (durations in ms). Any existing file is
+	 * replaced.
+	 *
+	 * @param file File to write
+	 * @throws IOException If the file could not be written
+	 */
+	public void exportPercentiles(File file) throws IOException {
+		PrintWriter writer = new PrintWriter(new FileWriter(file));
+		try {
+			writer.print("loop,metric,count");
+			for (double percentile : EXPORTED_PERCENTILES)
+				writer.print(String.format(Locale.US, ",p%.0f_ms", percentile));
+			writer.println(",max_ms,over_budget");
+
+			exportHistogram(writer, "frame", mFrameTime, mFramesOverBudget);
+			exportHistogram(writer, "update", mUpdateTime, -1L);
+			exportHistogram(writer, "draw", mDrawTime, -1L);
+			exportHistogram(writer, "lock_wait", mLockWaitTime, -1L);
+			exportHistogram(writer, "sleep_overshoot", mSleepOvershoot, -1L);
+
+			if (writer.checkError())
+				throw new IOException("Unable to write " + file);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Write a single histogram row (skipped if the histogram is empty)
+	 *
+	 * @param overBudget Over-budget count, or negative if not applicable
+	 */
+	private void exportHistogram(PrintWriter writer, String metric,
+			Histogram histogram, long overBudget) {
+		if (histogram.getCount() == 0)
+			return;
+
+		writer.print(mName + "," + metric + "," + histogram.getCount());
+		for (double percentile : EXPORTED_PERCENTILES)
+			writer.print(String.format(Locale.US, ",%.3f",
+					histogram.getValueAtPercentile(percentile) / 1000000.0));
+		writer.print(String.format(Locale.US, ",%.3f",
+				histogram.getMax() / 1000000.0));
+		writer.println(overBudget >= 0L ? "," + overBudget : ",");
+	}
+}
@@ -0,0 +1,196 @@
+package uk.ac.qub.eeecs.demos.engine.instrumentation;
+
+/**
+ * Fixed-size histogram of non-negative long values (typically durations in
+ * nanoseconds) using HDR-style log-linear buckets.
+ *
+ * Values below SUB_BUCKET_COUNT are counted exactly. Larger values are placed
+ * into buckets whose width doubles with each power of two, with each power of
+ * two split into SUB_BUCKET_COUNT / 2 linear sub-buckets, giving a worst-case
+ * relative error of under 2%. All storage is allocated on construction, so
+ * recording a value never allocates.
+ *
+ * A histogram is not thread safe: values should be recorded by a single
+ * thread. Another thread may read percentiles whilst values are recorded,
+ * accepting that the result may be slightly out of date.
+ *
+ * @version 1.0
+ */
+public class Histogram {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Number of linear sub-buckets in the first bucket (the remaining buckets
+	 * each hold half this number)
+	 */
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+	/**
+	 * Largest value that can be recorded (larger values are clamped)
+	 */
+	private final long mHighestTrackableValue;
+
+	/**
+	 * Count of values recorded within each bucket
+	 */
+	private final long[] mCounts;
+
+	/**
+	 * Total number of values, and the exact smallest, largest and sum of all
+	 * recorded values
+	 */
+	private long mTotalCount;
+	private long mMinValue;
+	private long mMaxValue;
+	private long mSum;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new histogram
+	 *
+	 * @param highestTrackableValue Largest value that can be recorded
+	 */
+	public Histogram(long highestTrackableValue) {
+		if (highestTrackableValue < SUB_BUCKET_COUNT)
+			throw new IllegalArgumentException(
+					"Highest trackable value must be at least " + SUB_BUCKET_COUNT);
+
+		mHighestTrackableValue = highestTrackableValue;
+		mCounts = new long[indexOf(highestTrackableValue) + 1];
+		reset();
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Recording
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Record a value. Negative values are recorded as zero and values above
+	 * the highest trackable value are recorded as that value.
+	 *
+	 * @param value Value to record
+	 */
+	public void record(long value) {
+		if (value < 0)
+			value = 0;
+		else if (value > mHighestTrackableValue)
+			value = mHighestTrackableValue;
+
+		mCounts[indexOf(value)]++;
+		mTotalCount++;
+		mSum += value;
+		if (value < mMinValue)
+			mMinValue = value;
+		if (value > mMaxValue)
+			mMaxValue = value;
+	}
+
+	/**
+	 * Remove all recorded values
+	 */
+	public void reset() {
+		for (int idx = 0; idx < mCounts.length; idx++)
+			mCounts[idx] = 0;
+		mTotalCount = 0;
+		mMinValue = Long.MAX_VALUE;
+		mMaxValue = 0;
+		mSum = 0;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Statistics
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the number of recorded values
+	 */
+	public long getCount() {
+		return mTotalCount;
+	}
+
+	/**
+	 * Return the smallest recorded value (0 if nothing has been recorded)
+	 */
+	public long getMin() {
+		return mTotalCount == 0 ? 0 : mMinValue;
+	}
+
+	/**
+	 * Return the largest recorded value
+	 */
+	public long getMax() {
+		return mMaxValue;
+	}
+
+	/**
+	 * Return the mean of the recorded values (0 if nothing has been recorded)
+	 */
+	public double getMean() {
+		return mTotalCount == 0 ? 0.0 : (double) mSum / mTotalCount;
+	}
+
+	/**
+	 * Return the value at or below which the specified percentage of the
+	 * recorded values fall. The value returned is the highest value that
+	 * shares a bucket with the percentile, capped at the largest recorded
+	 * value.
+	 *
+	 * @param percentile Percentile in the range [0, 100]
+	 * @return Value at the percentile (0 if nothing has been recorded)
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (mTotalCount == 0)
+			return 0;
+
+		double clamped = Math.min(Math.max(percentile, 0.0), 100.0);
+		long target = Math.max(1L, (long) Math.ceil(clamped / 100.0 * mTotalCount));
+
+		long cumulative = 0;
+		for (int idx = 0; idx < mCounts.length; idx++) {
+			cumulative += mCounts[idx];
+			if (cumulative >= target)
+				return Math.min(highestValueAt(idx), mMaxValue);
+		}
+		return mMaxValue;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Buckets
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the index of the bucket holding the specified value
+	 */
+	private static int indexOf(long value) {
+		if (value < SUB_BUCKET_COUNT)
+			return (int) value;
+
+		// Shift the value so that it lies within the upper half of the
+		// sub-bucket range; the shift identifies the bucket
+		int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+		int subBucket = (int) (value >>> shift);
+		return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT
+				+ (subBucket - SUB_BUCKET_HALF_COUNT);
+	}
+
+	/**
+	 * Return the highest value held within the specified bucket
+	 */
+	private static long highestValueAt(int index) {
+		if (index < SUB_BUCKET_COUNT)
+			return index;
+
+		int offset = index - SUB_BUCKET_COUNT;
+		int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+		long subBucket = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
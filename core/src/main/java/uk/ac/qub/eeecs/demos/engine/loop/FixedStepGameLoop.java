@@ -0,0 +1,279 @@
+package uk.ac.qub.eeecs.demos.engine.loop;
+
+import uk.ac.qub.eeecs.demos.engine.instrumentation.FrameStats;
+
+/**
+ * Game loop that advances the simulation using a fixed time step and renders
+ * using interpolation between simulation steps.
+ *
+ * Elapsed real time is added to an accumulator, and the simulation is updated
+ * once for every whole step held in the accumulator. The number of updates
+ * per frame is capped by a catch-up limit; if the limit is reached the
+ * remaining backlog is dropped rather than allowing the loop to fall further
+ * and further behind. The fraction of a step left in the accumulator is passed
+ * to the render call so the renderer can interpolate between the previous and
+ * current simulation states.
+ *
+ * Frames are paced against an absolute schedule using a pluggable FramePacer,
+ * so any overshoot in waking up is corrected by the next frame's deadline
+ * rather than accumulating.
+ *
+ * If frame statistics are set then the loop records the interval between
+ * frames, the duration of each update and the overshoot of each frame wait.
+ *
+ * @version 1.0
+ */
+public class FixedStepGameLoop implements Runnable {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Default maximum number of updates performed per frame
+	 */
+	public static final int DEFAULT_MAX_STEPS_PER_FRAME = 5;
+
+	/**
+	 * Listener notified of each update and render
+	 */
+	private final GameLoopListener mListener;
+
+	/**
+	 * Duration (in ns) of a simulation step, alongside the same value in
+	 * seconds as passed to each update
+	 */
+	private final long mStepPeriod;
+	private final float mStepTime;
+
+	/**
+	 * Target duration (in ns) of each rendered frame
+	 */
+	private final long mFramePeriod;
+
+	/**
+	 * Maximum number of updates performed per frame
+	 */
+	private int mMaxStepsPerFrame = DEFAULT_MAX_STEPS_PER_FRAME;
+
+	/**
+	 * Strategy used to wait for the next frame
+	 */
+	private volatile FramePacer mFramePacer = new ParkSpinPacer();
+
+	/**
+	 * Statistics recorded by the loop thread (null if not recorded)
+	 */
+	private volatile FrameStats mFrameStats;
+
+	/**
+	 * Thread on which the game loop will run
+	 */
+	private Thread mLoopThread = null;
+
+	/**
+	 * Flag determining if the update/render thread is running
+	 */
+	private volatile boolean mRunning = false;
+
+	/**
+	 * Number of updates and frames performed, alongside the number of
+	 * updates dropped on reaching the catch-up limit
+	 */
+	private volatile long mUpdateCount;
+	private volatile long mFrameCount;
+	private volatile long mDroppedStepCount;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructor
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new game loop (the update/render process will not commence
+	 * until the loop is resumed).
+	 *
+	 * @param listener Listener notified of each update and render
+	 * @param updatesPerSecond Number of fixed simulation steps per second
+	 * @param framesPerSecond Target number of rendered frames per second
+	 */
+	public FixedStepGameLoop(GameLoopListener listener,
+			int updatesPerSecond, int framesPerSecond) {
+		if (updatesPerSecond <= 0 || framesPerSecond <= 0)
+			throw new IllegalArgumentException(
+					"Update and frame rates must be positive");
+
+		mListener = listener;
+		mStepPeriod = 1000000000L / updatesPerSecond;
+		mStepTime = (float) (mStepPeriod / 1000000000.0);
+		mFramePeriod = 1000000000L / framesPerSecond;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Configuration
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Set the strategy used to wait for the next frame
+	 *
+	 * @param framePacer Frame pacer to use
+	 */
+	public void setFramePacer(FramePacer framePacer) {
+		mFramePacer = framePacer;
+	}
+
+	/**
+	 * Set the statistics recorded by the loop thread. Draw durations are
+	 * not recorded by the loop and are left to the caller.
+	 *
+	 * @param frameStats Statistics to record, or null to stop recording
+	 */
+	public void setFrameStats(FrameStats frameStats) {
+		mFrameStats = frameStats;
+	}
+
+	/**
+	 * Set the maximum number of updates performed per frame
+	 *
+	 * @param maxStepsPerFrame Catch-up limit (at least one)
+	 */
+	public void setMaxStepsPerFrame(int maxStepsPerFrame) {
+		mMaxStepsPerFrame = Math.max(1, maxStepsPerFrame);
+	}
+
+	/**
+	 * Return the length of a simulation step (in seconds)
+	 */
+	public float getStepTime() {
+		return mStepTime;
+	}
+
+	/**
+	 * Return the number of updates performed since the loop was created
+	 */
+	public long getUpdateCount() {
+		return mUpdateCount;
+	}
+
+	/**
+	 * Return the number of frames rendered since the loop was created
+	 */
+	public long getFrameCount() {
+		return mFrameCount;
+	}
+
+	/**
+	 * Return the number of updates dropped on reaching the catch-up limit
+	 */
+	public long getDroppedStepCount() {
+		return mDroppedStepCount;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Update/Render Loop
+	// /////////////////////////////////////////////////////////////////////////
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+
+		/**
+		 * previousTime records the start of the last frame, accumulator holds
+		 * the real time that has not yet been simulated and nextFrameTime is
+		 * the absolute time at which the next frame is due.
+		 */
+		long previousTime = System.nanoTime();
+		long accumulator = 0L;
+		long nextFrameTime = previousTime;
+
+		try {
+			while (mRunning) {
+				FrameStats frameStats = mFrameStats;
+
+				// Add the real time elapsed since the last frame
+				long currentTime = System.nanoTime();
+				accumulator += currentTime - previousTime;
+				previousTime = currentTime;
+				if (frameStats != null)
+					frameStats.markFrame(currentTime);
+
+				// Consume the accumulated time in fixed steps
+				int steps = 0;
+				while (accumulator >= mStepPeriod && steps < mMaxStepsPerFrame) {
+					long updateStart = System.nanoTime();
+					mListener.update(mStepTime);
+					if (frameStats != null)
+						frameStats.recordUpdate(System.nanoTime() - updateStart);
+
+					accumulator -= mStepPeriod;
+					steps++;
+				}
+				mUpdateCount += steps;
+
+				// If we're still behind after the catch-up limit then drop the
+				// backlog, retaining only the fraction of a step
+				if (accumulator >= mStepPeriod) {
+					mDroppedStepCount += accumulator / mStepPeriod;
+					accumulator %= mStepPeriod;
+				}
+
+				// Render, interpolating over the partial step
+				mListener.render((float) accumulator / (float) mStepPeriod);
+				mFrameCount++;
+
+				// Schedule the next frame. If we've fallen more than a frame
+				// behind schedule then restart the schedule from now rather
+				// than rendering a burst of frames to catch up.
+				nextFrameTime += mFramePeriod;
+				long now = System.nanoTime();
+				if (now - nextFrameTime > mFramePeriod)
+					nextFrameTime = now;
+
+				mFramePacer.waitUntil(nextFrameTime);
+				if (frameStats != null)
+					frameStats.recordSleepOvershoot(System.nanoTime() - nextFrameTime);
+			}
+		} catch (InterruptedException e) {
+			// Interrupted whilst waiting - the loop is being paused
+		}
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Pause/Resume
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Pause the game loop, waiting until the loop thread has stopped. The
+	 * thread is interrupted so that it does not remain blocked waiting for a
+	 * frame or for a render to complete.
+	 */
+	public void pause() {
+		mRunning = false;
+		if (mLoopThread == null)
+			return;
+
+		mLoopThread.interrupt();
+		while (true) {
+			try {
+				mLoopThread.join();
+				mLoopThread = null;
+				return;
+			} catch (InterruptedException e) {
+				// retry
+			}
+		}
+	}
+
+	/**
+	 * Resume the game loop within a new thread.
+	 */
+	public void resume() {
+		mRunning = true;
+
+		mLoopThread = new Thread(this);
+		mLoopThread.start();
+	}
+}
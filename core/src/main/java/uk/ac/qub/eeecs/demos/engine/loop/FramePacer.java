@@ -0,0 +1,17 @@
+package uk.ac.qub.eeecs.demos.engine.loop;
+
+/**
+ * Strategy used by a game loop to wait until the next frame is due
+ *
+ * @version 1.0
+ */
+public interface FramePacer {
+
+	/**
+	 * Block the calling thread until the specified time has been reached
+	 *
+	 * @param deadline Time (as given by System.nanoTime) to wait until
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	void waitUntil(long deadline) throws InterruptedException;
+}
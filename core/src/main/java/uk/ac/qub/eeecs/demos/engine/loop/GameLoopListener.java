@@ -0,0 +1,25 @@
+package uk.ac.qub.eeecs.demos.engine.loop;
+
+/**
+ * Callbacks invoked by a fixed-step game loop
+ *
+ * @version 1.0
+ */
+public interface GameLoopListener {
+
+	/**
+	 * Advance the simulation by a single fixed step
+	 *
+	 * @param stepTime Length of the step (in seconds)
+	 */
+	void update(float stepTime);
+
+	/**
+	 * Render the current state of the simulation
+	 *
+	 * @param interpolation Fraction of a step [0, 1) that has elapsed since the
+	 *            last update, to be used to interpolate between the previous
+	 *            and current simulation states
+	 */
+	void render(float interpolation);
+}
@@ -0,0 +1,62 @@
+package uk.ac.qub.eeecs.demos.engine.loop;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Frame pacer offering sub-millisecond wake up accuracy. The thread is parked
+ * (which may overshoot by the scheduler's wake up latency) until it is within
+ * the spin threshold of the deadline, after which it spins, yielding the
+ * processor, until the deadline is reached.
+ *
+ * @version 1.0
+ */
+public class ParkSpinPacer implements FramePacer {
+
+	/**
+	 * Default period (in ns) before the deadline at which parking stops
+	 */
+	public static final long DEFAULT_SPIN_THRESHOLD = 1000000L;
+
+	/**
+	 * Period (in ns) before the deadline at which parking stops
+	 */
+	private final long mSpinThreshold;
+
+	/**
+	 * Create a new pacer using the default spin threshold
+	 */
+	public ParkSpinPacer() {
+		this(DEFAULT_SPIN_THRESHOLD);
+	}
+
+	/**
+	 * Create a new pacer
+	 *
+	 * @param spinThreshold Period (in ns) before the deadline at which the
+	 *            thread stops parking and starts to spin
+	 */
+	public ParkSpinPacer(long spinThreshold) {
+		mSpinThreshold = spinThreshold;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see uk.ac.qub.eeecs.demos.engine.loop.FramePacer#waitUntil(long)
+	 */
+	@Override
+	public void waitUntil(long deadline) throws InterruptedException {
+		long remaining;
+		while ((remaining = deadline - System.nanoTime()) > mSpinThreshold) {
+			LockSupport.parkNanos(remaining - mSpinThreshold);
+			if (Thread.interrupted())
+				throw new InterruptedException();
+		}
+
+		while (deadline - System.nanoTime() > 0) {
+			if (Thread.interrupted())
+				throw new InterruptedException();
+			Thread.yield();
+		}
+	}
+}
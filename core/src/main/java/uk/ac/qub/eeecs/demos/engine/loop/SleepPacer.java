@@ -0,0 +1,22 @@
+package uk.ac.qub.eeecs.demos.engine.loop;
+
+/**
+ * Frame pacer that sleeps at millisecond granularity (the approach used by
+ * the original demo loops). Cheap on power, but typically wakes up late.
+ *
+ * @version 1.0
+ */
+public class SleepPacer implements FramePacer {
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see uk.ac.qub.eeecs.demos.engine.loop.FramePacer#waitUntil(long)
+	 */
+	@Override
+	public void waitUntil(long deadline) throws InterruptedException {
+		long remaining = deadline - System.nanoTime();
+		if (remaining > 0)
+			Thread.sleep(remaining / 1000000L); // Convert ns into ms
+	}
+}
@@ -0,0 +1,122 @@
+package uk.ac.qub.eeecs.demos.engine.loop;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free triple buffer used to hand frame state from a single producer
+ * thread to a single consumer thread.
+ *
+ * The producer writes into the back buffer and publishes it, exchanging it
+ * for the shared middle buffer. The consumer acquires the most recently
+ * published buffer by exchanging its front buffer for the middle buffer.
+ * Neither side ever waits for the other: the producer can publish faster than
+ * the consumer acquires (intermediate frames are simply skipped) and the
+ * consumer can acquire repeatedly (receiving the same buffer until a newer
+ * one is published).
+ *
+ * @param <T> Type of the buffered state
+ * @version 1.0
+ */
+public class TripleBuffer<T> {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Flag set on the middle index when it holds an unconsumed buffer
+	 */
+	private static final int FRESH = 4;
+	private static final int INDEX_MASK = 3;
+
+	/**
+	 * The three buffers
+	 */
+	private final Object[] mBuffers;
+
+	/**
+	 * Index of the buffer currently owned by the producer
+	 */
+	private int mBack = 0;
+
+	/**
+	 * Index of the buffer exchanged between the producer and consumer,
+	 * alongside the FRESH flag
+	 */
+	private final AtomicInteger mMiddle = new AtomicInteger(1);
+
+	/**
+	 * Index of the buffer currently owned by the consumer
+	 */
+	private int mFront = 2;
+
+	/**
+	 * Number of published buffers that were replaced before being consumed
+	 */
+	private volatile long mSkippedCount;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructor
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new triple buffer over the specified buffers
+	 *
+	 * @param first First buffer (initially owned by the producer)
+	 * @param second Second buffer
+	 * @param third Third buffer (initially owned by the consumer)
+	 */
+	public TripleBuffer(T first, T second, T third) {
+		mBuffers = new Object[] { first, second, third };
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Producer
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the buffer that the producer should write into
+	 *
+	 * @return Back buffer
+	 */
+	@SuppressWarnings("unchecked")
+	public T getBack() {
+		return (T) mBuffers[mBack];
+	}
+
+	/**
+	 * Publish the back buffer, making it available to the consumer. The
+	 * producer receives a new back buffer to write into.
+	 */
+	public void publish() {
+		int previous = mMiddle.getAndSet(mBack | FRESH);
+		if ((previous & FRESH) != 0)
+			mSkippedCount++;
+		mBack = previous & INDEX_MASK;
+	}
+
+	/**
+	 * Return the number of published buffers that were replaced before being
+	 * consumed
+	 */
+	public long getSkippedCount() {
+		return mSkippedCount;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Consumer
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Acquire the most recently published buffer. If nothing has been
+	 * published since the last acquire then the same buffer is returned.
+	 *
+	 * @return Front buffer
+	 */
+	@SuppressWarnings("unchecked")
+	public T acquire() {
+		if ((mMiddle.get() & FRESH) != 0)
+			mFront = mMiddle.getAndSet(mFront) & INDEX_MASK;
+		return (T) mBuffers[mFront];
+	}
+}
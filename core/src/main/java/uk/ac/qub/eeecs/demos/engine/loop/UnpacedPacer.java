@@ -0,0 +1,21 @@
+package uk.ac.qub.eeecs.demos.engine.loop;
+
+/**
+ * Frame pacer that never waits. Suitable when rendering itself blocks until
+ * the display is ready (e.g. waiting on vsync), or to run the loop flat out.
+ *
+ * @version 1.0
+ */
+public class UnpacedPacer implements FramePacer {
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see uk.ac.qub.eeecs.demos.engine.loop.FramePacer#waitUntil(long)
+	 */
+	@Override
+	public void waitUntil(long deadline) throws InterruptedException {
+		if (Thread.interrupted())
+			throw new InterruptedException();
+	}
+}
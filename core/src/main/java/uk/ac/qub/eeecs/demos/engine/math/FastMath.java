@@ -0,0 +1,61 @@
+package uk.ac.qub.eeecs.demos.engine.math;
+
+/**
+ * Fast approximations of maths functions used on per-particle and per-sprite
+ * paths. The trigonometric functions use a shared lookup table of
+ * DEFAULT_TABLE_SIZE entries, giving an absolute error of at most
+ * getTrigErrorBound() (about 1.5e-6). Code needing a different trade-off
+ * between table size and accuracy can create its own TrigTable.
+ *
+ * @version 1.0
+ */
+public final class FastMath {
+
+	/**
+	 * Number of entries in the shared trigonometric table (16KB)
+	 */
+	public static final int DEFAULT_TABLE_SIZE = 4096;
+
+	/**
+	 * Shared trigonometric table
+	 */
+	private static final TrigTable sTrigTable = new TrigTable(DEFAULT_TABLE_SIZE);
+
+	private FastMath() {
+	}
+
+	/**
+	 * Return the maximum absolute error of the trigonometric functions
+	 */
+	public static float getTrigErrorBound() {
+		return sTrigTable.getErrorBound();
+	}
+
+	/**
+	 * Return the sine of an angle given in degrees
+	 */
+	public static float sinDegrees(float degrees) {
+		return sTrigTable.sinDegrees(degrees);
+	}
+
+	/**
+	 * Return the cosine of an angle given in degrees
+	 */
+	public static float cosDegrees(float degrees) {
+		return sTrigTable.cosDegrees(degrees);
+	}
+
+	/**
+	 * Return the sine of an angle given in radians
+	 */
+	public static float sin(float radians) {
+		return sTrigTable.sin(radians);
+	}
+
+	/**
+	 * Return the cosine of an angle given in radians
+	 */
+	public static float cos(float radians) {
+		return sTrigTable.cos(radians);
+	}
+}
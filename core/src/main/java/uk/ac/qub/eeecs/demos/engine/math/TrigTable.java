@@ -0,0 +1,145 @@
+package uk.ac.qub.eeecs.demos.engine.math;
+
+/**
+ * Sine and cosine lookup table with linear interpolation between entries.
+ *
+ * The table holds one full period of the sine function in a power of two
+ * number of entries. Using n entries, the spacing between entries is
+ * h = 2 pi / n radians and linear interpolation is accurate to h * h / 8.
+ * Float rounding of the table index adds up to about 1.2e-6, so the absolute
+ * error is at most about 1.5e-6 for 4096 entries and 6e-6 for 1024 entries
+ * (see getErrorBound).
+ *
+ * The error bound applies to angles within one turn of zero. Larger angles
+ * are wrapped, but as the table index is computed in float precision they
+ * lose roughly a further 3.7e-7 of accuracy per turn.
+ *
+ * A table is read only once created, so it can be shared between threads.
+ *
+ * @version 1.0
+ */
+public final class TrigTable {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Sine values for one period, with the first entry repeated at the end
+	 * so an interpolation never needs to wrap
+	 */
+	private final float[] mSin;
+
+	/**
+	 * Index mask and quarter period (in entries)
+	 */
+	private final int mMask;
+	private final float mQuarter;
+
+	/**
+	 * Factors converting degrees and radians into table indices
+	 */
+	private final float mDegreesToIndex;
+	private final float mRadiansToIndex;
+
+	/**
+	 * Maximum absolute error of a value returned by this table
+	 */
+	private final float mErrorBound;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new lookup table
+	 *
+	 * @param size Number of entries within one period (a power of two, of at
+	 *            least 16)
+	 */
+	public TrigTable(int size) {
+		if (size < 16 || (size & (size - 1)) != 0)
+			throw new IllegalArgumentException(
+					"Table size must be a power of two of at least 16");
+
+		mSin = new float[size + 1];
+		for (int idx = 0; idx <= size; idx++)
+			mSin[idx] = (float) Math.sin(idx * 2.0 * Math.PI / size);
+		mSin[size] = mSin[0];
+
+		mMask = size - 1;
+		mQuarter = size / 4;
+		mDegreesToIndex = size / 360.0f;
+		mRadiansToIndex = (float) (size / (2.0 * Math.PI));
+
+		// Interpolation error, plus the rounding of the index (scaling
+		// factor, product and quarter period offset, each up to 2^-24 of a
+		// turn) and of the table values and interpolation
+		double spacing = 2.0 * Math.PI / size;
+		mErrorBound = (float) (spacing * spacing / 8.0
+				+ 3.0 * 2.0 * Math.PI * Math.pow(2.0, -24.0)
+				+ Math.pow(2.0, -23.0));
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the number of entries within one period
+	 */
+	public int getSize() {
+		return mMask + 1;
+	}
+
+	/**
+	 * Return the maximum absolute error of a value returned by this table
+	 * (for angles within one turn of zero)
+	 */
+	public float getErrorBound() {
+		return mErrorBound;
+	}
+
+	/**
+	 * Return the sine of an angle given in degrees
+	 */
+	public float sinDegrees(float degrees) {
+		return lookup(degrees * mDegreesToIndex);
+	}
+
+	/**
+	 * Return the cosine of an angle given in degrees
+	 */
+	public float cosDegrees(float degrees) {
+		return lookup(degrees * mDegreesToIndex + mQuarter);
+	}
+
+	/**
+	 * Return the sine of an angle given in radians
+	 */
+	public float sin(float radians) {
+		return lookup(radians * mRadiansToIndex);
+	}
+
+	/**
+	 * Return the cosine of an angle given in radians
+	 */
+	public float cos(float radians) {
+		return lookup(radians * mRadiansToIndex + mQuarter);
+	}
+
+	/**
+	 * Interpolate the sine value at the specified (fractional) table index
+	 */
+	private float lookup(float index) {
+		// Floor the index (casting truncates towards zero)
+		int whole = (int) index;
+		if (index < whole)
+			whole--;
+		float fraction = index - whole;
+
+		int idx = whole & mMask;
+		float start = mSin[idx];
+		return start + (mSin[idx + 1] - start) * fraction;
+	}
+}
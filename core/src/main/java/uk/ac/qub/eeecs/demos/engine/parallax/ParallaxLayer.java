@@ -0,0 +1,152 @@
+package uk.ac.qub.eeecs.demos.engine.parallax;
+
+/**
+ * Horizontal scrolling of a single parallax background layer.
+ *
+ * Each layer is drawn from a strip held at screen resolution (so it can be
+ * blitted without rescaling). The strip is built from repeated copies of the
+ * layer's tile and is made at least as wide as the viewport, so however the
+ * layer is scrolled the viewport is covered by at most two spans of the
+ * strip: one running to the end of the strip and one wrapping back to its
+ * start.
+ *
+ * @version 1.0
+ */
+public class ParallaxLayer {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * How the layer is extended beyond its tile:
+	 * Repeat - the tile is repeated
+	 * Mirror - the tile alternates with a horizontally flipped copy
+	 * None - the tile is drawn once, at the layer origin
+	 */
+	public enum WrapMode {
+		Repeat, Mirror, None
+	}
+
+	/**
+	 * Maximum number of spans needed to cover the viewport
+	 */
+	public static final int MAX_SPANS = 2;
+
+	/**
+	 * Number of values held for each span: the left edge of the span within
+	 * the strip, its left edge relative to the viewport and its width
+	 */
+	public static final int SPAN_STRIDE = 3;
+
+	/**
+	 * Scroll factor of the layer, i.e. the number of pixels the layer moves
+	 * for each pixel scrolled (less than 1 for distant layers)
+	 */
+	private final float mScrollFactor;
+
+	/**
+	 * Wrap mode of the layer
+	 */
+	private final WrapMode mWrapMode;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new parallax layer
+	 *
+	 * @param scrollFactor Pixels the layer moves for each pixel scrolled
+	 * @param wrapMode How the layer is extended beyond its tile
+	 */
+	public ParallaxLayer(float scrollFactor, WrapMode wrapMode) {
+		mScrollFactor = scrollFactor;
+		mWrapMode = wrapMode;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the scroll factor of the layer
+	 */
+	public float getScrollFactor() {
+		return mScrollFactor;
+	}
+
+	/**
+	 * Return the wrap mode of the layer
+	 */
+	public WrapMode getWrapMode() {
+		return mWrapMode;
+	}
+
+	/**
+	 * Return the number of tiles the layer's strip should hold so that the
+	 * strip wraps seamlessly and is at least as wide as the viewport. When
+	 * mirroring, tiles are held in (unflipped, flipped) pairs.
+	 *
+	 * @param tileWidth Width of the tile (at screen resolution)
+	 * @param viewportWidth Width of the viewport
+	 * @return Number of tiles held in the strip
+	 */
+	public int getStripTileCount(int tileWidth, int viewportWidth) {
+		switch (mWrapMode) {
+		case Repeat:
+			return Math.max(1, (viewportWidth + tileWidth - 1) / tileWidth);
+		case Mirror:
+			return 2 * Math.max(1,
+					(viewportWidth + 2 * tileWidth - 1) / (2 * tileWidth));
+		default:
+			return 1;
+		}
+	}
+
+	/**
+	 * Determine the spans of the layer's strip that cover the viewport
+	 *
+	 * @param scrollX Horizontal scroll (in pixels) of the viewport
+	 * @param viewportWidth Width of the viewport
+	 * @param stripWidth Width of the layer's strip
+	 * @param spans Output array holding SPAN_STRIDE values for each span
+	 * @return Number of spans (at most MAX_SPANS)
+	 */
+	public int computeSpans(float scrollX, int viewportWidth, int stripWidth,
+			int[] spans) {
+
+		int offset = (int) Math.floor(scrollX * mScrollFactor);
+
+		if (mWrapMode == WrapMode.None) {
+			// Clip the single strip against the viewport
+			int sourceLeft = Math.max(0, offset);
+			int sourceRight = Math.min(stripWidth, offset + viewportWidth);
+			if (sourceLeft >= sourceRight)
+				return 0;
+			spans[0] = sourceLeft;
+			spans[1] = sourceLeft - offset;
+			spans[2] = sourceRight - sourceLeft;
+			return 1;
+		}
+
+		// The strip repeats every stripWidth pixels and is at least as wide
+		// as the viewport, so one span runs to the end of the strip and, if
+		// needed, a second wraps around from its start
+		int start = offset % stripWidth;
+		if (start < 0)
+			start += stripWidth;
+
+		int firstWidth = Math.min(stripWidth - start, viewportWidth);
+		spans[0] = start;
+		spans[1] = 0;
+		spans[2] = firstWidth;
+		if (firstWidth == viewportWidth)
+			return 1;
+
+		spans[3] = 0;
+		spans[4] = firstWidth;
+		spans[5] = viewportWidth - firstWidth;
+		return 2;
+	}
+}
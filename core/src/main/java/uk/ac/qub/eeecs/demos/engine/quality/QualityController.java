@@ -0,0 +1,220 @@
+package uk.ac.qub.eeecs.demos.engine.quality;
+
+/**
+ * Adaptive quality controller. The time spent working on each frame is fed
+ * to the controller, which lowers the quality level when the frame budget is
+ * being exceeded and raises it again once there is ample headroom.
+ *
+ * Each quality level defines a factor applied to the number of particles
+ * spawned, a factor applied to particle life spans and whether particles
+ * should be drawn using the cheaper batched render path. Level 0 is the
+ * highest quality.
+ *
+ * To stop the quality oscillating:
+ * <ul>
+ * <li>The work time is smoothed using an exponential moving average, so a
+ * single slow frame has little effect.</li>
+ * <li>The quality is only lowered once the smoothed work time has exceeded
+ * DOWNGRADE_THRESHOLD of the budget for DOWNGRADE_FRAMES consecutive frames,
+ * and only raised once it has been below UPGRADE_THRESHOLD of the budget for
+ * UPGRADE_FRAMES consecutive frames. The gap between the two thresholds
+ * leaves room for the cost of the next level up.</li>
+ * <li>No further change is made for COOLDOWN_FRAMES frames after a change,
+ * giving the new level time to take effect.</li>
+ * </ul>
+ *
+ * A controller should be used from a single thread, although the quality
+ * level can be read from any thread (e.g. for telemetry).
+ *
+ * @version 1.0
+ */
+public class QualityController {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Fractions of the frame budget above which the quality is lowered and
+	 * below which it is raised
+	 */
+	public static final float DOWNGRADE_THRESHOLD = 0.9f;
+	public static final float UPGRADE_THRESHOLD = 0.6f;
+
+	/**
+	 * Number of consecutive frames the thresholds must be crossed before the
+	 * quality changes, and the number of frames after a change during which
+	 * no further change is made
+	 */
+	public static final int DOWNGRADE_FRAMES = 15;
+	public static final int UPGRADE_FRAMES = 120;
+	public static final int COOLDOWN_FRAMES = 60;
+
+	/**
+	 * Weight given to each new work time within the moving average
+	 */
+	private static final float SMOOTHING = 0.1f;
+
+	/**
+	 * Spawn count and life span factors, and use of batched rendering, for
+	 * each quality level (highest quality first)
+	 */
+	private static final float[] SPAWN_SCALE = { 1.0f, 0.75f, 0.5f, 0.25f };
+	private static final float[] LIFESPAN_SCALE = { 1.0f, 0.85f, 0.7f, 0.5f };
+	private static final boolean[] BATCHED_RENDERING = { false, true, true, true };
+
+	/**
+	 * Frame budget (in ns)
+	 */
+	private final long mFrameBudget;
+
+	/**
+	 * Current quality level
+	 */
+	private volatile int mLevel;
+
+	/**
+	 * Smoothed work time (in ns), or a negative value before the first frame
+	 */
+	private float mSmoothedWorkTime = -1.0f;
+
+	/**
+	 * Consecutive frames above the downgrade or below the upgrade threshold,
+	 * and the frames remaining before a further change can be made
+	 */
+	private int mFramesOver;
+	private int mFramesUnder;
+	private int mCooldown;
+
+	/**
+	 * Number of times the quality level has changed
+	 */
+	private volatile long mLevelChanges;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new quality controller, starting at the highest quality
+	 *
+	 * @param frameBudget Time (in ns) available to work on each frame
+	 */
+	public QualityController(long frameBudget) {
+		if (frameBudget <= 0)
+			throw new IllegalArgumentException("Frame budget must be positive");
+		mFrameBudget = frameBudget;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Record the time spent working on a frame, adjusting the quality level
+	 * if needed
+	 *
+	 * @param workTime Time (in ns) spent working on the frame, excluding any
+	 *            time spent sleeping or waiting for the next frame
+	 * @return True if the quality level changed
+	 */
+	public boolean recordFrame(long workTime) {
+		if (mSmoothedWorkTime < 0.0f)
+			mSmoothedWorkTime = workTime;
+		else
+			mSmoothedWorkTime += (workTime - mSmoothedWorkTime) * SMOOTHING;
+
+		if (mCooldown > 0) {
+			mCooldown--;
+			return false;
+		}
+
+		if (mSmoothedWorkTime > mFrameBudget * DOWNGRADE_THRESHOLD) {
+			mFramesUnder = 0;
+			if (++mFramesOver >= DOWNGRADE_FRAMES && mLevel < getLevelCount() - 1)
+				return changeLevel(mLevel + 1);
+		} else if (mSmoothedWorkTime < mFrameBudget * UPGRADE_THRESHOLD) {
+			mFramesOver = 0;
+			if (++mFramesUnder >= UPGRADE_FRAMES && mLevel > 0)
+				return changeLevel(mLevel - 1);
+		} else {
+			mFramesOver = 0;
+			mFramesUnder = 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Return to the highest quality level and forget all recorded frames
+	 */
+	public void reset() {
+		mLevel = 0;
+		mSmoothedWorkTime = -1.0f;
+		mFramesOver = 0;
+		mFramesUnder = 0;
+		mCooldown = 0;
+	}
+
+	/**
+	 * Return the current quality level (0 being the highest quality)
+	 */
+	public int getLevel() {
+		return mLevel;
+	}
+
+	/**
+	 * Return the number of quality levels
+	 */
+	public int getLevelCount() {
+		return SPAWN_SCALE.length;
+	}
+
+	/**
+	 * Return the number of times the quality level has changed
+	 */
+	public long getLevelChanges() {
+		return mLevelChanges;
+	}
+
+	/**
+	 * Return the smoothed work time (in ns)
+	 */
+	public float getSmoothedWorkTime() {
+		return Math.max(0.0f, mSmoothedWorkTime);
+	}
+
+	/**
+	 * Return the factor to apply to the number of particles spawned
+	 */
+	public float getSpawnScale() {
+		return SPAWN_SCALE[mLevel];
+	}
+
+	/**
+	 * Return the factor to apply to particle life spans
+	 */
+	public float getLifespanScale() {
+		return LIFESPAN_SCALE[mLevel];
+	}
+
+	/**
+	 * Determine if particles should be drawn using batched rendering
+	 */
+	public boolean isBatchedRendering() {
+		return BATCHED_RENDERING[mLevel];
+	}
+
+	/**
+	 * Change to the specified quality level
+	 *
+	 * @return True (the level has changed)
+	 */
+	private boolean changeLevel(int level) {
+		mLevel = level;
+		mLevelChanges++;
+		mFramesOver = 0;
+		mFramesUnder = 0;
+		mCooldown = COOLDOWN_FRAMES;
+		return true;
+	}
+}
@@ -0,0 +1,182 @@
+package uk.ac.qub.eeecs.demos.engine.random;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fast, seedable and splittable pseudo-random number generator using the
+ * xoroshiro128+ algorithm, with its state initialised from the seed using
+ * SplitMix64.
+ *
+ * Unlike java.util.Random, a generator holds no locks or atomic state, so it
+ * is not safe to share between threads. Instead, each user (e.g. an emitter,
+ * or a worker thread spawning particles in parallel) should hold its own
+ * generator, created from a seed or split from another generator. The same
+ * seed always produces the same sequence of values, so anything driven by a
+ * generator can be reproduced exactly.
+ *
+ * @version 1.0
+ */
+public final class FastRandom {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Golden ratio increment used by SplitMix64
+	 */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * Source of seeds for generators created without an explicit seed
+	 */
+	private static final AtomicLong sSeedSource = new AtomicLong(
+			mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+	/**
+	 * Generator state
+	 */
+	private long mState0;
+	private long mState1;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new generator using a seed that is different for each
+	 * generator created this way
+	 */
+	public FastRandom() {
+		this(newSeed());
+	}
+
+	/**
+	 * Create a new generator
+	 *
+	 * @param seed Seed from which the sequence of values is generated
+	 */
+	public FastRandom(long seed) {
+		setSeed(seed);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Seeding
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return a seed that is different for each call (used where a
+	 * generator does not need to be reproducible)
+	 *
+	 * @return New seed
+	 */
+	public static long newSeed() {
+		return mix64(sSeedSource.addAndGet(GOLDEN_GAMMA));
+	}
+
+	/**
+	 * Reset the generator so that it produces the sequence defined by the
+	 * specified seed
+	 *
+	 * @param seed Seed from which the sequence of values is generated
+	 */
+	public void setSeed(long seed) {
+		// Expand the seed using SplitMix64 (this never produces the all
+		// zero state, which xoroshiro128+ cannot leave)
+		seed += GOLDEN_GAMMA;
+		mState0 = mix64(seed);
+		seed += GOLDEN_GAMMA;
+		mState1 = mix64(seed);
+	}
+
+	/**
+	 * Create a new generator whose sequence is independent of this one. This
+	 * advances this generator, so splitting is itself reproducible.
+	 *
+	 * @return New generator
+	 */
+	public FastRandom split() {
+		return new FastRandom(nextLong());
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Values
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the next 64-bit value
+	 */
+	public long nextLong() {
+		long s0 = mState0;
+		long s1 = mState1;
+		long result = s0 + s1;
+
+		s1 ^= s0;
+		mState0 = Long.rotateLeft(s0, 24) ^ s1 ^ (s1 << 16);
+		mState1 = Long.rotateLeft(s1, 37);
+
+		return result;
+	}
+
+	/**
+	 * Return the next 32-bit value
+	 */
+	public int nextInt() {
+		// The upper bits of xoroshiro128+ are of the highest quality
+		return (int) (nextLong() >>> 32);
+	}
+
+	/**
+	 * Return a value in the range [0, bound)
+	 *
+	 * @param bound Upper bound (exclusive), must be positive
+	 */
+	public int nextInt(int bound) {
+		if (bound <= 0)
+			throw new IllegalArgumentException("Bound must be positive");
+
+		// Multiply-shift with rejection of the values that would bias
+		// the result (Lemire's method)
+		long product = (nextLong() >>> 32) * bound;
+		if ((product & 0xFFFFFFFFL) < bound) {
+			long threshold = (0x100000000L - bound) % bound;
+			while ((product & 0xFFFFFFFFL) < threshold)
+				product = (nextLong() >>> 32) * bound;
+		}
+		return (int) (product >>> 32);
+	}
+
+	/**
+	 * Return a value in the range [0, 1)
+	 */
+	public float nextFloat() {
+		return (nextLong() >>> 40) * 0x1.0p-24f;
+	}
+
+	/**
+	 * Return a value in the range [0, 1)
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Return a random boolean
+	 */
+	public boolean nextBoolean() {
+		return nextLong() < 0;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Internal
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * SplitMix64 output function
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
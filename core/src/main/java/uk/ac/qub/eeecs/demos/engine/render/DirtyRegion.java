@@ -0,0 +1,290 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+
+/**
+ * Tracks the regions of a view that have changed since it was last drawn.
+ *
+ * Sprites report the rects they change (typically both their previous and
+ * their new bounds when they move or animate). Overlapping rects are merged,
+ * and once more than MAX_RECTS are held the pair whose union adds the least
+ * area is merged, so the held rects never overlap and their total area gives
+ * the fraction of the view to be redrawn. If that fraction exceeds the full
+ * redraw threshold (or markAll has been called) redrawing the whole view is
+ * assumed to be cheaper than tracking the changes. Where only a single rect
+ * can be redrawn (e.g. View.invalidate) the bounds of the region are redrawn
+ * instead, so the area of the bounds is compared against the threshold.
+ *
+ * @version 1.0
+ */
+public class DirtyRegion {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Maximum number of disjoint rects held before the closest are merged
+	 */
+	public static final int MAX_RECTS = 8;
+
+	/**
+	 * Dirty rects, held as (left, top, right, bottom)
+	 */
+	private final int[] mRects = new int[(MAX_RECTS + 1) * 4];
+	private int mRectCount;
+
+	/**
+	 * True if the whole view is dirty
+	 */
+	private boolean mAllDirty;
+
+	/**
+	 * Fraction [0, 1] of the view above which the whole view is redrawn
+	 */
+	private float mFullRedrawThreshold;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new dirty region
+	 *
+	 * @param fullRedrawThreshold Fraction [0, 1] of the view above which the
+	 *        whole view is redrawn
+	 */
+	public DirtyRegion(float fullRedrawThreshold) {
+		mFullRedrawThreshold = fullRedrawThreshold;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Marking
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Mark the specified rect as dirty (empty rects are ignored)
+	 *
+	 * @param rect Rect to mark
+	 */
+	public void mark(IntRect rect) {
+		mark(rect.left, rect.top, rect.right, rect.bottom);
+	}
+
+	/**
+	 * Mark the specified rect as dirty (empty rects are ignored)
+	 */
+	public void mark(int left, int top, int right, int bottom) {
+		if (mAllDirty || left >= right || top >= bottom)
+			return;
+
+		// Grow the rect by any held rects it overlaps, repeating as the grown
+		// rect may then overlap others
+		boolean merged;
+		do {
+			merged = false;
+			for (int idx = 0; idx < mRectCount; idx++) {
+				int offset = idx * 4;
+				if (left < mRects[offset + 2] && right > mRects[offset]
+						&& top < mRects[offset + 3] && bottom > mRects[offset + 1]) {
+					left = Math.min(left, mRects[offset]);
+					top = Math.min(top, mRects[offset + 1]);
+					right = Math.max(right, mRects[offset + 2]);
+					bottom = Math.max(bottom, mRects[offset + 3]);
+					removeRect(idx);
+					merged = true;
+					break;
+				}
+			}
+		} while (merged);
+
+		int offset = mRectCount * 4;
+		mRects[offset] = left;
+		mRects[offset + 1] = top;
+		mRects[offset + 2] = right;
+		mRects[offset + 3] = bottom;
+		mRectCount++;
+
+		if (mRectCount > MAX_RECTS)
+			mergeClosestPair();
+	}
+
+	/**
+	 * Mark the whole view as dirty
+	 */
+	public void markAll() {
+		mAllDirty = true;
+		mRectCount = 0;
+	}
+
+	/**
+	 * Clear the region (e.g. once it has been drawn)
+	 */
+	public void clear() {
+		mAllDirty = false;
+		mRectCount = 0;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Query
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Determine if nothing has been marked
+	 */
+	public boolean isEmpty() {
+		return !mAllDirty && mRectCount == 0;
+	}
+
+	/**
+	 * Return the number of disjoint rects held
+	 */
+	public int getRectCount() {
+		return mRectCount;
+	}
+
+	/**
+	 * Return the area of the marked region
+	 */
+	public long getArea() {
+		long area = 0;
+		for (int idx = 0; idx < mRectCount; idx++) {
+			int offset = idx * 4;
+			area += (long) (mRects[offset + 2] - mRects[offset])
+					* (mRects[offset + 3] - mRects[offset + 1]);
+		}
+		return area;
+	}
+
+	/**
+	 * Determine if the whole view should be redrawn, i.e. if markAll was
+	 * called or the marked region covers more than the full redraw threshold
+	 *
+	 * @param width Width of the view
+	 * @param height Height of the view
+	 * @return True if the whole view should be redrawn
+	 */
+	public boolean needsFullRedraw(int width, int height) {
+		return mAllDirty
+				|| getArea() > mFullRedrawThreshold * ((long) width * height);
+	}
+
+	/**
+	 * Determine if the whole view should be redrawn when the region is
+	 * redrawn as a single rect holding its bounds, i.e. if markAll was called
+	 * or the bounds cover more than the full redraw threshold
+	 *
+	 * @param width Width of the view
+	 * @param height Height of the view
+	 * @return True if the whole view should be redrawn
+	 */
+	public boolean boundsNeedFullRedraw(int width, int height) {
+		if (mAllDirty)
+			return true;
+		if (mRectCount == 0)
+			return false;
+
+		int left = mRects[0], top = mRects[1], right = mRects[2], bottom = mRects[3];
+		for (int idx = 1; idx < mRectCount; idx++) {
+			int offset = idx * 4;
+			left = Math.min(left, mRects[offset]);
+			top = Math.min(top, mRects[offset + 1]);
+			right = Math.max(right, mRects[offset + 2]);
+			bottom = Math.max(bottom, mRects[offset + 3]);
+		}
+		return (long) (right - left) * (bottom - top)
+				> mFullRedrawThreshold * ((long) width * height);
+	}
+
+	/**
+	 * Update the specified rect to hold the bounds of the marked region
+	 * (empty if nothing has been marked, undefined if markAll was called)
+	 *
+	 * @param bounds Rect to be updated
+	 */
+	public void getBounds(IntRect bounds) {
+		if (mRectCount == 0) {
+			bounds.set(0, 0, 0, 0);
+			return;
+		}
+		bounds.set(mRects[0], mRects[1], mRects[2], mRects[3]);
+		for (int idx = 1; idx < mRectCount; idx++) {
+			int offset = idx * 4;
+			bounds.left = Math.min(bounds.left, mRects[offset]);
+			bounds.top = Math.min(bounds.top, mRects[offset + 1]);
+			bounds.right = Math.max(bounds.right, mRects[offset + 2]);
+			bounds.bottom = Math.max(bounds.bottom, mRects[offset + 3]);
+		}
+	}
+
+	/**
+	 * Update the specified rect to hold one of the disjoint marked rects
+	 *
+	 * @param idx Index of the rect (less than getRectCount())
+	 * @param rect Rect to be updated
+	 */
+	public void getRect(int idx, IntRect rect) {
+		int offset = idx * 4;
+		rect.set(mRects[offset], mRects[offset + 1], mRects[offset + 2],
+				mRects[offset + 3]);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Internal
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Remove the held rect at the specified index, moving the last rect into
+	 * its slot
+	 */
+	private void removeRect(int idx) {
+		int last = --mRectCount;
+		System.arraycopy(mRects, last * 4, mRects, idx * 4, 4);
+	}
+
+	/**
+	 * Merge the pair of held rects whose union adds the least area, then
+	 * re-mark the union so it absorbs any rects it now overlaps
+	 */
+	private void mergeClosestPair() {
+		int bestFirst = 0;
+		int bestSecond = 1;
+		long bestGrowth = Long.MAX_VALUE;
+		for (int first = 0; first < mRectCount; first++) {
+			for (int second = first + 1; second < mRectCount; second++) {
+				long growth = unionArea(first, second)
+						- area(first) - area(second);
+				if (growth < bestGrowth) {
+					bestGrowth = growth;
+					bestFirst = first;
+					bestSecond = second;
+				}
+			}
+		}
+
+		int a = bestFirst * 4;
+		int b = bestSecond * 4;
+		int left = Math.min(mRects[a], mRects[b]);
+		int top = Math.min(mRects[a + 1], mRects[b + 1]);
+		int right = Math.max(mRects[a + 2], mRects[b + 2]);
+		int bottom = Math.max(mRects[a + 3], mRects[b + 3]);
+
+		// Remove the higher index first so the lower index stays valid
+		removeRect(bestSecond);
+		removeRect(bestFirst);
+		mark(left, top, right, bottom);
+	}
+
+	private long area(int idx) {
+		int offset = idx * 4;
+		return (long) (mRects[offset + 2] - mRects[offset])
+				* (mRects[offset + 3] - mRects[offset + 1]);
+	}
+
+	private long unionArea(int first, int second) {
+		int a = first * 4;
+		int b = second * 4;
+		return (long) (Math.max(mRects[a + 2], mRects[b + 2]) - Math.min(mRects[a], mRects[b]))
+				* (Math.max(mRects[a + 3], mRects[b + 3]) - Math.min(mRects[a + 1], mRects[b + 1]));
+	}
+}
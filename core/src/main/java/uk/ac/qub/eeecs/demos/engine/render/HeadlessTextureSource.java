@@ -0,0 +1,107 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+import java.util.HashMap;
+
+/**
+ * Texture source used when running without a display. No images are
+ * decoded: each asset is given a stand-in texture of a fixed size, so code
+ * depending on texture sizes behaves as it would on a device.
+ *
+ * @version 1.0
+ */
+public class HeadlessTextureSource implements TextureSource {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Stand-in texture for a single asset
+	 */
+	private static class HeadlessTexture implements Texture {
+		final String assetPath;
+		final int width;
+		final int height;
+
+		HeadlessTexture(String assetPath, int width, int height) {
+			this.assetPath = assetPath;
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		public int getWidth() {
+			return width;
+		}
+
+		@Override
+		public int getHeight() {
+			return height;
+		}
+
+		@Override
+		public String toString() {
+			return assetPath;
+		}
+	}
+
+	/**
+	 * Size given to every texture
+	 */
+	private final int mWidth;
+	private final int mHeight;
+
+	/**
+	 * Textures created so far, keyed by asset path
+	 */
+	private final HashMap<String, HeadlessTexture> mTextures =
+			new HashMap<String, HeadlessTexture>();
+
+	/**
+	 * Number of textures currently acquired
+	 */
+	private int mAcquiredCount;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new headless texture source
+	 *
+	 * @param width Width given to every texture
+	 * @param height Height given to every texture
+	 */
+	public HeadlessTextureSource(int width, int height) {
+		mWidth = width;
+		mHeight = height;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public synchronized Texture acquire(String assetPath) {
+		HeadlessTexture texture = mTextures.get(assetPath);
+		if (texture == null) {
+			texture = new HeadlessTexture(assetPath, mWidth, mHeight);
+			mTextures.put(assetPath, texture);
+		}
+		mAcquiredCount++;
+		return texture;
+	}
+
+	@Override
+	public synchronized void release(Texture texture) {
+		if (texture != null)
+			mAcquiredCount--;
+	}
+
+	/**
+	 * Return the number of textures acquired but not yet released
+	 */
+	public synchronized int getAcquiredCount() {
+		return mAcquiredCount;
+	}
+}
@@ -0,0 +1,149 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+import uk.ac.qub.eeecs.demos.particle.ParticleStore;
+
+/**
+ * Render backend that draws nothing, instead recording the commands it is
+ * given so a headless run can check or measure what would have been drawn.
+ * Only the command type, texture and particle count are kept, and the
+ * buffers are reused once grown, so recording a frame allocates nothing in
+ * steady state.
+ *
+ * @version 1.0
+ */
+public class RecordingRenderBackend implements RenderBackend {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Types of command that can be recorded
+	 */
+	public static final int CLEAR = 1;
+	public static final int DRAW_IMAGE = 2;
+	public static final int DRAW_PARTICLES = 3;
+
+	/**
+	 * Recorded commands, valid in the range [0, mCommandCount). The count
+	 * holds the number of particles drawn (zero for other commands).
+	 */
+	private int[] mTypes = new int[16];
+	private Texture[] mTextures = new Texture[16];
+	private int[] mCounts = new int[16];
+	private int mCommandCount;
+
+	/**
+	 * Total number of particles drawn since the last reset
+	 */
+	private long mParticleCount;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Commands
+	// /////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public void setLayer(int layer) {
+		// Commands are recorded in the order issued
+	}
+
+	@Override
+	public void clear(int color) {
+		record(CLEAR, null, 0);
+	}
+
+	@Override
+	public void drawImage(Texture texture, int left, int top, int right, int bottom) {
+		record(DRAW_IMAGE, texture, 0);
+	}
+
+	@Override
+	public void drawParticles(ParticleStore particles, Texture texture,
+			boolean additiveBlend, boolean batched, float interpolation) {
+		if (texture == null)
+			return;
+		record(DRAW_PARTICLES, texture, particles.size());
+		mParticleCount += particles.size();
+	}
+
+	/**
+	 * Discard all recorded commands
+	 */
+	public void reset() {
+		for (int idx = 0; idx < mCommandCount; idx++)
+			mTextures[idx] = null;
+		mCommandCount = 0;
+		mParticleCount = 0;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Recorded Commands
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the number of commands recorded since the last reset
+	 */
+	public int getCommandCount() {
+		return mCommandCount;
+	}
+
+	/**
+	 * Return the type of the specified command
+	 *
+	 * @param index Command index, in the range [0, getCommandCount())
+	 */
+	public int getCommandType(int index) {
+		return mTypes[index];
+	}
+
+	/**
+	 * Return the texture drawn by the specified command (null for a clear)
+	 *
+	 * @param index Command index, in the range [0, getCommandCount())
+	 */
+	public Texture getCommandTexture(int index) {
+		return mTextures[index];
+	}
+
+	/**
+	 * Return the number of particles drawn by the specified command
+	 *
+	 * @param index Command index, in the range [0, getCommandCount())
+	 */
+	public int getCommandParticleCount(int index) {
+		return mCounts[index];
+	}
+
+	/**
+	 * Return the total number of particles drawn since the last reset
+	 */
+	public long getParticleCount() {
+		return mParticleCount;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Internal
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Append a command, growing the buffers if needed
+	 */
+	private void record(int type, Texture texture, int count) {
+		if (mCommandCount == mTypes.length) {
+			int capacity = mTypes.length * 2;
+			int[] types = new int[capacity];
+			Texture[] textures = new Texture[capacity];
+			int[] counts = new int[capacity];
+			System.arraycopy(mTypes, 0, types, 0, mCommandCount);
+			System.arraycopy(mTextures, 0, textures, 0, mCommandCount);
+			System.arraycopy(mCounts, 0, counts, 0, mCommandCount);
+			mTypes = types;
+			mTextures = textures;
+			mCounts = counts;
+		}
+		mTypes[mCommandCount] = type;
+		mTextures[mCommandCount] = texture;
+		mCounts[mCommandCount] = count;
+		mCommandCount++;
+	}
+}
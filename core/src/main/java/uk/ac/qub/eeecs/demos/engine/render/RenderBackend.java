@@ -0,0 +1,57 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+import uk.ac.qub.eeecs.demos.particle.ParticleStore;
+
+/**
+ * Commands used by the simulation to draw a frame. Android draws the
+ * commands onto a Canvas, whilst headless runs (tests, benchmarks and
+ * profiling on the JVM) can discard or record them. A backend is only used
+ * from one thread at a time.
+ *
+ * @version 1.0
+ */
+public interface RenderBackend {
+
+	/**
+	 * Set the layer on which the following commands are drawn. Layers are
+	 * drawn in ascending order by backends that reorder commands (see
+	 * RenderQueue). Backends that draw each command as it is issued ignore
+	 * the layer.
+	 *
+	 * @param layer Layer of the following commands
+	 */
+	void setLayer(int layer);
+
+	/**
+	 * Fill the whole target with the specified colour
+	 *
+	 * @param color ARGB colour
+	 */
+	void clear(int color);
+
+	/**
+	 * Draw a texture scaled to fill the specified rectangle
+	 *
+	 * @param texture Texture to draw
+	 * @param left Left edge of the destination
+	 * @param top Top edge of the destination
+	 * @param right Right edge of the destination
+	 * @param bottom Bottom edge of the destination
+	 */
+	void drawImage(Texture texture, int left, int top, int right, int bottom);
+
+	/**
+	 * Draw all particles within the store, interpolating between the state
+	 * before and after the last update
+	 *
+	 * @param particles Particles to draw
+	 * @param texture Texture drawn centred on each particle
+	 * @param additiveBlend True if particles should be additively blended
+	 * @param batched True if the particles should be submitted as a single
+	 *            batch (if supported), rather than one call per particle
+	 * @param interpolation Fraction [0, 1] between the previous and current
+	 *            particle state at which to draw
+	 */
+	void drawParticles(ParticleStore particles, Texture texture,
+			boolean additiveBlend, boolean batched, float interpolation);
+}
@@ -0,0 +1,349 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import uk.ac.qub.eeecs.demos.particle.ParticleStore;
+
+/**
+ * Render backend that collects the commands of a frame and then replays
+ * them, sorted and batched, to another backend.
+ *
+ * Commands are sorted by layer, then texture, blend mode and draw approach,
+ * so that draws sharing the same state are submitted together. Commands with
+ * the same sort key retain the order in which they were issued. Within a
+ * layer draws of different textures may therefore be reordered, so content
+ * that must be drawn in a particular order should be placed on different
+ * layers. Runs of batched particle draws sharing the same state are merged
+ * into a single submission.
+ *
+ * Particle stores are held by reference until the queue is flushed, so the
+ * queue must be flushed before they are next updated. A clear discards all
+ * commands issued before it (as they would be overdrawn) and is always
+ * replayed first.
+ *
+ * Per frame statistics are available after each flush, alongside the number
+ * of state changes the frame would have needed without sorting, so the
+ * savings can be seen.
+ *
+ * @version 1.0
+ */
+public class RenderQueue implements RenderBackend {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Maximum number of commands that can be queued in a single frame
+	 */
+	public static final int MAX_COMMANDS = 1 << 20;
+
+	/**
+	 * Range of supported layers (other layers are clamped to the range)
+	 */
+	public static final int MIN_LAYER = -16384;
+	public static final int MAX_LAYER = 16383;
+
+	/**
+	 * Layout of the sort key. From most to least significant: the layer, the
+	 * texture (numbered in order of first use within the frame), the blend
+	 * mode, the draw approach, the command type and lastly the command index
+	 * (making the sort stable). Bits above STATE_SHIFT, excluding the layer,
+	 * describe the state used to draw the command.
+	 */
+	private static final int LAYER_SHIFT = 48;
+	private static final int TEXTURE_SHIFT = 32;
+	private static final long ADDITIVE_BIT = 1L << 31;
+	private static final long BATCHED_BIT = 1L << 30;
+	private static final long PARTICLES_BIT = 1L << 29;
+	private static final int STATE_SHIFT = 20;
+	private static final long INDEX_MASK = (1L << STATE_SHIFT) - 1;
+	private static final long STATE_MASK = (1L << (LAYER_SHIFT - STATE_SHIFT)) - 1;
+	private static final int MAX_TEXTURES = 1 << (LAYER_SHIFT - TEXTURE_SHIFT);
+
+	/**
+	 * Queued commands, valid in the range [0, mCommandCount). Image commands
+	 * hold their destination, particle commands their store, blending and
+	 * interpolation.
+	 */
+	private long[] mSortKeys = new long[64];
+	private Texture[] mTextures = new Texture[64];
+	private ParticleStore[] mParticles = new ParticleStore[64];
+	private int[] mRects = new int[64 * 4];
+	private float[] mInterpolations = new float[64];
+	private int mCommandCount;
+
+	/**
+	 * Pending clear, if any
+	 */
+	private boolean mHasClear;
+	private int mClearColor;
+
+	/**
+	 * Layer of the commands being issued
+	 */
+	private int mLayer;
+
+	/**
+	 * Number given to each texture used within the frame
+	 */
+	private IdentityHashMap<Texture, Integer> mTextureIds =
+			new IdentityHashMap<Texture, Integer>();
+
+	/**
+	 * Stores into which runs of particle draws are merged, reused between
+	 * frames
+	 */
+	private ArrayList<ParticleStore> mMergeStores = new ArrayList<ParticleStore>();
+
+	/**
+	 * Statistics for the last flushed frame
+	 */
+	private int mLastCommandCount;
+	private int mSubmissionCount;
+	private int mDrawCallCount;
+	private int mStateChangeCount;
+	private int mUnsortedStateChangeCount;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Commands
+	// /////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public void setLayer(int layer) {
+		mLayer = Math.max(MIN_LAYER, Math.min(MAX_LAYER, layer));
+	}
+
+	@Override
+	public void clear(int color) {
+		discard();
+		mHasClear = true;
+		mClearColor = color;
+	}
+
+	@Override
+	public void drawImage(Texture texture, int left, int top, int right, int bottom) {
+		int index = add(texture, 0L);
+		mRects[index * 4] = left;
+		mRects[index * 4 + 1] = top;
+		mRects[index * 4 + 2] = right;
+		mRects[index * 4 + 3] = bottom;
+	}
+
+	@Override
+	public void drawParticles(ParticleStore particles, Texture texture,
+			boolean additiveBlend, boolean batched, float interpolation) {
+		if (particles.size() == 0)
+			return;
+
+		long state = PARTICLES_BIT;
+		if (additiveBlend)
+			state |= ADDITIVE_BIT;
+		if (batched)
+			state |= BATCHED_BIT;
+		int index = add(texture, state);
+		mParticles[index] = particles;
+		mInterpolations[index] = interpolation;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Flush
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Replay the queued commands, sorted and batched, to the specified
+	 * backend and empty the queue ready for the next frame
+	 *
+	 * @param target Backend to which the commands are submitted
+	 */
+	public void flush(RenderBackend target) {
+		mLastCommandCount = mCommandCount;
+		mSubmissionCount = 0;
+		mDrawCallCount = 0;
+		mStateChangeCount = 0;
+		mUnsortedStateChangeCount = countStateChanges();
+
+		if (mHasClear) {
+			target.clear(mClearColor);
+			mSubmissionCount++;
+			mDrawCallCount++;
+		}
+
+		Arrays.sort(mSortKeys, 0, mCommandCount);
+
+		int mergeStoreCount = 0;
+		long lastState = -1L;
+		int lastLayer = Integer.MIN_VALUE;
+		for (int idx = 0; idx < mCommandCount;) {
+			long key = mSortKeys[idx];
+			int index = (int) (key & INDEX_MASK);
+			long state = (key >>> STATE_SHIFT) & STATE_MASK;
+			int layer = (int) (key >>> LAYER_SHIFT) + MIN_LAYER;
+
+			if (state != lastState)
+				mStateChangeCount++;
+			lastState = state;
+			if (layer != lastLayer)
+				target.setLayer(layer);
+			lastLayer = layer;
+
+			if ((key & PARTICLES_BIT) == 0) {
+				target.drawImage(mTextures[index], mRects[index * 4],
+						mRects[index * 4 + 1], mRects[index * 4 + 2],
+						mRects[index * 4 + 3]);
+				mDrawCallCount++;
+				mSubmissionCount++;
+				idx++;
+				continue;
+			}
+
+			boolean additiveBlend = (key & ADDITIVE_BIT) != 0;
+			boolean batched = (key & BATCHED_BIT) != 0;
+			float interpolation = mInterpolations[index];
+
+			// Find the run of batched draws that can be merged with this one
+			int runEnd = idx + 1;
+			if (batched)
+				while (runEnd < mCommandCount
+						&& (mSortKeys[runEnd] >>> STATE_SHIFT) == (key >>> STATE_SHIFT)
+						&& mInterpolations[(int) (mSortKeys[runEnd] & INDEX_MASK)]
+								== interpolation)
+					runEnd++;
+
+			ParticleStore particles = mParticles[index];
+			if (runEnd - idx > 1) {
+				if (mergeStoreCount == mMergeStores.size())
+					mMergeStores.add(new ParticleStore(1000));
+				particles = mMergeStores.get(mergeStoreCount++);
+				particles.clear();
+				for (int run = idx; run < runEnd; run++)
+					particles.appendFrom(
+							mParticles[(int) (mSortKeys[run] & INDEX_MASK)]);
+			}
+
+			target.drawParticles(particles, mTextures[index], additiveBlend,
+					batched, interpolation);
+			mSubmissionCount++;
+			mDrawCallCount += batched ? 1 : particles.size();
+			idx = runEnd;
+		}
+
+		discard();
+		mHasClear = false;
+		mTextureIds.clear();
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Statistics
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the number of commands queued in the last flushed frame
+	 * (excluding any clear)
+	 */
+	public int getCommandCount() {
+		return mLastCommandCount;
+	}
+
+	/**
+	 * Return the number of commands submitted to the target in the last
+	 * flushed frame, after merging
+	 */
+	public int getSubmissionCount() {
+		return mSubmissionCount;
+	}
+
+	/**
+	 * Return the number of draw calls needed by the last flushed frame (a
+	 * particle draw that is not batched needs one call per particle)
+	 */
+	public int getDrawCallCount() {
+		return mDrawCallCount;
+	}
+
+	/**
+	 * Return the number of changes of texture, blend mode or draw approach
+	 * between the submissions of the last flushed frame
+	 */
+	public int getStateChangeCount() {
+		return mStateChangeCount;
+	}
+
+	/**
+	 * Return the number of state changes the last flushed frame would have
+	 * needed if the commands were submitted in the order issued
+	 */
+	public int getUnsortedStateChangeCount() {
+		return mUnsortedStateChangeCount;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Internal
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Append a command using the specified texture and state bits, growing
+	 * the buffers if needed
+	 *
+	 * @return Index of the command
+	 */
+	private int add(Texture texture, long state) {
+		if (mCommandCount == MAX_COMMANDS)
+			throw new IllegalStateException("Render queue full");
+		if (mCommandCount == mSortKeys.length)
+			grow(mSortKeys.length * 2);
+
+		Integer textureId = mTextureIds.get(texture);
+		if (textureId == null) {
+			if (mTextureIds.size() == MAX_TEXTURES)
+				throw new IllegalStateException("Too many textures in frame");
+			textureId = mTextureIds.size();
+			mTextureIds.put(texture, textureId);
+		}
+
+		int index = mCommandCount++;
+		mSortKeys[index] = ((long) (mLayer - MIN_LAYER) << LAYER_SHIFT)
+				| ((long) textureId << TEXTURE_SHIFT) | state | index;
+		mTextures[index] = texture;
+		mParticles[index] = null;
+		return index;
+	}
+
+	/**
+	 * Count the state changes between commands in the order issued
+	 */
+	private int countStateChanges() {
+		int changes = 0;
+		long lastState = -1L;
+		for (int idx = 0; idx < mCommandCount; idx++) {
+			long state = (mSortKeys[idx] >>> STATE_SHIFT) & STATE_MASK;
+			if (state != lastState)
+				changes++;
+			lastState = state;
+		}
+		return changes;
+	}
+
+	/**
+	 * Discard all queued commands, dropping references to their textures
+	 * and particles
+	 */
+	private void discard() {
+		Arrays.fill(mTextures, 0, mCommandCount, null);
+		Arrays.fill(mParticles, 0, mCommandCount, null);
+		mCommandCount = 0;
+	}
+
+	/**
+	 * Grow the command buffers to the specified capacity
+	 */
+	private void grow(int capacity) {
+		mSortKeys = Arrays.copyOf(mSortKeys, capacity);
+		mTextures = Arrays.copyOf(mTextures, capacity);
+		mParticles = Arrays.copyOf(mParticles, capacity);
+		mRects = Arrays.copyOf(mRects, capacity * 4);
+		mInterpolations = Arrays.copyOf(mInterpolations, capacity);
+	}
+}
@@ -0,0 +1,21 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+/**
+ * Platform-independent handle to a texture. Each render backend defines its
+ * own texture type (e.g. wrapping an Android Bitmap) and only draws textures
+ * created by its matching texture source.
+ *
+ * @version 1.0
+ */
+public interface Texture {
+
+	/**
+	 * Return the width of the texture (in pixels)
+	 */
+	int getWidth();
+
+	/**
+	 * Return the height of the texture (in pixels)
+	 */
+	int getHeight();
+}
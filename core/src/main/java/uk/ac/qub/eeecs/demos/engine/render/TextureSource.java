@@ -0,0 +1,27 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+/**
+ * Source of the textures used by the simulation, e.g. decoded from the
+ * Android assets folder or, when running headless, stand-ins of a fixed
+ * size. Each acquire should be matched by a release once the texture is no
+ * longer needed.
+ *
+ * @version 1.0
+ */
+public interface TextureSource {
+
+	/**
+	 * Acquire the texture held in the specified asset
+	 *
+	 * @param assetPath Location and name of the asset
+	 * @return Texture, or null if the asset could not be loaded
+	 */
+	Texture acquire(String assetPath);
+
+	/**
+	 * Release a texture previously acquired from this source
+	 *
+	 * @param texture Texture to release (ignored if null)
+	 */
+	void release(Texture texture);
+}
@@ -0,0 +1,470 @@
+package uk.ac.qub.eeecs.demos.engine.spatial;
+
+import java.util.Arrays;
+
+import uk.ac.qub.eeecs.demos.engine.viewport.Box;
+
+/**
+ * Spatial index over axis-aligned bounds using a uniform grid of square cells.
+ *
+ * Each entity is identified by a non-negative integer id chosen by the caller
+ * (typically its index within the caller's entity array) and is recorded in
+ * every cell its bound overlaps. A query gathers the entities held in the
+ * cells overlapped by the query region and then tests each bound exactly, so
+ * the cost of a query depends on the number of entities near the region
+ * rather than the total number of entities.
+ *
+ * The grid is unbounded: cells are created on demand within an open
+ * addressing hash table keyed by cell coordinate. Moving an entity only
+ * touches the cell lists if it has moved into a different range of cells.
+ * Once the index has warmed up (cells created and lists grown) neither
+ * updates nor queries allocate.
+ *
+ * The index makes no assumption about the direction of the y-axis; bounds
+ * are simply given as minimum and maximum coordinates. Overlap tests are
+ * strict, i.e. bounds that only touch are not considered to overlap.
+ *
+ * @version 1.0
+ */
+public class UniformGridIndex {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Ids held within a single cell
+	 */
+	private static class Cell {
+		int[] ids = new int[4];
+		int count;
+
+		void add(int id) {
+			if (count == ids.length)
+				ids = Arrays.copyOf(ids, count * 2);
+			ids[count++] = id;
+		}
+
+		void remove(int id) {
+			for (int idx = 0; idx < count; idx++) {
+				if (ids[idx] == id) {
+					ids[idx] = ids[--count];
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Width and height of each cell, alongside its reciprocal
+	 */
+	private final float mCellSize;
+	private final float mInverseCellSize;
+
+	/**
+	 * Hash table of cells, keyed by the packed cell coordinate
+	 */
+	private long[] mCellKeys;
+	private Cell[] mCells;
+	private int mCellCount;
+
+	/**
+	 * Range of cell coordinates within which cells have been created (used
+	 * to clamp queries over regions much larger than the populated grid)
+	 */
+	private int mGridMinX = Integer.MAX_VALUE;
+	private int mGridMinY = Integer.MAX_VALUE;
+	private int mGridMaxX = Integer.MIN_VALUE;
+	private int mGridMaxY = Integer.MIN_VALUE;
+
+	/**
+	 * Bounds of each entity, indexed by id
+	 */
+	private float[] mMinX = new float[0];
+	private float[] mMinY = new float[0];
+	private float[] mMaxX = new float[0];
+	private float[] mMaxY = new float[0];
+
+	/**
+	 * Range of cells covered by each entity, indexed by id
+	 */
+	private int[] mCellMinX = new int[0];
+	private int[] mCellMinY = new int[0];
+	private int[] mCellMaxX = new int[0];
+	private int[] mCellMaxY = new int[0];
+
+	/**
+	 * Flag recording if each id is held within the index
+	 */
+	private boolean[] mPresent = new boolean[0];
+	private int mSize;
+
+	/**
+	 * Query stamp recorded against each id when it is added to the query
+	 * results (used to avoid duplicates when an entity spans several cells)
+	 */
+	private int[] mQueryStamps = new int[0];
+	private int mQueryStamp;
+
+	/**
+	 * Ids found by the last query
+	 */
+	private int[] mResults = new int[16];
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new grid index. A cell size of around the size of the region
+	 * being queried works well: smaller cells mean more cells to visit and
+	 * larger entities spanning more cells; larger cells mean more entities
+	 * tested exactly.
+	 *
+	 * @param cellSize Width and height of each cell
+	 */
+	public UniformGridIndex(float cellSize) {
+		if (!(cellSize > 0.0f))
+			throw new IllegalArgumentException("Cell size must be positive");
+
+		mCellSize = cellSize;
+		mInverseCellSize = 1.0f / cellSize;
+		mCellKeys = new long[64];
+		mCells = new Cell[64];
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Insert, Update and Remove
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Add an entity (or update it if the id is already held)
+	 *
+	 * @param id Id of the entity
+	 * @param bound Centred bound of the entity
+	 */
+	public void insert(int id, Box bound) {
+		insert(id, bound.x - bound.width / 2, bound.y - bound.height / 2,
+				bound.x + bound.width / 2, bound.y + bound.height / 2);
+	}
+
+	/**
+	 * Add an entity (or update it if the id is already held)
+	 *
+	 * @param id Id of the entity
+	 * @param minX Minimum x coordinate of the entity
+	 * @param minY Minimum y coordinate of the entity
+	 * @param maxX Maximum x coordinate of the entity
+	 * @param maxY Maximum y coordinate of the entity
+	 */
+	public void insert(int id, float minX, float minY, float maxX, float maxY) {
+		if (id < 0)
+			throw new IllegalArgumentException("Id must not be negative");
+
+		ensureIdCapacity(id + 1);
+		if (mPresent[id]) {
+			update(id, minX, minY, maxX, maxY);
+			return;
+		}
+
+		mPresent[id] = true;
+		mSize++;
+		setBounds(id, minX, minY, maxX, maxY);
+		addToCells(id);
+	}
+
+	/**
+	 * Move an entity held within the index
+	 *
+	 * @param id Id of the entity
+	 * @param bound New centred bound of the entity
+	 */
+	public void update(int id, Box bound) {
+		update(id, bound.x - bound.width / 2, bound.y - bound.height / 2,
+				bound.x + bound.width / 2, bound.y + bound.height / 2);
+	}
+
+	/**
+	 * Move an entity held within the index. The cell lists are only changed
+	 * if the entity now covers a different range of cells.
+	 *
+	 * @param id Id of the entity
+	 * @param minX New minimum x coordinate of the entity
+	 * @param minY New minimum y coordinate of the entity
+	 * @param maxX New maximum x coordinate of the entity
+	 * @param maxY New maximum y coordinate of the entity
+	 */
+	public void update(int id, float minX, float minY, float maxX, float maxY) {
+		if (!contains(id))
+			throw new IllegalArgumentException("Id " + id + " is not held");
+
+		int cellMinX = toCell(minX), cellMinY = toCell(minY);
+		int cellMaxX = toCell(maxX), cellMaxY = toCell(maxY);
+		boolean sameCells = cellMinX == mCellMinX[id] && cellMinY == mCellMinY[id]
+				&& cellMaxX == mCellMaxX[id] && cellMaxY == mCellMaxY[id];
+
+		if (!sameCells)
+			removeFromCells(id);
+		setBounds(id, minX, minY, maxX, maxY);
+		if (!sameCells)
+			addToCells(id);
+	}
+
+	/**
+	 * Remove an entity from the index
+	 *
+	 * @param id Id of the entity (ignored if not held)
+	 */
+	public void remove(int id) {
+		if (!contains(id))
+			return;
+
+		removeFromCells(id);
+		mPresent[id] = false;
+		mSize--;
+	}
+
+	/**
+	 * Remove all entities from the index (the cells are retained for reuse)
+	 */
+	public void clear() {
+		for (int idx = 0; idx < mCells.length; idx++)
+			if (mCells[idx] != null)
+				mCells[idx].count = 0;
+		Arrays.fill(mPresent, false);
+		mSize = 0;
+	}
+
+	/**
+	 * Determine if the specified entity is held within the index
+	 */
+	public boolean contains(int id) {
+		return id >= 0 && id < mPresent.length && mPresent[id];
+	}
+
+	/**
+	 * Return the number of entities held within the index
+	 */
+	public int size() {
+		return mSize;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Query
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Find the entities whose bounds overlap the specified centred region
+	 * (e.g. a layer viewport)
+	 *
+	 * @param region Region to query
+	 * @return Number of entities found, held in getResults()
+	 */
+	public int query(Box region) {
+		return query(region.x - region.width / 2, region.y - region.height / 2,
+				region.x + region.width / 2, region.y + region.height / 2);
+	}
+
+	/**
+	 * Find the entities whose bounds overlap the specified region. The ids
+	 * are returned in no particular order.
+	 *
+	 * @param minX Minimum x coordinate of the region
+	 * @param minY Minimum y coordinate of the region
+	 * @param maxX Maximum x coordinate of the region
+	 * @param maxY Maximum y coordinate of the region
+	 * @return Number of entities found, held in getResults()
+	 */
+	public int query(float minX, float minY, float maxX, float maxY) {
+		nextQueryStamp();
+
+		int count = 0;
+		int cellMinX = Math.max(toCell(minX), mGridMinX);
+		int cellMaxX = Math.min(toCell(maxX), mGridMaxX);
+		int cellMinY = Math.max(toCell(minY), mGridMinY);
+		int cellMaxY = Math.min(toCell(maxY), mGridMaxY);
+		for (int cellY = cellMinY; cellY <= cellMaxY; cellY++) {
+			for (int cellX = cellMinX; cellX <= cellMaxX; cellX++) {
+				Cell cell = findCell(cellX, cellY);
+				if (cell == null)
+					continue;
+
+				for (int idx = 0; idx < cell.count; idx++) {
+					int id = cell.ids[idx];
+					if (mQueryStamps[id] == mQueryStamp)
+						continue;
+					mQueryStamps[id] = mQueryStamp;
+
+					if (mMinX[id] < maxX && mMaxX[id] > minX
+							&& mMinY[id] < maxY && mMaxY[id] > minY) {
+						if (count == mResults.length)
+							mResults = Arrays.copyOf(mResults, count * 2);
+						mResults[count++] = id;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return the ids found by the last query. The array is reused by the
+	 * next query and is only valid up to the count returned by the query.
+	 */
+	public int[] getResults() {
+		return mResults;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Internal
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the cell coordinate holding the specified world coordinate
+	 */
+	private int toCell(float value) {
+		return (int) Math.floor(value * mInverseCellSize);
+	}
+
+	/**
+	 * Ensure the per-id arrays can hold the specified number of ids
+	 */
+	private void ensureIdCapacity(int capacity) {
+		if (capacity <= mPresent.length)
+			return;
+
+		int newCapacity = Math.max(capacity, mPresent.length * 2);
+		mMinX = Arrays.copyOf(mMinX, newCapacity);
+		mMinY = Arrays.copyOf(mMinY, newCapacity);
+		mMaxX = Arrays.copyOf(mMaxX, newCapacity);
+		mMaxY = Arrays.copyOf(mMaxY, newCapacity);
+		mCellMinX = Arrays.copyOf(mCellMinX, newCapacity);
+		mCellMinY = Arrays.copyOf(mCellMinY, newCapacity);
+		mCellMaxX = Arrays.copyOf(mCellMaxX, newCapacity);
+		mCellMaxY = Arrays.copyOf(mCellMaxY, newCapacity);
+		mPresent = Arrays.copyOf(mPresent, newCapacity);
+		mQueryStamps = Arrays.copyOf(mQueryStamps, newCapacity);
+	}
+
+	/**
+	 * Store the bounds of an entity and the range of cells it covers
+	 */
+	private void setBounds(int id, float minX, float minY, float maxX, float maxY) {
+		mMinX[id] = minX;
+		mMinY[id] = minY;
+		mMaxX[id] = maxX;
+		mMaxY[id] = maxY;
+		mCellMinX[id] = toCell(minX);
+		mCellMinY[id] = toCell(minY);
+		mCellMaxX[id] = toCell(maxX);
+		mCellMaxY[id] = toCell(maxY);
+	}
+
+	/**
+	 * Add an entity to each cell within its stored cell range
+	 */
+	private void addToCells(int id) {
+		for (int cellY = mCellMinY[id]; cellY <= mCellMaxY[id]; cellY++)
+			for (int cellX = mCellMinX[id]; cellX <= mCellMaxX[id]; cellX++)
+				getOrCreateCell(cellX, cellY).add(id);
+	}
+
+	/**
+	 * Remove an entity from each cell within its stored cell range
+	 */
+	private void removeFromCells(int id) {
+		for (int cellY = mCellMinY[id]; cellY <= mCellMaxY[id]; cellY++) {
+			for (int cellX = mCellMinX[id]; cellX <= mCellMaxX[id]; cellX++) {
+				Cell cell = findCell(cellX, cellY);
+				if (cell != null)
+					cell.remove(id);
+			}
+		}
+	}
+
+	/**
+	 * Advance the query stamp, clearing the stamps if it wraps around
+	 */
+	private void nextQueryStamp() {
+		mQueryStamp++;
+		if (mQueryStamp == 0) {
+			Arrays.fill(mQueryStamps, 0);
+			mQueryStamp = 1;
+		}
+	}
+
+	/**
+	 * Pack a cell coordinate into a hash table key
+	 */
+	private static long cellKey(int cellX, int cellY) {
+		return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Return the hash table slot at which to start searching for a key
+	 */
+	private static int slotOf(long key, int mask) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash >>> 32) & mask;
+	}
+
+	/**
+	 * Return the specified cell, or null if it has not been created
+	 */
+	private Cell findCell(int cellX, int cellY) {
+		long key = cellKey(cellX, cellY);
+		int mask = mCells.length - 1;
+		for (int slot = slotOf(key, mask); mCells[slot] != null; slot = (slot + 1) & mask)
+			if (mCellKeys[slot] == key)
+				return mCells[slot];
+		return null;
+	}
+
+	/**
+	 * Return the specified cell, creating it if needed
+	 */
+	private Cell getOrCreateCell(int cellX, int cellY) {
+		Cell cell = findCell(cellX, cellY);
+		if (cell != null)
+			return cell;
+
+		// Keep the table at most half full
+		if ((mCellCount + 1) * 2 > mCells.length)
+			resizeCells(mCells.length * 2);
+
+		cell = new Cell();
+		putCell(cellKey(cellX, cellY), cell);
+		mCellCount++;
+
+		mGridMinX = Math.min(mGridMinX, cellX);
+		mGridMinY = Math.min(mGridMinY, cellY);
+		mGridMaxX = Math.max(mGridMaxX, cellX);
+		mGridMaxY = Math.max(mGridMaxY, cellY);
+		return cell;
+	}
+
+	/**
+	 * Place a cell within the hash table (the key must not already be held)
+	 */
+	private void putCell(long key, Cell cell) {
+		int mask = mCells.length - 1;
+		int slot = slotOf(key, mask);
+		while (mCells[slot] != null)
+			slot = (slot + 1) & mask;
+		mCellKeys[slot] = key;
+		mCells[slot] = cell;
+	}
+
+	/**
+	 * Grow the hash table, rehashing the existing cells
+	 */
+	private void resizeCells(int capacity) {
+		long[] oldKeys = mCellKeys;
+		Cell[] oldCells = mCells;
+		mCellKeys = new long[capacity];
+		mCells = new Cell[capacity];
+		for (int idx = 0; idx < oldCells.length; idx++)
+			if (oldCells[idx] != null)
+				putCell(oldKeys[idx], oldCells[idx]);
+	}
+}
@@ -0,0 +1,33 @@
+package uk.ac.qub.eeecs.demos.engine.viewport;
+
+/**
+ * Define an equivalent to the Rect class, called Box, in which it is assumed
+ * that positive-y points up.
+ * 
+ * This might seem an odd box to create, however, consider the following
+ * fragment from the Android Rect class description:
+ * 
+ * "Rect holds four integer coordinates for a rectangle. Note: most methods do
+ * not check to see that the coordinates are sorted correctly (i.e. left <=
+ * right and top <= bottom)."
+ * 
+ * In particular, Rect assumes that top <= bottom, i.e. that positive y points
+ * downwards. In box, positive y will point upwards, i.e. top >= bottom
+ * 
+ * @version 1.0
+ */
+public class Box {
+	public float x; 		// Centre x location 
+	public float y; 		// Centre y location
+	
+	public float width;		// Box width (we could(should) have used half width)
+	public float height;	// Box height (we could(should) have used half height)
+	
+	public Box() {
+		x = 0; y = 0; width = 1; height = 1;
+	}
+
+	public Box(float x, float y, float width, float height) {
+		this.x = x; this.y = y; this.width = width; this.height = height;
+	}
+}
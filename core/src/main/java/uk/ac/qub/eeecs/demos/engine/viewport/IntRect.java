@@ -0,0 +1,55 @@
+package uk.ac.qub.eeecs.demos.engine.viewport;
+
+/**
+ * Integer rectangle in which positive-y points down, holding the same
+ * coordinates as the Android Rect class so that clipping results can be
+ * computed without Android types.
+ * 
+ * @version 1.0
+ */
+public class IntRect {
+	public int left;
+	public int top;
+	public int right;
+	public int bottom;
+
+	public IntRect() {
+	}
+
+	public IntRect(int left, int top, int right, int bottom) {
+		set(left, top, right, bottom);
+	}
+
+	/**
+	 * Set the coordinates of the rectangle
+	 */
+	public void set(int left, int top, int right, int bottom) {
+		this.left = left;
+		this.top = top;
+		this.right = right;
+		this.bottom = bottom;
+	}
+
+	/**
+	 * Return the width of the rectangle
+	 */
+	public int width() {
+		return right - left;
+	}
+
+	/**
+	 * Return the height of the rectangle
+	 */
+	public int height() {
+		return bottom - top;
+	}
+
+	/**
+	 * Determine if the specified point lies within the rectangle (the left
+	 * and top edges are inside, the right and bottom edges outside)
+	 */
+	public boolean contains(int x, int y) {
+		return left < right && top < bottom
+				&& x >= left && x < right && y >= top && y < bottom;
+	}
+}
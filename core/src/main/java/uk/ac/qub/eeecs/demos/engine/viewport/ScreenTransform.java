@@ -0,0 +1,68 @@
+package uk.ac.qub.eeecs.demos.engine.viewport;
+
+/**
+ * Precomputed mapping from a layer viewport onto a screen viewport: the
+ * screen viewport's position (relative to the canvas) and the x- and y-scale
+ * between the two viewports.
+ *
+ * A transform only needs to be recomputed if the size of either viewport
+ * changes, not when the layer viewport moves.
+ *
+ * @version 1.0
+ */
+public class ScreenTransform {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Screen viewport (relative to the canvas)
+	 */
+	private final IntRect mScreenViewport = new IntRect();
+
+	/**
+	 * Screen pixels per layer unit along each axis
+	 */
+	private float mScaleX;
+	private float mScaleY;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Define the transform
+	 *
+	 * @param screenViewport Screen viewport (relative to the canvas)
+	 * @param layerWidth Width of the layer viewport
+	 * @param layerHeight Height of the layer viewport
+	 */
+	public void set(IntRect screenViewport, float layerWidth, float layerHeight) {
+		mScreenViewport.set(screenViewport.left, screenViewport.top,
+				screenViewport.right, screenViewport.bottom);
+		mScaleX = (float) screenViewport.width() / layerWidth;
+		mScaleY = (float) screenViewport.height() / layerHeight;
+	}
+
+	/**
+	 * Return the screen viewport (relative to the canvas)
+	 */
+	public IntRect getScreenViewport() {
+		return mScreenViewport;
+	}
+
+	/**
+	 * Return the screen pixels per layer unit along the x axis
+	 */
+	public float getScaleX() {
+		return mScaleX;
+	}
+
+	/**
+	 * Return the screen pixels per layer unit along the y axis
+	 */
+	public float getScaleY() {
+		return mScaleY;
+	}
+}
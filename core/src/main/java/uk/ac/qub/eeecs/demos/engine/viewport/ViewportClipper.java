@@ -0,0 +1,103 @@
+package uk.ac.qub.eeecs.demos.engine.viewport;
+
+/**
+ * Maps entities held in a layer (in which positive-y points up) onto a screen
+ * viewport (in which positive-y points down), clipping each entity against the
+ * layer viewport.
+ * 
+ * @version 1.0
+ */
+public final class ViewportClipper {
+
+	private ViewportClipper() {
+	}
+
+	/**
+	 * Determine a source bitmap rect and destination screen rect if the
+	 * specified entity bound falls within the layer's viewport.
+	 * 
+	 * @param entityBound
+	 *            Bounding box of the entity to check against the layer
+	 *            viewport
+	 * @param entityBitmapWidth
+	 *            Width of the bitmap to be used for drawing the entity
+	 * @param entityBitmapHeight
+	 *            Height of the bitmap to be used for drawing the entity
+	 * @param layerViewport
+	 *            Layer viewport region to check the entity against
+	 * @param screenLeft
+	 *            Left edge of the screen viewport (relative to the canvas)
+	 * @param screenTop
+	 *            Top edge of the screen viewport (relative to the canvas)
+	 * @param screenWidth
+	 *            Width of the screen viewport
+	 * @param screenHeight
+	 *            Height of the screen viewport
+	 * @param sourceRect
+	 *            Output rect holding the region of the bitmap to draw
+	 * @param screenRect
+	 *            Output rect holding the region of the screen to draw to
+	 * @return boolean true if the entity is visible, false otherwise (in which
+	 *         case the output rects are not changed)
+	 */
+	public static boolean getSourceAndScreenRect(Box entityBound,
+			int entityBitmapWidth, int entityBitmapHeight, Box layerViewport,
+			int screenLeft, int screenTop, int screenWidth, int screenHeight,
+			IntRect sourceRect, IntRect screenRect) {
+
+		float entityHalfWidth = entityBound.width / 2;
+		float entityHalfHeight = entityBound.height / 2;
+		float layerLeft = layerViewport.x - layerViewport.width / 2;
+		float layerRight = layerViewport.x + layerViewport.width / 2;
+		float layerBottom = layerViewport.y - layerViewport.height / 2;
+		float layerTop = layerViewport.y + layerViewport.height / 2;
+
+		// Determine if the entity falls within the layer viewport
+		if (!(entityBound.x - entityHalfWidth < layerRight
+				&& entityBound.x + entityHalfWidth > layerLeft
+				&& entityBound.y - entityHalfHeight < layerTop
+				&& entityBound.y + entityHalfHeight > layerBottom))
+			return false;
+
+		// Work out what region of the entity is visible within the layer
+		// viewport. The y-axis is inverted (i.e. 0 is the top of the bitmap
+		// image and positive y moves down) - as is the convention for images.
+
+		float sourceX = Math.max(0.0f,
+				layerLeft - (entityBound.x - entityHalfWidth));
+		float sourceY = Math.max(0.0f,
+				(entityBound.y + entityHalfHeight) - layerTop);
+
+		float sourceWidth = (entityBound.width - sourceX)
+				- Math.max(0.0f, (entityBound.x + entityHalfWidth) - layerRight);
+		float sourceHeight = (entityBound.height - sourceY)
+				- Math.max(0.0f, layerBottom - (entityBound.y - entityHalfHeight));
+
+		// Determine the scale factor for mapping the bitmap onto this rect
+		// and set the source rect value
+		float sourceScaleWidth = (float) entityBitmapWidth / entityBound.width;
+		float sourceScaleHeight = (float) entityBitmapHeight / entityBound.height;
+
+		sourceRect.set((int) (sourceX * sourceScaleWidth),
+				(int) (sourceY * sourceScaleHeight),
+				(int) ((sourceX + sourceWidth) * sourceScaleWidth),
+				(int) ((sourceY + sourceHeight) * sourceScaleHeight));
+
+		// Determine which region of the screen viewport (relative to the
+		// canvas) we will be drawing to, using the x- and y-aspect ratios
+		// between the layer and screen viewports
+		float screenXScale = (float) screenWidth / layerViewport.width;
+		float screenYScale = (float) screenHeight / layerViewport.height;
+
+		float screenX = screenLeft + Math.max(0.0f,
+				(entityBound.x - entityHalfWidth) - layerLeft) * screenXScale;
+		float screenY = screenTop + Math.max(0.0f,
+				layerTop - (entityBound.y + entityHalfHeight)) * screenYScale;
+
+		screenRect.set((int) screenX, (int) screenY,
+				(int) (screenX + sourceWidth * screenXScale),
+				(int) (screenY + sourceHeight * screenYScale));
+
+		return true;
+	}
+}
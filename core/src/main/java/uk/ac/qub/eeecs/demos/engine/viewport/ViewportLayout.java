@@ -0,0 +1,70 @@
+package uk.ac.qub.eeecs.demos.engine.viewport;
+
+/**
+ * Splits a region of the screen into a near-square grid of equally sized
+ * screen viewports, e.g. for split-screen play. Viewports are filled left to
+ * right and then top to bottom; the final row is widened if it is not full,
+ * so the whole region is always covered.
+ *
+ * @version 1.0
+ */
+public final class ViewportLayout {
+
+	private ViewportLayout() {
+	}
+
+	/**
+	 * Return the number of columns used to lay out the specified number of
+	 * viewports within a region
+	 *
+	 * @param count Number of viewports
+	 * @param width Width of the region
+	 * @param height Height of the region
+	 * @return Number of columns
+	 */
+	public static int getColumnCount(int count, int width, int height) {
+		// Pick the column count giving viewports closest to square
+		int bestColumns = 1;
+		float bestError = Float.MAX_VALUE;
+		for (int columns = 1; columns <= count; columns++) {
+			int rows = (count + columns - 1) / columns;
+			float aspect = (width / (float) columns) / (height / (float) rows);
+			float error = Math.abs((float) Math.log(aspect));
+			if (error < bestError) {
+				bestError = error;
+				bestColumns = columns;
+			}
+		}
+		return bestColumns;
+	}
+
+	/**
+	 * Lay out the specified number of viewports within a region
+	 *
+	 * @param count Number of viewports
+	 * @param region Region of the screen to be split
+	 * @param gap Gap (in pixels) left between adjacent viewports
+	 * @param viewports Output rects (at least count of them) holding each
+	 *        screen viewport
+	 */
+	public static void split(int count, IntRect region, int gap,
+			IntRect[] viewports) {
+		if (count <= 0)
+			return;
+
+		int columns = getColumnCount(count, region.width(), region.height());
+		int rows = (count + columns - 1) / columns;
+		int cellHeight = (region.height() - gap * (rows - 1)) / rows;
+
+		for (int idx = 0; idx < count; idx++) {
+			int row = idx / columns;
+			int column = idx % columns;
+			int rowColumns = (row == rows - 1) ? count - row * columns : columns;
+			int cellWidth = (region.width() - gap * (rowColumns - 1)) / rowColumns;
+
+			int left = region.left + column * (cellWidth + gap);
+			int top = region.top + row * (cellHeight + gap);
+			viewports[idx].set(left, top, left + cellWidth, top + cellHeight);
+		}
+	}
+}
@@ -0,0 +1,217 @@
+package uk.ac.qub.eeecs.demos.engine.viewport;
+
+import java.util.Arrays;
+
+import uk.ac.qub.eeecs.demos.engine.spatial.UniformGridIndex;
+
+/**
+ * Entities visible within a layer viewport (in which positive-y points up),
+ * gathered once per frame and then drawn into any number of screen viewports.
+ *
+ * Clipping an entity against the layer viewport does not depend on the screen
+ * viewport, so the source rect of each visible entity and its visible region
+ * (relative to the top-left of the layer viewport) are computed once when
+ * gathering. Mapping the region into a screen viewport is then a multiply-add
+ * using a precomputed ScreenTransform, giving the same rects as
+ * ViewportClipper without re-walking or re-clipping the entities.
+ *
+ * @version 1.0
+ */
+public class VisibleSet {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Id of each visible entity
+	 */
+	private int[] mIds = new int[16];
+
+	/**
+	 * Source rect of each visible entity, held as (left, top, right, bottom)
+	 */
+	private int[] mSourceRects = new int[16 * 4];
+
+	/**
+	 * Visible region of each entity, held as (x, y, width, height) relative
+	 * to the top-left of the layer viewport with positive-y pointing down
+	 */
+	private float[] mRegions = new float[16 * 4];
+
+	/**
+	 * Number of visible entities
+	 */
+	private int mCount;
+
+	/**
+	 * Edges of the layer viewport the entities were gathered from
+	 */
+	private float mLayerLeft;
+	private float mLayerRight;
+	private float mLayerBottom;
+	private float mLayerTop;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Gather
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Clear the set, ready to gather the entities visible within the
+	 * specified layer viewport
+	 *
+	 * @param layerViewport Layer viewport
+	 */
+	public void begin(Box layerViewport) {
+		mCount = 0;
+		mLayerLeft = layerViewport.x - layerViewport.width / 2;
+		mLayerRight = layerViewport.x + layerViewport.width / 2;
+		mLayerBottom = layerViewport.y - layerViewport.height / 2;
+		mLayerTop = layerViewport.y + layerViewport.height / 2;
+	}
+
+	/**
+	 * Add the entity to the set if it is visible within the layer viewport
+	 *
+	 * @param id Id of the entity
+	 * @param entityBound Bounding box of the entity
+	 * @param entityBitmapWidth Width of the bitmap used to draw the entity
+	 * @param entityBitmapHeight Height of the bitmap used to draw the entity
+	 * @return True if the entity is visible (and was added)
+	 */
+	public boolean add(int id, Box entityBound, int entityBitmapWidth,
+			int entityBitmapHeight) {
+
+		float entityHalfWidth = entityBound.width / 2;
+		float entityHalfHeight = entityBound.height / 2;
+
+		if (!(entityBound.x - entityHalfWidth < mLayerRight
+				&& entityBound.x + entityHalfWidth > mLayerLeft
+				&& entityBound.y - entityHalfHeight < mLayerTop
+				&& entityBound.y + entityHalfHeight > mLayerBottom))
+			return false;
+
+		// Visible region of the entity, as clipped by ViewportClipper
+		float sourceX = Math.max(0.0f,
+				mLayerLeft - (entityBound.x - entityHalfWidth));
+		float sourceY = Math.max(0.0f,
+				(entityBound.y + entityHalfHeight) - mLayerTop);
+		float sourceWidth = (entityBound.width - sourceX)
+				- Math.max(0.0f, (entityBound.x + entityHalfWidth) - mLayerRight);
+		float sourceHeight = (entityBound.height - sourceY)
+				- Math.max(0.0f, mLayerBottom - (entityBound.y - entityHalfHeight));
+
+		float sourceScaleWidth = (float) entityBitmapWidth / entityBound.width;
+		float sourceScaleHeight = (float) entityBitmapHeight / entityBound.height;
+
+		ensureCapacity(mCount + 1);
+		int offset = mCount * 4;
+		mIds[mCount] = id;
+		mSourceRects[offset] = (int) (sourceX * sourceScaleWidth);
+		mSourceRects[offset + 1] = (int) (sourceY * sourceScaleHeight);
+		mSourceRects[offset + 2] = (int) ((sourceX + sourceWidth) * sourceScaleWidth);
+		mSourceRects[offset + 3] = (int) ((sourceY + sourceHeight) * sourceScaleHeight);
+		mRegions[offset] = Math.max(0.0f,
+				(entityBound.x - entityHalfWidth) - mLayerLeft);
+		mRegions[offset + 1] = Math.max(0.0f,
+				mLayerTop - (entityBound.y + entityHalfHeight));
+		mRegions[offset + 2] = sourceWidth;
+		mRegions[offset + 3] = sourceHeight;
+		mCount++;
+		return true;
+	}
+
+	/**
+	 * Gather the indexed entities visible within the layer viewport, held in
+	 * id order. Every entity is assumed to be drawn using a bitmap of the
+	 * same size.
+	 *
+	 * @param layerViewport Layer viewport
+	 * @param index Spatial index over the entities
+	 * @param entityBounds Bounding box of each entity (indexed by id)
+	 * @param entityBitmapWidth Width of the bitmap used to draw the entities
+	 * @param entityBitmapHeight Height of the bitmap used to draw the entities
+	 * @return Number of visible entities
+	 */
+	public int gather(Box layerViewport, UniformGridIndex index,
+			Box[] entityBounds, int entityBitmapWidth, int entityBitmapHeight) {
+		begin(layerViewport);
+
+		int numCandidates = index.query(layerViewport);
+		int[] candidates = index.getResults();
+		Arrays.sort(candidates, 0, numCandidates);
+		for (int idx = 0; idx < numCandidates; idx++) {
+			int id = candidates[idx];
+			add(id, entityBounds[id], entityBitmapWidth, entityBitmapHeight);
+		}
+		return mCount;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Access
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the number of visible entities
+	 */
+	public int size() {
+		return mCount;
+	}
+
+	/**
+	 * Return the id of the specified visible entity
+	 *
+	 * @param idx Index within the set
+	 * @return Entity id
+	 */
+	public int getId(int idx) {
+		return mIds[idx];
+	}
+
+	/**
+	 * Update the specified rect to hold the visible region of the entity's
+	 * bitmap
+	 *
+	 * @param idx Index within the set
+	 * @param sourceRect Rect to be updated
+	 */
+	public void getSourceRect(int idx, IntRect sourceRect) {
+		int offset = idx * 4;
+		sourceRect.set(mSourceRects[offset], mSourceRects[offset + 1],
+				mSourceRects[offset + 2], mSourceRects[offset + 3]);
+	}
+
+	/**
+	 * Update the specified rect to hold the region of the screen (relative
+	 * to the canvas) the entity is drawn to
+	 *
+	 * @param idx Index within the set
+	 * @param transform Transform onto the screen viewport
+	 * @param screenRect Rect to be updated
+	 */
+	public void getScreenRect(int idx, ScreenTransform transform,
+			IntRect screenRect) {
+		int offset = idx * 4;
+		float scaleX = transform.getScaleX();
+		float scaleY = transform.getScaleY();
+		IntRect screenViewport = transform.getScreenViewport();
+
+		float screenX = screenViewport.left + mRegions[offset] * scaleX;
+		float screenY = screenViewport.top + mRegions[offset + 1] * scaleY;
+		screenRect.set((int) screenX, (int) screenY,
+				(int) (screenX + mRegions[offset + 2] * scaleX),
+				(int) (screenY + mRegions[offset + 3] * scaleY));
+	}
+
+	/**
+	 * Ensure the set can hold the specified number of entities
+	 */
+	private void ensureCapacity(int minCapacity) {
+		if (minCapacity <= mIds.length)
+			return;
+		int capacity = Math.max(minCapacity, mIds.length * 2);
+		mIds = Arrays.copyOf(mIds, capacity);
+		mSourceRects = Arrays.copyOf(mSourceRects, capacity * 4);
+		mRegions = Arrays.copyOf(mRegions, capacity * 4);
+	}
+}
@@ -0,0 +1,38 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import uk.ac.qub.eeecs.demos.engine.render.Texture;
+
+/**
+ * Copy of the state of a particle emitter needed to draw it. Snapshots are
+ * written by the update thread and then handed to the render thread, which
+ * treats them as read-only, so an emitter can continue to update whilst its
+ * previous state is drawn.
+ *
+ * @version 1.0
+ */
+public class EmitterSnapshot {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties: [[Declared public for speed of access]]
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Copy of the emitter's active particles
+	 */
+	public final ParticleStore particles = new ParticleStore(100);
+
+	/**
+	 * Texture drawn centred on each particle
+	 */
+	public Texture texture;
+
+	/**
+	 * True if particles are additively blended
+	 */
+	public boolean additiveBlend;
+
+	/**
+	 * Approach used to draw the particles
+	 */
+	public ParticleEmitter.RenderMode renderMode;
+}
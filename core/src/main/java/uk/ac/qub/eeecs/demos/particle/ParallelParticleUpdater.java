@@ -0,0 +1,150 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Updates a particle store by integrating disjoint chunks of particles across
+ * a fork-join pool, followed by a serial removal of dead particles.
+ *
+ * As each particle is integrated using exactly the same arithmetic as the
+ * serial ParticleStore.update path, and the store is always compacted
+ * serially, the resulting store is bit-for-bit identical to a serial update.
+ *
+ * @version 1.0
+ */
+public class ParallelParticleUpdater {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Default number of particles integrated by a single task
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 2048;
+
+	/**
+	 * Worker pool shared by all parallel updaters, created on first use
+	 */
+	private static ForkJoinPool sharedPool;
+
+	/**
+	 * Return the worker pool shared by all parallel updaters. One worker is
+	 * created per available core; the calling thread also executes tasks while
+	 * it waits for the update to complete.
+	 *
+	 * @return Shared worker pool
+	 */
+	public static synchronized ForkJoinPool getSharedPool() {
+		if (sharedPool == null)
+			sharedPool = new ForkJoinPool(
+					Runtime.getRuntime().availableProcessors());
+		return sharedPool;
+	}
+
+	/**
+	 * Worker pool used to integrate the particles
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Number of particles below which a range will not be split further
+	 */
+	private final int chunkSize;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new parallel updater using the shared worker pool
+	 */
+	public ParallelParticleUpdater() {
+		this(getSharedPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Create a new parallel updater
+	 *
+	 * @param pool Worker pool used to integrate the particles
+	 * @param chunkSize Number of particles below which a range will not be
+	 *        split further
+	 */
+	public ParallelParticleUpdater(ForkJoinPool pool, int chunkSize) {
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("Chunk size must be positive");
+
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Evolve all particles in the store, removing those that are no longer
+	 * alive. Stores holding no more than one chunk of particles are updated
+	 * on the calling thread.
+	 *
+	 * @param particles Particle store to update
+	 * @param dt Amount of time elapsed (in seconds) from the last update call
+	 * @param gravityX Constant x acceleration (per second squared) applied
+	 *        to each particle
+	 * @param gravityY Constant y acceleration (per second squared) applied
+	 *        to each particle
+	 */
+	public void update(ParticleStore particles, float dt,
+			float gravityX, float gravityY) {
+
+		int count = particles.size();
+		if (count <= chunkSize) {
+			particles.integrate(0, count, dt, gravityX, gravityY);
+		} else {
+			pool.invoke(new IntegrateTask(
+					particles, chunkSize, 0, count, dt, gravityX, gravityY));
+		}
+
+		particles.removeDead();
+	}
+
+	/**
+	 * Task integrating a range of particles, splitting the range in two until
+	 * it is no larger than the chunk size.
+	 */
+	private static class IntegrateTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ParticleStore particles;
+		private final int chunkSize;
+		private final int from, to;
+		private final float dt, gravityX, gravityY;
+
+		IntegrateTask(ParticleStore particles, int chunkSize, int from, int to,
+				float dt, float gravityX, float gravityY) {
+			this.particles = particles;
+			this.chunkSize = chunkSize;
+			this.from = from;
+			this.to = to;
+			this.dt = dt;
+			this.gravityX = gravityX;
+			this.gravityY = gravityY;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= chunkSize) {
+				particles.integrate(from, to, dt, gravityX, gravityY);
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(
+						new IntegrateTask(particles, chunkSize, from, mid,
+								dt, gravityX, gravityY),
+						new IntegrateTask(particles, chunkSize, mid, to,
+								dt, gravityX, gravityY));
+			}
+		}
+	}
+}
@@ -0,0 +1,364 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import java.util.ArrayList;
+
+import uk.ac.qub.eeecs.demos.engine.random.FastRandom;
+import uk.ac.qub.eeecs.demos.engine.render.RenderBackend;
+import uk.ac.qub.eeecs.demos.engine.render.TextureSource;
+
+/**
+ * Pool of particle emitters used to play short-lived, fire-and-forget effects
+ * (e.g. hit sparks or explosions) at a position.
+ *
+ * Emitters are created up front for each effect, using reserve, and are
+ * recycled once idle, so spawning, updating and drawing effects allocates
+ * nothing in steady state. If every emitter reserved for an effect is in use
+ * the spawn is dropped.
+ *
+ * The pool also holds a particle budget. Once the number of active particles
+ * passes SOFT_LIMIT_FRACTION of the budget, the number of particles created
+ * in each burst is progressively lowered, reaching zero at the budget. Bursts
+ * already under way are not cut short, so the budget may be exceeded slightly.
+ *
+ * @version 1.0
+ */
+public class ParticleEffectPool {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Fraction of the particle budget above which fewer particles are created
+	 */
+	public static final float SOFT_LIMIT_FRACTION = 0.75f;
+
+	/**
+	 * Emitters reserved for a single effect. Emitters [0, activeCount) are
+	 * playing, the remainder are idle.
+	 */
+	private static class Effect {
+		final ParticleSettings settings;
+		ParticleEmitter[] emitters = new ParticleEmitter[0];
+		int activeCount;
+
+		Effect(ParticleSettings settings) {
+			this.settings = settings;
+		}
+	}
+
+	/**
+	 * Source of the textures used by the emitters
+	 */
+	private TextureSource mTextures;
+
+	/**
+	 * Source of the seeds given to each emitter
+	 */
+	private FastRandom mSeeds;
+
+	/**
+	 * Effects for which emitters have been reserved
+	 */
+	private ArrayList<Effect> mEffects = new ArrayList<Effect>();
+
+	/**
+	 * Particle budget, the number of particles active as of the last update
+	 * and the resulting factor applied to the number of particles spawned
+	 */
+	private int mParticleBudget;
+	private int mParticleCount;
+	private float mSpawnScale = 1.0f;
+
+	/**
+	 * Spawn count and life span factors set by the quality level, applied
+	 * on top of the particle budget
+	 */
+	private float mQualitySpawnScale = 1.0f;
+	private float mLifespanScale = 1.0f;
+
+	/**
+	 * Number of spawns dropped as no emitter was free
+	 */
+	private long mDroppedSpawns;
+
+	/**
+	 * Approach used to draw the particles
+	 */
+	private ParticleEmitter.RenderMode mRenderMode =
+			ParticleEmitter.RenderMode.PerParticle;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new, empty effect pool
+	 *
+	 * @param textures Source of the textures used by the emitters
+	 * @param particleBudget Number of particles above which no further
+	 *            particles are created
+	 */
+	public ParticleEffectPool(TextureSource textures, int particleBudget) {
+		this(textures, particleBudget, FastRandom.newSeed());
+	}
+
+	/**
+	 * Create a new, empty effect pool whose emitters are seeded from the
+	 * specified seed (so the effects can be reproduced)
+	 *
+	 * @param textures Source of the textures used by the emitters
+	 * @param particleBudget Number of particles above which no further
+	 *            particles are created
+	 * @param seed Seed from which each emitter's seed is generated
+	 */
+	public ParticleEffectPool(TextureSource textures, int particleBudget, long seed) {
+		mTextures = textures;
+		mParticleBudget = particleBudget;
+		mSeeds = new FastRandom(seed);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Configuration
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Ensure the specified number of emitters are available for the effect,
+	 * i.e. the number of instances of the effect that can play at once
+	 *
+	 * @param settings Settings defining the effect
+	 * @param count Number of emitters to reserve
+	 */
+	public void reserve(ParticleSettings settings, int count) {
+		Effect effect = findEffect(settings);
+		if (effect == null) {
+			effect = new Effect(settings);
+			mEffects.add(effect);
+		}
+
+		if (effect.emitters.length >= count)
+			return;
+
+		ParticleEmitter[] emitters = new ParticleEmitter[count];
+		System.arraycopy(effect.emitters, 0, emitters, 0, effect.emitters.length);
+		for (int idx = effect.emitters.length; idx < count; idx++) {
+			emitters[idx] = new ParticleEmitter(mTextures, settings, mSeeds.nextLong());
+			emitters[idx].start(0.0f, 0.0f, 0);
+			emitters[idx].setRenderMode(mRenderMode);
+			emitters[idx].setLifespanScale(mLifespanScale);
+		}
+		effect.emitters = emitters;
+	}
+
+	/**
+	 * Set the approach used to draw the particles of every effect
+	 *
+	 * @param renderMode Render mode to use
+	 */
+	public void setRenderMode(ParticleEmitter.RenderMode renderMode) {
+		mRenderMode = renderMode;
+		for (int effectIdx = 0; effectIdx < mEffects.size(); effectIdx++) {
+			Effect effect = mEffects.get(effectIdx);
+			for (int idx = 0; idx < effect.emitters.length; idx++)
+				effect.emitters[idx].setRenderMode(renderMode);
+		}
+	}
+
+	/**
+	 * Set the spawn count and life span factors used to adjust the quality
+	 * of every effect (see QualityController)
+	 *
+	 * @param spawnScale Factor applied to the number of particles spawned
+	 * @param lifespanScale Factor applied to the life span of new particles
+	 */
+	public void setQuality(float spawnScale, float lifespanScale) {
+		mQualitySpawnScale = spawnScale;
+		mLifespanScale = lifespanScale;
+		for (int effectIdx = 0; effectIdx < mEffects.size(); effectIdx++) {
+			Effect effect = mEffects.get(effectIdx);
+			for (int idx = 0; idx < effect.emitters.length; idx++)
+				effect.emitters[idx].setLifespanScale(lifespanScale);
+		}
+	}
+
+	/**
+	 * Release every emitter held by the pool. The pool should not be used
+	 * after it has been released.
+	 */
+	public void release() {
+		for (int effectIdx = 0; effectIdx < mEffects.size(); effectIdx++) {
+			Effect effect = mEffects.get(effectIdx);
+			for (int idx = 0; idx < effect.emitters.length; idx++)
+				effect.emitters[idx].release();
+			effect.activeCount = 0;
+		}
+		mEffects.clear();
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Spawning and Update
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Play a single burst of the specified effect at the specified location
+	 *
+	 * @param settings Settings defining the effect (emitters must have been
+	 *            reserved for it)
+	 * @param x Location x
+	 * @param y Location y
+	 * @return True if the effect was spawned, false if no emitter was free
+	 */
+	public boolean spawn(ParticleSettings settings, float x, float y) {
+		return spawn(settings, x, y, 1);
+	}
+
+	/**
+	 * Play the specified number of bursts of an effect at the specified
+	 * location
+	 *
+	 * @param settings Settings defining the effect (emitters must have been
+	 *            reserved for it)
+	 * @param x Location x
+	 * @param y Location y
+	 * @param numBursts Number of bursts to play
+	 * @return True if the effect was spawned, false if no emitter was free
+	 */
+	public boolean spawn(ParticleSettings settings, float x, float y, int numBursts) {
+		Effect effect = findEffect(settings);
+		if (effect == null)
+			throw new IllegalArgumentException("No emitters reserved for effect");
+
+		if (effect.activeCount == effect.emitters.length) {
+			mDroppedSpawns++;
+			return false;
+		}
+
+		ParticleEmitter emitter = effect.emitters[effect.activeCount++];
+		emitter.setSpawnScale(mSpawnScale * mQualitySpawnScale);
+		emitter.start(x, y, numBursts);
+		return true;
+	}
+
+	/**
+	 * Update every playing effect, recycling the emitters of those that have
+	 * finished, and adjust the number of particles spawned to the budget
+	 *
+	 * @param elapsedTime Elapsed time
+	 */
+	public void update(float elapsedTime) {
+		int particleCount = 0;
+
+		for (int effectIdx = 0; effectIdx < mEffects.size(); effectIdx++) {
+			Effect effect = mEffects.get(effectIdx);
+			ParticleEmitter[] emitters = effect.emitters;
+
+			for (int idx = 0; idx < effect.activeCount;) {
+				ParticleEmitter emitter = emitters[idx];
+				emitter.setSpawnScale(mSpawnScale * mQualitySpawnScale);
+				emitter.update(elapsedTime);
+
+				if (emitter.isIdle()) {
+					// Swap the finished emitter with the last playing one
+					int last = --effect.activeCount;
+					emitters[idx] = emitters[last];
+					emitters[last] = emitter;
+				} else {
+					particleCount += emitter.getParticles().size();
+					idx++;
+				}
+			}
+		}
+
+		mParticleCount = particleCount;
+
+		// Scale down spawning linearly between the soft limit and the budget
+		float softLimit = mParticleBudget * SOFT_LIMIT_FRACTION;
+		if (particleCount <= softLimit)
+			mSpawnScale = 1.0f;
+		else
+			mSpawnScale = Math.max(0.0f, (mParticleBudget - particleCount)
+					/ (mParticleBudget - softLimit));
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Draw
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Draw every playing effect
+	 *
+	 * @param backend Backend to which the effects are drawn
+	 * @param interpolation Fraction [0, 1] between the previous and current
+	 *        particle state at which to draw
+	 */
+	public void draw(RenderBackend backend, float interpolation) {
+		for (int effectIdx = 0; effectIdx < mEffects.size(); effectIdx++) {
+			Effect effect = mEffects.get(effectIdx);
+			for (int idx = 0; idx < effect.activeCount; idx++)
+				effect.emitters[idx].draw(backend, 0.0f, interpolation);
+		}
+	}
+
+	/**
+	 * Add the state of every playing effect to the specified snapshot
+	 *
+	 * @param snapshot Snapshot to which the effects are added
+	 */
+	public void snapshot(ParticleWorldSnapshot snapshot) {
+		for (int effectIdx = 0; effectIdx < mEffects.size(); effectIdx++) {
+			Effect effect = mEffects.get(effectIdx);
+			for (int idx = 0; idx < effect.activeCount; idx++)
+				effect.emitters[idx].snapshot(snapshot.addEmitter());
+		}
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Statistics
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the number of effects currently playing
+	 */
+	public int getActiveEffectCount() {
+		int count = 0;
+		for (int effectIdx = 0; effectIdx < mEffects.size(); effectIdx++)
+			count += mEffects.get(effectIdx).activeCount;
+		return count;
+	}
+
+	/**
+	 * Return the number of particles active as of the last update
+	 */
+	public int getParticleCount() {
+		return mParticleCount;
+	}
+
+	/**
+	 * Return the factor currently applied to the number of particles spawned
+	 * due to the particle budget (excluding the quality factor)
+	 */
+	public float getSpawnScale() {
+		return mSpawnScale;
+	}
+
+	/**
+	 * Return the number of spawns dropped as no emitter was free
+	 */
+	public long getDroppedSpawns() {
+		return mDroppedSpawns;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Internal
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the effect using the specified settings, or null if none
+	 */
+	private Effect findEffect(ParticleSettings settings) {
+		for (int effectIdx = 0; effectIdx < mEffects.size(); effectIdx++)
+			if (mEffects.get(effectIdx).settings == settings)
+				return mEffects.get(effectIdx);
+		return null;
+	}
+}
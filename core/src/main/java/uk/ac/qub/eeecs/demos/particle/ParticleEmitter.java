@@ -0,0 +1,362 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import uk.ac.qub.eeecs.demos.engine.random.FastRandom;
+import uk.ac.qub.eeecs.demos.engine.render.RenderBackend;
+import uk.ac.qub.eeecs.demos.engine.render.Texture;
+import uk.ac.qub.eeecs.demos.engine.render.TextureSource;
+
+/**
+ * Emitter for a single particle system
+ * 
+ * @version 1.0
+ */
+public class ParticleEmitter {
+
+	/**
+	 * Approaches that can be used to draw the particles: one draw call per
+	 * particle, or a single batched call per emitter (where supported by the
+	 * render backend)
+	 */
+	public enum RenderMode {
+		PerParticle, Batched
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties: 
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Source of the textures used by this particle emitter
+	 */
+	private TextureSource textures;
+
+	/**
+	 * Texture used by this particle system
+	 */
+	private Texture texture;
+
+	/**
+	 * Approach used to draw the particles
+	 */
+	private RenderMode renderMode = RenderMode.PerParticle;
+
+	/**
+	 * Spawner used to create new particles based on the settings
+	 */
+	private ParticleSpawner spawner;
+
+	/**
+	 * Amount of time before the next batch of particles needs to be created
+	 */
+	private float mTimeToBurst = 0.0f;
+	
+	/**
+	 * Previous location at which the last batch of particles was created
+	 */
+	private Vector2 lastLocation = new Vector2();
+
+	/**
+	 * Location at which a started emitter creates its particles, alongside
+	 * the number of bursts it still has to create (negative if the emitter
+	 * bursts without limit)
+	 */
+	private Vector2 mLocation = new Vector2();
+	private int mBurstsRemaining = -1;
+
+	/**
+	 * Store holding the active particles currently evolving
+	 */
+	private ParticleStore particles;
+
+	/**
+	 * Updater used to integrate the particles across multiple cores (null if
+	 * the particles are updated serially on the calling thread)
+	 */
+	private ParallelParticleUpdater parallelUpdater;
+
+	/**
+	 * Settings that are used to drive the particle system
+	 */
+	private ParticleSettings mParticleSettings;
+	
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+	
+	/** 
+	 * Create a new particle emitter using the specified settings
+	 * 
+	 * @param textures Source of the textures used by this particle system
+	 * @param particleSettings Settings used to drive this emitter
+	 */
+	public ParticleEmitter(TextureSource textures, ParticleSettings particleSettings) {
+		this(textures, particleSettings, FastRandom.newSeed());
+	}
+
+	/** 
+	 * Create a new particle emitter using the specified settings, creating
+	 * particles using a random generator with the specified seed. Emitters
+	 * created with the same seed and driven by the same updates create the
+	 * same particles.
+	 * 
+	 * @param textures Source of the textures used by this particle system
+	 * @param particleSettings Settings used to drive this emitter
+	 * @param seed Seed for the emitter's random generator
+	 */
+	public ParticleEmitter(TextureSource textures, ParticleSettings particleSettings,
+			long seed) {
+		this.textures = textures;
+		mParticleSettings = particleSettings;
+		spawner = new ParticleSpawner(particleSettings, new FastRandom(seed));
+
+		// Create an initial store of particles that can be used
+		int initialSize = 100;
+		particles = new ParticleStore(initialSize);
+
+		// Based on the specified settings, configure the emitter
+		configure();
+	}
+	
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Configuration
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Change the particle settings used by this emitter
+	 * 	
+	 * @param particleSettings New particle settings to use
+	 */
+	public void setParticleSettings(ParticleSettings particleSettings) {
+		// Store the settings
+		mParticleSettings = particleSettings;
+		spawner.setParticleSettings(particleSettings);
+
+		// Release all current active particles
+		particles.clear();
+
+		// Configure the emitter based on the specified settings
+		configure();
+	}
+
+	/**
+	 * Reseed the emitter's random generator, so the particles it creates from
+	 * now on can be reproduced
+	 * 
+	 * @param seed Seed for the emitter's random generator
+	 */
+	public void setSeed(long seed) {
+		spawner.setSeed(seed);
+	}
+
+	/**
+	 * Set the factor applied to the number of particles created in each
+	 * burst (used to reduce the number of particles when over budget)
+	 * 
+	 * @param spawnScale Factor in the range [0, 1]
+	 */
+	public void setSpawnScale(float spawnScale) {
+		spawner.setSpawnScale(spawnScale);
+	}
+
+	/**
+	 * Set the factor applied to the life span of each new particle
+	 * 
+	 * @param lifespanScale Factor in the range (0, 1]
+	 */
+	public void setLifespanScale(float lifespanScale) {
+		spawner.setLifespanScale(lifespanScale);
+	}
+
+	/**
+	 * Start the emitter at the specified location, creating the specified
+	 * number of bursts before becoming idle. Any particles still active are
+	 * discarded. Started emitters are updated using update(float).
+	 * 
+	 * @param x Location x
+	 * @param y Location y
+	 * @param numBursts Number of bursts to create
+	 */
+	public void start(float x, float y, int numBursts) {
+		particles.clear();
+		mLocation.set(x, y);
+		lastLocation.set(x, y);
+		mBurstsRemaining = numBursts;
+		mTimeToBurst = 0.0f;
+	}
+
+	/**
+	 * Determine if the emitter has created all of its bursts and all of its
+	 * particles have expired
+	 * 
+	 * @return True if the emitter is idle
+	 */
+	public boolean isIdle() {
+		return mBurstsRemaining == 0 && particles.size() == 0;
+	}
+
+	/**
+	 * Enable or disable the parallel update of particles. When enabled, large
+	 * particle stores are integrated in chunks across the shared worker pool.
+	 * 
+	 * @param parallelUpdate True if particles should be updated in parallel
+	 */
+	public void setParallelUpdate(boolean parallelUpdate) {
+		if (parallelUpdate && parallelUpdater == null)
+			parallelUpdater = new ParallelParticleUpdater();
+		else if (!parallelUpdate)
+			parallelUpdater = null;
+	}
+
+	/**
+	 * Determine if the particles are updated in parallel
+	 * 
+	 * @return True if particles are updated in parallel
+	 */
+	public boolean isParallelUpdate() {
+		return parallelUpdater != null;
+	}
+
+	/**
+	 * Set the approach used to draw the particles
+	 * 
+	 * @param renderMode Render mode to use
+	 */
+	public void setRenderMode(RenderMode renderMode) {
+		this.renderMode = renderMode;
+	}
+
+	/**
+	 * Return the approach used to draw the particles
+	 * 
+	 * @return Render mode in use
+	 */
+	public RenderMode getRenderMode() {
+		return renderMode;
+	}
+
+	/**
+	 * Configure the emitter based on the specified settings
+	 */
+	protected void configure() {
+
+		// Acquire the texture used for the particles, releasing the previous
+		// texture once the new one is held (so reselecting the same texture
+		// does not cause it to be evicted)
+		Texture previousTexture = texture;
+		texture = textures.acquire(mParticleSettings.textureFilename);
+		textures.release(previousTexture);
+	}
+
+	/**
+	 * Release the resources held by this emitter. The emitter should not be
+	 * used after it has been released.
+	 */
+	public void release() {
+		textures.release(texture);
+		texture = null;
+		particles.clear();
+	}
+
+	/**
+	 * Add a new batch of particles at the specified location (or spaced between
+	 * the last and current location, as appropriate depending upon the emitter settings).
+	 * 
+	 * @param location Current location
+	 * @param lastLocation Last location
+	 */
+	public void addParticles(Vector2 location, Vector2 lastLocation) {
+		spawner.addParticles(particles, location, lastLocation);
+	}
+	
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Update and Draw
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Update the emitter, creating a new burst of particles if needed and 
+	 * updating all active particles, removing/storing those that have
+	 * become inactive.
+	 * 
+	 * @param elapsedTime Elapsed time 
+	 * @param location Last touch location
+	 */
+	public void update(float elapsedTime, Vector2 location) {
+
+		// Check and create a new burst of particles if needed
+		if (mTimeToBurst > 0.0f)
+			mTimeToBurst -= elapsedTime;
+		else if (mBurstsRemaining != 0) {
+			mTimeToBurst = spawner.nextBurstTime();
+			addParticles(location, lastLocation);
+			lastLocation.set(location);
+			if (mBurstsRemaining > 0)
+				mBurstsRemaining--;
+		}
+
+		// Update all active particles (adding in gravity, if required) and
+		// remove those that have become inactive
+		if (parallelUpdater != null)
+			parallelUpdater.update(particles, elapsedTime,
+					mParticleSettings.gravityX, mParticleSettings.gravityY);
+		else
+			particles.update(elapsedTime,
+					mParticleSettings.gravityX, mParticleSettings.gravityY);
+	}
+
+	/**
+	 * Update an emitter that was started at a fixed location
+	 * 
+	 * @param elapsedTime Elapsed time
+	 */
+	public void update(float elapsedTime) {
+		update(elapsedTime, mLocation);
+	}
+
+	/**
+	 * Return the store holding the active particles
+	 * 
+	 * @return Active particle store
+	 */
+	public ParticleStore getParticles() {
+		return particles;
+	}
+
+	/**
+	 * Draw all active particles, as of the last update, using the current
+	 * render mode.
+	 * 
+	 * @param backend Backend to which the particles are drawn
+	 * @param gameTime Elapsed time since the last draw
+	 */
+	public void draw(RenderBackend backend, float gameTime) {
+		draw(backend, gameTime, 1.0f);
+	}
+
+	/**
+	 * Draw all active particles using the current render mode, interpolating
+	 * between the state before and after the last update.
+	 * 
+	 * @param backend Backend to which the particles are drawn
+	 * @param gameTime Elapsed time since the last draw
+	 * @param interpolation Fraction [0, 1] between the previous and current
+	 *        particle state at which to draw
+	 */
+	public void draw(RenderBackend backend, float gameTime, float interpolation) {
+		if (texture != null)
+			backend.drawParticles(particles, texture, mParticleSettings.additiveBlend,
+					renderMode == RenderMode.Batched, interpolation);
+	}
+
+	/**
+	 * Copy the current state of this emitter into the specified snapshot,
+	 * so it can later be drawn independently of further updates.
+	 * 
+	 * @param snapshot Snapshot to hold the emitter state
+	 */
+	public void snapshot(EmitterSnapshot snapshot) {
+		snapshot.particles.copyFrom(particles);
+		snapshot.texture = texture;
+		snapshot.additiveBlend = mParticleSettings.additiveBlend;
+		snapshot.renderMode = renderMode;
+	}
+}
@@ -8,7 +8,7 @@ package uk.ac.qub.eeecs.demos.particle;
 public class ParticleSettings {
 
 	public enum Systems {
-		Smoke, Explosion, Particle
+		Smoke, Explosion, Particle, ExplosionSmoke
 	};
 	
 	
@@ -91,7 +91,7 @@ public class ParticleSettings {
 			3.0f,							// minAccelerationMagnitude;
 			4.0f, 							// maxAccelerationMagnitude;
 			0.0f, 							// gravityX;
-			9.8f, 							// gravityY;
+			294.0f, 						// gravityY;
 			15, 							// minNumParticles;
 			20, 							// maxNumParticles;
 			50, 							// minInitialSpeed;
@@ -109,7 +109,7 @@ public class ParticleSettings {
 	);
 
 	public enum AccelerationMode {
-		Aligned, NonAligned
+		Aligned, NonAligned, EndVelocity
 	};
 
 	public enum EmissionMode {
@@ -147,8 +147,10 @@ public class ParticleSettings {
 	 * Define how the particles are subject to acceleration. If the acceleration
 	 * mode is aligned, then particle accelerate in the same direction as their
 	 * velocity. If non aligned then the acceleration direction is randomly
-	 * selected within the define extents. A constant x and y gravitational
-	 * acceleration can be defined.
+	 * selected within the define extents. If the end velocity mode is used,
+	 * particles accelerate in the same direction as their velocity so that
+	 * by the end of their life span their speed has been scaled by the end
+	 * velocity. A constant x and y gravitational acceleration can be defined.
 	 */
 
 	public AccelerationMode accelerationMode;
@@ -159,6 +161,13 @@ public class ParticleSettings {
 	public float minAccelerationMagnitude;
 	public float maxAccelerationMagnitude;
 
+	public float endVelocity = 1.0f;
+
+	/**
+	 * Constant acceleration (in pixels per second squared) applied to every
+	 * particle. Gravity was originally added once per update at 30 updates
+	 * per second, so values from older settings should be multiplied by 30.
+	 */
 	public float gravityX;
 	public float gravityY;
 
@@ -210,8 +219,8 @@ public class ParticleSettings {
 	 * @param maxAccelerationDirection Max acceleration direction
 	 * @param minAccelerationMagnitude Min acceleration magnitude
 	 * @param maxAccelerationMagnitude Max acceleration magnitude
-	 * @param gravityX Constant x gravity value
-	 * @param gravityY Constant y gravity value
+	 * @param gravityX Constant x gravity (per second squared)
+	 * @param gravityY Constant y gravity (per second squared)
 	 * @param minNumParticles Minimum number of particles per burst/period
 	 * @param maxNumParticles Maximum number of particles per burst/period
 	 * @param minInitialSpeed Min initial speed of each particle
@@ -0,0 +1,141 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compact binary form of a set of particle settings. Reading the binary form
+ * avoids parsing the XML settings each time an effect is loaded.
+ *
+ * @version 1.0
+ */
+public class ParticleSettingsCodec {
+
+	/**
+	 * Marker and version written at the start of the binary form. The version
+	 * must be changed whenever the layout below, or the meaning of a value,
+	 * changes (version 2: gravity is per second squared).
+	 */
+	private static final int MAGIC = 0x50534554; // "PSET"
+	private static final int VERSION = 2;
+
+	private ParticleSettingsCodec() {
+	}
+
+	/**
+	 * Write the specified settings
+	 *
+	 * @param settings Settings to write
+	 * @param out Output to which the settings are written
+	 * @throws IOException If the settings could not be written
+	 */
+	public static void write(ParticleSettings settings, DataOutput out)
+			throws IOException {
+		out.writeInt(MAGIC);
+		out.writeShort(VERSION);
+
+		out.writeUTF(settings.textureFilename);
+		out.writeBoolean(settings.additiveBlend);
+		out.writeByte(settings.emissionMode.ordinal());
+		out.writeFloat(settings.minBurstTime);
+		out.writeFloat(settings.maxBurstTime);
+		out.writeInt(settings.minNumParticles);
+		out.writeInt(settings.maxNumParticles);
+
+		out.writeByte(settings.accelerationMode.ordinal());
+		out.writeFloat(settings.minAccelerationDirection);
+		out.writeFloat(settings.maxAccelerationDirection);
+		out.writeFloat(settings.minAccelerationMagnitude);
+		out.writeFloat(settings.maxAccelerationMagnitude);
+		out.writeFloat(settings.endVelocity);
+		out.writeFloat(settings.gravityX);
+		out.writeFloat(settings.gravityY);
+
+		out.writeFloat(settings.minInitialSpeed);
+		out.writeFloat(settings.maxInitialSpeed);
+		out.writeFloat(settings.minAngularVelocity);
+		out.writeFloat(settings.maxAngularVelocity);
+		out.writeFloat(settings.minOrientationAngle);
+		out.writeFloat(settings.maxOrientationAngle);
+
+		out.writeFloat(settings.minLifespan);
+		out.writeFloat(settings.maxLifespan);
+		out.writeFloat(settings.minScale);
+		out.writeFloat(settings.maxScale);
+		out.writeFloat(settings.minScaleGrowth);
+		out.writeFloat(settings.maxScaleGrowth);
+	}
+
+	/**
+	 * Read a set of settings previously written using write
+	 *
+	 * @param in Input from which the settings are read
+	 * @return Settings read from the input
+	 * @throws IOException If the settings could not be read, or were written
+	 *             using a different version of the binary form
+	 */
+	public static ParticleSettings read(DataInput in) throws IOException {
+		if (in.readInt() != MAGIC)
+			throw new IOException("Not binary particle settings");
+		int version = in.readShort();
+		if (version != VERSION)
+			throw new IOException(
+					"Unsupported particle settings version: " + version);
+
+		try {
+			String textureFilename = in.readUTF();
+			boolean additiveBlend = in.readBoolean();
+			ParticleSettings.EmissionMode emissionMode =
+					ParticleSettings.EmissionMode.values()[in.readByte()];
+			float minBurstTime = in.readFloat();
+			float maxBurstTime = in.readFloat();
+			int minNumParticles = in.readInt();
+			int maxNumParticles = in.readInt();
+
+			ParticleSettings.AccelerationMode accelerationMode =
+					ParticleSettings.AccelerationMode.values()[in.readByte()];
+			float minAccelerationDirection = in.readFloat();
+			float maxAccelerationDirection = in.readFloat();
+			float minAccelerationMagnitude = in.readFloat();
+			float maxAccelerationMagnitude = in.readFloat();
+			float endVelocity = in.readFloat();
+			float gravityX = in.readFloat();
+			float gravityY = in.readFloat();
+
+			float minInitialSpeed = in.readFloat();
+			float maxInitialSpeed = in.readFloat();
+			float minAngularVelocity = in.readFloat();
+			float maxAngularVelocity = in.readFloat();
+			float minOrientationAngle = in.readFloat();
+			float maxOrientationAngle = in.readFloat();
+
+			float minLifespan = in.readFloat();
+			float maxLifespan = in.readFloat();
+			float minScale = in.readFloat();
+			float maxScale = in.readFloat();
+			float minScaleGrowth = in.readFloat();
+			float maxScaleGrowth = in.readFloat();
+
+			ParticleSettings settings = new ParticleSettings(
+					textureFilename, additiveBlend, emissionMode,
+					minBurstTime, maxBurstTime, accelerationMode,
+					minAccelerationDirection, maxAccelerationDirection,
+					minAccelerationMagnitude, maxAccelerationMagnitude,
+					gravityX, gravityY, minNumParticles, maxNumParticles,
+					minInitialSpeed, maxInitialSpeed,
+					minAngularVelocity, maxAngularVelocity,
+					minOrientationAngle, maxOrientationAngle,
+					minLifespan, maxLifespan, minScale, maxScale,
+					minScaleGrowth, maxScaleGrowth);
+			settings.endVelocity = endVelocity;
+			// The constructor copies the minimum scale growth into the
+			// maximum, so restore the value that was written
+			settings.maxScaleGrowth = maxScaleGrowth;
+			return settings;
+
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Invalid particle settings mode");
+		}
+	}
+}
@@ -0,0 +1,302 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import uk.ac.qub.eeecs.demos.engine.math.FastMath;
+import uk.ac.qub.eeecs.demos.engine.random.FastRandom;
+
+/**
+ * Creates new particles within a particle store using the ranges held in a
+ * set of particle settings. The spawner holds no Android types, so the
+ * spawning logic can be exercised and benchmarked on a desktop JVM.
+ * 
+ * @version 1.0
+ */
+public class ParticleSpawner {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties:
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Random generator used to configure the particles. The same seed and
+	 * sequence of calls always creates the same particles.
+	 */
+	private FastRandom random;
+
+	/**
+	 * Settings that define the range of particles created
+	 */
+	private ParticleSettings mParticleSettings;
+
+	/**
+	 * Factor [0, 1] applied to the number of particles created in each
+	 * batch (lowered to reduce the number of particles when over budget)
+	 */
+	private float spawnScale = 1.0f;
+
+	/**
+	 * Factor applied to the life span of each particle (lowered to reduce
+	 * the number of particles alive at once)
+	 */
+	private float lifespanScale = 1.0f;
+
+	/**
+	 * Vector2 object reused when adding particles
+	 */
+	private Vector2 particlePosition = new Vector2();
+	private Vector2 particleOffset = new Vector2();
+
+	/**
+	 * Vector2 objects used when initialising particles
+	 */
+	private Vector2 direction = new Vector2();
+	private Vector2 velocity = new Vector2();
+	private Vector2 acceleration = new Vector2();
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new particle spawner
+	 * 
+	 * @param particleSettings Settings used to create particles
+	 * @param random Random generator used to configure the particles (owned
+	 *            by the spawner, so should not be shared with other threads)
+	 */
+	public ParticleSpawner(ParticleSettings particleSettings, FastRandom random) {
+		mParticleSettings = particleSettings;
+		this.random = random;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Configuration
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Change the particle settings used by this spawner
+	 * 
+	 * @param particleSettings New particle settings to use
+	 */
+	public void setParticleSettings(ParticleSettings particleSettings) {
+		mParticleSettings = particleSettings;
+	}
+
+	/**
+	 * Return the particle settings used by this spawner
+	 * 
+	 * @return Particle settings
+	 */
+	public ParticleSettings getParticleSettings() {
+		return mParticleSettings;
+	}
+
+	/**
+	 * Reseed the random generator used by this spawner, so that the particles
+	 * it creates from now on can be reproduced
+	 * 
+	 * @param seed Seed for the random generator
+	 */
+	public void setSeed(long seed) {
+		random.setSeed(seed);
+	}
+
+	/**
+	 * Set the factor applied to the number of particles created in each
+	 * batch. Values below one reduce the number of particles created without
+	 * changing the sequence of random values used.
+	 * 
+	 * @param spawnScale Factor in the range [0, 1]
+	 */
+	public void setSpawnScale(float spawnScale) {
+		this.spawnScale = Math.max(0.0f, Math.min(1.0f, spawnScale));
+	}
+
+	/**
+	 * Return the factor applied to the number of particles created in each
+	 * batch
+	 * 
+	 * @return Spawn scale
+	 */
+	public float getSpawnScale() {
+		return spawnScale;
+	}
+
+	/**
+	 * Set the factor applied to the life span of each new particle
+	 * 
+	 * @param lifespanScale Factor in the range (0, 1]
+	 */
+	public void setLifespanScale(float lifespanScale) {
+		this.lifespanScale = lifespanScale;
+	}
+
+	/**
+	 * Return the factor applied to the life span of each new particle
+	 * 
+	 * @return Life span scale
+	 */
+	public float getLifespanScale() {
+		return lifespanScale;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Random values
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return a random between between the specified min and max
+	 * 
+	 * @param min Minimum value
+	 * @param max Maximum value
+	 * @return Value in the specified range
+	 */
+	public float randomBetween(float min, float max) {
+		return min + random.nextFloat() * (max - min);
+	}
+
+	/**
+	 * Return a random direction between the specified min and max
+	 * 
+	 * @param min Minimum value
+	 * @param max Maximum value
+	 * @param outputVector Vector within which the direction will be stored
+	 */
+	private void pickRandomDirection(float min, float max, Vector2 outputVector) {
+		// Our settings angles are in degrees, which the lookup table uses
+		// directly (avoiding a conversion to radians)
+		float angle = randomBetween(min, max);
+		outputVector.set(FastMath.cosDegrees(angle), FastMath.sinDegrees(angle));
+	}
+
+	/**
+	 * Return a random time until the next burst of particles
+	 * 
+	 * @return Time (in seconds) until the next burst
+	 */
+	public float nextBurstTime() {
+		return randomBetween(mParticleSettings.minBurstTime,
+				mParticleSettings.maxBurstTime);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Spawning
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Add a new batch of particles at the specified location (or spaced between
+	 * the last and current location, as appropriate depending upon the emitter settings).
+	 * 
+	 * @param particles Store to which the particles are added
+	 * @param location Current location
+	 * @param lastLocation Last location
+	 */
+	public void addParticles(ParticleStore particles, Vector2 location, Vector2 lastLocation) {
+
+		// Determine the number of particles to be added
+		int numParticles = (int) (randomBetween(
+				mParticleSettings.minNumParticles, mParticleSettings.maxNumParticles)
+				* spawnScale);
+
+		// Setup the location and offset depending upon the burst mode
+		switch (mParticleSettings.emissionMode) {
+		case Burst:
+			particlePosition.set(location);
+			particleOffset.set(Vector2.Zero);
+			break;
+		case Continuous:
+			particlePosition.set(lastLocation);
+			particleOffset.set((location.x - lastLocation.x) / numParticles,
+					(location.y - lastLocation.y) / numParticles);
+			break;
+		}
+
+		// Initialise and add the particles
+		particles.ensureCapacity(particles.size() + numParticles);
+		for (int i = 0; i < numParticles; i++) {
+
+			initialiseParticle(particles, particlePosition);
+
+			particlePosition.x += particleOffset.x;
+			particlePosition.y += particleOffset.y;
+		}
+	}
+
+	/**
+	 * Initialise a new particle and add it to the particle store
+	 * 
+	 * @param particles Store to which the particle is added
+	 * @param position Location of the particle
+	 */
+	public void initialiseParticle(ParticleStore particles, Vector2 position) {
+
+		// Determine the orientation and speed
+		pickRandomDirection(
+				mParticleSettings.minOrientationAngle,
+				mParticleSettings.maxOrientationAngle, direction);
+		float speed = randomBetween(mParticleSettings.minInitialSpeed,
+				mParticleSettings.maxInitialSpeed);
+
+		// Define the velocity
+		velocity.x = direction.x * speed;
+		velocity.y = direction.y * speed;
+
+		// Define the life span
+		float lifeSpan = randomBetween(
+				mParticleSettings.minLifespan, mParticleSettings.maxLifespan)
+				* lifespanScale;
+
+		// Determine the orientation and angular velocity
+		float orientation = randomBetween(0.0f, (float) Math.PI * 2.0f);
+		float angularVelocity = randomBetween(
+				mParticleSettings.minAngularVelocity,
+				mParticleSettings.maxAngularVelocity);
+
+		// Determine the scale and scale growth
+		float scale = randomBetween(mParticleSettings.minScale,
+				mParticleSettings.maxScale);
+		float scaleGrowth = randomBetween(
+				mParticleSettings.minScaleGrowth,
+				mParticleSettings.minScaleGrowth);
+
+		// Define the particle acceleration
+		switch (mParticleSettings.accelerationMode) {
+		case Aligned:
+			// Randomly pick an acceleration using the direction and
+			// the minAcceleration/maxAcceleration values
+			float accelerationMagnitude = randomBetween(
+					mParticleSettings.minAccelerationMagnitude,
+					mParticleSettings.maxAccelerationMagnitude);
+			acceleration.x = direction.x * accelerationMagnitude;
+			acceleration.y = direction.y * accelerationMagnitude;
+			break;
+		case NonAligned:
+			// Select an acceleration in a random direction and magnitude
+			// using the defined min and max values
+			pickRandomDirection(
+					mParticleSettings.minAccelerationDirection,
+					mParticleSettings.maxAccelerationDirection, acceleration);
+			accelerationMagnitude = randomBetween(
+					mParticleSettings.minAccelerationMagnitude,
+					mParticleSettings.maxAccelerationMagnitude);
+			acceleration.x = direction.x * accelerationMagnitude;
+			acceleration.y = direction.y * accelerationMagnitude;
+			break;
+		case EndVelocity:
+			// Accelerate along the direction of travel so that the speed at
+			// the end of the life span is the initial speed scaled by the
+			// end velocity
+			accelerationMagnitude =
+					speed * (mParticleSettings.endVelocity - 1.0f) / lifeSpan;
+			acceleration.x = direction.x * accelerationMagnitude;
+			acceleration.y = direction.y * accelerationMagnitude;
+			break;
+		default:
+			break;
+		}
+
+		// Initialise the particle
+		particles.add(position.x, position.y, velocity.x, velocity.y,
+				acceleration.x, acceleration.y, orientation,
+				angularVelocity, scale, scaleGrowth, lifeSpan);
+	}
+}
@@ -0,0 +1,361 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+/**
+ * Structure-of-arrays store holding the state of every active particle within
+ * an emitter. Each particle property is held within its own primitive array,
+ * with the active particles packed into the range [0, size()). Dead particles
+ * are removed by moving the last active particle into their slot, so the
+ * arrays stay dense and no per-particle objects are created.
+ *
+ * Once the store has grown to the working size of the emitter, adding,
+ * updating and removing particles performs no allocation.
+ *
+ * @version 1.0
+ */
+public class ParticleStore {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties: [[Declared public for speed of access]]
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Position of each particle
+	 */
+	public float[] positionX;
+	public float[] positionY;
+
+	/**
+	 * Position of each particle before the last update (used to interpolate
+	 * between updates when rendering)
+	 */
+	public float[] previousPositionX;
+	public float[] previousPositionY;
+
+	/**
+	 * Velocity of each particle
+	 */
+	public float[] velocityX;
+	public float[] velocityY;
+
+	/**
+	 * Acceleration of each particle
+	 */
+	public float[] accelerationX;
+	public float[] accelerationY;
+
+	/**
+	 * Orientation and angular velocity (degrees/second) of each particle
+	 */
+	public float[] orientation;
+	public float[] angularVelocity;
+
+	/**
+	 * Orientation of each particle before the last update
+	 */
+	public float[] previousOrientation;
+
+	/**
+	 * Scaling factor and growth factor of each particle
+	 */
+	public float[] scale;
+	public float[] scaleGrowth;
+
+	/**
+	 * Life span and time since birth of each particle
+	 */
+	public float[] lifeSpan;
+	public float[] timeSinceBirth;
+
+	/**
+	 * Number of active particles held in the store
+	 */
+	private int count;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructors
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new particle store
+	 *
+	 * @param initialCapacity Number of particles that can be held before the
+	 *        store needs to grow
+	 */
+	public ParticleStore(int initialCapacity) {
+		allocate(Math.max(1, initialCapacity));
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Capacity
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Return the number of active particles
+	 *
+	 * @return Number of active particles
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Return the number of particles that can be held without growing
+	 *
+	 * @return Current capacity of the store
+	 */
+	public int capacity() {
+		return positionX.length;
+	}
+
+	/**
+	 * Ensure the store can hold at least the specified number of particles
+	 * without growing.
+	 *
+	 * @param minCapacity Minimum number of particles to be held
+	 */
+	public void ensureCapacity(int minCapacity) {
+		if (minCapacity > positionX.length)
+			allocate(Math.max(minCapacity, positionX.length * 2));
+	}
+
+	/**
+	 * Remove all active particles (the capacity is retained)
+	 */
+	public void clear() {
+		count = 0;
+	}
+
+	/**
+	 * Replace the contents of this store with a copy of the active particles
+	 * held in the specified store
+	 *
+	 * @param other Store to copy
+	 */
+	public void copyFrom(ParticleStore other) {
+		count = 0;
+		appendFrom(other);
+	}
+
+	/**
+	 * Append a copy of the active particles held in the specified store to
+	 * the end of this store
+	 *
+	 * @param other Store to copy (must not be this store)
+	 */
+	public void appendFrom(ParticleStore other) {
+		int start = count;
+		int added = other.count;
+		ensureCapacity(start + added);
+		count = start + added;
+
+		System.arraycopy(other.positionX, 0, positionX, start, added);
+		System.arraycopy(other.positionY, 0, positionY, start, added);
+		System.arraycopy(other.previousPositionX, 0, previousPositionX, start, added);
+		System.arraycopy(other.previousPositionY, 0, previousPositionY, start, added);
+		System.arraycopy(other.velocityX, 0, velocityX, start, added);
+		System.arraycopy(other.velocityY, 0, velocityY, start, added);
+		System.arraycopy(other.accelerationX, 0, accelerationX, start, added);
+		System.arraycopy(other.accelerationY, 0, accelerationY, start, added);
+		System.arraycopy(other.orientation, 0, orientation, start, added);
+		System.arraycopy(other.angularVelocity, 0, angularVelocity, start, added);
+		System.arraycopy(other.previousOrientation, 0, previousOrientation, start, added);
+		System.arraycopy(other.scale, 0, scale, start, added);
+		System.arraycopy(other.scaleGrowth, 0, scaleGrowth, start, added);
+		System.arraycopy(other.lifeSpan, 0, lifeSpan, start, added);
+		System.arraycopy(other.timeSinceBirth, 0, timeSinceBirth, start, added);
+	}
+
+	/**
+	 * (Re)allocate the property arrays, retaining the active particles
+	 *
+	 * @param capacity New capacity
+	 */
+	private void allocate(int capacity) {
+		positionX = grow(positionX, capacity);
+		positionY = grow(positionY, capacity);
+		previousPositionX = grow(previousPositionX, capacity);
+		previousPositionY = grow(previousPositionY, capacity);
+		velocityX = grow(velocityX, capacity);
+		velocityY = grow(velocityY, capacity);
+		accelerationX = grow(accelerationX, capacity);
+		accelerationY = grow(accelerationY, capacity);
+		orientation = grow(orientation, capacity);
+		angularVelocity = grow(angularVelocity, capacity);
+		previousOrientation = grow(previousOrientation, capacity);
+		scale = grow(scale, capacity);
+		scaleGrowth = grow(scaleGrowth, capacity);
+		lifeSpan = grow(lifeSpan, capacity);
+		timeSinceBirth = grow(timeSinceBirth, capacity);
+	}
+
+	/**
+	 * Return a new array of the specified capacity holding the active values
+	 * of the specified array
+	 *
+	 * @param values Current values (may be null)
+	 * @param capacity New capacity
+	 * @return Array of the specified capacity
+	 */
+	private float[] grow(float[] values, int capacity) {
+		float[] grown = new float[capacity];
+		if (values != null)
+			System.arraycopy(values, 0, grown, 0, count);
+		return grown;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Add and Remove
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Add a new particle using the specified values
+	 *
+	 * @param positionX Position x
+	 * @param positionY Position y
+	 * @param velocityX Velocity x
+	 * @param velocityY Velocity y
+	 * @param accelerationX Acceleration x
+	 * @param accelerationY Acceleration y
+	 * @param orientation Orientation
+	 * @param angularVelocity Angular velocity
+	 * @param scale Scale
+	 * @param scaleGrowth Scale growth
+	 * @param lifeSpan Life span
+	 * @return Index of the added particle
+	 */
+	public int add(float positionX, float positionY, float velocityX,
+			float velocityY, float accelerationX, float accelerationY,
+			float orientation, float angularVelocity, float scale,
+			float scaleGrowth, float lifeSpan) {
+
+		ensureCapacity(count + 1);
+
+		int idx = count++;
+		this.positionX[idx] = positionX;
+		this.positionY[idx] = positionY;
+		this.previousPositionX[idx] = positionX;
+		this.previousPositionY[idx] = positionY;
+		this.velocityX[idx] = velocityX;
+		this.velocityY[idx] = velocityY;
+		this.accelerationX[idx] = accelerationX;
+		this.accelerationY[idx] = accelerationY;
+		this.orientation[idx] = orientation;
+		this.angularVelocity[idx] = angularVelocity;
+		this.previousOrientation[idx] = orientation;
+		this.scale[idx] = scale;
+		this.scaleGrowth[idx] = scaleGrowth;
+		this.lifeSpan[idx] = lifeSpan;
+		this.timeSinceBirth[idx] = 0.0f;
+
+		return idx;
+	}
+
+	/**
+	 * Remove the particle at the specified index by moving the last active
+	 * particle into its slot.
+	 *
+	 * @param idx Index of the particle to remove
+	 */
+	public void remove(int idx) {
+		int last = --count;
+		if (idx == last)
+			return;
+
+		positionX[idx] = positionX[last];
+		positionY[idx] = positionY[last];
+		previousPositionX[idx] = previousPositionX[last];
+		previousPositionY[idx] = previousPositionY[last];
+		velocityX[idx] = velocityX[last];
+		velocityY[idx] = velocityY[last];
+		accelerationX[idx] = accelerationX[last];
+		accelerationY[idx] = accelerationY[last];
+		orientation[idx] = orientation[last];
+		angularVelocity[idx] = angularVelocity[last];
+		previousOrientation[idx] = previousOrientation[last];
+		scale[idx] = scale[last];
+		scaleGrowth[idx] = scaleGrowth[last];
+		lifeSpan[idx] = lifeSpan[last];
+		timeSinceBirth[idx] = timeSinceBirth[last];
+	}
+
+	/**
+	 * Determine if the particle at the specified index is still alive
+	 *
+	 * @param idx Index of the particle
+	 * @return Boolean true if alive, otherwise false
+	 */
+	public boolean isAlive(int idx) {
+		return timeSinceBirth[idx] < lifeSpan[idx];
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Update
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Evolve all active particles, removing those that are no longer alive.
+	 *
+	 * @param dt Amount of time elapsed (in seconds) from the last update call
+	 * @param gravityX Constant x acceleration (per second squared) applied
+	 *        to each particle
+	 * @param gravityY Constant y acceleration (per second squared) applied
+	 *        to each particle
+	 */
+	public void update(float dt, float gravityX, float gravityY) {
+		integrate(0, count, dt, gravityX, gravityY);
+		removeDead();
+	}
+
+	/**
+	 * Evolve the particles in the range [from, to). Particles are evolved
+	 * independently of one another, so disjoint ranges can safely be
+	 * integrated concurrently.
+	 *
+	 * @param from Index of the first particle to evolve
+	 * @param to Index one past the last particle to evolve
+	 * @param dt Amount of time elapsed (in seconds) from the last update call
+	 * @param gravityX Constant x acceleration (per second squared) applied
+	 *        to each particle
+	 * @param gravityY Constant y acceleration (per second squared) applied
+	 *        to each particle
+	 */
+	public void integrate(int from, int to, float dt, float gravityX, float gravityY) {
+		for (int idx = from; idx < to; idx++) {
+
+			// Retain the current state for interpolation
+			previousPositionX[idx] = positionX[idx];
+			previousPositionY[idx] = positionY[idx];
+			previousOrientation[idx] = orientation[idx];
+
+			// Add in gravity and evolve the particle
+			velocityX[idx] += (gravityX + accelerationX[idx]) * dt;
+			velocityY[idx] += (gravityY + accelerationY[idx]) * dt;
+
+			positionX[idx] += velocityX[idx] * dt;
+			positionY[idx] += velocityY[idx] * dt;
+
+			orientation[idx] += angularVelocity[idx] * dt;
+
+			scale[idx] += scaleGrowth[idx] * dt;
+
+			timeSinceBirth[idx] += dt;
+		}
+	}
+
+	/**
+	 * Remove all particles that are no longer alive. The store is always
+	 * compacted serially from the front, so the resulting particle order only
+	 * depends upon the store contents and not on how they were integrated.
+	 */
+	public void removeDead() {
+		int idx = 0;
+		while (idx < count) {
+			// The last particle is moved into a removed slot, so the index
+			// is only advanced when the particle is kept
+			if (timeSinceBirth[idx] < lifeSpan[idx])
+				idx++;
+			else
+				remove(idx);
+		}
+	}
+}
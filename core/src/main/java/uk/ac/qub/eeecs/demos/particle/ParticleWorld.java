@@ -0,0 +1,309 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import uk.ac.qub.eeecs.demos.engine.quality.QualityController;
+import uk.ac.qub.eeecs.demos.engine.random.FastRandom;
+import uk.ac.qub.eeecs.demos.engine.render.RenderBackend;
+import uk.ac.qub.eeecs.demos.engine.render.Texture;
+import uk.ac.qub.eeecs.demos.engine.render.TextureSource;
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+
+/**
+ * Simple world containing a particle system that follows the touch location,
+ * alongside a pool of short-lived effects (this would normally be the game
+ * world or game screen).
+ * 
+ * The world does not depend on Android: textures are obtained from a
+ * texture source and frames are drawn through a render backend, so the
+ * world can also be run and measured headless on the JVM.
+ * 
+ * @version 1.0
+ */
+public class ParticleWorld {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Particle system
+	 */
+	private ParticleSettings.Systems mCurrentParticleSystem
+				= ParticleSettings.Systems.Explosion;
+	private ParticleEmitter mParticleEmitter;
+
+	/**
+	 * Explosion smoke settings (null if they could not be loaded, in which
+	 * case the system is skipped)
+	 */
+	private ParticleSettings mExplosionSmokeSettings;
+
+	/**
+	 * Pool of short-lived effects, regularly spawned around the touch
+	 * location to exercise playing many effects at once
+	 */
+	private static final int EFFECT_PARTICLE_BUDGET = 20000;
+	private static final int EFFECT_INSTANCES = 32;
+	private static final float EFFECT_INTERVAL = 0.1f;
+	private static final float EFFECT_RADIUS = 300.0f;
+
+	private ParticleEffectPool mEffectPool;
+	private FastRandom mEffectRandom;
+	private float mTimeToNextEffect;
+
+	/**
+	 * Next particle system control
+	 */
+	private boolean mNextParticleSystemTrigger = true;
+	private IntRect mNextParticleSystemRegion;
+	private Texture mNextParticleSystemTexture;
+
+	/**
+	 * Colour used to clear the background
+	 */
+	private static final int BACKGROUND_COLOR = 0xFF000000;
+
+	/**
+	 * Layers on which the particles and the (overlaid) controls are drawn
+	 */
+	public static final int LAYER_PARTICLES = 0;
+	public static final int LAYER_CONTROLS = 1;
+
+	/**
+	 * Source of the textures used by the world
+	 */
+	private TextureSource mTextures;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Constructor
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Create a new world containing a particle system
+	 * 
+	 * @param textures
+	 *            Source of the textures used by the world
+	 * @param explosionSmokeSettings
+	 *            Explosion smoke settings (null to skip the system)
+	 */
+	public ParticleWorld(TextureSource textures,
+			ParticleSettings explosionSmokeSettings) {
+		this(textures, explosionSmokeSettings, FastRandom.newSeed());
+	}
+
+	/**
+	 * Create a new world containing a particle system, with all random
+	 * values generated from the specified seed. Worlds created with the same
+	 * seed and given the same updates are identical.
+	 * 
+	 * @param textures
+	 *            Source of the textures used by the world
+	 * @param explosionSmokeSettings
+	 *            Explosion smoke settings (null to skip the system)
+	 * @param seed
+	 *            Seed from which the world's random values are generated
+	 */
+	public ParticleWorld(TextureSource textures,
+			ParticleSettings explosionSmokeSettings, long seed) {
+		FastRandom seeds = new FastRandom(seed);
+		mTextures = textures;
+		mExplosionSmokeSettings = explosionSmokeSettings;
+
+		// Setup the particle system
+		mCurrentParticleSystem = ParticleSettings.Systems.Explosion;
+		mParticleEmitter = new ParticleEmitter(
+				textures, ParticleSettings.Explosion, seeds.nextLong());
+
+		// Reserve the emitters used by the pooled effects
+		mEffectPool = new ParticleEffectPool(
+				textures, EFFECT_PARTICLE_BUDGET, seeds.nextLong());
+		mEffectRandom = seeds.split();
+		mEffectPool.reserve(ParticleSettings.Explosion, EFFECT_INSTANCES);
+		if (mExplosionSmokeSettings != null)
+			mEffectPool.reserve(mExplosionSmokeSettings, EFFECT_INSTANCES);
+		
+		// Load the next particle system button
+		mNextParticleSystemTexture = textures.acquire("img/NextArrow.png");
+		mNextParticleSystemRegion = new IntRect(50, 50,
+				mNextParticleSystemTexture.getWidth() + 50,
+				mNextParticleSystemTexture.getHeight() + 50);
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Update the world
+	 * 
+	 * @param elapsedTime
+	 *            Elapsed time information
+	 * @param touchLocation
+	 *            Location at which a touch event occurred
+	 */
+	public void update(float elapsedTime, Vector2 touchLocation) {
+		// Swap the particle system if needed
+		if(mNextParticleSystemTrigger && 
+				mNextParticleSystemRegion.contains(
+						(int)touchLocation.x, (int)touchLocation.y)) {
+			setupNextParticleSystem();			
+			mNextParticleSystemTrigger = false;
+		} else mNextParticleSystemTrigger = true;
+				
+		mParticleEmitter.update(elapsedTime, touchLocation);
+
+		// Fire off an effect near the touch location at regular intervals
+		mTimeToNextEffect -= elapsedTime;
+		if (mTimeToNextEffect <= 0.0f) {
+			mTimeToNextEffect += EFFECT_INTERVAL;
+			float x = touchLocation.x
+					+ (mEffectRandom.nextFloat() * 2.0f - 1.0f) * EFFECT_RADIUS;
+			float y = touchLocation.y
+					+ (mEffectRandom.nextFloat() * 2.0f - 1.0f) * EFFECT_RADIUS;
+			mEffectPool.spawn(ParticleSettings.Explosion, x, y);
+			if (mExplosionSmokeSettings != null)
+				mEffectPool.spawn(mExplosionSmokeSettings, x, y);
+		}
+		mEffectPool.update(elapsedTime);
+	}
+
+	/**
+	 * Apply the current quality level of the specified controller to every
+	 * emitter in the world
+	 * 
+	 * @param quality
+	 *            Controller holding the quality level
+	 */
+	public void applyQuality(QualityController quality) {
+		ParticleEmitter.RenderMode renderMode = quality.isBatchedRendering()
+				? ParticleEmitter.RenderMode.Batched
+				: ParticleEmitter.RenderMode.PerParticle;
+
+		mParticleEmitter.setSpawnScale(quality.getSpawnScale());
+		mParticleEmitter.setLifespanScale(quality.getLifespanScale());
+		mParticleEmitter.setRenderMode(renderMode);
+
+		mEffectPool.setQuality(quality.getSpawnScale(), quality.getLifespanScale());
+		mEffectPool.setRenderMode(renderMode);
+	}
+
+	/**
+	 * Release the textures held by this world
+	 */
+	public void release() {
+		mParticleEmitter.release();
+		mEffectPool.release();
+		mTextures.release(mNextParticleSystemTexture);
+		mNextParticleSystemTexture = null;
+	}
+
+	/**
+	 * Change to the next defined particle system
+	 */
+	private void setupNextParticleSystem() {
+		
+		switch(mCurrentParticleSystem) {		
+			case Smoke: // Go onto Explosion
+				mCurrentParticleSystem = ParticleSettings.Systems.Explosion;
+				mParticleEmitter.setParticleSettings(ParticleSettings.Explosion);
+				break;
+			case Explosion: // Go onto Particle
+				mCurrentParticleSystem = ParticleSettings.Systems.Particle;
+				mParticleEmitter.setParticleSettings(ParticleSettings.Particle);
+				break;
+			case Particle: // Go onto ExplosionSmoke (if loaded)
+				if (mExplosionSmokeSettings != null) {
+					mCurrentParticleSystem = ParticleSettings.Systems.ExplosionSmoke;
+					mParticleEmitter.setParticleSettings(mExplosionSmokeSettings);
+					break;
+				}
+				// Otherwise fall through to Smoke
+			case ExplosionSmoke: // Go onto Smoke
+				mCurrentParticleSystem = ParticleSettings.Systems.Smoke;
+				mParticleEmitter.setParticleSettings(ParticleSettings.Smoke);
+				break;		
+		}
+	}
+	
+	/**
+	 * Draw the world
+	 * 
+	 * @param backend
+	 *            Backend to which the world is drawn
+	 * @param elapsedTime
+	 *            Elapsed time information
+	 */
+	public void draw(RenderBackend backend, float elapsedTime) {
+		draw(backend, elapsedTime, 1.0f);
+	}
+
+	/**
+	 * Draw the world, interpolating between the state before and after the
+	 * last update
+	 * 
+	 * @param backend
+	 *            Backend to which the world is drawn
+	 * @param elapsedTime
+	 *            Elapsed time information
+	 * @param interpolation
+	 *            Fraction [0, 1] between the previous and current state
+	 */
+	public void draw(RenderBackend backend, float elapsedTime, float interpolation) {
+
+		backend.clear(BACKGROUND_COLOR);
+		backend.setLayer(LAYER_PARTICLES);
+		mParticleEmitter.draw(backend, elapsedTime, interpolation);
+		mEffectPool.draw(backend, interpolation);
+		drawControls(backend);
+	}
+
+	/**
+	 * Copy the current state of the world into the specified snapshot so
+	 * that it can be drawn whilst the world continues to be updated
+	 * 
+	 * @param snapshot
+	 *            Snapshot to hold the world state
+	 */
+	public void snapshot(ParticleWorldSnapshot snapshot) {
+		snapshot.clear();
+		mParticleEmitter.snapshot(snapshot.addEmitter());
+		mEffectPool.snapshot(snapshot);
+	}
+
+	/**
+	 * Draw a snapshot of the world. Only the snapshot and the (unchanging)
+	 * world controls are read, so this can be called on a different thread to
+	 * the one updating the world.
+	 * 
+	 * @param backend
+	 *            Backend to which the world is drawn
+	 * @param snapshot
+	 *            Snapshot of the world to draw
+	 */
+	public void draw(RenderBackend backend, ParticleWorldSnapshot snapshot) {
+
+		backend.clear(BACKGROUND_COLOR);
+		backend.setLayer(LAYER_PARTICLES);
+		for (int idx = 0; idx < snapshot.emitterCount; idx++) {
+			EmitterSnapshot emitter = snapshot.emitters[idx];
+			if (emitter.texture != null)
+				backend.drawParticles(emitter.particles, emitter.texture,
+						emitter.additiveBlend,
+						emitter.renderMode == ParticleEmitter.RenderMode.Batched,
+						snapshot.interpolation);
+		}
+		drawControls(backend);
+	}
+
+	/**
+	 * Draw the world controls
+	 * 
+	 * @param backend
+	 *            Backend to which the controls are drawn
+	 */
+	private void drawControls(RenderBackend backend) {
+		backend.setLayer(LAYER_CONTROLS);
+		backend.drawImage(mNextParticleSystemTexture,
+				mNextParticleSystemRegion.left, mNextParticleSystemRegion.top,
+				mNextParticleSystemRegion.right, mNextParticleSystemRegion.bottom);
+	}
+}
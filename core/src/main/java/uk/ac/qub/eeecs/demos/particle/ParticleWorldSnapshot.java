@@ -0,0 +1,54 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+/**
+ * Copy of the state of a particle world needed to draw a single frame. The
+ * emitter snapshots held within are retained and reused between frames.
+ *
+ * @version 1.0
+ */
+public class ParticleWorldSnapshot {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties: [[Declared public for speed of access]]
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Snapshots of each emitter within the world, valid in the range
+	 * [0, emitterCount)
+	 */
+	public EmitterSnapshot[] emitters = new EmitterSnapshot[0];
+	public int emitterCount;
+
+	/**
+	 * Fraction [0, 1] between the previous and current particle state at
+	 * which the frame should be drawn
+	 */
+	public float interpolation = 1.0f;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Remove all emitter snapshots (the snapshots are retained for reuse)
+	 */
+	public void clear() {
+		emitterCount = 0;
+	}
+
+	/**
+	 * Return the next unused emitter snapshot, creating one if needed
+	 *
+	 * @return Emitter snapshot to be written
+	 */
+	public EmitterSnapshot addEmitter() {
+		if (emitterCount == emitters.length) {
+			EmitterSnapshot[] grown = new EmitterSnapshot[Math.max(4, emitters.length * 2)];
+			System.arraycopy(emitters, 0, grown, 0, emitters.length);
+			for (int idx = emitters.length; idx < grown.length; idx++)
+				grown[idx] = new EmitterSnapshot();
+			emitters = grown;
+		}
+		return emitters[emitterCount++];
+	}
+}
@@ -0,0 +1,268 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import java.util.Locale;
+
+/**
+ * Builds a set of particle settings from the elements of an XNA
+ * ParticleSystemSettings asset (as held within assets/txt). Each element is
+ * passed to the builder by name alongside its text, so the builder does not
+ * depend on any particular XML parser.
+ *
+ * The XNA elements are mapped as follows:
+ * <ul>
+ * <li>MinNumParticles/MaxNumParticles, MinInitialSpeed/MaxInitialSpeed,
+ * MinRotationSpeed/MaxRotationSpeed, MinLifetime/MaxLifetime and
+ * MinSize/MaxSize map onto the equivalent settings.</li>
+ * <li>MinDirectionAngle/MaxDirectionAngle (in degrees) map onto the
+ * orientation angles.</li>
+ * <li>TextureFilename "explosion" maps onto "img/Explosion.png". Names
+ * holding a '/' are used as asset paths as given.</li>
+ * <li>AccelerationMode None and Scalar (with MinAccelerationScale and
+ * MaxAccelerationScale) map onto aligned acceleration, Vector (with
+ * MinAccelerationVector and MaxAccelerationVector) onto non aligned
+ * acceleration, and EndVelocity (with EndVelocity) onto end velocity
+ * acceleration.</li>
+ * <li>A DestinationBlend of One selects additive blending.</li>
+ * </ul>
+ *
+ * Settings with no XNA equivalent can be given using the EmissionMode,
+ * MinBurstTime, MaxBurstTime, GravityX, GravityY, MinScaleGrowth and
+ * MaxScaleGrowth elements.
+ *
+ * @version 1.0
+ */
+public class XnaParticleSettingsBuilder {
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Properties
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Element values, initialised to the XNA defaults
+	 */
+	private String textureFilename = "img/Particle.png";
+	private String destinationBlend = "InverseSourceAlpha";
+
+	private ParticleSettings.EmissionMode emissionMode =
+			ParticleSettings.EmissionMode.Burst;
+	private float minBurstTime = 1.0f;
+	private float maxBurstTime = 1.0f;
+
+	private int minNumParticles = 1;
+	private int maxNumParticles = 1;
+
+	private float minDirectionAngle = 0.0f;
+	private float maxDirectionAngle = 360.0f;
+
+	private float minInitialSpeed;
+	private float maxInitialSpeed;
+
+	private String accelerationMode = "None";
+	private float minAccelerationScale;
+	private float maxAccelerationScale;
+	private float minAccelerationVectorX;
+	private float minAccelerationVectorY;
+	private float maxAccelerationVectorX;
+	private float maxAccelerationVectorY;
+	private float endVelocity = 1.0f;
+
+	private float gravityX;
+	private float gravityY;
+
+	private float minRotationSpeed;
+	private float maxRotationSpeed;
+
+	private float minLifetime = 1.0f;
+	private float maxLifetime = 1.0f;
+
+	private float minSize = 1.0f;
+	private float maxSize = 1.0f;
+
+	private float minScaleGrowth;
+	private float maxScaleGrowth;
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Set the value of the specified element
+	 *
+	 * @param name Name of the element
+	 * @param text Text held within the element
+	 * @return True if the element was recognised, false if it was ignored
+	 * @throws IllegalArgumentException If the element text is not valid
+	 */
+	public boolean setElement(String name, String text) {
+		text = text.trim();
+
+		if (name.equals("TextureFilename"))
+			textureFilename = toAssetPath(text);
+		else if (name.equals("SourceBlend"))
+			return true; // Only the destination blend decides the blending
+		else if (name.equals("DestinationBlend"))
+			destinationBlend = text;
+		else if (name.equals("EmissionMode"))
+			emissionMode = ParticleSettings.EmissionMode.valueOf(text);
+		else if (name.equals("MinBurstTime"))
+			minBurstTime = parseFloat(name, text);
+		else if (name.equals("MaxBurstTime"))
+			maxBurstTime = parseFloat(name, text);
+		else if (name.equals("MinNumParticles"))
+			minNumParticles = parseInt(name, text);
+		else if (name.equals("MaxNumParticles"))
+			maxNumParticles = parseInt(name, text);
+		else if (name.equals("MinDirectionAngle"))
+			minDirectionAngle = parseFloat(name, text);
+		else if (name.equals("MaxDirectionAngle"))
+			maxDirectionAngle = parseFloat(name, text);
+		else if (name.equals("MinInitialSpeed"))
+			minInitialSpeed = parseFloat(name, text);
+		else if (name.equals("MaxInitialSpeed"))
+			maxInitialSpeed = parseFloat(name, text);
+		else if (name.equals("AccelerationMode"))
+			accelerationMode = text;
+		else if (name.equals("MinAccelerationScale"))
+			minAccelerationScale = parseFloat(name, text);
+		else if (name.equals("MaxAccelerationScale"))
+			maxAccelerationScale = parseFloat(name, text);
+		else if (name.equals("MinAccelerationVector")) {
+			float[] vector = parseVector(name, text);
+			minAccelerationVectorX = vector[0];
+			minAccelerationVectorY = vector[1];
+		} else if (name.equals("MaxAccelerationVector")) {
+			float[] vector = parseVector(name, text);
+			maxAccelerationVectorX = vector[0];
+			maxAccelerationVectorY = vector[1];
+		} else if (name.equals("EndVelocity"))
+			endVelocity = parseFloat(name, text);
+		else if (name.equals("GravityX"))
+			gravityX = parseFloat(name, text);
+		else if (name.equals("GravityY"))
+			gravityY = parseFloat(name, text);
+		else if (name.equals("MinRotationSpeed"))
+			minRotationSpeed = parseFloat(name, text);
+		else if (name.equals("MaxRotationSpeed"))
+			maxRotationSpeed = parseFloat(name, text);
+		else if (name.equals("MinLifetime"))
+			minLifetime = parseFloat(name, text);
+		else if (name.equals("MaxLifetime"))
+			maxLifetime = parseFloat(name, text);
+		else if (name.equals("MinSize"))
+			minSize = parseFloat(name, text);
+		else if (name.equals("MaxSize"))
+			maxSize = parseFloat(name, text);
+		else if (name.equals("MinScaleGrowth"))
+			minScaleGrowth = parseFloat(name, text);
+		else if (name.equals("MaxScaleGrowth"))
+			maxScaleGrowth = parseFloat(name, text);
+		else
+			return false;
+
+		return true;
+	}
+
+	/**
+	 * Create particle settings from the elements set so far
+	 *
+	 * @return New particle settings
+	 * @throws IllegalArgumentException If the acceleration mode is not known
+	 */
+	public ParticleSettings build() {
+
+		ParticleSettings.AccelerationMode mode;
+		float minAccelerationDirection = 0.0f;
+		float maxAccelerationDirection = 0.0f;
+		float minAccelerationMagnitude = 0.0f;
+		float maxAccelerationMagnitude = 0.0f;
+
+		if (accelerationMode.equals("None")) {
+			mode = ParticleSettings.AccelerationMode.Aligned;
+		} else if (accelerationMode.equals("Scalar")) {
+			mode = ParticleSettings.AccelerationMode.Aligned;
+			minAccelerationMagnitude = minAccelerationScale;
+			maxAccelerationMagnitude = maxAccelerationScale;
+		} else if (accelerationMode.equals("Vector")) {
+			mode = ParticleSettings.AccelerationMode.NonAligned;
+			minAccelerationDirection = toDegrees(
+					minAccelerationVectorX, minAccelerationVectorY);
+			maxAccelerationDirection = toDegrees(
+					maxAccelerationVectorX, maxAccelerationVectorY);
+			minAccelerationMagnitude = length(
+					minAccelerationVectorX, minAccelerationVectorY);
+			maxAccelerationMagnitude = length(
+					maxAccelerationVectorX, maxAccelerationVectorY);
+		} else if (accelerationMode.equals("EndVelocity")) {
+			mode = ParticleSettings.AccelerationMode.EndVelocity;
+		} else {
+			throw new IllegalArgumentException(
+					"Unknown acceleration mode: " + accelerationMode);
+		}
+
+		ParticleSettings settings = new ParticleSettings(
+				textureFilename, destinationBlend.equals("One"), emissionMode,
+				minBurstTime, maxBurstTime, mode,
+				minAccelerationDirection, maxAccelerationDirection,
+				minAccelerationMagnitude, maxAccelerationMagnitude,
+				gravityX, gravityY, minNumParticles, maxNumParticles,
+				minInitialSpeed, maxInitialSpeed,
+				minRotationSpeed, maxRotationSpeed,
+				minDirectionAngle, maxDirectionAngle,
+				minLifetime, maxLifetime, minSize, maxSize,
+				minScaleGrowth, maxScaleGrowth);
+		settings.endVelocity = endVelocity;
+		return settings;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	// Methods: Internal
+	// /////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Convert an XNA texture name into an asset path
+	 */
+	private static String toAssetPath(String textureName) {
+		if (textureName.indexOf('/') >= 0 || textureName.length() == 0)
+			return textureName;
+		return "img/" + textureName.substring(0, 1).toUpperCase(Locale.US)
+				+ textureName.substring(1) + ".png";
+	}
+
+	private static float parseFloat(String name, String text) {
+		try {
+			return Float.parseFloat(text);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(
+					"Invalid value for " + name + ": " + text);
+		}
+	}
+
+	private static int parseInt(String name, String text) {
+		try {
+			return Integer.parseInt(text);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(
+					"Invalid value for " + name + ": " + text);
+		}
+	}
+
+	/**
+	 * Parse an XNA vector, held as "x y"
+	 */
+	private static float[] parseVector(String name, String text) {
+		String[] components = text.split("\\s+");
+		if (components.length != 2)
+			throw new IllegalArgumentException(
+					"Invalid value for " + name + ": " + text);
+		return new float[] { parseFloat(name, components[0]),
+				parseFloat(name, components[1]) };
+	}
+
+	private static float toDegrees(float x, float y) {
+		return (float) Math.toDegrees(Math.atan2(y, x));
+	}
+
+	private static float length(float x, float y) {
+		return (float) Math.sqrt(x * x + y * y);
+	}
+}
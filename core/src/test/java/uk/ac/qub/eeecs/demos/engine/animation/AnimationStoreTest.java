@@ -0,0 +1,62 @@
+package uk.ac.qub.eeecs.demos.engine.animation;
+
+import org.junit.Test;
+
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for shared animation clips and the animation store
+ */
+public class AnimationStoreTest {
+
+    @Test
+    public void fromGrid_readsMultiRowSheetsLeftToRightThenDown() {
+        AnimationClip clip = AnimationClip.fromGrid(10, 20, 32, 16, 3, 5, 1.0f);
+        IntRect rect = new IntRect();
+
+        clip.getFrameRect(2, rect);
+        assertEquals(74, rect.left);
+        assertEquals(20, rect.top);
+        clip.getFrameRect(4, rect);
+        assertEquals(42, rect.left);
+        assertEquals(36, rect.top);
+        assertEquals(74, rect.right);
+        assertEquals(52, rect.bottom);
+        assertEquals(1.0f, clip.getDuration(), 1e-6f);
+    }
+
+    @Test
+    public void update_usesPerFrameDurationsAndLoopsOrStops() {
+        AnimationClip clip = AnimationClip.fromGrid(0, 0, 8, 8, 4,
+                new float[] { 0.1f, 0.3f, 0.1f });
+        AnimationStore store = new AnimationStore(1);
+        int looping = store.add(clip);
+        int once = store.add(clip);
+        int stopped = store.add(clip);
+        store.play(looping, true);
+        store.play(once, false);
+
+        store.update(0.25f);
+        assertEquals(1, store.frame[looping]);
+        assertEquals(1, store.frame[once]);
+        assertTrue(store.hasFrameChanged(looping));
+        assertFalse(store.hasFrameChanged(stopped));
+
+        store.update(0.01f);
+        assertFalse(store.hasFrameChanged(looping));
+
+        store.update(0.29f);
+        assertEquals(0, store.frame[looping]);
+        assertTrue(store.isPlaying(looping));
+        assertEquals(2, store.frame[once]);
+        assertFalse(store.isPlaying(once));
+        assertEquals(0, store.frame[stopped]);
+
+        IntRect rect = new IntRect();
+        store.getSourceRect(once, rect);
+        assertEquals(16, rect.left);
+        assertEquals(24, rect.right);
+    }
+}
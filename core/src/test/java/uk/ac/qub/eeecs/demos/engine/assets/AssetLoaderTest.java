@@ -0,0 +1,114 @@
+package uk.ac.qub.eeecs.demos.engine.assets;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for background asset loading
+ */
+public class AssetLoaderTest {
+
+    /**
+     * Decoder returning the asset path, recording the order of decodes and
+     * optionally waiting for a gate to open before decoding
+     */
+    private static class GatedDecoder implements AssetDecoder<String> {
+        final CountDownLatch gate = new CountDownLatch(1);
+        final List<String> decoded = Collections.synchronizedList(new ArrayList<String>());
+        final AtomicInteger decodeCount = new AtomicInteger();
+
+        @Override
+        public String decode(String assetPath) throws Exception {
+            gate.await();
+            decodeCount.incrementAndGet();
+            decoded.add(assetPath);
+            if (assetPath.startsWith("missing"))
+                throw new IOException("Not found: " + assetPath);
+            return "decoded " + assetPath;
+        }
+    }
+
+    private AssetLoader loader = new AssetLoader(1, null);
+
+    @After
+    public void tearDown() {
+        loader.shutdown();
+    }
+
+    @Test
+    public void load_sharesConcurrentRequestsForSameAsset() throws Exception {
+        GatedDecoder decoder = new GatedDecoder();
+        AssetFuture<String> first = loader.load("a.txt", decoder, null);
+        AssetFuture<String> second = loader.load("a.txt", decoder, null);
+        assertSame(first, second);
+        assertEquals(1, loader.getSharedCount());
+
+        decoder.gate.countDown();
+        assertEquals("decoded a.txt", first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, decoder.decodeCount.get());
+        assertEquals(1.0f, loader.getProgress(), 0.0f);
+    }
+
+    @Test
+    public void load_neededNowOvertakesAndPromotesPrefetches() throws Exception {
+        GatedDecoder decoder = new GatedDecoder();
+
+        // The single I/O thread is held on the first request whilst the
+        // others are queued
+        AssetFuture<String> blocker = loader.load("blocker", decoder, null);
+        AssetFuture<String> prefetchA = loader.load(
+                "prefetchA", decoder, AssetLoader.Priority.Prefetch, null);
+        AssetFuture<String> prefetchB = loader.load(
+                "prefetchB", decoder, AssetLoader.Priority.Prefetch, null);
+        AssetFuture<String> needed = loader.load("needed", decoder, null);
+        loader.load("prefetchB", decoder, AssetLoader.Priority.NeededNow, null);
+        assertEquals(4, loader.getRequestedCount());
+
+        decoder.gate.countDown();
+        prefetchA.get(5, TimeUnit.SECONDS);
+        assertTrue(blocker.isDone() && needed.isDone() && prefetchB.isDone());
+        assertEquals(4, decoder.decoded.size());
+        assertEquals("needed", decoder.decoded.get(1));
+        assertEquals("prefetchB", decoder.decoded.get(2));
+        assertEquals("prefetchA", decoder.decoded.get(3));
+    }
+
+    @Test
+    public void load_reportsFailuresToCallbacksAndFuture() throws Exception {
+        GatedDecoder decoder = new GatedDecoder();
+        final CountDownLatch failed = new CountDownLatch(1);
+        AssetFuture<String> future = loader.load("missing.png", decoder,
+                new AssetCallback<String>() {
+                    @Override
+                    public void onLoaded(String assetPath, String asset) {
+                    }
+
+                    @Override
+                    public void onFailed(String assetPath, Exception error) {
+                        if (error instanceof IOException)
+                            failed.countDown();
+                    }
+                });
+
+        decoder.gate.countDown();
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(0, loader.getPendingCount());
+    }
+}
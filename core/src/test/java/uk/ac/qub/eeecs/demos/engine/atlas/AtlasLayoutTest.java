@@ -0,0 +1,80 @@
+package uk.ac.qub.eeecs.demos.engine.atlas;
+
+import org.junit.Test;
+
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for atlas packing
+ */
+public class AtlasLayoutTest {
+
+    /**
+     * Check every region lies within its page and is separated from the
+     * other regions on the page by at least the padding
+     */
+    private static void assertValid(AtlasLayout layout, int padding) {
+        for (int a = 0; a < layout.getRegionCount(); a++) {
+            IntRect rect = layout.getRegionRect(a);
+            int page = layout.getRegionPage(a);
+            assertTrue(rect.left >= 0 && rect.top >= 0);
+            assertTrue(rect.right <= layout.getPageWidth(page));
+            assertTrue(rect.bottom <= layout.getPageHeight(page));
+
+            for (int b = a + 1; b < layout.getRegionCount(); b++) {
+                IntRect other = layout.getRegionRect(b);
+                if (layout.getRegionPage(b) != page)
+                    continue;
+                boolean separated = rect.right + padding <= other.left
+                        || other.right + padding <= rect.left
+                        || rect.bottom + padding <= other.top
+                        || other.bottom + padding <= rect.top;
+                assertTrue(layout.getRegionName(a) + " overlaps "
+                        + layout.getRegionName(b), separated);
+            }
+        }
+    }
+
+    @Test
+    public void pack_demoSpritesFitOnOneCroppedPage() {
+        // Sizes of the sprites held in assets/img
+        String[] names = { "Animation1", "Animation2", "Explosion", "Fish",
+                "NextArrow", "Particle", "Platform", "Ribbon", "Smoke" };
+        int[] widths = { 1200, 1000, 512, 250, 100, 10, 218, 1000, 512 };
+        int[] heights = { 100, 70, 512, 254, 90, 10, 150, 721, 512 };
+
+        AtlasLayout layout = AtlasLayout.pack(names, widths, heights, 2, 2048);
+        assertValid(layout, 2);
+        assertEquals(1, layout.getPageCount());
+        assertTrue(layout.getOccupancy() > 0.8f);
+
+        int fish = layout.findRegion("Fish");
+        assertEquals(250, layout.getRegionRect(fish).width());
+        assertEquals(254, layout.getRegionRect(fish).height());
+        assertEquals(-1, layout.findRegion("Missing"));
+    }
+
+    @Test
+    public void pack_overflowsOntoFurtherPages() {
+        String[] names = new String[10];
+        int[] widths = new int[10];
+        int[] heights = new int[10];
+        for (int idx = 0; idx < names.length; idx++) {
+            names[idx] = "Tile" + idx;
+            widths[idx] = 100;
+            heights[idx] = 100;
+        }
+
+        AtlasLayout layout = AtlasLayout.pack(names, widths, heights, 0, 256);
+        assertValid(layout, 0);
+        assertEquals(3, layout.getPageCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pack_rejectsImageLargerThanPage() {
+        AtlasLayout.pack(new String[] { "Large" }, new int[] { 300 },
+                new int[] { 10 }, 0, 256);
+    }
+}
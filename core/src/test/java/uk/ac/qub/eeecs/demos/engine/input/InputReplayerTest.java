@@ -0,0 +1,104 @@
+package uk.ac.qub.eeecs.demos.engine.input;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for input queueing, recording and replay
+ */
+public class InputReplayerTest {
+
+    /**
+     * Listener keeping a description of each event received
+     */
+    private static class Collector implements InputListener {
+        final List<String> events = new ArrayList<String>();
+        long step;
+
+        @Override
+        public void onInput(InputEvent event) {
+            events.add(step + ":" + event.type + ":" + event.x + "," + event.y
+                    + ":" + event.code + ":" + event.values[2]);
+        }
+    }
+
+    @Test
+    public void replay_deliversEventsAtRecordedSteps() throws IOException {
+        InputEventQueue queue = new InputEventQueue(8);
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        InputRecorder recorder = new InputRecorder(log, 60);
+        Collector live = new Collector();
+
+        // Post events between update steps, draining them at each step
+        for (long step = 0; step < 300; step++) {
+            if (step == 3)
+                queue.postTouch(InputEvent.TOUCH_DOWN, 10.5f, 20.0f);
+            if (step == 4)
+                queue.postTouch(InputEvent.TOUCH_MOVE, 11.0f, 21.0f);
+            if (step == 200) {
+                queue.postKey(InputEvent.KEY_DOWN, 62);
+                queue.postSensor(1, 0.1f, 0.2f, 9.8f);
+            }
+            recorder.setStep(step);
+            live.step = step;
+            queue.drain(recorder);
+            queue.drain(live);
+        }
+        recorder.close();
+        assertEquals(4, recorder.getEventCount());
+
+        InputReplayer replayer = new InputReplayer(
+                new ByteArrayInputStream(log.toByteArray()));
+        assertEquals(60, replayer.getUpdatesPerSecond());
+        assertEquals(200, replayer.getLastStep());
+
+        Collector replayed = new Collector();
+        for (long step = 0; !replayer.isFinished(); step++) {
+            replayed.step = step;
+            replayer.replayStep(step, replayed);
+        }
+        assertEquals(4, replayed.events.size());
+        assertEquals("3:1:10.5,20.0:0:0.0", replayed.events.get(0));
+        assertEquals("4:2:11.0,21.0:0:0.0", replayed.events.get(1));
+        assertEquals("200:4:0.0,0.0:62:0.0", replayed.events.get(2));
+        assertEquals("200:6:0.0,0.0:1:9.8", replayed.events.get(3));
+    }
+
+    @Test
+    public void queue_dropsEventsWhenFull() {
+        InputEventQueue queue = new InputEventQueue(2);
+        for (int i = 0; i < 5; i++)
+            queue.postTouch(InputEvent.TOUCH_MOVE, i, i);
+
+        Collector collector = new Collector();
+        assertEquals(2, queue.drain(collector));
+        assertEquals(3, queue.getDroppedEvents());
+        assertEquals(0, queue.drain(collector));
+    }
+
+    @Test(expected = IOException.class)
+    public void replayer_rejectsTruncatedLog() throws IOException {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        InputRecorder recorder = new InputRecorder(log, 60);
+        recorder.onInput(touch());
+        recorder.close();
+
+        byte[] bytes = log.toByteArray();
+        new InputReplayer(new ByteArrayInputStream(bytes, 0, bytes.length - 2));
+    }
+
+    private static InputEvent touch() {
+        InputEvent event = new InputEvent();
+        event.type = InputEvent.TOUCH_DOWN;
+        event.x = 1.0f;
+        event.y = 2.0f;
+        return event;
+    }
+}
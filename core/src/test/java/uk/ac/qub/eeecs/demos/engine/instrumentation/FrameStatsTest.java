@@ -0,0 +1,65 @@
+package uk.ac.qub.eeecs.demos.engine.instrumentation;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the frame statistics
+ */
+public class FrameStatsTest {
+
+    @Test
+    public void markFrame_countsFramesOverBudget() {
+        FrameStats stats = new FrameStats("test", 16000000L);
+        long time = 0;
+        stats.markFrame(time);
+        stats.markFrame(time += 10000000L);
+        stats.markFrame(time += 20000000L);
+        stats.markFrame(time += 16000000L);
+
+        assertEquals(3, stats.getFrameTime().getCount());
+        assertEquals(1, stats.getFramesOverBudget());
+
+        stats.reset();
+        stats.markFrame(time += 50000000L);
+        assertEquals(0, stats.getFrameTime().getCount());
+        assertEquals(0, stats.getFramesOverBudget());
+    }
+
+    @Test
+    public void exportPercentiles_writesNonEmptyHistograms() throws Exception {
+        FrameStats stats = new FrameStats("test", 16000000L);
+        for (int frame = 0; frame <= 100; frame++) {
+            stats.markFrame(frame * 20000000L);
+            stats.recordDraw(5000000L);
+        }
+
+        File file = File.createTempFile("framestats", ".csv");
+        try {
+            stats.exportPercentiles(file);
+
+            List<String> lines = new ArrayList<String>();
+            BufferedReader reader = new BufferedReader(new FileReader(file));
+            try {
+                for (String line = reader.readLine(); line != null; line = reader.readLine())
+                    lines.add(line);
+            } finally {
+                reader.close();
+            }
+
+            assertEquals(3, lines.size());
+            assertEquals("loop,metric,count,p50_ms,p95_ms,p99_ms,max_ms,over_budget", lines.get(0));
+            assertEquals("test,frame,100,20.000,20.000,20.000,20.000,100", lines.get(1));
+            assertEquals("test,draw,101,5.000,5.000,5.000,5.000,", lines.get(2));
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package uk.ac.qub.eeecs.demos.engine.instrumentation;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the log-linear histogram
+ */
+public class HistogramTest {
+
+    @Test
+    public void percentiles_areExactForSmallValues() {
+        Histogram histogram = new Histogram(1000L);
+        for (long value = 1; value <= 100; value++)
+            histogram.record(value);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50, histogram.getValueAtPercentile(50.0));
+        assertEquals(95, histogram.getValueAtPercentile(95.0));
+        assertEquals(99, histogram.getValueAtPercentile(99.0));
+        assertEquals(100, histogram.getValueAtPercentile(100.0));
+        assertEquals(1, histogram.getMin());
+        assertEquals(50.5, histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    public void percentiles_areWithinRelativeErrorForLargeValues() {
+        Histogram histogram = new Histogram(10000000000L);
+        for (long value = 1; value <= 10000; value++)
+            histogram.record(value * 1000L);
+
+        long[] expected = { 5000000L, 9500000L, 9900000L };
+        double[] percentiles = { 50.0, 95.0, 99.0 };
+        for (int idx = 0; idx < percentiles.length; idx++) {
+            long actual = histogram.getValueAtPercentile(percentiles[idx]);
+            assertTrue(actual >= expected[idx]);
+            assertTrue(actual <= expected[idx] * 1.02);
+        }
+        assertEquals(10000000L, histogram.getMax());
+        assertEquals(10000000L, histogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    public void record_clampsOutOfRangeValues() {
+        Histogram histogram = new Histogram(1000L);
+        histogram.record(-5L);
+        histogram.record(5000L);
+
+        assertEquals(0, histogram.getMin());
+        assertEquals(1000, histogram.getMax());
+    }
+
+    @Test
+    public void reset_removesAllValues() {
+        Histogram histogram = new Histogram(1000L);
+        histogram.record(10L);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50.0));
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void record_doesNotAllocate() {
+        Histogram histogram = new Histogram(10000000000L);
+        for (long value = 0; value < 10000; value++)
+            histogram.record(value * 7919L);
+
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (long value = 0; value < 100000; value++)
+            histogram.record(value * 7919L);
+        long after = threadBean.getThreadAllocatedBytes(threadId);
+
+        // Allow a little slack for the measurement itself
+        assertTrue("Allocated " + (after - before), after - before < 1024);
+    }
+}
@@ -0,0 +1,73 @@
+package uk.ac.qub.eeecs.demos.engine.loop;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the producer/consumer triple buffer
+ */
+public class TripleBufferTest {
+
+    private static class Frame {
+        long value = -1;
+    }
+
+    @Test
+    public void acquire_returnsLatestPublishedBuffer() {
+        TripleBuffer<Frame> buffer = new TripleBuffer<Frame>(new Frame(), new Frame(), new Frame());
+
+        buffer.getBack().value = 1;
+        buffer.publish();
+        buffer.getBack().value = 2;
+        buffer.publish();
+
+        assertEquals(2, buffer.acquire().value);
+        assertEquals(1, buffer.getSkippedCount());
+
+        // Nothing new published, so the same buffer is returned again
+        assertEquals(2, buffer.acquire().value);
+    }
+
+    @Test
+    public void publish_neverHandsProducerTheConsumersBuffer() {
+        TripleBuffer<Frame> buffer = new TripleBuffer<Frame>(new Frame(), new Frame(), new Frame());
+
+        for (int frame = 0; frame < 100; frame++) {
+            buffer.getBack().value = frame;
+            buffer.publish();
+            Frame front = buffer.acquire();
+            assertNotSame(front, buffer.getBack());
+            assertEquals(frame, front.value);
+        }
+    }
+
+    @Test
+    public void concurrentUse_consumerSeesMonotonicCompleteFrames() throws Exception {
+        final TripleBuffer<long[]> buffer = new TripleBuffer<long[]>(
+                new long[2], new long[2], new long[2]);
+        final int frames = 200000;
+
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (long frame = 1; frame <= frames; frame++) {
+                    long[] back = buffer.getBack();
+                    back[0] = frame;
+                    back[1] = -frame;
+                    buffer.publish();
+                }
+            }
+        });
+        producer.start();
+
+        long previous = 0;
+        while (previous < frames) {
+            long[] front = buffer.acquire();
+            assertEquals(front[0], -front[1]);
+            assertTrue(front[0] >= previous);
+            previous = front[0];
+        }
+        producer.join();
+    }
+}
@@ -0,0 +1,46 @@
+package uk.ac.qub.eeecs.demos.engine.math;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the trigonometric lookup table
+ */
+public class TrigTableTest {
+
+    private static void assertWithinBound(TrigTable table) {
+        float bound = table.getErrorBound();
+        for (int step = -36000; step <= 36000; step++) {
+            float degrees = step * 0.01f;
+            double radians = Math.toRadians(degrees);
+            assertEquals(Math.sin(radians), table.sinDegrees(degrees), bound);
+            assertEquals(Math.cos(radians), table.cosDegrees(degrees), bound);
+
+            // Compare against the float angle actually passed in
+            float floatRadians = (float) radians;
+            assertEquals(Math.sin(floatRadians), table.sin(floatRadians), bound);
+            assertEquals(Math.cos(floatRadians), table.cos(floatRadians), bound);
+        }
+    }
+
+    @Test
+    public void lookup_isWithinErrorBound() {
+        assertWithinBound(new TrigTable(1024));
+        assertWithinBound(new TrigTable(FastMath.DEFAULT_TABLE_SIZE));
+        assertTrue(FastMath.getTrigErrorBound() < 2e-6f);
+    }
+
+    @Test
+    public void lookup_isExactAtTableEntries() {
+        TrigTable table = new TrigTable(64);
+        assertEquals(0.0f, table.sinDegrees(0.0f), 0.0f);
+        assertEquals(1.0f, table.sinDegrees(90.0f), 0.0f);
+        assertEquals(-1.0f, table.cosDegrees(-180.0f), 1e-7f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsSizeThatIsNotPowerOfTwo() {
+        new TrigTable(1000);
+    }
+}
@@ -0,0 +1,60 @@
+package uk.ac.qub.eeecs.demos.engine.parallax;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for parallax layer strip sizing and spans
+ */
+public class ParallaxLayerTest {
+
+    @Test
+    public void getStripTileCount_coversViewportAndPairsMirroredTiles() {
+        ParallaxLayer repeat = new ParallaxLayer(1.0f, ParallaxLayer.WrapMode.Repeat);
+        ParallaxLayer mirror = new ParallaxLayer(1.0f, ParallaxLayer.WrapMode.Mirror);
+
+        assertEquals(1, repeat.getStripTileCount(3000, 2560));
+        assertEquals(6, repeat.getStripTileCount(500, 2560));
+        assertEquals(2, mirror.getStripTileCount(3000, 2560));
+        assertEquals(6, mirror.getStripTileCount(500, 2560));
+    }
+
+    @Test
+    public void computeSpans_wrapsAtMostOnceForAnyScroll() {
+        ParallaxLayer layer = new ParallaxLayer(0.5f, ParallaxLayer.WrapMode.Repeat);
+        int[] spans = new int[ParallaxLayer.MAX_SPANS * ParallaxLayer.SPAN_STRIDE];
+        int stripWidth = 3000;
+        int viewportWidth = 2560;
+
+        for (int scroll = -20000; scroll <= 20000; scroll += 37) {
+            int count = layer.computeSpans(scroll, viewportWidth, stripWidth, spans);
+            assertTrue(count >= 1 && count <= ParallaxLayer.MAX_SPANS);
+
+            int covered = 0;
+            for (int span = 0; span < count; span++) {
+                int offset = span * ParallaxLayer.SPAN_STRIDE;
+                assertEquals(covered, spans[offset + 1]);
+                assertTrue(spans[offset] + spans[offset + 2] <= stripWidth);
+                covered += spans[offset + 2];
+            }
+            assertEquals(viewportWidth, covered);
+        }
+
+        layer.computeSpans(-100.0f, viewportWidth, stripWidth, spans);
+        assertEquals(2950, spans[0]);
+        assertEquals(50, spans[2]);
+    }
+
+    @Test
+    public void computeSpans_clipsUnwrappedLayer() {
+        ParallaxLayer layer = new ParallaxLayer(1.0f, ParallaxLayer.WrapMode.None);
+        int[] spans = new int[ParallaxLayer.MAX_SPANS * ParallaxLayer.SPAN_STRIDE];
+
+        assertEquals(1, layer.computeSpans(-200.0f, 1000, 600, spans));
+        assertEquals(0, spans[0]);
+        assertEquals(200, spans[1]);
+        assertEquals(600, spans[2]);
+        assertEquals(0, layer.computeSpans(600.0f, 1000, 600, spans));
+    }
+}
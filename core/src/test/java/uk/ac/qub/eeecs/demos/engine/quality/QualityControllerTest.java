@@ -0,0 +1,65 @@
+package uk.ac.qub.eeecs.demos.engine.quality;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the adaptive quality controller
+ */
+public class QualityControllerTest {
+
+    private static final long BUDGET = 16000000L;
+
+    private static void record(QualityController controller, long workTime, int frames) {
+        for (int i = 0; i < frames; i++)
+            controller.recordFrame(workTime);
+    }
+
+    @Test
+    public void sustainedOverload_lowersQuality() {
+        QualityController controller = new QualityController(BUDGET);
+        record(controller, BUDGET * 2, QualityController.DOWNGRADE_FRAMES);
+
+        assertEquals(1, controller.getLevel());
+        assertEquals(0.75f, controller.getSpawnScale(), 0.0f);
+        assertTrue(controller.isBatchedRendering());
+    }
+
+    @Test
+    public void singleSlowFrame_isIgnored() {
+        QualityController controller = new QualityController(BUDGET);
+        record(controller, BUDGET / 2, 100);
+        controller.recordFrame(BUDGET * 3);
+        record(controller, BUDGET / 2, 100);
+
+        assertEquals(0, controller.getLevel());
+    }
+
+    @Test
+    public void recovery_requiresHeadroomForLongerThanDowngrade() {
+        QualityController controller = new QualityController(BUDGET);
+        record(controller, BUDGET * 2, QualityController.DOWNGRADE_FRAMES);
+        assertEquals(1, controller.getLevel());
+
+        // Work within the hysteresis band never changes the level
+        record(controller, (long) (BUDGET * 0.75f), 1000);
+        assertEquals(1, controller.getLevel());
+
+        // Ample headroom raises the level, but only after the cooldown and
+        // the upgrade period have passed
+        record(controller, BUDGET / 4, QualityController.UPGRADE_FRAMES / 2);
+        assertEquals(1, controller.getLevel());
+        record(controller, BUDGET / 4, QualityController.UPGRADE_FRAMES);
+        assertEquals(0, controller.getLevel());
+        assertEquals(2, controller.getLevelChanges());
+    }
+
+    @Test
+    public void level_isClampedToLowestQuality() {
+        QualityController controller = new QualityController(BUDGET);
+        record(controller, BUDGET * 10, 10000);
+
+        assertEquals(controller.getLevelCount() - 1, controller.getLevel());
+    }
+}
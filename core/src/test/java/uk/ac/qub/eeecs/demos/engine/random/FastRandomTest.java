@@ -0,0 +1,85 @@
+package uk.ac.qub.eeecs.demos.engine.random;
+
+import org.junit.Test;
+
+import uk.ac.qub.eeecs.demos.particle.ParticleSettings;
+import uk.ac.qub.eeecs.demos.particle.ParticleSpawner;
+import uk.ac.qub.eeecs.demos.particle.ParticleStore;
+import uk.ac.qub.eeecs.demos.particle.Vector2;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the splittable random generator
+ */
+public class FastRandomTest {
+
+    @Test
+    public void sameSeed_producesSameSequence() {
+        FastRandom a = new FastRandom(1234L);
+        FastRandom b = new FastRandom(1234L);
+        for (int i = 0; i < 1000; i++)
+            assertEquals(a.nextLong(), b.nextLong());
+
+        // Reseeding restarts the sequence
+        a.setSeed(99L);
+        b.setSeed(99L);
+        assertEquals(a.nextFloat(), b.nextFloat(), 0.0f);
+    }
+
+    @Test
+    public void split_isReproducibleAndIndependent() {
+        FastRandom parent1 = new FastRandom(5L);
+        FastRandom parent2 = new FastRandom(5L);
+        FastRandom child1 = parent1.split();
+        FastRandom child2 = parent2.split();
+
+        boolean differs = false;
+        for (int i = 0; i < 100; i++) {
+            long value = child1.nextLong();
+            assertEquals(value, child2.nextLong());
+            differs |= value != parent1.nextLong();
+        }
+        assertTrue(differs);
+    }
+
+    @Test
+    public void values_fallWithinRange() {
+        FastRandom random = new FastRandom(42L);
+        int[] counts = new int[10];
+        for (int i = 0; i < 100000; i++) {
+            float f = random.nextFloat();
+            assertTrue(f >= 0.0f && f < 1.0f);
+            double d = random.nextDouble();
+            assertTrue(d >= 0.0 && d < 1.0);
+            counts[random.nextInt(10)]++;
+        }
+
+        // Each bucket should hold roughly a tenth of the values
+        for (int count : counts)
+            assertTrue(Math.abs(count - 10000) < 500);
+    }
+
+    @Test
+    public void spawner_isReproducibleFromSeed() {
+        ParticleStore first = spawn(77L);
+        ParticleStore second = spawn(77L);
+
+        assertEquals(first.size(), second.size());
+        for (int idx = 0; idx < first.size(); idx++) {
+            assertEquals(first.velocityX[idx], second.velocityX[idx], 0.0f);
+            assertEquals(first.velocityY[idx], second.velocityY[idx], 0.0f);
+            assertEquals(first.lifeSpan[idx], second.lifeSpan[idx], 0.0f);
+        }
+    }
+
+    private static ParticleStore spawn(long seed) {
+        ParticleStore store = new ParticleStore(16);
+        ParticleSpawner spawner = new ParticleSpawner(
+                ParticleSettings.Explosion, new FastRandom(seed));
+        Vector2 location = new Vector2(100.0f, 100.0f);
+        for (int i = 0; i < 5; i++)
+            spawner.addParticles(store, location, location);
+        return store;
+    }
+}
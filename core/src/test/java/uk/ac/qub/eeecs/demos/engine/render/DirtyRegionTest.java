@@ -0,0 +1,76 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+import org.junit.Test;
+
+import uk.ac.qub.eeecs.demos.engine.viewport.IntRect;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for dirty region tracking
+ */
+public class DirtyRegionTest {
+
+    @Test
+    public void mark_mergesOverlapsAndKeepsDisjointRects() {
+        DirtyRegion region = new DirtyRegion(0.5f);
+        assertTrue(region.isEmpty());
+
+        region.mark(0, 0, 10, 10);
+        region.mark(100, 100, 110, 110);
+        region.mark(5, 5, 20, 20);
+        region.mark(0, 0, 0, 50);
+
+        assertEquals(2, region.getRectCount());
+        assertEquals(20 * 20 + 10 * 10, region.getArea());
+
+        IntRect bounds = new IntRect();
+        region.getBounds(bounds);
+        assertEquals(0, bounds.left);
+        assertEquals(110, bounds.bottom);
+        assertFalse(region.needsFullRedraw(1000, 1000));
+    }
+
+    @Test
+    public void mark_mergesClosestRectsOnceFull() {
+        DirtyRegion region = new DirtyRegion(0.5f);
+        for (int idx = 0; idx <= DirtyRegion.MAX_RECTS; idx++)
+            region.mark(idx * 100, 0, idx * 100 + 10, 10);
+        region.mark(895, 0, 905, 10);
+
+        assertTrue(region.getRectCount() <= DirtyRegion.MAX_RECTS);
+        IntRect rect = new IntRect();
+        long area = 0;
+        for (int idx = 0; idx < region.getRectCount(); idx++) {
+            region.getRect(idx, rect);
+            area += (long) rect.width() * rect.height();
+        }
+        assertEquals(region.getArea(), area);
+    }
+
+    @Test
+    public void needsFullRedraw_whenCoverageCrossesThresholdOrAllMarked() {
+        DirtyRegion region = new DirtyRegion(0.25f);
+        region.mark(0, 0, 50, 50);
+        assertFalse(region.needsFullRedraw(100, 100));
+        region.mark(50, 50, 60, 60);
+        assertTrue(region.needsFullRedraw(100, 100));
+
+        // Small rects in opposite corners cover little of the view, but
+        // their bounds cover all of it
+        region.clear();
+        region.mark(0, 0, 10, 10);
+        region.mark(90, 90, 100, 100);
+        assertFalse(region.needsFullRedraw(100, 100));
+        assertTrue(region.boundsNeedFullRedraw(100, 100));
+
+        region.clear();
+        assertTrue(region.isEmpty());
+        assertFalse(region.boundsNeedFullRedraw(100, 100));
+        region.markAll();
+        region.mark(0, 0, 1, 1);
+        assertFalse(region.isEmpty());
+        assertTrue(region.needsFullRedraw(100, 100));
+        assertTrue(region.boundsNeedFullRedraw(100, 100));
+    }
+}
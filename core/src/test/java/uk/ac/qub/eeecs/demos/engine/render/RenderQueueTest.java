@@ -0,0 +1,74 @@
+package uk.ac.qub.eeecs.demos.engine.render;
+
+import org.junit.Test;
+
+import uk.ac.qub.eeecs.demos.particle.ParticleStore;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for render command sorting and batching
+ */
+public class RenderQueueTest {
+
+    private static ParticleStore particles(int count) {
+        ParticleStore store = new ParticleStore(count);
+        for (int idx = 0; idx < count; idx++)
+            store.add(idx, idx, 0, 0, 0, 0, 0, 0, 1, 0, 1);
+        return store;
+    }
+
+    @Test
+    public void flush_sortsByLayerThenTextureAndMergesBatches() {
+        HeadlessTextureSource textures = new HeadlessTextureSource(16, 16);
+        Texture spark = textures.acquire("spark");
+        Texture smoke = textures.acquire("smoke");
+        Texture button = textures.acquire("button");
+
+        RenderQueue queue = new RenderQueue();
+        queue.clear(0xFF000000);
+        queue.setLayer(1);
+        queue.drawImage(button, 0, 0, 16, 16);
+        queue.setLayer(0);
+        queue.drawParticles(particles(3), spark, true, true, 0.5f);
+        queue.drawParticles(particles(4), smoke, false, true, 0.5f);
+        queue.drawParticles(particles(5), spark, true, true, 0.5f);
+        queue.drawParticles(particles(6), smoke, false, true, 0.5f);
+
+        RecordingRenderBackend target = new RecordingRenderBackend();
+        queue.flush(target);
+
+        // Clear first, then one merged draw per texture, then the overlay
+        assertEquals(4, target.getCommandCount());
+        assertEquals(RecordingRenderBackend.CLEAR, target.getCommandType(0));
+        assertSame(spark, target.getCommandTexture(1));
+        assertEquals(8, target.getCommandParticleCount(1));
+        assertSame(smoke, target.getCommandTexture(2));
+        assertEquals(10, target.getCommandParticleCount(2));
+        assertEquals(RecordingRenderBackend.DRAW_IMAGE, target.getCommandType(3));
+
+        assertEquals(5, queue.getCommandCount());
+        assertEquals(4, queue.getSubmissionCount());
+        assertEquals(3, queue.getStateChangeCount());
+        assertEquals(5, queue.getUnsortedStateChangeCount());
+    }
+
+    @Test
+    public void flush_keepsPerParticleDrawsSeparateAndEmptiesQueue() {
+        Texture spark = new HeadlessTextureSource(16, 16).acquire("spark");
+        RenderQueue queue = new RenderQueue();
+        queue.drawParticles(particles(3), spark, false, false, 1.0f);
+        queue.drawParticles(particles(2), spark, false, false, 1.0f);
+
+        RecordingRenderBackend target = new RecordingRenderBackend();
+        queue.flush(target);
+        assertEquals(2, target.getCommandCount());
+        assertEquals(5, queue.getDrawCallCount());
+        assertEquals(1, queue.getStateChangeCount());
+
+        target.reset();
+        queue.flush(target);
+        assertEquals(0, target.getCommandCount());
+        assertEquals(0, queue.getCommandCount());
+    }
+}
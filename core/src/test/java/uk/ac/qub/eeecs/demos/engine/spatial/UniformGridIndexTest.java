@@ -0,0 +1,93 @@
+package uk.ac.qub.eeecs.demos.engine.spatial;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import uk.ac.qub.eeecs.demos.engine.viewport.Box;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests comparing grid index queries against a linear scan
+ */
+public class UniformGridIndexTest {
+
+    private static boolean overlaps(Box a, Box b) {
+        return a.x - a.width / 2 < b.x + b.width / 2 && a.x + a.width / 2 > b.x - b.width / 2
+                && a.y - a.height / 2 < b.y + b.height / 2 && a.y + a.height / 2 > b.y - b.height / 2;
+    }
+
+    private static void assertMatchesLinearScan(UniformGridIndex index, Box[] boxes, boolean[] present, Box region) {
+        int count = index.query(region);
+        int[] actual = Arrays.copyOf(index.getResults(), count);
+        Arrays.sort(actual);
+
+        int[] expected = new int[boxes.length];
+        int expectedCount = 0;
+        for (int id = 0; id < boxes.length; id++)
+            if (present[id] && overlaps(boxes[id], region))
+                expected[expectedCount++] = id;
+
+        assertArrayEquals(Arrays.copyOf(expected, expectedCount), actual);
+    }
+
+    private static Box randomBox(Random random) {
+        return new Box(random.nextFloat() * 4000.0f - 2000.0f, random.nextFloat() * 4000.0f - 2000.0f,
+                random.nextFloat() * 400.0f + 1.0f, random.nextFloat() * 400.0f + 1.0f);
+    }
+
+    @Test
+    public void query_matchesLinearScanThroughUpdatesAndRemovals() {
+        Random random = new Random(7L);
+        int numBoxes = 2000;
+        Box[] boxes = new Box[numBoxes];
+        boolean[] present = new boolean[numBoxes];
+
+        UniformGridIndex index = new UniformGridIndex(250.0f);
+        for (int id = 0; id < numBoxes; id++) {
+            boxes[id] = randomBox(random);
+            index.insert(id, boxes[id]);
+            present[id] = true;
+        }
+        assertEquals(numBoxes, index.size());
+
+        for (int step = 0; step < 50; step++) {
+            // Move some boxes a little and others a long way, and remove some
+            for (int change = 0; change < 100; change++) {
+                int id = random.nextInt(numBoxes);
+                if (random.nextInt(10) == 0) {
+                    index.remove(id);
+                    present[id] = false;
+                } else if (present[id]) {
+                    boxes[id].x += random.nextBoolean() ? 5.0f : 1500.0f;
+                    index.update(id, boxes[id]);
+                } else {
+                    index.insert(id, boxes[id]);
+                    present[id] = true;
+                }
+            }
+
+            assertMatchesLinearScan(index, boxes, present, randomBox(random));
+        }
+    }
+
+    @Test
+    public void query_returnsEachEntityOnceWhenSpanningCells() {
+        UniformGridIndex index = new UniformGridIndex(10.0f);
+        index.insert(3, new Box(0, 0, 100, 100));
+
+        assertEquals(1, index.query(new Box(0, 0, 200, 200)));
+        assertEquals(3, index.getResults()[0]);
+    }
+
+    @Test
+    public void query_excludesBoundsThatOnlyTouch() {
+        UniformGridIndex index = new UniformGridIndex(10.0f);
+        index.insert(0, 0.0f, 0.0f, 10.0f, 10.0f);
+
+        assertEquals(0, index.query(10.0f, 0.0f, 20.0f, 10.0f));
+        assertEquals(1, index.query(9.0f, 0.0f, 20.0f, 10.0f));
+    }
+}
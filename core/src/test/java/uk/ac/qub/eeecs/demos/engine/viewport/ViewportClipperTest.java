@@ -0,0 +1,56 @@
+package uk.ac.qub.eeecs.demos.engine.viewport;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the layer to screen viewport clipping
+ */
+public class ViewportClipperTest {
+
+    private final Box layerViewport = new Box(150, 150, 300, 300);
+    private final IntRect sourceRect = new IntRect();
+    private final IntRect screenRect = new IntRect();
+
+    @Test
+    public void fullyVisibleEntity_mapsWholeBitmap() {
+        Box entity = new Box(150, 150, 100, 50);
+
+        assertTrue(ViewportClipper.getSourceAndScreenRect(entity, 200, 100,
+                layerViewport, 10, 20, 600, 600, sourceRect, screenRect));
+
+        assertRect(0, 0, 200, 100, sourceRect);
+        // Layer is scaled by two onto the screen and positive y is flipped
+        assertRect(10 + 200, 20 + 250, 10 + 400, 20 + 350, screenRect);
+    }
+
+    @Test
+    public void partiallyVisibleEntity_isClippedToViewport() {
+        // Entity overhangs the left and top edges of the layer viewport
+        Box entity = new Box(0, 300, 100, 100);
+
+        assertTrue(ViewportClipper.getSourceAndScreenRect(entity, 100, 100,
+                layerViewport, 0, 0, 300, 300, sourceRect, screenRect));
+
+        assertRect(50, 50, 100, 100, sourceRect);
+        assertRect(0, 0, 50, 50, screenRect);
+    }
+
+    @Test
+    public void entityOutsideViewport_isNotVisible() {
+        Box entity = new Box(500, 150, 100, 100);
+        sourceRect.set(1, 2, 3, 4);
+
+        assertFalse(ViewportClipper.getSourceAndScreenRect(entity, 100, 100,
+                layerViewport, 0, 0, 300, 300, sourceRect, screenRect));
+        assertRect(1, 2, 3, 4, sourceRect);
+    }
+
+    private static void assertRect(int left, int top, int right, int bottom, IntRect rect) {
+        assertEquals(left, rect.left);
+        assertEquals(top, rect.top);
+        assertEquals(right, rect.right);
+        assertEquals(bottom, rect.bottom);
+    }
+}
@@ -0,0 +1,96 @@
+package uk.ac.qub.eeecs.demos.engine.viewport;
+
+import org.junit.Test;
+
+import uk.ac.qub.eeecs.demos.engine.spatial.UniformGridIndex;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for gathering visible entities once and drawing them into
+ * several screen viewports
+ */
+public class VisibleSetTest {
+
+    private static final int BITMAP_WIDTH = 218;
+    private static final int BITMAP_HEIGHT = 150;
+
+    @Test
+    public void screenRects_matchClippingEachViewportSeparately() {
+        Box[] platforms = new Box[100];
+        UniformGridIndex index = new UniformGridIndex(300);
+        for (int idx = 0; idx < platforms.length; idx++) {
+            platforms[idx] = new Box(BITMAP_WIDTH / 2 + idx * BITMAP_WIDTH,
+                    BITMAP_HEIGHT / 2 + idx * BITMAP_HEIGHT, BITMAP_WIDTH, BITMAP_HEIGHT);
+            index.insert(idx, platforms[idx]);
+        }
+
+        IntRect[] screenViewports = { new IntRect(50, 50, 500, 100),
+                new IntRect(550, 50, 700, 200), new IntRect(0, 0, 1080, 1080) };
+        Box layerViewport = new Box(150, 150, 300, 300);
+        ScreenTransform[] transforms = new ScreenTransform[screenViewports.length];
+        for (int view = 0; view < screenViewports.length; view++) {
+            transforms[view] = new ScreenTransform();
+            transforms[view].set(screenViewports[view], layerViewport.width, layerViewport.height);
+        }
+
+        VisibleSet visible = new VisibleSet();
+        IntRect expectedSource = new IntRect();
+        IntRect expectedScreen = new IntRect();
+        IntRect source = new IntRect();
+        IntRect screen = new IntRect();
+        for (int step = 0; step < 500; step++) {
+            layerViewport.x += 13.0f;
+            layerViewport.y += 13.0f * BITMAP_HEIGHT / BITMAP_WIDTH;
+            visible.gather(layerViewport, index, platforms, BITMAP_WIDTH, BITMAP_HEIGHT);
+
+            for (int view = 0; view < screenViewports.length; view++) {
+                IntRect viewport = screenViewports[view];
+                int expectedCount = 0;
+                for (int id = 0; id < platforms.length; id++) {
+                    if (!ViewportClipper.getSourceAndScreenRect(platforms[id],
+                            BITMAP_WIDTH, BITMAP_HEIGHT, layerViewport,
+                            viewport.left, viewport.top, viewport.width(), viewport.height(),
+                            expectedSource, expectedScreen))
+                        continue;
+
+                    assertEquals(id, visible.getId(expectedCount));
+                    visible.getSourceRect(expectedCount, source);
+                    visible.getScreenRect(expectedCount, transforms[view], screen);
+                    assertRect(expectedSource, source);
+                    assertRect(expectedScreen, screen);
+                    expectedCount++;
+                }
+                assertEquals(expectedCount, visible.size());
+            }
+        }
+    }
+
+    @Test
+    public void split_coversRegionWithNearSquareViewports() {
+        IntRect[] viewports = new IntRect[3];
+        for (int idx = 0; idx < viewports.length; idx++)
+            viewports[idx] = new IntRect();
+
+        ViewportLayout.split(3, new IntRect(0, 0, 1000, 1000), 10, viewports);
+
+        // Two rows: two viewports above and one widened below
+        assertEquals(0, viewports[0].left);
+        assertEquals(495, viewports[0].right);
+        assertEquals(505, viewports[1].left);
+        assertEquals(495, viewports[1].bottom);
+        assertEquals(505, viewports[2].top);
+        assertEquals(1000, viewports[2].width());
+
+        ViewportLayout.split(2, new IntRect(0, 0, 2000, 800), 0, viewports);
+        assertEquals(1000, viewports[0].width());
+        assertEquals(800, viewports[1].height());
+    }
+
+    private static void assertRect(IntRect expected, IntRect actual) {
+        assertEquals(expected.left, actual.left);
+        assertEquals(expected.top, actual.top);
+        assertEquals(expected.right, actual.right);
+        assertEquals(expected.bottom, actual.bottom);
+    }
+}
@@ -0,0 +1,64 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests comparing the parallel and serial particle update paths
+ */
+public class ParallelParticleUpdaterTest {
+
+    private static ParticleStore createStore(long seed, int numParticles) {
+        Random random = new Random(seed);
+        ParticleStore store = new ParticleStore(numParticles);
+        for (int idx = 0; idx < numParticles; idx++) {
+            store.add(random.nextFloat() * 1000.0f, random.nextFloat() * 1000.0f,
+                    random.nextFloat() * 200.0f - 100.0f, random.nextFloat() * 200.0f - 100.0f,
+                    random.nextFloat() * 20.0f - 10.0f, random.nextFloat() * 20.0f - 10.0f,
+                    random.nextFloat() * 360.0f, random.nextFloat() * 90.0f - 45.0f,
+                    random.nextFloat() + 0.5f, random.nextFloat() * 0.2f,
+                    random.nextFloat() * 3.0f);
+        }
+        return store;
+    }
+
+    private static void assertBitwiseEqual(float[] expected, float[] actual, int count) {
+        for (int idx = 0; idx < count; idx++)
+            assertEquals("Index " + idx, Float.floatToRawIntBits(expected[idx]),
+                    Float.floatToRawIntBits(actual[idx]));
+    }
+
+    @Test
+    public void update_matchesSerialPathBitForBit() {
+        int numParticles = 20000;
+        ParticleStore serial = createStore(42L, numParticles);
+        ParticleStore parallel = createStore(42L, numParticles);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelParticleUpdater updater = new ParallelParticleUpdater(pool, 512);
+        try {
+            for (int frame = 0; frame < 60; frame++) {
+                serial.update(1.0f / 30.0f, 0.0f, 9.8f);
+                updater.update(parallel, 1.0f / 30.0f, 0.0f, 9.8f);
+
+                assertEquals(serial.size(), parallel.size());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        int count = serial.size();
+        assertTrue(count > 0 && count < numParticles);
+        assertBitwiseEqual(serial.positionX, parallel.positionX, count);
+        assertBitwiseEqual(serial.positionY, parallel.positionY, count);
+        assertBitwiseEqual(serial.velocityX, parallel.velocityX, count);
+        assertBitwiseEqual(serial.velocityY, parallel.velocityY, count);
+        assertBitwiseEqual(serial.orientation, parallel.orientation, count);
+        assertBitwiseEqual(serial.scale, parallel.scale, count);
+        assertBitwiseEqual(serial.timeSinceBirth, parallel.timeSinceBirth, count);
+    }
+}
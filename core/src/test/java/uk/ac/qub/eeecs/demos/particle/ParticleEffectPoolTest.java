@@ -0,0 +1,127 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+import uk.ac.qub.eeecs.demos.engine.render.HeadlessTextureSource;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the particle effect pool
+ */
+public class ParticleEffectPoolTest {
+
+    private static final float STEP_TIME = 1.0f / 60.0f;
+
+    /**
+     * Create a pool with the specified number of explosion emitters. Each
+     * explosion is a single burst of 50 to 60 particles living for at most
+     * one second.
+     */
+    private static ParticleEffectPool createPool(int particleBudget, int emitters) {
+        ParticleEffectPool pool = new ParticleEffectPool(
+                new HeadlessTextureSource(32, 32), particleBudget, 7L);
+        pool.reserve(ParticleSettings.Explosion, emitters);
+        return pool;
+    }
+
+    @Test
+    public void update_scalesSpawnsDownBetweenSoftLimitAndBudget() {
+        // One burst of 50-60 particles lies between the soft limit (48) and
+        // the budget (64)
+        ParticleEffectPool pool = createPool(64, 1);
+        assertEquals(1.0f, pool.getSpawnScale(), 0.0f);
+        pool.spawn(ParticleSettings.Explosion, 100.0f, 100.0f);
+        pool.update(STEP_TIME);
+
+        int count = pool.getParticleCount();
+        float softLimit = 64 * ParticleEffectPool.SOFT_LIMIT_FRACTION;
+        assertTrue(count > softLimit && count < 64);
+        assertEquals((64 - count) / (64 - softLimit), pool.getSpawnScale(), 1e-6f);
+    }
+
+    @Test
+    public void update_stopsSpawningAtBudget() {
+        // Two bursts of 50-60 particles reach a budget of 100
+        ParticleEffectPool pool = createPool(100, 3);
+        pool.spawn(ParticleSettings.Explosion, 100.0f, 100.0f);
+        pool.spawn(ParticleSettings.Explosion, 200.0f, 200.0f);
+        pool.update(STEP_TIME);
+
+        int count = pool.getParticleCount();
+        assertTrue(count >= 100);
+        assertEquals(0.0f, pool.getSpawnScale(), 0.0f);
+
+        // An effect spawned at the budget creates no particles (and no
+        // particle dies within a step)
+        assertTrue(pool.spawn(ParticleSettings.Explosion, 300.0f, 300.0f));
+        pool.update(STEP_TIME);
+        assertEquals(count, pool.getParticleCount());
+    }
+
+    @Test
+    public void spawn_dropsWhenAllEmittersPlayingAndRecyclesIdleEmitters() {
+        ParticleEffectPool pool = createPool(1000, 2);
+        assertTrue(pool.spawn(ParticleSettings.Explosion, 100.0f, 100.0f));
+        assertTrue(pool.spawn(ParticleSettings.Explosion, 200.0f, 200.0f));
+        assertFalse(pool.spawn(ParticleSettings.Explosion, 300.0f, 300.0f));
+        assertEquals(2, pool.getActiveEffectCount());
+        assertEquals(1, pool.getDroppedSpawns());
+
+        // Once every particle has expired the emitters are idle again
+        for (int step = 0; step < 90; step++)
+            pool.update(STEP_TIME);
+        assertEquals(0, pool.getActiveEffectCount());
+        assertEquals(0, pool.getParticleCount());
+
+        assertTrue(pool.spawn(ParticleSettings.Explosion, 100.0f, 100.0f));
+        assertTrue(pool.spawn(ParticleSettings.Explosion, 200.0f, 200.0f));
+        assertEquals(1, pool.getDroppedSpawns());
+    }
+
+    @Test
+    public void spawnUpdateAndSnapshot_doNotAllocateInSteadyState() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        ParticleEffectPool pool = createPool(1000, 3);
+        ParticleWorldSnapshot snapshot = new ParticleWorldSnapshot();
+
+        // Warm up so every emitter and snapshot has grown to its steady
+        // state size and the paths are compiled before measuring
+        for (int frame = 0; frame < 2000; frame++)
+            simulateFrame(pool, snapshot, frame);
+
+        // Determine the cost of the measurement itself
+        long baselineStart = threadBean.getThreadAllocatedBytes(threadId);
+        long baselineEnd = threadBean.getThreadAllocatedBytes(threadId);
+        long measurementOverhead = baselineEnd - baselineStart;
+
+        long droppedBefore = pool.getDroppedSpawns();
+        long start = threadBean.getThreadAllocatedBytes(threadId);
+        for (int frame = 0; frame < 1000; frame++)
+            simulateFrame(pool, snapshot, frame);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - start;
+
+        // Spawns were dropped as well as played during the measurement
+        assertTrue(pool.getDroppedSpawns() > droppedBefore);
+        assertTrue("Allocated " + allocated + " bytes",
+                allocated <= measurementOverhead);
+    }
+
+    /**
+     * Spawn an explosion every 15 frames (more often than the three
+     * emitters can play them), update the pool and take a snapshot
+     */
+    private static void simulateFrame(ParticleEffectPool pool,
+                                      ParticleWorldSnapshot snapshot, int frame) {
+        if (frame % 15 == 0)
+            pool.spawn(ParticleSettings.Explosion, frame % 400, 200.0f);
+        pool.update(STEP_TIME);
+        snapshot.clear();
+        pool.snapshot(snapshot);
+    }
+}
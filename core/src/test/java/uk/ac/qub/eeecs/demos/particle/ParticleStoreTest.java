@@ -0,0 +1,132 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the structure-of-arrays particle store
+ */
+public class ParticleStoreTest {
+
+    private static int addParticle(ParticleStore store, float x, float lifeSpan) {
+        return store.add(x, 0.0f, 1.0f, 2.0f, 0.5f, 0.25f,
+                0.0f, 10.0f, 1.0f, 0.1f, lifeSpan);
+    }
+
+    @Test
+    public void update_integratesParticles() {
+        ParticleStore store = new ParticleStore(4);
+        addParticle(store, 0.0f, 10.0f);
+
+        store.update(0.5f, 0.0f, 1.0f);
+
+        // Gravity is scaled by the time step and added to the velocity
+        // before it is integrated
+        assertEquals(1.25f, store.velocityX[0], 0.0f);
+        assertEquals(2.625f, store.velocityY[0], 0.0f);
+        assertEquals(0.625f, store.positionX[0], 0.0f);
+        assertEquals(1.3125f, store.positionY[0], 0.0f);
+        assertEquals(5.0f, store.orientation[0], 0.0f);
+        assertEquals(1.05f, store.scale[0], 1e-6f);
+        assertEquals(0.5f, store.timeSinceBirth[0], 0.0f);
+    }
+
+    @Test
+    public void update_swapRemovesDeadParticles() {
+        ParticleStore store = new ParticleStore(4);
+        addParticle(store, 0.0f, 0.5f);     // dies
+        addParticle(store, 1.0f, 10.0f);
+        addParticle(store, 2.0f, 0.5f);     // dies
+        addParticle(store, 3.0f, 10.0f);
+
+        store.update(1.0f, 0.0f, 0.0f);
+
+        assertEquals(2, store.size());
+        for (int idx = 0; idx < store.size(); idx++) {
+            assertTrue(store.isAlive(idx));
+            assertEquals(1.0f, store.timeSinceBirth[idx], 0.0f);
+        }
+
+        // The surviving particles are packed at the front of the store
+        float x0 = store.positionX[0] - 1.5f;
+        float x1 = store.positionX[1] - 1.5f;
+        assertEquals(4.0f, x0 + x1, 1e-6f);
+    }
+
+    @Test
+    public void add_growsCapacity() {
+        ParticleStore store = new ParticleStore(2);
+        for (int idx = 0; idx < 5; idx++)
+            addParticle(store, idx, 1.0f);
+
+        assertEquals(5, store.size());
+        assertTrue(store.capacity() >= 5);
+        for (int idx = 0; idx < 5; idx++)
+            assertEquals(idx, store.positionX[idx], 0.0f);
+    }
+
+    @Test
+    public void copyFrom_copiesActiveParticles() {
+        ParticleStore source = new ParticleStore(4);
+        for (int idx = 0; idx < 10; idx++)
+            addParticle(source, idx, 10.0f);
+        source.update(0.5f, 0.0f, 1.0f);
+
+        ParticleStore copy = new ParticleStore(1);
+        copy.copyFrom(source);
+
+        assertEquals(10, copy.size());
+        for (int idx = 0; idx < 10; idx++) {
+            assertEquals(source.positionX[idx], copy.positionX[idx], 0.0f);
+            assertEquals(source.previousPositionX[idx], copy.previousPositionX[idx], 0.0f);
+            assertEquals(source.timeSinceBirth[idx], copy.timeSinceBirth[idx], 0.0f);
+        }
+
+        // The copy is independent of the source
+        source.update(0.5f, 0.0f, 1.0f);
+        assertNotEquals(source.positionX[0], copy.positionX[0], 0.0f);
+    }
+
+    @Test
+    public void update_doesNotAllocateInSteadyState() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        int numParticles = 50000;
+        ParticleStore store = new ParticleStore(numParticles);
+        for (int idx = 0; idx < numParticles; idx++)
+            addParticle(store, idx, 0.1f + (idx % 97) * 0.01f);
+
+        // Warm up so the update path is compiled before measuring
+        for (int frame = 0; frame < 200; frame++)
+            simulateFrame(store, numParticles);
+
+        // Determine the cost of the measurement itself
+        long baselineStart = threadBean.getThreadAllocatedBytes(threadId);
+        long baselineEnd = threadBean.getThreadAllocatedBytes(threadId);
+        long measurementOverhead = baselineEnd - baselineStart;
+
+        long start = threadBean.getThreadAllocatedBytes(threadId);
+        for (int frame = 0; frame < 500; frame++)
+            simulateFrame(store, numParticles);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - start;
+
+        assertEquals(numParticles, store.size());
+        assertTrue("Allocated " + allocated + " bytes",
+                allocated <= measurementOverhead);
+    }
+
+    /**
+     * Update the store and respawn every particle that died, holding the
+     * store at a constant size.
+     */
+    private static void simulateFrame(ParticleStore store, int numParticles) {
+        store.update(1.0f / 60.0f, 0.0f, 0.1f);
+        for (int idx = store.size(); idx < numParticles; idx++)
+            addParticle(store, idx, 0.1f + (idx % 97) * 0.01f);
+    }
+}
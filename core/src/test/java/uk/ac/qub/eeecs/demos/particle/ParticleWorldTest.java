@@ -0,0 +1,63 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import org.junit.Test;
+
+import uk.ac.qub.eeecs.demos.engine.render.HeadlessTextureSource;
+import uk.ac.qub.eeecs.demos.engine.render.RecordingRenderBackend;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests running the particle world headless
+ */
+public class ParticleWorldTest {
+
+    private static final float STEP_TIME = 1.0f / 60.0f;
+
+    /**
+     * Run a world for the specified number of steps with a fixed touch,
+     * drawing the last step to the backend
+     */
+    private static void run(ParticleWorld world, RecordingRenderBackend backend,
+                            int steps) {
+        Vector2 touch = new Vector2(400.0f, 400.0f);
+        for (int step = 0; step < steps; step++)
+            world.update(STEP_TIME, touch);
+        backend.reset();
+        world.draw(backend, STEP_TIME);
+    }
+
+    @Test
+    public void draw_recordsClearParticlesAndControls() {
+        HeadlessTextureSource textures = new HeadlessTextureSource(32, 32);
+        RecordingRenderBackend backend = new RecordingRenderBackend();
+        ParticleWorld world = new ParticleWorld(textures, null, 7L);
+        run(world, backend, 30);
+
+        int count = backend.getCommandCount();
+        assertTrue(count >= 3);
+        assertEquals(RecordingRenderBackend.CLEAR, backend.getCommandType(0));
+        assertEquals(RecordingRenderBackend.DRAW_PARTICLES, backend.getCommandType(1));
+        assertEquals(RecordingRenderBackend.DRAW_IMAGE, backend.getCommandType(count - 1));
+        assertTrue(backend.getParticleCount() > 0);
+
+        // Every texture acquired by the world is released with it
+        world.release();
+        assertEquals(0, textures.getAcquiredCount());
+    }
+
+    @Test
+    public void worldsWithSameSeed_drawSameFrames() {
+        RecordingRenderBackend first = new RecordingRenderBackend();
+        RecordingRenderBackend second = new RecordingRenderBackend();
+        run(new ParticleWorld(new HeadlessTextureSource(32, 32), null, 7L), first, 120);
+        run(new ParticleWorld(new HeadlessTextureSource(32, 32), null, 7L), second, 120);
+
+        assertEquals(first.getCommandCount(), second.getCommandCount());
+        for (int idx = 0; idx < first.getCommandCount(); idx++) {
+            assertEquals(first.getCommandType(idx), second.getCommandType(idx));
+            assertEquals(first.getCommandParticleCount(idx),
+                    second.getCommandParticleCount(idx));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package uk.ac.qub.eeecs.demos.particle;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the XNA settings mapping and the binary settings form
+ */
+public class XnaParticleSettingsBuilderTest {
+
+    @Test
+    public void build_mapsVectorAcceleration() {
+        XnaParticleSettingsBuilder builder = new XnaParticleSettingsBuilder();
+        builder.setElement("MinNumParticles", "2");
+        builder.setElement("MaxNumParticles", "8");
+        builder.setElement("TextureFilename", "smoke");
+        builder.setElement("MinDirectionAngle", "260");
+        builder.setElement("MaxDirectionAngle", "280");
+        builder.setElement("AccelerationMode", "Vector");
+        builder.setElement("MinAccelerationVector", "10 0");
+        builder.setElement("MaxAccelerationVector", " 0  50 ");
+        builder.setElement("MinLifetime", ".5");
+
+        ParticleSettings settings = builder.build();
+
+        assertEquals("img/Smoke.png", settings.textureFilename);
+        assertFalse(settings.additiveBlend);
+        assertEquals(2, settings.minNumParticles);
+        assertEquals(8, settings.maxNumParticles);
+        assertEquals(260.0f, settings.minOrientationAngle, 0.0f);
+        assertEquals(280.0f, settings.maxOrientationAngle, 0.0f);
+        assertEquals(ParticleSettings.AccelerationMode.NonAligned,
+                settings.accelerationMode);
+        assertEquals(0.0f, settings.minAccelerationDirection, 1e-4f);
+        assertEquals(90.0f, settings.maxAccelerationDirection, 1e-4f);
+        assertEquals(10.0f, settings.minAccelerationMagnitude, 1e-4f);
+        assertEquals(50.0f, settings.maxAccelerationMagnitude, 1e-4f);
+        assertEquals(0.5f, settings.minLifespan, 0.0f);
+    }
+
+    @Test
+    public void build_mapsEndVelocityAndAdditiveBlend() {
+        XnaParticleSettingsBuilder builder = new XnaParticleSettingsBuilder();
+        builder.setElement("AccelerationMode", "EndVelocity");
+        builder.setElement("EndVelocity", "0");
+        builder.setElement("SourceBlend", "SourceAlpha");
+        builder.setElement("DestinationBlend", "One");
+
+        ParticleSettings settings = builder.build();
+
+        assertEquals(ParticleSettings.AccelerationMode.EndVelocity,
+                settings.accelerationMode);
+        assertEquals(0.0f, settings.endVelocity, 0.0f);
+        assertTrue(settings.additiveBlend);
+    }
+
+    @Test
+    public void setElement_ignoresUnknownAndRejectsInvalid() {
+        XnaParticleSettingsBuilder builder = new XnaParticleSettingsBuilder();
+        assertFalse(builder.setElement("EmitPerSecond", "10"));
+        try {
+            builder.setElement("MinSize", "large");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void codec_roundTripsSettings() throws IOException {
+        ParticleSettings settings = ParticleSettings.Explosion;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ParticleSettingsCodec.write(settings, new DataOutputStream(bytes));
+        ParticleSettings read = ParticleSettingsCodec.read(new DataInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(settings.textureFilename, read.textureFilename);
+        assertEquals(settings.additiveBlend, read.additiveBlend);
+        assertEquals(settings.emissionMode, read.emissionMode);
+        assertEquals(settings.accelerationMode, read.accelerationMode);
+        assertEquals(settings.maxNumParticles, read.maxNumParticles);
+        assertEquals(settings.maxAccelerationMagnitude,
+                read.maxAccelerationMagnitude, 0.0f);
+        assertEquals(settings.maxOrientationAngle, read.maxOrientationAngle, 0.0f);
+        assertEquals(settings.maxLifespan, read.maxLifespan, 0.0f);
+        assertEquals(settings.maxScaleGrowth, read.maxScaleGrowth, 0.0f);
+    }
+
+    @Test(expected = IOException.class)
+    public void codec_rejectsOtherData() throws IOException {
+        ParticleSettingsCodec.read(new DataInputStream(
+                new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6 })));
+    }
+}